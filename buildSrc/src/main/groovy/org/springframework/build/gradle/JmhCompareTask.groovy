@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.gradle
+
+import groovy.json.JsonSlurper
+import org.gradle.api.DefaultTask
+import org.gradle.api.GradleException
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.Optional
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * Gradle task that compares the JSON results of a JMH run against a baseline
+ * run (typically produced by the previous release) and writes a plain text
+ * report with the relative difference of each benchmark.
+ *
+ * <p>If a regression threshold (in percent) is configured, the task fails when
+ * any benchmark regressed by more than that threshold.
+ */
+class JmhCompareTask extends DefaultTask {
+
+	@InputFile
+	File resultsFile
+
+	@InputFile
+	@Optional
+	File baselineFile
+
+	@Input
+	@Optional
+	Double regressionThreshold
+
+	@OutputFile
+	File reportFile
+
+
+	@TaskAction
+	void compare() {
+		if (baselineFile == null) {
+			throw new GradleException("No JMH baseline specified: use -PjmhBaseline=<path to results.json>")
+		}
+		Map<String, Map> baseline = readResults(baselineFile)
+		Map<String, Map> current = readResults(resultsFile)
+
+		List<String> regressions = []
+		StringBuilder report = new StringBuilder()
+		report.append(String.format("%-90s %6s %14s %14s %9s%n", "Benchmark", "Mode", "Baseline", "Current", "Change"))
+		current.each { key, result ->
+			Map previous = baseline.get(key)
+			double score = result.primaryMetric.score as double
+			String unit = result.primaryMetric.scoreUnit
+			if (previous == null) {
+				report.append(String.format("%-90s %6s %14s %14.3f %9s  %s%n", key, result.mode, "-", score, "new", unit))
+				return
+			}
+			double previousScore = previous.primaryMetric.score as double
+			double change = (previousScore != 0d ? (score - previousScore) / previousScore * 100d : 0d)
+			// Throughput: higher is better; all other JMH modes measure time: lower is better
+			double improvement = ("thrpt" == result.mode ? change : -change)
+			report.append(String.format("%-90s %6s %14.3f %14.3f %+8.2f%%  %s%n",
+					key, result.mode, previousScore, score, improvement, unit))
+			if (regressionThreshold != null && -improvement > regressionThreshold) {
+				regressions << key
+			}
+		}
+		baseline.keySet().findAll { !current.containsKey(it) }.each {
+			report.append(String.format("%-90s %6s %14s %14s %9s%n", it, baseline.get(it).mode, "", "-", "removed"))
+		}
+
+		reportFile.parentFile.mkdirs()
+		reportFile.text = report.toString()
+		logger.lifecycle(report.toString())
+
+		if (!regressions.isEmpty()) {
+			throw new GradleException("JMH benchmarks regressed by more than " + regressionThreshold +
+					"% against baseline: " + regressions)
+		}
+	}
+
+	private static Map<String, Map> readResults(File file) {
+		if (!file.exists()) {
+			throw new GradleException("JMH results file not found: " + file)
+		}
+		Map<String, Map> results = new LinkedHashMap<>()
+		new JsonSlurper().parse(file).each { Map result ->
+			String key = result.benchmark
+			if (result.params) {
+				key += "[" + result.params.collect { k, v -> k + "=" + v }.join(",") + "]"
+			}
+			results.put(key, result)
+		}
+		return results
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.Callable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+
+/**
+ * Benchmarks for bean retrieval and type lookups on {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"100", "1000", "5000"})
+		public int beanCount;
+
+		@Param({"true", "false"})
+		public boolean frozen;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				Class<?> beanClass = (i % 3 == 0 ? RunnableBean.class : (i % 3 == 1 ? CallableBean.class : PlainBean.class));
+				this.beanFactory.registerBeanDefinition("bean" + i, new RootBeanDefinition(beanClass));
+			}
+			RootBeanDefinition prototype = new RootBeanDefinition(UniqueBean.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+			if (this.frozen) {
+				this.beanFactory.freezeConfiguration();
+			}
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	@Benchmark
+	public Object getSingletonByName(BenchmarkState state) {
+		return state.beanFactory.getBean("bean1");
+	}
+
+	@Benchmark
+	public Object getPrototypeByName(BenchmarkState state) {
+		return state.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public Object getPrototypeByType(BenchmarkState state) {
+		return state.beanFactory.getBean(UniqueBean.class);
+	}
+
+	@Benchmark
+	public String[] getBeanNamesForType(BenchmarkState state) {
+		return state.beanFactory.getBeanNamesForType(Runnable.class);
+	}
+
+	@Benchmark
+	public String[] getBeanNamesForTypeUncached(BenchmarkState state) {
+		state.beanFactory.clearMetadataCache();
+		return state.beanFactory.getBeanNamesForType(Callable.class);
+	}
+
+
+	public static class RunnableBean implements Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+
+	public static class CallableBean implements Callable<String> {
+
+		@Override
+		public String call() {
+			return "call";
+		}
+	}
+
+
+	public static class PlainBean {
+	}
+
+
+	public static class UniqueBean {
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index from bean types to the names of the bean definitions that may match
+ * them, built by {@link DefaultListableBeanFactory} once its configuration
+ * has been frozen.
+ *
+ * <p>Each bean definition whose type can be determined up front is registered
+ * under that type as well as under all of its superclasses and interfaces,
+ * with the matching beans kept as sorted arrays of registration positions.
+ * Bean definitions whose type cannot be determined without further
+ * initialization (e.g. FactoryBeans) are returned as candidates for every
+ * type, and so are beans whose singleton instance turned out to be of a
+ * different type than indexed (e.g. a proxy).
+ *
+ * <p>The index is a pre-filter only: it never drops a bean definition that
+ * could match, in registration order, but the returned candidates still need
+ * to be checked through {@link AbstractBeanFactory#isTypeMatch}.
+ *
+ * @since 5.0.16
+ * @see DefaultListableBeanFactory#freezeConfiguration()
+ */
+final class BeanTypeIndex {
+
+	private static final int[] EMPTY_POSITIONS = new int[0];
+
+
+	private final String[] beanNames;
+
+	private final Class<?>[] beanTypes;
+
+	private final Map<String, Integer> positionsByName;
+
+	private final Map<Class<?>, int[]> positionsByType;
+
+	private final int[] unindexedPositions;
+
+	private final int beanPostProcessorCount;
+
+	private volatile int[] mismatchedPositions = EMPTY_POSITIONS;
+
+
+	/**
+	 * Create a new index for the given bean definitions.
+	 * @param beanNames the bean definition names, in registration order
+	 * @param beanTypes the type of each bean definition, or {@code null} at
+	 * the corresponding position if it cannot be determined up front
+	 * @param beanPostProcessorCount the number of bean post-processors that
+	 * have been taken into account for type prediction
+	 */
+	BeanTypeIndex(String[] beanNames, Class<?>[] beanTypes, int beanPostProcessorCount) {
+		this.beanNames = beanNames;
+		this.beanTypes = beanTypes;
+		this.beanPostProcessorCount = beanPostProcessorCount;
+		this.positionsByName = new HashMap<>(beanNames.length * 4 / 3 + 1);
+
+		Map<Class<?>, Class<?>[]> typeHierarchies = new HashMap<>();
+		Map<Class<?>, PositionsBuilder> builders = new HashMap<>();
+		PositionsBuilder unindexed = new PositionsBuilder();
+		for (int i = 0; i < beanNames.length; i++) {
+			this.positionsByName.put(beanNames[i], i);
+			Class<?> beanType = beanTypes[i];
+			if (beanType == null) {
+				unindexed.add(i);
+				continue;
+			}
+			Class<?>[] hierarchy = typeHierarchies.computeIfAbsent(beanType, BeanTypeIndex::getTypeHierarchy);
+			for (Class<?> type : hierarchy) {
+				builders.computeIfAbsent(type, key -> new PositionsBuilder()).add(i);
+			}
+		}
+
+		this.positionsByType = new HashMap<>(builders.size() * 4 / 3 + 1);
+		builders.forEach((type, builder) -> this.positionsByType.put(type, builder.toArray()));
+		this.unindexedPositions = unindexed.toArray();
+	}
+
+
+	/**
+	 * Return the names of all bean definitions that may match the given type,
+	 * in registration order.
+	 * @param type the raw type to match
+	 */
+	public List<String> getCandidateNames(Class<?> type) {
+		int[] positions = merge(merge(this.positionsByType.getOrDefault(type, EMPTY_POSITIONS),
+				this.unindexedPositions), this.mismatchedPositions);
+		String[] candidateNames = new String[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			candidateNames[i] = this.beanNames[positions[i]];
+		}
+		return Arrays.asList(candidateNames);
+	}
+
+	/**
+	 * Register the actual type of a singleton instance, turning the bean into
+	 * a candidate for every type if it differs from the indexed type.
+	 * @param beanName the name of the singleton bean
+	 * @param singletonType the type of the singleton instance
+	 */
+	public void registerSingletonType(String beanName, Class<?> singletonType) {
+		Integer position = this.positionsByName.get(beanName);
+		if (position != null) {
+			Class<?> beanType = this.beanTypes[position];
+			if (beanType != null && beanType != singletonType) {
+				synchronized (this) {
+					int[] mismatched = this.mismatchedPositions;
+					if (Arrays.binarySearch(mismatched, position) < 0) {
+						this.mismatchedPositions = merge(mismatched, new int[] {position});
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine whether this index has been built for a different
+	 * set of bean post-processors, which may predict different types.
+	 * @param beanPostProcessorCount the current number of bean post-processors
+	 */
+	public boolean isStale(int beanPostProcessorCount) {
+		return (this.beanPostProcessorCount != beanPostProcessorCount);
+	}
+
+	/**
+	 * Return the number of bean definitions registered under their type.
+	 */
+	public int getIndexedBeanCount() {
+		return (this.beanNames.length - this.unindexedPositions.length);
+	}
+
+	/**
+	 * Return the number of distinct types in this index.
+	 */
+	public int getTypeCount() {
+		return this.positionsByType.size();
+	}
+
+	/**
+	 * Return a rough estimate of the heap memory taken up by this index, in bytes.
+	 */
+	public long getEstimatedSize() {
+		// Array headers of 16 bytes, references of 8 bytes, hash map entries of about 48 bytes
+		long size = 16 + 8L * this.beanTypes.length + 48L * this.positionsByName.size();
+		for (int[] positions : this.positionsByType.values()) {
+			size += 48 + 16 + 4L * positions.length;
+		}
+		return size + 16 + 4L * this.unindexedPositions.length + 16 + 4L * this.mismatchedPositions.length;
+	}
+
+	@Override
+	public String toString() {
+		return "BeanTypeIndex with " + getIndexedBeanCount() + " of " + this.beanNames.length +
+				" bean definitions under " + getTypeCount() + " types";
+	}
+
+
+	/**
+	 * Return the given type with all of its superclasses and interfaces,
+	 * including the interfaces extended by those interfaces.
+	 */
+	private static Class<?>[] getTypeHierarchy(Class<?> type) {
+		Set<Class<?>> hierarchy = new LinkedHashSet<>();
+		Class<?> current = type;
+		while (current != null) {
+			addTypeAndInterfaces(current, hierarchy);
+			current = current.getSuperclass();
+		}
+		// Interfaces have no superclass but still match Object
+		hierarchy.add(Object.class);
+		return hierarchy.toArray(new Class<?>[0]);
+	}
+
+	private static void addTypeAndInterfaces(Class<?> type, Set<Class<?>> hierarchy) {
+		if (hierarchy.add(type)) {
+			for (Class<?> ifc : type.getInterfaces()) {
+				addTypeAndInterfaces(ifc, hierarchy);
+			}
+		}
+	}
+
+	/**
+	 * Merge the given sorted arrays of positions into a sorted array without duplicates.
+	 */
+	private static int[] merge(int[] first, int[] second) {
+		if (second.length == 0) {
+			return first;
+		}
+		if (first.length == 0) {
+			return second;
+		}
+		int[] result = new int[first.length + second.length];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < first.length && j < second.length) {
+			if (first[i] < second[j]) {
+				result[k++] = first[i++];
+			}
+			else if (first[i] > second[j]) {
+				result[k++] = second[j++];
+			}
+			else {
+				result[k++] = first[i++];
+				j++;
+			}
+		}
+		while (i < first.length) {
+			result[k++] = first[i++];
+		}
+		while (j < second.length) {
+			result[k++] = second[j++];
+		}
+		return (k == result.length ? result : Arrays.copyOf(result, k));
+	}
+
+
+	/**
+	 * Growable array of ascending positions.
+	 */
+	private static class PositionsBuilder {
+
+		private int[] positions = new int[4];
+
+		private int size;
+
+		public void add(int position) {
+			if (this.size == this.positions.length) {
+				this.positions = Arrays.copyOf(this.positions, this.size * 2);
+			}
+			this.positions[this.size++] = position;
+		}
+
+		public int[] toArray() {
+			return Arrays.copyOf(this.positions, this.size);
+		}
+	}
+
+}
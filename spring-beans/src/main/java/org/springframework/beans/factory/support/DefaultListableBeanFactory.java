@@ -144,6 +144,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans */
 	private boolean allowEagerClassLoading = true;
 
+	/** Number of threads to pre-instantiate singletons on */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -176,6 +179,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether bean definition metadata may be cached for all beans */
 	private volatile boolean configurationFrozen = false;
 
+	/** Index of bean definition names by type in case of frozen configuration */
+	@Nullable
+	private volatile BeanTypeIndex beanTypeIndex;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -260,6 +267,33 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the number of threads to pre-instantiate singletons on.
+	 * <p>Default is 1, creating all non-lazy singletons one after the other on the
+	 * thread that calls {@link #preInstantiateSingletons()}. With a higher value,
+	 * singletons that do not depend on each other get created concurrently, in an
+	 * order derived from their "depends-on" declarations, their bean references and
+	 * the beans that match the parameters of their autowired constructors or factory
+	 * methods. Singletons involved in circular references are still created serially.
+	 * <p>Turn this on for applications where the initialization of many singletons
+	 * is dominated by I/O, e.g. for connecting to remote services. Note that all
+	 * bean post-processors and initialization callbacks need to be thread-safe then.
+	 * @since 5.0.16
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be at least 1");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to pre-instantiate singletons on.
+	 * @since 5.0.16
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -315,6 +349,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(
@@ -405,8 +440,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
-		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions that may match the given type.
+		for (String beanName : getBeanDefinitionNamesToCheck(type)) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
@@ -487,6 +522,106 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Determine the names of the bean definitions to check for the given type:
+	 * the candidates from the bean type index in case of frozen configuration,
+	 * or all bean definition names otherwise.
+	 * @param type the type to match
+	 * @return the bean definition names to check, in registration order
+	 */
+	private List<String> getBeanDefinitionNamesToCheck(ResolvableType type) {
+		Class<?> rawType = type.resolve();
+		if (rawType != null && rawType != Object.class) {
+			BeanTypeIndex index = obtainBeanTypeIndex();
+			if (index != null) {
+				return index.getCandidateNames(rawType);
+			}
+		}
+		return this.beanDefinitionNames;
+	}
+
+	/**
+	 * Return the bean type index for the frozen configuration of this factory,
+	 * building it if necessary.
+	 * @return the index, or {@code null} if the configuration is not frozen
+	 * or types are currently being matched through a temporary ClassLoader
+	 * @see #freezeConfiguration()
+	 */
+	@Nullable
+	private BeanTypeIndex obtainBeanTypeIndex() {
+		if (!this.configurationFrozen || getTempClassLoader() != null) {
+			return null;
+		}
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index == null || index.isStale(getBeanPostProcessorCount())) {
+			List<String> beanNames = this.beanDefinitionNames;
+			index = buildBeanTypeIndex(StringUtils.toStringArray(beanNames));
+			if (this.beanDefinitionNames == beanNames) {
+				this.beanTypeIndex = index;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Build a type index for the given bean definitions, registering each bean
+	 * under its type if that type can be determined without initialization.
+	 * @param beanNames the bean definition names to index
+	 * @return the type index
+	 */
+	private BeanTypeIndex buildBeanTypeIndex(String[] beanNames) {
+		long startTime = System.nanoTime();
+		Class<?>[] beanTypes = new Class<?>[beanNames.length];
+		for (int i = 0; i < beanNames.length; i++) {
+			beanTypes[i] = determineIndexedBeanType(beanNames[i]);
+		}
+		BeanTypeIndex index = new BeanTypeIndex(beanNames, beanTypes, getBeanPostProcessorCount());
+		if (logger.isDebugEnabled()) {
+			logger.debug("Built " + index + " in " + (System.nanoTime() - startTime) / 1000000 +
+					" ms, taking up about " + index.getEstimatedSize() / 1024 + " KB");
+		}
+		return index;
+	}
+
+	/**
+	 * Determine the type to index the given bean definition under: the type of
+	 * its singleton instance or its predicted type, as long as type matching
+	 * does not depend on further initialization or the actual bean instance.
+	 * @param beanName the name of the bean definition
+	 * @return the type to index, or {@code null} if the bean definition has
+	 * to be checked for every type
+	 */
+	@Nullable
+	private Class<?> determineIndexedBeanType(String beanName) {
+		if (isAlias(beanName)) {
+			return null;
+		}
+		try {
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			// Non-singletons might get proxied, changing their predicted type
+			// once created; scoped proxies expose the type of their target.
+			if (mbd.isAbstract() || !mbd.isSingleton() || mbd.getDecoratedDefinition() != null ||
+					!(mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) ||
+					requiresEagerInitForType(mbd.getFactoryBeanName())) {
+				return null;
+			}
+			Object beanInstance = getSingleton(beanName, false);
+			if (beanInstance != null) {
+				return (beanInstance instanceof FactoryBean || beanInstance.getClass() == NullBean.class ?
+						null : beanInstance.getClass());
+			}
+			if (isFactoryBean(beanName, mbd)) {
+				return null;
+			}
+			Class<?> beanType = predictBeanType(beanName, mbd);
+			return (beanType != null && !FactoryBean.class.isAssignableFrom(beanType) ? beanType : null);
+		}
+		catch (BeansException ex) {
+			// Type not determinable at this point: to be checked for every type then.
+			return null;
+		}
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -694,13 +829,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
+		this.beanTypeIndex = null;
 		clearByTypeCache();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>This implementation also builds an index of all bean definition names
+	 * by type, narrowing subsequent type lookups down to the bean definitions
+	 * that may match the requested type. The index gets rebuilt on demand
+	 * whenever bean definitions change after the configuration has been frozen.
+	 */
 	@Override
 	public void freezeConfiguration() {
 		this.configurationFrozen = true;
 		this.frozenBeanDefinitionNames = StringUtils.toStringArray(this.beanDefinitionNames);
+		obtainBeanTypeIndex();
 	}
 
 	@Override
@@ -728,7 +872,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// While this may not be part of the regular factory bootstrap, it does otherwise work fine.
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
-		// Trigger initialization of all non-lazy singleton beans...
+		// Create independent non-lazy singleton beans in parallel, if configured...
+		if (this.preInstantiationParallelism > 1) {
+			new ParallelSingletonPreInstantiator(this, this.preInstantiationParallelism).preInstantiateSingletons(beanNames);
+		}
+
+		// Trigger initialization of all (remaining) non-lazy singleton beans...
 		for (String beanName : beanNames) {
 			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
 			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
@@ -852,6 +1001,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			this.frozenBeanDefinitionNames = null;
 		}
+		this.beanTypeIndex = null;
 
 		if (existingDefinition != null || containsSingleton(beanName)) {
 			resetBeanDefinition(beanName);
@@ -883,6 +1033,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndex = null;
 
 		resetBeanDefinition(beanName);
 	}
@@ -945,6 +1096,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index != null) {
+			index.registerSingletonType(beanName, singletonObject.getClass());
+		}
+	}
+
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -109,6 +109,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Map between depending bean names: bean name --> Set of bean names for the bean's dependencies */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
+	/** Per-bean creation locks while singletons are created in parallel, if any */
+	@Nullable
+	private volatile SingletonCreationLocks singletonCreationLocks;
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
@@ -176,6 +180,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+			SingletonCreationLocks creationLocks = this.singletonCreationLocks;
+			if (creationLocks != null && creationLocks.isLockedByOtherThread(beanName)) {
+				// Never expose an early reference to a singleton that another thread creates.
+				return null;
+			}
 			synchronized (this.singletonObjects) {
 				singletonObject = this.earlySingletonObjects.get(beanName);
 				if (singletonObject == null && allowEarlyReference) {
@@ -201,55 +210,82 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		SingletonCreationLocks creationLocks = this.singletonCreationLocks;
+		if (creationLocks != null) {
+			creationLocks.lock(beanName);
+			try {
+				return getOrCreateSingleton(beanName, singletonFactory, false);
+			}
+			finally {
+				creationLocks.unlock(beanName);
+			}
+		}
 		synchronized (this.singletonObjects) {
-			Object singletonObject = this.singletonObjects.get(beanName);
-			if (singletonObject == null) {
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				beforeSingletonCreation(beanName);
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
-				}
-				try {
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
-				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
-				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
+			return getOrCreateSingleton(beanName, singletonFactory, true);
+		}
+	}
+
+	/**
+	 * Return the (raw) singleton object registered under the given name,
+	 * creating and registering a new one if none registered yet.
+	 * <p>To be called with the singleton mutex or the bean's creation lock held.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton
+	 * with, if necessary
+	 * @param collectSuppressedExceptions whether suppressed exceptions may be
+	 * collected in the shared registry state during creation
+	 * @return the registered singleton object
+	 */
+	private Object getOrCreateSingleton(
+			String beanName, ObjectFactory<?> singletonFactory, boolean collectSuppressedExceptions) {
+
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject == null) {
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			beforeSingletonCreation(beanName);
+			boolean newSingleton = false;
+			boolean recordSuppressedExceptions = (collectSuppressedExceptions && this.suppressedExceptions == null);
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions = new LinkedHashSet<>();
+			}
+			try {
+				singletonObject = singletonFactory.getObject();
+				newSingleton = true;
+			}
+			catch (IllegalStateException ex) {
+				// Has the singleton object implicitly appeared in the meantime ->
+				// if yes, proceed with it since the exception indicates that state.
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
 					throw ex;
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+			}
+			catch (BeanCreationException ex) {
+				if (recordSuppressedExceptions) {
+					for (Exception suppressedException : this.suppressedExceptions) {
+						ex.addRelatedCause(suppressedException);
 					}
-					afterSingletonCreation(beanName);
 				}
-				if (newSingleton) {
-					addSingleton(beanName, singletonObject);
+				throw ex;
+			}
+			finally {
+				if (recordSuppressedExceptions) {
+					this.suppressedExceptions = null;
 				}
+				afterSingletonCreation(beanName);
+			}
+			if (newSingleton) {
+				addSingleton(beanName, singletonObject);
 			}
-			return singletonObject;
 		}
+		return singletonObject;
 	}
 
 	/**
@@ -614,4 +650,34 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+	/**
+	 * Switch singleton creation from the singleton mutex to per-bean creation
+	 * locks, allowing for independent singletons to be created on several
+	 * threads at once. Early references to a singleton in creation are only
+	 * exposed to the thread that creates it in this mode.
+	 * @see #endParallelSingletonCreation()
+	 * @see #checkSingletonCreationConflict()
+	 */
+	void beginParallelSingletonCreation() {
+		this.singletonCreationLocks = new SingletonCreationLocks(this.singletonObjects);
+	}
+
+	/**
+	 * Switch singleton creation back to the singleton mutex.
+	 * @see #beginParallelSingletonCreation()
+	 */
+	void endParallelSingletonCreation() {
+		this.singletonCreationLocks = null;
+	}
+
+	/**
+	 * Check whether the current thread ran into a conflict with a singleton
+	 * created by another thread since the last check.
+	 * @see SingletonCreationConflictException
+	 */
+	boolean checkSingletonCreationConflict() {
+		SingletonCreationLocks creationLocks = this.singletonCreationLocks;
+		return (creationLocks != null && creationLocks.checkConflict());
+	}
+
 }
@@ -0,0 +1,456 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Delegate for pre-instantiating the non-lazy singletons of a
+ * {@link DefaultListableBeanFactory} on several threads at once.
+ *
+ * <p>Builds a dependency graph between the singletons to create from their
+ * "depends-on" declarations, the dependent beans registered so far, their bean
+ * references and the beans matching the parameters of the constructors or
+ * factory methods to be autowired. Each singleton is then created on a bounded
+ * {@link ForkJoinPool} as soon as its known dependencies have been created.
+ *
+ * <p>FactoryBeans are initialized upfront on the calling thread since their
+ * object types are needed for matching by type. Beans involved in or depending
+ * on circular references in the graph are left to the regular serial pass of
+ * {@link DefaultListableBeanFactory#preInstantiateSingletons()}, and so are
+ * beans whose creation ran into a {@link SingletonCreationConflictException}
+ * because of dependencies that cannot be determined upfront (e.g. autowired
+ * fields leading into a circular reference).
+ *
+ * @since 5.0.16
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ */
+class ParallelSingletonPreInstantiator {
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final int parallelism;
+
+	private final Log logger;
+
+	private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+	private final Set<String> deferredBeanNames = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean failed;
+
+
+	/**
+	 * Create a new ParallelSingletonPreInstantiator for the given factory.
+	 * @param beanFactory the BeanFactory to work with
+	 * @param parallelism the maximum number of threads to create singletons on
+	 */
+	public ParallelSingletonPreInstantiator(DefaultListableBeanFactory beanFactory, int parallelism) {
+		this.beanFactory = beanFactory;
+		this.parallelism = parallelism;
+		this.logger = beanFactory.getLogger();
+	}
+
+
+	/**
+	 * Create as many of the non-lazy singletons among the given beans as
+	 * possible in parallel, leaving all others for serial initialization.
+	 * @param beanNames the names of the bean definitions, in registration order
+	 * @throws RuntimeException the first exception thrown by the creation of a singleton
+	 * (in registration order), if any
+	 */
+	public void preInstantiateSingletons(List<String> beanNames) {
+		long startTime = System.currentTimeMillis();
+		Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				if (this.beanFactory.isFactoryBean(beanName)) {
+					this.beanFactory.getBean(BeanFactory.FACTORY_BEAN_PREFIX + beanName);
+				}
+				else if (!this.beanFactory.containsSingleton(beanName)) {
+					Set<String> beanDependencies = determineDependencies(beanName, bd);
+					if (beanDependencies != null) {
+						dependencies.put(beanName, beanDependencies);
+					}
+				}
+			}
+		}
+		List<String> sortedBeanNames = new DependencySorter(dependencies).sort();
+		if (sortedBeanNames.size() < 2) {
+			return;
+		}
+
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		AtomicInteger threadCount = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("singleton-pre-instantiation-" + threadCount.incrementAndGet());
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}, null, false);
+		this.beanFactory.beginParallelSingletonCreation();
+		try {
+			Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+			for (String beanName : sortedBeanNames) {
+				CompletableFuture<?>[] dependencyFutures = dependencies.get(beanName).stream()
+						.map(futures::get).filter(future -> future != null).toArray(CompletableFuture[]::new);
+				futures.put(beanName, CompletableFuture.allOf(dependencyFutures).handleAsync((result, ex) -> {
+					preInstantiateSingleton(beanName);
+					return null;
+				}, pool));
+			}
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+		}
+		finally {
+			this.beanFactory.endParallelSingletonCreation();
+			pool.shutdown();
+		}
+
+		for (String beanName : sortedBeanNames) {
+			Throwable ex = this.failures.get(beanName);
+			if (ex != null) {
+				if (this.failures.size() > 1 && logger.isDebugEnabled()) {
+					logger.debug("Pre-instantiation of further singletons failed as well: " + this.failures);
+				}
+				if (ex instanceof Error) {
+					throw (Error) ex;
+				}
+				throw (RuntimeException) ex;
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiated " + (sortedBeanNames.size() - this.deferredBeanNames.size()) +
+					" singletons on " + this.parallelism + " threads in " +
+					(System.currentTimeMillis() - startTime) + " ms, leaving " +
+					(dependencies.size() - sortedBeanNames.size() + this.deferredBeanNames.size()) +
+					" singletons with circular or conflicting dependencies for serial initialization" +
+					(this.deferredBeanNames.isEmpty() ? "" : " (including " + this.deferredBeanNames + ")"));
+		}
+	}
+
+	/**
+	 * Create the given singleton on the current thread, recording failures
+	 * and deferring the singleton in case of a conflict with another thread.
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (this.failed) {
+			return;
+		}
+		this.beanFactory.checkSingletonCreationConflict();
+		try {
+			this.beanFactory.getBean(beanName);
+		}
+		catch (RuntimeException | Error ex) {
+			if (this.beanFactory.checkSingletonCreationConflict()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Deferring singleton '" + beanName + "' to serial initialization: " + ex);
+				}
+				this.deferredBeanNames.add(beanName);
+			}
+			else {
+				this.failures.put(beanName, ex);
+				this.failed = true;
+			}
+		}
+	}
+
+	/**
+	 * Determine the names of all beans that the given bean is known to depend on.
+	 * @param beanName the name of the bean
+	 * @param mbd the merged bean definition for the bean
+	 * @return the canonical names of the dependencies, or {@code null} if they
+	 * could not be determined
+	 */
+	@Nullable
+	private Set<String> determineDependencies(String beanName, RootBeanDefinition mbd) {
+		Set<String> dependencies = new LinkedHashSet<>();
+		try {
+			addReferencedBeanNames(mbd, dependencies);
+			Collections.addAll(dependencies, this.beanFactory.getDependenciesForBean(beanName));
+			for (Executable executable : determineAutowireCandidateExecutables(beanName, mbd)) {
+				for (int i = 0; i < executable.getParameterCount(); i++) {
+					addAutowireCandidateNames(MethodParameter.forExecutable(executable, i), dependencies);
+				}
+			}
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot determine dependencies of singleton '" + beanName +
+						"' - leaving it for serial initialization: " + ex);
+			}
+			return null;
+		}
+
+		Set<String> canonicalNames = new LinkedHashSet<>(dependencies.size());
+		for (String dependency : dependencies) {
+			canonicalNames.add(this.beanFactory.canonicalName(BeanFactoryUtils.transformedBeanName(dependency)));
+		}
+		canonicalNames.remove(beanName);
+		return canonicalNames;
+	}
+
+	/**
+	 * Add the names of all beans that the given bean definition explicitly
+	 * refers to, including the references of its inner bean definitions.
+	 */
+	private void addReferencedBeanNames(BeanDefinition bd, Set<String> result) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(result, dependsOn);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			result.add(bd.getFactoryBeanName());
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues argumentValues = bd.getConstructorArgumentValues();
+			for (ValueHolder valueHolder : argumentValues.getIndexedArgumentValues().values()) {
+				addReferencedBeanNames(valueHolder.getValue(), result);
+			}
+			for (ValueHolder valueHolder : argumentValues.getGenericArgumentValues()) {
+				addReferencedBeanNames(valueHolder.getValue(), result);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				addReferencedBeanNames(pv.getValue(), result);
+			}
+		}
+	}
+
+	private void addReferencedBeanNames(@Nullable Object value, Set<String> result) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				result.add(ref.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			addReferencedBeanNames(((BeanDefinitionHolder) value).getBeanDefinition(), result);
+		}
+		else if (value instanceof BeanDefinition) {
+			addReferencedBeanNames((BeanDefinition) value, result);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				addReferencedBeanNames(element, result);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				addReferencedBeanNames(entry.getKey(), result);
+				addReferencedBeanNames(entry.getValue(), result);
+			}
+		}
+	}
+
+	/**
+	 * Determine the constructors or factory methods that may be autowired
+	 * for creating the given bean.
+	 */
+	private List<Executable> determineAutowireCandidateExecutables(String beanName, RootBeanDefinition mbd) {
+		boolean autowireConstructor =
+				(mbd.getResolvedAutowireMode() == AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR);
+		if (mbd.getFactoryMethodName() != null) {
+			if (!autowireConstructor) {
+				return Collections.emptyList();
+			}
+			Method resolvedFactoryMethod = mbd.getResolvedFactoryMethod();
+			if (resolvedFactoryMethod != null) {
+				return Collections.singletonList(resolvedFactoryMethod);
+			}
+			Class<?> factoryClass = (mbd.getFactoryBeanName() != null ?
+					this.beanFactory.getType(mbd.getFactoryBeanName()) : this.beanFactory.resolveBeanClass(mbd, beanName));
+			if (factoryClass == null) {
+				return Collections.emptyList();
+			}
+			List<Executable> factoryMethods = new ArrayList<>();
+			for (Method candidate : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(factoryClass))) {
+				if (mbd.isFactoryMethod(candidate)) {
+					factoryMethods.add(candidate);
+				}
+			}
+			return factoryMethods;
+		}
+
+		Class<?> beanClass = this.beanFactory.resolveBeanClass(mbd, beanName);
+		if (beanClass == null) {
+			return Collections.emptyList();
+		}
+		Constructor<?>[] ctors = this.beanFactory.determineConstructorsFromBeanPostProcessors(beanClass, beanName);
+		if (ctors == null && autowireConstructor) {
+			ctors = (mbd.isNonPublicAccessAllowed() ? beanClass.getDeclaredConstructors() : beanClass.getConstructors());
+		}
+		return (ctors != null ? Arrays.asList(ctors) : Collections.emptyList());
+	}
+
+	/**
+	 * Add the names of all beans that may be injected into the given parameter,
+	 * unless the parameter asks for lazy resolution.
+	 */
+	private void addAutowireCandidateNames(MethodParameter parameter, Set<String> result) {
+		ResolvableType type = ResolvableType.forMethodParameter(parameter);
+		Class<?> rawType = type.resolve();
+		if (rawType == null || ObjectFactory.class.isAssignableFrom(rawType) ||
+				"javax.inject.Provider".equals(rawType.getName())) {
+			return;
+		}
+		if (rawType == Optional.class) {
+			type = type.getGeneric();
+		}
+		else if (rawType.isArray()) {
+			type = type.getComponentType();
+		}
+		else if (Collection.class.isAssignableFrom(rawType)) {
+			type = type.asCollection().getGeneric();
+		}
+		else if (Map.class.isAssignableFrom(rawType)) {
+			type = type.asMap().getGeneric(1);
+		}
+		Class<?> dependencyType = type.resolve();
+		if (dependencyType != null && dependencyType != Object.class) {
+			Collections.addAll(result, this.beanFactory.getBeanNamesForType(dependencyType, true, false));
+		}
+	}
+
+
+	/**
+	 * Topological sort of a dependency graph through Tarjan's algorithm for
+	 * strongly connected components, leaving out all beans involved in or
+	 * (transitively) depending on circular references.
+	 */
+	private static class DependencySorter {
+
+		private final Map<String, Set<String>> dependencies;
+
+		private final Map<String, Integer> indexes = new HashMap<>();
+
+		private final Map<String, Integer> lowLinks = new HashMap<>();
+
+		private final LinkedList<String> stack = new LinkedList<>();
+
+		private final Set<String> onStack = new HashSet<>();
+
+		private final Set<String> excluded = new HashSet<>();
+
+		private final List<String> sorted = new ArrayList<>();
+
+		public DependencySorter(Map<String, Set<String>> dependencies) {
+			this.dependencies = dependencies;
+		}
+
+		/**
+		 * Return the bean names in an order where each bean comes after
+		 * its dependencies, restricting the dependencies to the beans
+		 * to be sorted.
+		 */
+		public List<String> sort() {
+			for (Set<String> beanDependencies : this.dependencies.values()) {
+				beanDependencies.retainAll(this.dependencies.keySet());
+			}
+			for (String beanName : this.dependencies.keySet()) {
+				if (!this.indexes.containsKey(beanName)) {
+					visit(beanName);
+				}
+			}
+			return this.sorted;
+		}
+
+		private void visit(String beanName) {
+			int index = this.indexes.size();
+			this.indexes.put(beanName, index);
+			this.lowLinks.put(beanName, index);
+			this.stack.push(beanName);
+			this.onStack.add(beanName);
+
+			for (String dependency : this.dependencies.get(beanName)) {
+				if (!this.indexes.containsKey(dependency)) {
+					visit(dependency);
+					this.lowLinks.put(beanName, Math.min(this.lowLinks.get(beanName), this.lowLinks.get(dependency)));
+				}
+				else if (this.onStack.contains(dependency)) {
+					this.lowLinks.put(beanName, Math.min(this.lowLinks.get(beanName), this.indexes.get(dependency)));
+				}
+			}
+
+			if (this.lowLinks.get(beanName) == index) {
+				List<String> component = new ArrayList<>();
+				String member;
+				do {
+					member = this.stack.pop();
+					this.onStack.remove(member);
+					component.add(member);
+				}
+				while (!member.equals(beanName));
+				// Dependencies of all members have been emitted before: check for exclusions.
+				boolean exclude = (component.size() > 1);
+				for (String candidate : component) {
+					for (String dependency : this.dependencies.get(candidate)) {
+						if (this.excluded.contains(dependency)) {
+							exclude = true;
+						}
+					}
+				}
+				if (exclude) {
+					this.excluded.addAll(component);
+				}
+				else {
+					this.sorted.add(beanName);
+				}
+			}
+		}
+	}
+
+}
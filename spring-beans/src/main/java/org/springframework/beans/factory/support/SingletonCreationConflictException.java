@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.springframework.beans.factory.BeanCreationException;
+
+/**
+ * Internal exception thrown by {@link SingletonCreationLocks} when a thread
+ * would have to wait for a singleton that is being created by another thread
+ * in a way that may deadlock, to be caught by the initiating
+ * {@link DefaultListableBeanFactory#preInstantiateSingletons()} which then
+ * retries the affected bean serially.
+ *
+ * @since 5.0.16
+ */
+@SuppressWarnings("serial")
+class SingletonCreationConflictException extends BeanCreationException {
+
+	public SingletonCreationConflictException(String beanName, String msg) {
+		super(beanName, msg);
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reentrant per-bean creation locks, used by {@link DefaultSingletonBeanRegistry}
+ * instead of its singleton mutex while singletons are created on several threads
+ * at once.
+ *
+ * <p>A thread that would have to wait for a singleton which is currently created
+ * by another thread fails with a {@link SingletonCreationConflictException}
+ * instead of waiting if that other thread is (transitively) waiting for one of
+ * its own singletons, or if it holds the singleton mutex itself. Such conflicts
+ * are recorded per thread, so that they can be detected by the initiator even
+ * if the exception got swallowed along the way.
+ *
+ * @since 5.0.16
+ * @see DefaultSingletonBeanRegistry#getSingleton(String, org.springframework.beans.factory.ObjectFactory)
+ */
+final class SingletonCreationLocks {
+
+	private final Object singletonMutex;
+
+	/** Creation lock owners: bean name --> owner */
+	private final Map<String, LockOwner> lockOwners = new HashMap<>();
+
+	/** Threads waiting for a creation lock: thread --> bean name */
+	private final Map<Thread, String> waitingThreads = new HashMap<>();
+
+	/** Threads that ran into a conflict since their last check */
+	private final Set<Thread> conflictedThreads = ConcurrentHashMap.newKeySet();
+
+
+	SingletonCreationLocks(Object singletonMutex) {
+		this.singletonMutex = singletonMutex;
+	}
+
+
+	/**
+	 * Acquire the creation lock for the given bean, waiting for another thread
+	 * to finish its creation if necessary.
+	 * @param beanName the name of the bean
+	 * @throws SingletonCreationConflictException if waiting may lead to a deadlock
+	 */
+	public synchronized void lock(String beanName) {
+		Thread currentThread = Thread.currentThread();
+		LockOwner owner = this.lockOwners.get(beanName);
+		while (owner != null && owner.thread != currentThread) {
+			if (Thread.holdsLock(this.singletonMutex)) {
+				throw conflict(beanName, "Singleton bean '" + beanName + "' is currently in creation " +
+						"on thread '" + owner.thread.getName() + "' while holding the singleton mutex");
+			}
+			if (isWaitingFor(owner.thread, currentThread)) {
+				throw conflict(beanName, "Singleton bean '" + beanName + "' is currently in creation " +
+						"on thread '" + owner.thread.getName() + "' which is waiting for this thread");
+			}
+			this.waitingThreads.put(currentThread, beanName);
+			try {
+				wait();
+			}
+			catch (InterruptedException ex) {
+				currentThread.interrupt();
+				throw conflict(beanName, "Interrupted while waiting for creation of singleton bean '" +
+						beanName + "' on thread '" + owner.thread.getName() + "'");
+			}
+			finally {
+				this.waitingThreads.remove(currentThread);
+			}
+			owner = this.lockOwners.get(beanName);
+		}
+		if (owner == null) {
+			owner = new LockOwner(currentThread);
+			this.lockOwners.put(beanName, owner);
+		}
+		owner.holdCount++;
+	}
+
+	/**
+	 * Release the creation lock for the given bean, if held by the current thread.
+	 * @param beanName the name of the bean
+	 */
+	public synchronized void unlock(String beanName) {
+		LockOwner owner = this.lockOwners.get(beanName);
+		if (owner != null && owner.thread == Thread.currentThread() && --owner.holdCount == 0) {
+			this.lockOwners.remove(beanName);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Determine whether the creation lock for the given bean is currently
+	 * held by a thread other than the current one.
+	 * @param beanName the name of the bean
+	 */
+	public synchronized boolean isLockedByOtherThread(String beanName) {
+		LockOwner owner = this.lockOwners.get(beanName);
+		return (owner != null && owner.thread != Thread.currentThread());
+	}
+
+	/**
+	 * Check whether the current thread ran into a conflict since the last
+	 * check, resetting that state for the current thread.
+	 */
+	public boolean checkConflict() {
+		return this.conflictedThreads.remove(Thread.currentThread());
+	}
+
+	/**
+	 * Determine whether the given thread is waiting for a creation lock
+	 * held by the target thread, either directly or through other threads.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread targetThread) {
+		Thread current = thread;
+		for (int i = 0; i < this.waitingThreads.size(); i++) {
+			String beanName = this.waitingThreads.get(current);
+			LockOwner owner = (beanName != null ? this.lockOwners.get(beanName) : null);
+			if (owner == null) {
+				return false;
+			}
+			if (owner.thread == targetThread) {
+				return true;
+			}
+			current = owner.thread;
+		}
+		return false;
+	}
+
+	private SingletonCreationConflictException conflict(String beanName, String msg) {
+		this.conflictedThreads.add(Thread.currentThread());
+		return new SingletonCreationConflictException(beanName, msg);
+	}
+
+
+	/**
+	 * Owner of a creation lock, with its number of reentrant acquisitions.
+	 */
+	private static class LockOwner {
+
+		final Thread thread;
+
+		int holdCount;
+
+		LockOwner(Thread thread) {
+			this.thread = thread;
+		}
+	}
+
+}
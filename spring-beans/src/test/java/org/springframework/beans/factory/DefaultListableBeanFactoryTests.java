@@ -86,6 +86,7 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.lang.Nullable;
 import org.springframework.tests.Assume;
 import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.AgeHolder;
 import org.springframework.tests.sample.beans.DependenciesBean;
 import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.ITestBean;
@@ -1764,6 +1765,80 @@ public class DefaultListableBeanFactoryTests {
 		assertEquals("&factoryBean", beanNames[0]);
 	}
 
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfiguration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		RootBeanDefinition prototype = new RootBeanDefinition(DerivedTestBean.class);
+		prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("prototype", prototype);
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		lbf.registerBeanDefinition("derived", new RootBeanDefinition(DerivedTestBean.class));
+		lbf.freezeConfiguration();
+
+		assertArrayEquals(new String[] {"tb", "factory", "prototype", "derived"},
+				lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb", "factory", "prototype", "derived"},
+				lbf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"tb", "factory", "derived"},
+				lbf.getBeanNamesForType(TestBean.class, false, true));
+		assertArrayEquals(new String[] {"prototype", "derived"}, lbf.getBeanNamesForType(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"nested"}, lbf.getBeanNamesForType(NestedTestBean.class));
+		assertArrayEquals(new String[] {"&factory"}, lbf.getBeanNamesForType(FactoryBean.class));
+		assertArrayEquals(new String[] {"tb", "factory", "prototype", "nested", "derived"},
+				lbf.getBeanNamesForType(Object.class));
+		assertEquals(0, lbf.getBeanNamesForType(Runnable.class).length);
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndSuperInterface() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		RootBeanDefinition ifcDefinition = new RootBeanDefinition(ITestBean.class);
+		ifcDefinition.setInstanceSupplier(TestBean::new);
+		lbf.registerBeanDefinition("ifc", ifcDefinition);
+		lbf.freezeConfiguration();
+
+		assertArrayEquals(new String[] {"tb", "ifc"}, lbf.getBeanNamesForType(AgeHolder.class));
+		assertArrayEquals(new String[] {"tb", "nested", "ifc"}, lbf.getBeanNamesForType(Object.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndReplacedSingleton() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return (bean instanceof TestBean ? new NestedTestBean(beanName) : bean);
+			}
+		});
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(TestBean.class, true, false));
+		assertEquals(0, lbf.getBeanNamesForType(NestedTestBean.class, true, false).length);
+
+		lbf.getBean("tb");
+		assertEquals(0, lbf.getBeanNamesForType(TestBean.class, true, false).length);
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(NestedTestBean.class, true, false));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndLateRegistration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(TestBean.class, true, false));
+
+		lbf.registerBeanDefinition("derived", new RootBeanDefinition(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"tb", "derived"}, lbf.getBeanNamesForType(TestBean.class, true, false));
+
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(NestedTestBean.class));
+		assertArrayEquals(new String[] {"derived"}, lbf.getBeanNamesForType(TestBean.class, true, false));
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(NestedTestBean.class, true, false));
+	}
+
 	/**
 	 * Verifies that a dependency on a {@link FactoryBean} can <strong>not</strong>
 	 * be autowired <em>by name</em>, as &amp; is an illegal character in
@@ -2080,6 +2155,93 @@ public class DefaultListableBeanFactoryTests {
 		}
 	}
 
+	@Test
+	public void testExtensiveCircularReferenceWithParallelPreInstantiation() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 1000; i++) {
+			MutablePropertyValues pvs = new MutablePropertyValues();
+			pvs.addPropertyValue(new PropertyValue("spouse", new RuntimeBeanReference("bean" + (i < 99 ? i + 1 : 0))));
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.setPropertyValues(pvs);
+			lbf.registerBeanDefinition("bean" + i, bd);
+		}
+		lbf.preInstantiateSingletons();
+		for (int i = 0; i < 1000; i++) {
+			TestBean bean = (TestBean) lbf.getBean("bean" + i);
+			TestBean otherBean = (TestBean) lbf.getBean("bean" + (i < 99 ? i + 1 : 0));
+			assertTrue(bean.getSpouse() == otherBean);
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithConstructorDependencies() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 20; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBeanRecipient.class);
+			bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+			lbf.registerBeanDefinition("recipient" + i, bd);
+		}
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("spouse", new RuntimeBeanReference("spouse"));
+		bd.setPrimary(true);
+		lbf.registerBeanDefinition("testBean", bd);
+		lbf.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		lbf.freezeConfiguration();
+		lbf.preInstantiateSingletons();
+
+		TestBean testBean = lbf.getBean("testBean", TestBean.class);
+		assertSame(lbf.getBean("spouse"), testBean.getSpouse());
+		for (int i = 0; i < 20; i++) {
+			assertSame(testBean, lbf.getBean("recipient" + i, TestBeanRecipient.class).testBean);
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithUndeclaredCircularReference() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 10; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(CircularReferenceBean.class);
+			bd.getPropertyValues().add("other", new RuntimeBeanReference(i % 2 == 0 ? "first" : "second"));
+			lbf.registerBeanDefinition("holder" + i, bd);
+		}
+		RootBeanDefinition bd = new RootBeanDefinition(CircularReferenceBean.class);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_NAME);
+		lbf.registerBeanDefinition("first", bd);
+		bd = new RootBeanDefinition(SecondCircularReferenceBean.class);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_NAME);
+		lbf.registerBeanDefinition("second", bd);
+		lbf.preInstantiateSingletons();
+
+		CircularReferenceBean first = lbf.getBean("first", CircularReferenceBean.class);
+		SecondCircularReferenceBean second = lbf.getBean("second", SecondCircularReferenceBean.class);
+		assertSame(second, first.getSecond());
+		assertSame(first, second.getFirst());
+		for (int i = 0; i < 10; i++) {
+			assertSame(i % 2 == 0 ? first : second, lbf.getBean("holder" + i, CircularReferenceBean.class).getOther());
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithFailingBean() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		lbf.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorDependencyBean.class);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		lbf.registerBeanDefinition("test", bd);
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown UnsatisfiedDependencyException");
+		}
+		catch (UnsatisfiedDependencyException ex) {
+			assertEquals("test", ex.getBeanName());
+		}
+	}
+
 	@Test
 	public void testCircularReferenceThroughAutowiring() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -2886,6 +3048,44 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	public static class CircularReferenceBean {
+
+		private Object other;
+
+		private SecondCircularReferenceBean second;
+
+		public Object getOther() {
+			return this.other;
+		}
+
+		public void setOther(Object other) {
+			this.other = other;
+		}
+
+		public SecondCircularReferenceBean getSecond() {
+			return this.second;
+		}
+
+		public void setSecond(SecondCircularReferenceBean second) {
+			this.second = second;
+		}
+	}
+
+
+	public static class SecondCircularReferenceBean {
+
+		private CircularReferenceBean first;
+
+		public CircularReferenceBean getFirst() {
+			return this.first;
+		}
+
+		public void setFirst(CircularReferenceBean first) {
+			this.first = first;
+		}
+	}
+
+
 	public static class ConstructorDependencyFactoryBean implements FactoryBean<Object> {
 
 		public ConstructorDependencyFactoryBean(String dependency) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.type.classreading.MetadataSnapshot;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -178,6 +179,28 @@ public class AnnotationConfigApplicationContext extends GenericApplicationContex
 		this.scanner.setScopeMetadataResolver(scopeMetadataResolver);
 	}
 
+	/**
+	 * Set a {@link MetadataSnapshot} to take class metadata and the results of
+	 * classpath scans from, as recorded at build time through
+	 * {@link MetadataSnapshotGenerator}, instead of reading class files and
+	 * scanning the classpath on startup.
+	 * <p>Outdated entries are detected and ignored, falling back to regular
+	 * class file parsing and classpath scanning for the affected classes.
+	 * <p>Any call to this method must occur prior to calls to {@link #register(Class...)}
+	 * and/or {@link #scan(String...)}.
+	 * @since 5.0.16
+	 * @see MetadataSnapshot#loadSnapshot(ClassLoader)
+	 * @see ClassPathBeanDefinitionScanner#setMetadataSnapshot
+	 */
+	public void setMetadataSnapshot(MetadataSnapshot metadataSnapshot) {
+		this.scanner.setMetadataSnapshot(metadataSnapshot);
+		DefaultListableBeanFactory beanFactory = getDefaultListableBeanFactory();
+		if (beanFactory.containsSingleton(AnnotationConfigUtils.CONFIGURATION_METADATA_SNAPSHOT)) {
+			beanFactory.destroySingleton(AnnotationConfigUtils.CONFIGURATION_METADATA_SNAPSHOT);
+		}
+		beanFactory.registerSingleton(AnnotationConfigUtils.CONFIGURATION_METADATA_SNAPSHOT, metadataSnapshot);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of AnnotationConfigRegistry
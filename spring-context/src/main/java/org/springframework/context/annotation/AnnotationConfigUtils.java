@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -79,6 +79,17 @@ public class AnnotationConfigUtils {
 	public static final String CONFIGURATION_BEAN_NAME_GENERATOR =
 			"org.springframework.context.annotation.internalConfigurationBeanNameGenerator";
 
+	/**
+	 * The bean name of the internally managed
+	 * {@link org.springframework.core.type.classreading.MetadataSnapshot} for use
+	 * when processing {@link Configuration} classes. Set by
+	 * {@link AnnotationConfigApplicationContext} in order to make a snapshot of
+	 * class metadata available to the underlying {@link ConfigurationClassPostProcessor}.
+	 * @since 5.0.16
+	 */
+	public static final String CONFIGURATION_METADATA_SNAPSHOT =
+			"org.springframework.context.annotation.internalConfigurationMetadataSnapshot";
+
 	/**
 	 * The bean name of the internally managed Autowired annotation processor.
 	 */
@@ -18,6 +18,7 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -49,6 +50,8 @@ import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataSnapshot;
+import org.springframework.core.type.classreading.SnapshotMetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
@@ -113,6 +116,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	@Nullable
+	private MetadataSnapshot metadataSnapshot;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -264,6 +270,10 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	public void setResourceLoader(@Nullable ResourceLoader resourceLoader) {
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
 		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+		if (this.metadataSnapshot != null) {
+			this.metadataReaderFactory =
+					new SnapshotMetadataReaderFactory(this.metadataReaderFactory, this.metadataSnapshot);
+		}
 		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
 	}
 
@@ -303,6 +313,28 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	}
 
 
+	/**
+	 * Set the {@link MetadataSnapshot} to take the results of classpath scans
+	 * and the metadata of the scanned classes from, or to record them into if
+	 * the snapshot is {@linkplain MetadataSnapshot#isRecording() being recorded}.
+	 * <p>Scans that are not contained in the snapshot, or whose classpath roots
+	 * have changed since it was recorded, are performed as usual.
+	 * <p>Call this setter method <i>after</i> {@link #setMetadataReaderFactory}
+	 * in order for the snapshot to apply to the given MetadataReaderFactory.
+	 * @since 5.0.16
+	 * @see SnapshotMetadataReaderFactory
+	 */
+	public void setMetadataSnapshot(@Nullable MetadataSnapshot metadataSnapshot) {
+		this.metadataSnapshot = metadataSnapshot;
+		MetadataReaderFactory targetFactory = getMetadataReaderFactory();
+		if (targetFactory instanceof SnapshotMetadataReaderFactory) {
+			targetFactory = ((SnapshotMetadataReaderFactory) targetFactory).getTargetFactory();
+		}
+		this.metadataReaderFactory = (metadataSnapshot != null ?
+				new SnapshotMetadataReaderFactory(targetFactory, metadataSnapshot) : targetFactory);
+	}
+
+
 	/**
 	 * Scan the class path for candidate components.
 	 * @param basePackage the package to check for annotated classes
@@ -416,14 +448,33 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<>();
 		try {
+			String basePackagePath = resolveBasePackage(basePackage);
+			MetadataSnapshot snapshot = (isSnapshotSupported(basePackagePath) ? this.metadataSnapshot : null);
+			if (snapshot != null && !snapshot.isRecording()) {
+				List<String> classNames = snapshot.getScannedClassNames(basePackagePath, this.resourcePattern);
+				if (classNames != null) {
+					for (String className : classNames) {
+						try {
+							MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(className);
+							addCandidateComponent(metadataReader.getResource(), metadataReader, candidates);
+						}
+						catch (Throwable ex) {
+							throw new BeanDefinitionStoreException(
+									"Failed to read candidate component class: " + className, ex);
+						}
+					}
+					return candidates;
+				}
+			}
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
-					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
+					basePackagePath + '/' + this.resourcePattern;
 			/**
 			 * asm 读取class 文件
 			 */
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
+			List<String> scannedClassNames =
+					(snapshot != null && snapshot.isRecording() ? new ArrayList<>(resources.length) : null);
 			boolean traceEnabled = logger.isTraceEnabled();
-			boolean debugEnabled = logger.isDebugEnabled();
 			for (Resource resource : resources) {
 				if (traceEnabled) {
 					logger.trace("Scanning " + resource);
@@ -431,27 +482,10 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 				if (resource.isReadable()) {
 					try {
 						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
-						if (isCandidateComponent(metadataReader)) {
-							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-							sbd.setResource(resource);
-							sbd.setSource(resource);
-							if (isCandidateComponent(sbd)) {
-								if (debugEnabled) {
-									logger.debug("Identified candidate component class: " + resource);
-								}
-								candidates.add(sbd);
-							}
-							else {
-								if (debugEnabled) {
-									logger.debug("Ignored because not a concrete top-level class: " + resource);
-								}
-							}
-						}
-						else {
-							if (traceEnabled) {
-								logger.trace("Ignored because not matching any filter: " + resource);
-							}
+						if (scannedClassNames != null) {
+							scannedClassNames.add(metadataReader.getClassMetadata().getClassName());
 						}
+						addCandidateComponent(resource, metadataReader, candidates);
 					}
 					catch (Throwable ex) {
 						throw new BeanDefinitionStoreException(
@@ -464,6 +498,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 					}
 				}
 			}
+			if (scannedClassNames != null) {
+				snapshot.addScannedClassNames(basePackagePath, this.resourcePattern, scannedClassNames);
+			}
 		}
 		catch (IOException ex) {
 			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
@@ -471,6 +508,41 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	private void addCandidateComponent(Resource resource, MetadataReader metadataReader,
+			Set<BeanDefinition> candidates) throws IOException {
+
+		if (isCandidateComponent(metadataReader)) {
+			ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+			sbd.setResource(resource);
+			sbd.setSource(resource);
+			if (isCandidateComponent(sbd)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Identified candidate component class: " + resource);
+				}
+				candidates.add(sbd);
+			}
+			else {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignored because not a concrete top-level class: " + resource);
+				}
+			}
+		}
+		else {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Ignored because not matching any filter: " + resource);
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the scan of the given base package path can be
+	 * taken from or recorded into the metadata snapshot, if any:
+	 * that is, whether the path does not contain any wildcards.
+	 */
+	private boolean isSnapshotSupported(String basePackagePath) {
+		return (basePackagePath.indexOf('*') == -1 && basePackagePath.indexOf('?') == -1);
+	}
+
 
 	/**
 	 * Resolve the specified base package into a pattern specification for
@@ -74,6 +74,7 @@ import org.springframework.core.type.MethodMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SnapshotMetadataReaderFactory;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -155,7 +156,9 @@ class ConfigurationClassParser {
 		this.resourceLoader = resourceLoader;
 		this.registry = registry;
 		this.componentScanParser = new ComponentScanAnnotationParser(
-				environment, resourceLoader, componentScanBeanNameGenerator, registry);
+				environment, resourceLoader, componentScanBeanNameGenerator, registry,
+				(metadataReaderFactory instanceof SnapshotMetadataReaderFactory ?
+						((SnapshotMetadataReaderFactory) metadataReaderFactory).getMetadataSnapshot() : null));
 		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader);
 	}
 
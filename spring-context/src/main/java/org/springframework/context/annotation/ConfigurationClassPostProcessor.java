@@ -60,11 +60,14 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataSnapshot;
+import org.springframework.core.type.classreading.SnapshotMetadataReaderFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
 import static org.springframework.context.annotation.AnnotationConfigUtils.CONFIGURATION_BEAN_NAME_GENERATOR;
+import static org.springframework.context.annotation.AnnotationConfigUtils.CONFIGURATION_METADATA_SNAPSHOT;
 
 /**
  * {@link BeanFactoryPostProcessor} used for bootstrapping processing of
@@ -264,6 +267,16 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	 * {@link Configuration} classes.
 	 */
 	public void processConfigBeanDefinitions(BeanDefinitionRegistry registry) {
+		// Detect any metadata snapshot supplied through the enclosing application context
+		if (registry instanceof SingletonBeanRegistry &&
+				!(this.metadataReaderFactory instanceof SnapshotMetadataReaderFactory)) {
+			MetadataSnapshot snapshot = (MetadataSnapshot)
+					((SingletonBeanRegistry) registry).getSingleton(CONFIGURATION_METADATA_SNAPSHOT);
+			if (snapshot != null) {
+				this.metadataReaderFactory = new SnapshotMetadataReaderFactory(this.metadataReaderFactory, snapshot);
+			}
+		}
+
 		/**
 		 * App 提供的bean
 		 */
@@ -419,10 +432,14 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry());
 		}
 
-		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
+		MetadataReaderFactory metadataReaderFactory = this.metadataReaderFactory;
+		if (metadataReaderFactory instanceof SnapshotMetadataReaderFactory) {
+			metadataReaderFactory = ((SnapshotMetadataReaderFactory) metadataReaderFactory).getTargetFactory();
+		}
+		if (metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			// Clear cache in externally provided MetadataReaderFactory; this is a no-op
 			// for a shared cache since it'll be cleared by the ApplicationContext.
-			((CachingMetadataReaderFactory) this.metadataReaderFactory).clearCache();
+			((CachingMetadataReaderFactory) metadataReaderFactory).clearCache();
 		}
 	}
 
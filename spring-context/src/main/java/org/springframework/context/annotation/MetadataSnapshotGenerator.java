@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.classreading.MetadataSnapshot;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Build-time generator for a {@link MetadataSnapshot} of the given annotated
+ * classes, to be handed to {@link AnnotationConfigApplicationContext#setMetadataSnapshot}
+ * on startup.
+ *
+ * <p>Processes the annotated classes the same way {@link ConfigurationClassPostProcessor}
+ * does on startup, recording the metadata of every class read along the way and the
+ * results of every component scan, but without instantiating any beans. Conditions
+ * are evaluated against the build-time environment: classes only processed under
+ * different conditions at runtime are simply read from the classpath as usual.
+ *
+ * <p>Typically run from a Gradle {@code JavaExec} task (or an equivalent Maven
+ * execution) against the application's runtime classpath, writing to the
+ * {@linkplain MetadataSnapshot#DEFAULT_SNAPSHOT_LOCATION default location}:
+ *
+ * <pre class="code">
+ * java org.springframework.context.annotation.MetadataSnapshotGenerator \
+ *     build/resources/main/META-INF/spring.metadata-snapshot com.example.AppConfig
+ * </pre>
+ *
+ * @since 5.0.16
+ * @see MetadataSnapshot#loadSnapshot(ClassLoader)
+ */
+public final class MetadataSnapshotGenerator {
+
+	private static final Log logger = LogFactory.getLog(MetadataSnapshotGenerator.class);
+
+
+	private MetadataSnapshotGenerator() {
+	}
+
+
+	/**
+	 * Record a snapshot of the metadata encountered when processing the given
+	 * annotated classes.
+	 * @param classLoader the ClassLoader to read classes with
+	 * (may be {@code null} to use the default ClassLoader)
+	 * @param annotatedClasses one or more annotated classes,
+	 * e.g. {@link Configuration @Configuration} classes
+	 * @return the recorded snapshot
+	 */
+	public static MetadataSnapshot generateSnapshot(@Nullable ClassLoader classLoader, Class<?>... annotatedClasses) {
+		Assert.notEmpty(annotatedClasses, "At least one annotated class must be specified");
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+		MetadataSnapshot snapshot = new MetadataSnapshot(classLoaderToUse);
+
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setBeanClassLoader(classLoaderToUse);
+		beanFactory.registerSingleton(AnnotationConfigUtils.CONFIGURATION_METADATA_SNAPSHOT, snapshot);
+		StandardEnvironment environment = new StandardEnvironment();
+		new AnnotatedBeanDefinitionReader(beanFactory, environment).register(annotatedClasses);
+
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setBeanClassLoader(classLoaderToUse);
+		postProcessor.setEnvironment(environment);
+		postProcessor.setResourceLoader(new DefaultResourceLoader(classLoaderToUse));
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+		return snapshot;
+	}
+
+	/**
+	 * Record a snapshot for the annotated classes given as arguments and write
+	 * it to the file given as first argument.
+	 * @param args the output file, followed by the fully qualified names of
+	 * one or more annotated classes
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			throw new IllegalArgumentException(
+					"Usage: MetadataSnapshotGenerator <output file> <annotated class> [<annotated class>...]");
+		}
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		Class<?>[] annotatedClasses = new Class<?>[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			annotatedClasses[i - 1] = ClassUtils.forName(args[i], classLoader);
+		}
+		MetadataSnapshot snapshot = generateSnapshot(classLoader, annotatedClasses);
+
+		File outputFile = new File(args[0]);
+		File outputDir = outputFile.getAbsoluteFile().getParentFile();
+		if (outputDir != null && !outputDir.isDirectory() && !outputDir.mkdirs()) {
+			throw new IllegalStateException("Cannot create directory " + outputDir);
+		}
+		try (OutputStream out = new FileOutputStream(outputFile)) {
+			snapshot.write(out);
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info("Wrote " + snapshot + " to " + outputFile);
+		}
+	}
+
+}
@@ -18,6 +18,7 @@ package org.springframework.context.event;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,11 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>The pre-filtered listeners for each combination of event type and source type
+ * are cached and served without locking. Adding or removing a listener instance
+ * only evicts the cache entries that the listener participates in, whereas
+ * changes to listener beans reset the entire cache.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 1.2.3
@@ -107,11 +113,13 @@ public abstract class AbstractApplicationEventMulticaster
 			// Explicitly remove target for a proxy, if registered already,
 			// in order to avoid double invocations of the same listener.
 			Object singletonTarget = AopProxyUtils.getSingletonTarget(listener);
-			if (singletonTarget instanceof ApplicationListener) {
-				this.defaultRetriever.applicationListeners.remove(singletonTarget);
+			if (singletonTarget instanceof ApplicationListener &&
+					this.defaultRetriever.applicationListeners.remove(singletonTarget)) {
+				evictRetrieversContaining((ApplicationListener<?>) singletonTarget);
+			}
+			if (this.defaultRetriever.applicationListeners.add(listener)) {
+				evictRetrieversSupporting(listener);
 			}
-			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
 		}
 	}
 
@@ -126,8 +134,9 @@ public abstract class AbstractApplicationEventMulticaster
 	@Override
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
-			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			if (this.defaultRetriever.applicationListeners.remove(listener)) {
+				evictRetrieversContaining(listener);
+			}
 		}
 	}
 
@@ -149,6 +158,24 @@ public abstract class AbstractApplicationEventMulticaster
 	}
 
 
+	/**
+	 * Evict the cached retrievers for all event and source types that the
+	 * given (newly added) listener supports, leaving all others in place.
+	 */
+	private void evictRetrieversSupporting(ApplicationListener<?> listener) {
+		this.retrieverCache.keySet().removeIf(cacheKey ->
+				supportsEvent(listener, cacheKey.eventType, cacheKey.sourceType));
+	}
+
+	/**
+	 * Evict the cached retrievers that the given (removed) listener participates in,
+	 * leaving all others in place.
+	 */
+	private void evictRetrieversContaining(ApplicationListener<?> listener) {
+		this.retrieverCache.values().removeIf(retriever -> retriever.applicationListeners.contains(listener));
+	}
+
+
 	/**
 	 * Return a Collection containing all ApplicationListeners.
 	 * @return a Collection of ApplicationListeners
@@ -166,7 +193,8 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @param event the event to be propagated. Allows for excluding
 	 * non-matching listeners early, based on cached matching information.
 	 * @param eventType the event type
-	 * @return a Collection of ApplicationListeners
+	 * @return a Collection of ApplicationListeners (possibly shared between
+	 * invocations and therefore not to be modified)
 	 * @see org.springframework.context.ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners(
@@ -371,11 +399,18 @@ public abstract class AbstractApplicationEventMulticaster
 
 		private final boolean preFiltered;
 
+		@Nullable
+		private volatile List<ApplicationListener<?>> preFilteredListeners;
+
 		public ListenerRetriever(boolean preFiltered) {
 			this.preFiltered = preFiltered;
 		}
 
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			List<ApplicationListener<?>> preFilteredListeners = this.preFilteredListeners;
+			if (preFilteredListeners != null) {
+				return preFilteredListeners;
+			}
 			List<ApplicationListener<?>> allListeners = new ArrayList<>(
 					this.applicationListeners.size() + this.applicationListenerBeans.size());
 			allListeners.addAll(this.applicationListeners);
@@ -397,6 +432,12 @@ public abstract class AbstractApplicationEventMulticaster
 			if (!this.preFiltered || !this.applicationListenerBeans.isEmpty()) {
 				AnnotationAwareOrderComparator.sort(allListeners);
 			}
+			else {
+				// Fully pre-filtered and sorted: never to be modified once cached,
+				// so we can keep serving the very same dispatch list from now on.
+				allListeners = Collections.unmodifiableList(allListeners);
+				this.preFilteredListeners = allListeners;
+			}
 			return allListeners;
 		}
 	}
@@ -16,7 +16,12 @@
 
 package org.springframework.context.event;
 
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -25,7 +30,10 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -40,6 +48,9 @@ import org.springframework.util.ErrorHandler;
  * This allows the danger of a rogue listener blocking the entire application,
  * but adds minimal overhead. Specify an alternative task executor to have
  * listeners executed in different threads, for example from a thread pool.
+ * With a {@linkplain #setTaskBatchSize task batch size} greater than 1, listener
+ * invocations are queued and drained in batches instead of submitting an
+ * individual task for each invocation.
  *
  * @author Rod Johnson
  * @author Juergen Hoeller
@@ -54,6 +65,14 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	@Nullable
 	private ErrorHandler errorHandler;
 
+	private int taskBatchSize = 1;
+
+	private final Queue<ListenerInvocation> pendingInvocations = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	private final Map<Class<?>, ResolvableType> eventTypeCache = new ConcurrentReferenceHashMap<>(64);
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -93,6 +112,30 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return this.taskExecutor;
 	}
 
+	/**
+	 * Set the maximum number of listener invocations to process within a single
+	 * task submitted to the {@linkplain #setTaskExecutor task executor}.
+	 * <p>Default is 1, submitting an individual task for each listener invocation.
+	 * Specify a higher value to queue listener invocations in publication order
+	 * and to drain them through one task at a time, avoiding the per-invocation
+	 * task submission overhead for high event rates. Note that listeners are then
+	 * invoked one after the other rather than concurrently.
+	 * @since 5.0.16
+	 * @see #setTaskExecutor
+	 */
+	public void setTaskBatchSize(int taskBatchSize) {
+		Assert.isTrue(taskBatchSize > 0, "'taskBatchSize' must be 1 or higher");
+		this.taskBatchSize = taskBatchSize;
+	}
+
+	/**
+	 * Return the maximum number of listener invocations to process within a single task.
+	 * @since 5.0.16
+	 */
+	public int getTaskBatchSize() {
+		return this.taskBatchSize;
+	}
+
 	/**
 	 * Set the {@link ErrorHandler} to invoke in case an exception is thrown
 	 * from a listener.
@@ -130,8 +173,15 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	@Override
 	public void multicastEvent(final ApplicationEvent event, @Nullable ResolvableType eventType) {
 		ResolvableType type = (eventType != null ? eventType : resolveDefaultEventType(event));
+		Executor executor = getTaskExecutor();
+		if (executor != null && this.taskBatchSize > 1) {
+			for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+				this.pendingInvocations.add(new ListenerInvocation(listener, event));
+			}
+			scheduleDrain(executor);
+			return;
+		}
 		for (final ApplicationListener<?> listener : getApplicationListeners(event, type)) {
-			Executor executor = getTaskExecutor();
 			if (executor != null) {
 				executor.execute(() -> invokeListener(listener, event));
 			}
@@ -142,7 +192,47 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	}
 
 	private ResolvableType resolveDefaultEventType(ApplicationEvent event) {
-		return ResolvableType.forInstance(event);
+		if (event instanceof ResolvableTypeProvider) {
+			return ResolvableType.forInstance(event);
+		}
+		// Plain event class: reuse the same ResolvableType (and its cache key hash)
+		return this.eventTypeCache.computeIfAbsent(event.getClass(), ResolvableType::forClass);
+	}
+
+	/**
+	 * Submit a task draining the pending listener invocations,
+	 * unless such a task has been submitted already.
+	 */
+	private void scheduleDrain(Executor executor) {
+		if (!this.pendingInvocations.isEmpty() && this.drainScheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(() -> drainPendingInvocations(executor));
+			}
+			catch (RejectedExecutionException ex) {
+				this.drainScheduled.set(false);
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Invoke up to {@link #getTaskBatchSize()} pending listener invocations,
+	 * resubmitting this task for the remainder, if any.
+	 */
+	private void drainPendingInvocations(Executor executor) {
+		try {
+			for (int i = 0; i < this.taskBatchSize; i++) {
+				ListenerInvocation invocation = this.pendingInvocations.poll();
+				if (invocation == null) {
+					break;
+				}
+				invokeListener(invocation.listener, invocation.event);
+			}
+		}
+		finally {
+			this.drainScheduled.set(false);
+			scheduleDrain(executor);
+		}
 	}
 
 	/**
@@ -205,4 +295,20 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return false;
 	}
 
+
+	/**
+	 * A listener invocation pending in batch mode.
+	 */
+	private static final class ListenerInvocation {
+
+		final ApplicationListener<?> listener;
+
+		final ApplicationEvent event;
+
+		ListenerInvocation(ApplicationListener<?> listener, ApplicationEvent event) {
+			this.listener = listener;
+			this.event = event;
+		}
+	}
+
 }
@@ -76,6 +76,7 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.classreading.SharedMetadataReaderFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -503,7 +504,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		if (this.applicationEventMulticaster != null) {
 			this.applicationEventMulticaster.addApplicationListener(listener);
 		}
-		this.applicationListeners.add(listener);
+		// Listener beans may get detected on several threads in case of parallel pre-instantiation.
+		synchronized (this.applicationListeners) {
+			this.applicationListeners.add(listener);
+		}
 	}
 
 	/**
@@ -1093,6 +1097,13 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 			// Let subclasses do some final clean-up if they wish...
 			onClose();
 
+			// Release shared class metadata for an application ClassLoader
+			// whose lifecycle is not coupled to the Spring classes.
+			ClassLoader classLoader = getClassLoader();
+			if (classLoader != null && classLoader != AbstractApplicationContext.class.getClassLoader()) {
+				SharedMetadataReaderFactory.clearClassLoader(classLoader);
+			}
+
 			// Reset local application listeners to pre-refresh state.
 			if (this.earlyApplicationListeners != null) {
 				this.applicationListeners.clear();
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.springframework.context.annotation.componentscan.level1.Level1Config;
+import org.springframework.context.annotation.componentscan.level2.Level2Config;
+import org.springframework.context.annotation.componentscan.level3.Level3Component;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataSnapshot;
+import org.springframework.core.type.classreading.SnapshotMetadataReaderFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MetadataSnapshotGenerator} and the use of its snapshots
+ * through {@link AnnotationConfigApplicationContext#setMetadataSnapshot}.
+ */
+public class MetadataSnapshotGeneratorTests {
+
+	private static final String LEVEL2_PACKAGE_PATH = "org/springframework/context/annotation/componentscan/level2";
+
+
+	@Test
+	public void generateSnapshotForNestedComponentScans() throws IOException {
+		MetadataSnapshot snapshot = MetadataSnapshotGenerator.generateSnapshot(
+				getClass().getClassLoader(), Level1Config.class);
+		assertTrue(snapshot.isRecording());
+		assertEquals(2, snapshot.getScanCount());
+
+		MetadataSnapshot loadedSnapshot = writeAndRead(snapshot);
+		assertFalse(loadedSnapshot.isRecording());
+		assertEquals(Arrays.asList(Level2Config.class.getName()), loadedSnapshot.getScannedClassNames(
+				LEVEL2_PACKAGE_PATH, ClassPathScanningCandidateComponentProvider.DEFAULT_RESOURCE_PATTERN));
+		assertNotNull(loadedSnapshot.getMetadataReader(Level2Config.class.getName()));
+		assertNotNull(loadedSnapshot.getMetadataReader(Level3Component.class.getName()));
+		assertNull(loadedSnapshot.getScannedClassNames(LEVEL2_PACKAGE_PATH, "*.class"));
+	}
+
+	@Test
+	public void contextWithMetadataSnapshot() throws IOException {
+		MetadataSnapshot snapshot = writeAndRead(MetadataSnapshotGenerator.generateSnapshot(
+				getClass().getClassLoader(), Level1Config.class));
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setMetadataSnapshot(snapshot);
+		context.register(Level1Config.class);
+		context.refresh();
+		assertTrue(context.containsBean("level1Bean"));
+		assertTrue(context.containsBean("level2Bean"));
+		assertTrue(context.containsBean("level3Component"));
+		context.close();
+	}
+
+	@Test
+	public void contextWithMetadataSnapshotSetTwice() throws IOException {
+		MetadataSnapshot snapshot = writeAndRead(MetadataSnapshotGenerator.generateSnapshot(
+				getClass().getClassLoader(), Level1Config.class));
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setMetadataSnapshot(snapshot);
+		context.setMetadataSnapshot(snapshot);
+		context.register(Level1Config.class);
+		context.refresh();
+		assertTrue(context.containsBean("level3Component"));
+		context.close();
+	}
+
+	@Test
+	public void scannerWithMetadataSnapshotSetTwice() throws IOException {
+		MetadataSnapshot snapshot = writeAndRead(MetadataSnapshotGenerator.generateSnapshot(
+				getClass().getClassLoader(), Level1Config.class));
+
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setMetadataSnapshot(snapshot);
+		provider.setMetadataSnapshot(snapshot);
+		MetadataReaderFactory factory = provider.getMetadataReaderFactory();
+		assertTrue(factory instanceof SnapshotMetadataReaderFactory);
+		assertFalse(((SnapshotMetadataReaderFactory) factory).getTargetFactory() instanceof SnapshotMetadataReaderFactory);
+
+		provider.setMetadataSnapshot(null);
+		assertFalse(provider.getMetadataReaderFactory() instanceof SnapshotMetadataReaderFactory);
+	}
+
+
+	private static MetadataSnapshot writeAndRead(MetadataSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.write(out);
+		return MetadataSnapshot.read(new ByteArrayInputStream(out.toByteArray()),
+				MetadataSnapshotGeneratorTests.class.getClassLoader());
+	}
+
+}
@@ -176,6 +176,60 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		smc.multicastEvent(evt);
 	}
 
+	@Test
+	public void simpleApplicationEventMulticasterWithTaskBatchSize() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener3 listener2 = new MyOrderedListener3();
+		List<Runnable> tasks = new LinkedList<>();
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(tasks::add);
+		smc.setTaskBatchSize(4);
+		smc.addApplicationListener(listener1);
+		smc.addApplicationListener(listener2);
+
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyOtherEvent(this));
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(1, tasks.size());
+		assertEquals(0, listener1.seenEvents.size());
+
+		tasks.remove(0).run();
+		assertEquals(1, tasks.size());
+		tasks.remove(0).run();
+		assertEquals(0, tasks.size());
+		assertEquals(3, listener1.seenEvents.size());
+		assertEquals(3, listener2.seenEvents.size());
+	}
+
+	@Test
+	public void listenerRegistrationEvictsAffectedCacheEntriesOnly() {
+		MyOrderedListener3 listener1 = new MyOrderedListener3();
+		MyOrderedListener4 listener2 = new MyOrderedListener4(listener1);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener1);
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertEquals(2, smc.retrieverCache.size());
+
+		smc.addApplicationListener(listener2);
+		assertEquals(1, smc.retrieverCache.size());
+		MyEvent event = new MyEvent(this);
+		smc.multicastEvent(event);
+		assertEquals(2, smc.getApplicationListeners(event, ResolvableType.forClass(MyEvent.class)).size());
+		assertEquals(2, smc.retrieverCache.size());
+
+		smc.removeApplicationListener(listener2);
+		assertEquals(1, smc.retrieverCache.size());
+		assertEquals(1, smc.getApplicationListeners(event, ResolvableType.forClass(MyEvent.class)).size());
+
+		smc.removeApplicationListener(listener1);
+		assertEquals(0, smc.retrieverCache.size());
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertEquals(3, listener1.seenEvents.size());
+	}
+
 	@Test
 	public void orderedListeners() {
 		MyOrderedListener1 listener1 = new MyOrderedListener1();
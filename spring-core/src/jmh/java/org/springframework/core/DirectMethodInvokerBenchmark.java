@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmarks for {@link DirectMethodInvoker} against {@link Method#invoke},
+ * the latter including the {@link ReflectionUtils#makeAccessible} call that
+ * listener and handler method adapters used to perform on every invocation.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DirectMethodInvokerBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Listener listener;
+
+		public Method method;
+
+		public DirectMethodInvoker invoker;
+
+		public Object[] args;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.listener = new Listener();
+			this.method = Listener.class.getMethod("onEvent", String.class, int.class);
+			this.invoker = DirectMethodInvoker.forMethod(this.method);
+			this.args = new Object[] {"event", 42};
+		}
+	}
+
+
+	@Benchmark
+	public Object reflectiveInvoke(BenchmarkState state) throws Exception {
+		ReflectionUtils.makeAccessible(state.method);
+		return state.method.invoke(state.listener, state.args);
+	}
+
+	@Benchmark
+	public Object directInvoke(BenchmarkState state) throws Exception {
+		return state.invoker.invoke(state.listener, state.args);
+	}
+
+
+	public static class Listener {
+
+		public int onEvent(String event, int priority) {
+			return event.length() + priority;
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link ResolvableType} creation and assignability checks.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public ResolvableType listOfStrings;
+
+		public ResolvableType stringRepository;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.listOfStrings = ResolvableType.forClassWithGenerics(List.class, String.class);
+			this.stringRepository = ResolvableType.forClass(StringRepository.class);
+		}
+	}
+
+
+	@Benchmark
+	public ResolvableType forClass() {
+		return ResolvableType.forClass(StringRepository.class);
+	}
+
+	@Benchmark
+	public ResolvableType forClassWithGenerics() {
+		return ResolvableType.forClassWithGenerics(Map.class, String.class, Integer.class);
+	}
+
+	@Benchmark
+	public ResolvableType resolveGenericInterface(BenchmarkState state) {
+		return state.stringRepository.as(Repository.class).getGeneric(0);
+	}
+
+	@Benchmark
+	public boolean isAssignableFromClass(BenchmarkState state) {
+		return ResolvableType.forClass(Repository.class).isAssignableFrom(state.stringRepository);
+	}
+
+	@Benchmark
+	public boolean isAssignableFromGeneric(BenchmarkState state) {
+		return ResolvableType.forClassWithGenerics(Repository.class, String.class).isAssignableFrom(state.stringRepository);
+	}
+
+	@Benchmark
+	public boolean isAssignableFromCollection(BenchmarkState state) {
+		return ResolvableType.forClassWithGenerics(List.class, Object.class).isAssignableFrom(state.listOfStrings);
+	}
+
+
+	interface Repository<T> {
+	}
+
+
+	static class StringRepository implements Repository<String> {
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for merged annotation lookups through {@link AnnotatedElementUtils}.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotatedElementUtilsBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Method interfaceMethod;
+
+		public Method plainMethod;
+
+		@Setup(Level.Trial)
+		public void setup() throws NoSuchMethodException {
+			this.interfaceMethod = AnnotatedService.class.getMethod("handle");
+			this.plainMethod = AnnotatedService.class.getMethod("toString");
+		}
+	}
+
+
+	@Benchmark
+	public Mapping findMergedAnnotationOnClass() {
+		return AnnotatedElementUtils.findMergedAnnotation(AnnotatedService.class, Mapping.class);
+	}
+
+	@Benchmark
+	public Mapping findMergedAnnotationOnInterfaceMethod(BenchmarkState state) {
+		return AnnotatedElementUtils.findMergedAnnotation(state.interfaceMethod, Mapping.class);
+	}
+
+	@Benchmark
+	public Mapping findMissingMergedAnnotation(BenchmarkState state) {
+		return AnnotatedElementUtils.findMergedAnnotation(state.plainMethod, Mapping.class);
+	}
+
+	@Benchmark
+	public boolean hasMetaAnnotation() {
+		return AnnotatedElementUtils.hasAnnotation(AnnotatedService.class, Mapping.class);
+	}
+
+
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Mapping {
+
+		@AliasFor("path")
+		String value() default "";
+
+		@AliasFor("value")
+		String path() default "";
+	}
+
+
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Retention(RetentionPolicy.RUNTIME)
+	@Mapping
+	public @interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String path() default "";
+	}
+
+
+	public interface Service {
+
+		@GetMapping(path = "/handle")
+		void handle();
+	}
+
+
+	@GetMapping(path = "/service")
+	public static class AnnotatedService implements Service {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher}, matching a realistic set of request
+ * mapping patterns against a set of request paths.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public final String[] patterns = new String[] {
+				"/", "/login", "/logout", "/static/**", "/api/v1/users", "/api/v1/users/{id}",
+				"/api/v1/users/{id}/orders", "/api/v1/users/{id}/orders/{orderId}", "/api/v1/products/*.json",
+				"/api/v1/products/{category}/**", "/admin/**/settings", "/files/{name:[a-z]+}.{ext}"};
+
+		public final String[] paths = new String[] {
+				"/", "/login", "/static/css/app.css", "/api/v1/users/42", "/api/v1/users/42/orders/7",
+				"/api/v1/products/list.json", "/api/v1/products/books/1234/reviews", "/admin/system/global/settings",
+				"/files/report.pdf", "/unknown/path/to/resource"};
+
+		public AntPathMatcher matcher;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.matcher = new AntPathMatcher();
+		}
+	}
+
+
+	@Benchmark
+	public void match(BenchmarkState state, Blackhole blackhole) {
+		for (String path : state.paths) {
+			for (String pattern : state.patterns) {
+				blackhole.consume(state.matcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(BenchmarkState state, Blackhole blackhole) {
+		blackhole.consume(state.matcher.extractUriTemplateVariables(
+				"/api/v1/users/{id}/orders/{orderId}", "/api/v1/users/42/orders/7"));
+	}
+
+	@Benchmark
+	public void sortPatterns(BenchmarkState state, Blackhole blackhole) {
+		blackhole.consume(state.matcher.getPatternComparator("/api/v1/users/42").compare(
+				"/api/v1/users/{id}", "/api/v1/**"));
+	}
+
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Invoker for a specific {@link Method}, calling it through a small class
+ * generated with ASM rather than through {@link Method#invoke} where possible,
+ * in the same spirit as the SpEL compiler. Meant for framework callbacks that
+ * invoke the same method over and over, e.g. event listener methods, scheduled
+ * methods and message handler methods.
+ *
+ * <p>A direct invoker can be generated for public methods on public classes with
+ * public parameter types only, since the generated class lives in a separate
+ * ClassLoader; for any other method, a reflective invoker is returned instead.
+ * Either way, {@link #invoke} follows the contract of {@link Method#invoke},
+ * including its exceptions: arguments that do not match the parameter types
+ * exactly are passed on to {@link Method#invoke} for conversion or rejection.
+ *
+ * <p>Direct invokers can be turned off through the
+ * {@value #IGNORE_DIRECT_INVOKERS_PROPERTY_NAME} property.
+ *
+ * @since 5.0.16
+ * @see #forMethod(Method)
+ */
+public abstract class DirectMethodInvoker {
+
+	/**
+	 * System property that instructs Spring to always invoke methods through
+	 * reflection, i.e. to never generate direct invoker classes.
+	 * <p>The default is "false", generating direct invokers where possible.
+	 */
+	public static final String IGNORE_DIRECT_INVOKERS_PROPERTY_NAME = "spring.directinvokers.ignore";
+
+	private static final boolean shouldIgnoreDirectInvokers =
+			SpringProperties.getFlag(IGNORE_DIRECT_INVOKERS_PROPERTY_NAME);
+
+	private static final String INVOKER_CLASS_PREFIX = "org/springframework/core/DirectMethodInvoker$$Generated";
+
+	private static final Log logger = LogFactory.getLog(DirectMethodInvoker.class);
+
+	private static final Map<ClassLoader, InvokerClassLoader> classLoaderCache = new ConcurrentReferenceHashMap<>(16);
+
+	private static final Map<Method, DirectMethodInvoker> reflectiveInvokerCache = new ConcurrentReferenceHashMap<>(256);
+
+	private static final AtomicInteger invokerClassCount = new AtomicInteger();
+
+
+	private final Method method;
+
+	private final Class<?> declaringClass;
+
+	private final boolean isStatic;
+
+	private final Class<?>[] parameterTypes;
+
+	private final boolean[] primitiveParameters;
+
+
+	/**
+	 * Create a new DirectMethodInvoker for the given method.
+	 * <p>Called by generated invoker classes only.
+	 */
+	protected DirectMethodInvoker(Method method) {
+		this.method = method;
+		this.declaringClass = method.getDeclaringClass();
+		this.isStatic = Modifier.isStatic(method.getModifiers());
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		this.primitiveParameters = new boolean[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			this.primitiveParameters[i] = parameterTypes[i].isPrimitive();
+			parameterTypes[i] = ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i]);
+		}
+		this.parameterTypes = parameterTypes;
+	}
+
+
+	/**
+	 * Return the method that this invoker calls.
+	 */
+	public final Method getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Invoke the method on the given target with the given arguments,
+	 * following the contract of {@link Method#invoke}.
+	 * @param target the target instance to invoke the method on
+	 * (may be {@code null} for a static method)
+	 * @param args the arguments for the method call
+	 * @return the result of the method call, boxed if primitive,
+	 * or {@code null} for a {@code void} method
+	 * @throws IllegalAccessException if the method is not accessible
+	 * @throws IllegalArgumentException if the target or the arguments do not match
+	 * @throws InvocationTargetException if the method itself threw an exception
+	 */
+	@Nullable
+	public Object invoke(@Nullable Object target, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		if (!matches(target, args)) {
+			// Let reflection convert the arguments or raise the exact same exception
+			return this.method.invoke(target, args);
+		}
+		try {
+			return doInvoke(target, args);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	private boolean matches(@Nullable Object target, Object[] args) {
+		if (!this.isStatic && !this.declaringClass.isInstance(target)) {
+			return false;
+		}
+		if (args.length != this.parameterTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			Object arg = args[i];
+			if (arg != null ? !this.parameterTypes[i].isInstance(arg) : this.primitiveParameters[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Invoke the method with pre-validated target and arguments.
+	 * @param target the target instance (of the declaring class) or {@code null}
+	 * @param args the arguments, each of them an instance of the corresponding
+	 * parameter type (or its wrapper type)
+	 */
+	@Nullable
+	protected abstract Object doInvoke(@Nullable Object target, Object[] args) throws Throwable;
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + ": " + this.method;
+	}
+
+
+	/**
+	 * Obtain an invoker for the given method, generating a direct invoker class
+	 * if possible and falling back to reflection otherwise.
+	 * <p>Invokers are cached per method. Generated invokers are held by the
+	 * ClassLoader that defines their classes, so that an invoker class is
+	 * generated only once per method and ClassLoader and can only be unloaded
+	 * together with all the other invokers of that ClassLoader.
+	 * @param method the method to invoke
+	 * @return the corresponding invoker (never {@code null})
+	 */
+	public static DirectMethodInvoker forMethod(Method method) {
+		Assert.notNull(method, "Method must not be null");
+		ClassLoader classLoader = method.getDeclaringClass().getClassLoader();
+		if (!shouldIgnoreDirectInvokers && classLoader != null) {
+			InvokerClassLoader invokerClassLoader =
+					classLoaderCache.computeIfAbsent(classLoader, InvokerClassLoader::new);
+			return invokerClassLoader.getInvoker(method);
+		}
+		return reflectiveInvokerCache.computeIfAbsent(method, ReflectiveMethodInvoker::new);
+	}
+
+	private static boolean isDirectlyInvokable(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || !isPublic(method.getDeclaringClass())) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!isPublic(parameterType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPublic(Class<?> clazz) {
+		while (clazz.isArray()) {
+			clazz = clazz.getComponentType();
+		}
+		return (clazz.isPrimitive() || Modifier.isPublic(clazz.getModifiers()));
+	}
+
+	private static byte[] generateInvokerClass(String className, Method method) {
+		String superName = Type.getInternalName(DirectMethodInvoker.class);
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+				className, null, superName, null);
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+				"(Ljava/lang/reflect/Method;)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "(Ljava/lang/reflect/Method;)V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PROTECTED, "doInvoke",
+				"(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", null, new String[] {"java/lang/Throwable"});
+		mv.visitCode();
+		Class<?> declaringClass = method.getDeclaringClass();
+		String owner = Type.getInternalName(declaringClass);
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		if (!isStatic) {
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+		}
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(Opcodes.AALOAD);
+			unboxIfNecessary(mv, parameterTypes[i]);
+		}
+		int opcode = (isStatic ? Opcodes.INVOKESTATIC :
+				declaringClass.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL);
+		mv.visitMethodInsn(opcode, owner, method.getName(), Type.getMethodDescriptor(method),
+				declaringClass.isInterface());
+		boxIfNecessary(mv, method.getReturnType());
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void unboxIfNecessary(MethodVisitor mv, Class<?> parameterType) {
+		if (parameterType.isPrimitive()) {
+			String wrapper = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(parameterType));
+			mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, parameterType.getName() + "Value",
+					"()" + Type.getDescriptor(parameterType), false);
+		}
+		else if (parameterType != Object.class) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(parameterType));
+		}
+	}
+
+	private static void boxIfNecessary(MethodVisitor mv, Class<?> returnType) {
+		if (returnType == void.class) {
+			mv.visitInsn(Opcodes.ACONST_NULL);
+		}
+		else if (returnType.isPrimitive()) {
+			String wrapper = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(returnType));
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper, "valueOf",
+					"(" + Type.getDescriptor(returnType) + ")L" + wrapper + ";", false);
+		}
+	}
+
+
+	/**
+	 * Fallback invoker for methods that cannot be called from a generated class.
+	 */
+	private static final class ReflectiveMethodInvoker extends DirectMethodInvoker {
+
+		ReflectiveMethodInvoker(Method method) {
+			super(method);
+			ReflectionUtils.makeAccessible(method);
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(@Nullable Object target, Object... args)
+				throws IllegalAccessException, InvocationTargetException {
+
+			return getMethod().invoke(target, args);
+		}
+
+		@Override
+		@Nullable
+		protected Object doInvoke(@Nullable Object target, Object[] args) throws Throwable {
+			return getMethod().invoke(target, args);
+		}
+	}
+
+
+	/**
+	 * ClassLoader for generated invoker classes, as a child of the ClassLoader
+	 * that defines the target methods, holding on to the invokers for those
+	 * methods for as long as it is alive itself.
+	 */
+	private static final class InvokerClassLoader extends URLClassLoader {
+
+		private static final URL[] NO_URLS = new URL[0];
+
+		private final Map<Method, DirectMethodInvoker> invokers = new ConcurrentHashMap<>(64);
+
+		InvokerClassLoader(ClassLoader parent) {
+			super(NO_URLS, parent);
+		}
+
+		DirectMethodInvoker getInvoker(Method method) {
+			DirectMethodInvoker invoker = this.invokers.get(method);
+			if (invoker == null) {
+				invoker = this.invokers.computeIfAbsent(method, this::createInvoker);
+			}
+			return invoker;
+		}
+
+		private DirectMethodInvoker createInvoker(Method method) {
+			if (isDirectlyInvokable(method) && ClassUtils.isVisible(DirectMethodInvoker.class, getParent())) {
+				try {
+					return generateInvoker(method);
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to generate direct invoker for " + method +
+								" - falling back to reflection", ex);
+					}
+				}
+			}
+			return new ReflectiveMethodInvoker(method);
+		}
+
+		private DirectMethodInvoker generateInvoker(Method method) throws Exception {
+			String className = INVOKER_CLASS_PREFIX + invokerClassCount.incrementAndGet();
+			byte[] bytes = generateInvokerClass(className, method);
+			Class<?> invokerClass = defineClass(className.replace('/', '.'), bytes, 0, bytes.length);
+			Constructor<?> ctor = invokerClass.getConstructor(Method.class);
+			return (DirectMethodInvoker) ctor.newInstance(method);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,33 +16,32 @@
 
 package org.springframework.core.codec;
 
-import java.nio.CharBuffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
 
 /**
- * Decode from a data buffer stream to a {@code String} stream. Before decoding, this decoder
- * realigns the incoming data buffers so that each buffer ends with a newline.
- * This is to make sure that multibyte characters are decoded properly, and do not cross buffer
- * boundaries. The default delimiters ({@code \n}, {@code \r\n})can be customized.
+ * Decode from a data buffer stream to a {@code String} stream, split on delimiters.
+ * Delimiters are matched in a single pass over each data buffer, and every line is
+ * decoded as a whole, so that multibyte characters are decoded properly even when
+ * they cross buffer boundaries. The default delimiters ({@code \n}, {@code \r\n})
+ * can be customized.
  *
  * <p>Partially inspired by Netty's {@code DelimiterBasedFrameDecoder}.
  *
@@ -55,8 +54,6 @@ import org.springframework.util.MimeTypeUtils;
  */
 public class StringDecoder extends AbstractDataBufferDecoder<String> {
 
-	private static final DataBuffer END_FRAME = new DefaultDataBufferFactory().wrap(new byte[0]);
-
 	/**
 	 * The default charset to use, i.e. "UTF-8".
 	 */
@@ -72,6 +69,9 @@ public class StringDecoder extends AbstractDataBufferDecoder<String> {
 
 	private final boolean stripDelimiter;
 
+	private int maxInMemorySize = -1;
+
+
 	private StringDecoder(List<String> delimiters, boolean stripDelimiter, MimeType... mimeTypes) {
 		super(mimeTypes);
 		Assert.notEmpty(delimiters, "'delimiters' must not be empty");
@@ -80,6 +80,27 @@ public class StringDecoder extends AbstractDataBufferDecoder<String> {
 	}
 
 
+	/**
+	 * Set the max number of bytes that can be buffered for a single line,
+	 * including its delimiter, when splitting a stream on delimiters.
+	 * If exceeded, a {@link DecodingException} is raised.
+	 * <p>By default this is set to -1, meaning unlimited.
+	 * @param byteCount the max number of bytes per line, or -1 for unlimited
+	 * @since 5.0.16
+	 */
+	public void setMaxInMemorySize(int byteCount) {
+		this.maxInMemorySize = byteCount;
+	}
+
+	/**
+	 * Return the {@link #setMaxInMemorySize configured} byte count limit.
+	 * @since 5.0.16
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+
 	@Override
 	public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		return (elementType.getRawClass() == String.class && super.canDecode(elementType, mimeType));
@@ -89,121 +110,49 @@ public class StringDecoder extends AbstractDataBufferDecoder<String> {
 	public Flux<String> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		List<byte[]> delimiterBytes = getDelimiterBytes(mimeType);
-
-		Flux<DataBuffer> inputFlux = Flux.from(inputStream)
-				.flatMap(dataBuffer -> splitOnDelimiter(dataBuffer, delimiterBytes))
-				.bufferUntil(StringDecoder::isEndFrame)
-				.flatMap(StringDecoder::joinUntilEndFrame);
-		return super.decode(inputFlux, elementType, mimeType, hints);
+		byte[][] delimiterBytes = getDelimiterBytes(mimeType);
+		Charset charset = getCharset(mimeType);
+		return Flux.defer(() -> {
+			LineDecoder lineDecoder =
+					new LineDecoder(delimiterBytes, this.stripDelimiter, this.maxInMemorySize, charset);
+			return Flux.from(inputStream)
+					.flatMapIterable(lineDecoder)
+					.concatWith(Flux.defer(lineDecoder::complete));
+		});
 	}
 
-	private List<byte[]> getDelimiterBytes(@Nullable MimeType mimeType) {
+	private byte[][] getDelimiterBytes(@Nullable MimeType mimeType) {
 		Charset charset = getCharset(mimeType);
-		return this.delimiters.stream()
-				.map(s -> s.getBytes(charset))
-				.collect(Collectors.toList());
+		byte[][] delimiterBytes = new byte[this.delimiters.size()][];
+		for (int i = 0; i < delimiterBytes.length; i++) {
+			delimiterBytes[i] = this.delimiters.get(i).getBytes(charset);
+		}
+		return delimiterBytes;
 	}
 
-	/**
-	 * Split the given data buffer on delimiter boundaries.
-	 * The returned Flux contains an {@link #END_FRAME} buffer after each delimiter.
-	 */
-	private Flux<DataBuffer> splitOnDelimiter(DataBuffer dataBuffer, List<byte[]> delimiterBytes) {
-		List<DataBuffer> frames = new ArrayList<>();
-		do {
-			int length = Integer.MAX_VALUE;
-			byte[] matchingDelimiter = null;
-			for (byte[] delimiter : delimiterBytes) {
-				int index = indexOf(dataBuffer, delimiter);
-				if (index >= 0 && index < length) {
-					length = index;
-					matchingDelimiter = delimiter;
-				}
-			}
-			DataBuffer frame;
-			int readPosition = dataBuffer.readPosition();
-			if (matchingDelimiter != null) {
-				if (this.stripDelimiter) {
-					frame = dataBuffer.slice(readPosition, length);
-				}
-				else {
-					frame = dataBuffer.slice(readPosition, length + matchingDelimiter.length);
-				}
-				dataBuffer.readPosition(readPosition + length + matchingDelimiter.length);
-
-				frames.add(DataBufferUtils.retain(frame));
-				frames.add(END_FRAME);
-			}
-			else {
-				frame = dataBuffer.slice(readPosition, dataBuffer.readableByteCount());
-				dataBuffer.readPosition(readPosition + dataBuffer.readableByteCount());
-				frames.add(DataBufferUtils.retain(frame));
-			}
-		}
-		while (dataBuffer.readableByteCount() > 0);
+	@Override
+	protected String decodeDataBuffer(DataBuffer dataBuffer, ResolvableType elementType,
+			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
+		Charset charset = getCharset(mimeType);
+		String value = decode(dataBuffer, dataBuffer.readPosition(), dataBuffer.readableByteCount(), charset);
 		DataBufferUtils.release(dataBuffer);
-		return Flux.fromIterable(frames);
+		return value;
 	}
 
 	/**
-	 * Find the given delimiter in the given data buffer.
-	 * @return the index of the delimiter, or -1 if not found.
+	 * Decode the given range of the data buffer, directly from its backing
+	 * array if it has one.
 	 */
-	private static int indexOf(DataBuffer dataBuffer, byte[] delimiter) {
-		for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
-			int dataBufferPos = i;
-			int delimiterPos = 0;
-			while (delimiterPos < delimiter.length) {
-				if (dataBuffer.getByte(dataBufferPos) != delimiter[delimiterPos]) {
-					break;
-				}
-				else {
-					dataBufferPos++;
-					if (dataBufferPos == dataBuffer.writePosition() &&
-							delimiterPos != delimiter.length - 1) {
-						return -1;
-					}
-				}
-				delimiterPos++;
-			}
-			if (delimiterPos == delimiter.length) {
-				return i - dataBuffer.readPosition();
-			}
+	private static String decode(DataBuffer dataBuffer, int index, int length, Charset charset) {
+		if (length == 0) {
+			return "";
 		}
-		return -1;
-	}
-
-	/**
-	 * Check whether the given buffer is {@link #END_FRAME}.
-	 */
-	private static boolean isEndFrame(DataBuffer dataBuffer) {
-		return dataBuffer == END_FRAME;
-	}
-
-	/**
-	 * Join the given list of buffers into a single buffer.
-	 */
-	private static Mono<DataBuffer> joinUntilEndFrame(List<DataBuffer> dataBuffers) {
-		if (!dataBuffers.isEmpty()) {
-			int lastIdx = dataBuffers.size() - 1;
-			if (isEndFrame(dataBuffers.get(lastIdx))) {
-				dataBuffers.remove(lastIdx);
-			}
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer(index, length);
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), length, charset);
 		}
-		Flux<DataBuffer> flux = Flux.fromIterable(dataBuffers);
-		return DataBufferUtils.join(flux);
-	}
-
-	@Override
-	protected String decodeDataBuffer(DataBuffer dataBuffer, ResolvableType elementType,
-			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
-
-		Charset charset = getCharset(mimeType);
-		CharBuffer charBuffer = charset.decode(dataBuffer.asByteBuffer());
-		DataBufferUtils.release(dataBuffer);
-		return charBuffer.toString();
+		return charset.decode(byteBuffer).toString();
 	}
 
 	private static Charset getCharset(@Nullable MimeType mimeType) {
@@ -273,4 +222,177 @@ public class StringDecoder extends AbstractDataBufferDecoder<String> {
 				new MimeType("text", "plain", DEFAULT_CHARSET), MimeTypeUtils.ALL);
 	}
 
+
+
+	/**
+	 * Stateful function that splits data buffers on delimiters and decodes
+	 * each line. Delimiters are matched incrementally, byte by byte, so that
+	 * they are found in a single pass even when they cross buffer boundaries.
+	 * A line within a single data buffer is decoded directly from it, while
+	 * the remainder of a buffer is copied until the rest of its line arrives.
+	 */
+	private static class LineDecoder implements Function<DataBuffer, Iterable<String>> {
+
+		private final byte[][] delimiters;
+
+		/** For each delimiter, the KMP failure function of its prefixes. */
+		private final int[][] failures;
+
+		/** Whether a byte starts any of the delimiters. */
+		private final boolean[] delimiterStarts = new boolean[256];
+
+		private final boolean stripDelimiter;
+
+		private final int maxInMemorySize;
+
+		private final Charset charset;
+
+		/** For each delimiter, the number of its bytes matched so far. */
+		private final int[] matches;
+
+		private boolean partialMatch;
+
+		private byte[] pending = new byte[0];
+
+		private int pendingLength;
+
+		private boolean pendingLine;
+
+		LineDecoder(byte[][] delimiters, boolean stripDelimiter, int maxInMemorySize, Charset charset) {
+			this.delimiters = delimiters;
+			this.failures = new int[delimiters.length][];
+			for (int i = 0; i < delimiters.length; i++) {
+				this.failures[i] = failureFunction(delimiters[i]);
+				if (delimiters[i].length > 0) {
+					this.delimiterStarts[delimiters[i][0] & 0xff] = true;
+				}
+			}
+			this.stripDelimiter = stripDelimiter;
+			this.maxInMemorySize = maxInMemorySize;
+			this.charset = charset;
+			this.matches = new int[delimiters.length];
+		}
+
+		private static int[] failureFunction(byte[] delimiter) {
+			int[] failure = new int[delimiter.length];
+			int j = 0;
+			for (int i = 1; i < delimiter.length; i++) {
+				while (j > 0 && delimiter[i] != delimiter[j]) {
+					j = failure[j - 1];
+				}
+				if (delimiter[i] == delimiter[j]) {
+					j++;
+				}
+				failure[i] = j;
+			}
+			return failure;
+		}
+
+		@Override
+		public Iterable<String> apply(DataBuffer dataBuffer) {
+			try {
+				List<String> lines = new ArrayList<>();
+				int start = dataBuffer.readPosition();
+				int end = dataBuffer.writePosition();
+				for (int i = start; i < end; i++) {
+					byte b = dataBuffer.getByte(i);
+					if (!this.partialMatch && !this.delimiterStarts[b & 0xff]) {
+						continue;
+					}
+					int delimiterLength = match(b);
+					if (delimiterLength > 0) {
+						int lineEnd = i + 1;
+						int length;
+						if (this.pendingLength == 0 && !this.pendingLine) {
+							checkLimit(lineEnd - start);
+							length = lineEnd - start - (this.stripDelimiter ? delimiterLength : 0);
+							lines.add(decode(dataBuffer, start, length, this.charset));
+						}
+						else {
+							append(dataBuffer, start, lineEnd);
+							length = this.pendingLength - (this.stripDelimiter ? delimiterLength : 0);
+							lines.add(new String(this.pending, 0, length, this.charset));
+							this.pendingLength = 0;
+							this.pendingLine = false;
+						}
+						start = lineEnd;
+					}
+				}
+				if (start < end || end == dataBuffer.readPosition()) {
+					append(dataBuffer, start, end);
+					this.pendingLine = true;
+				}
+				return lines;
+			}
+			finally {
+				DataBufferUtils.release(dataBuffer);
+			}
+		}
+
+		/**
+		 * Emit the remaining line, if any, once the input has completed.
+		 */
+		Flux<String> complete() {
+			if (this.pendingLine) {
+				String line = new String(this.pending, 0, this.pendingLength, this.charset);
+				this.pendingLine = false;
+				this.pendingLength = 0;
+				return Flux.just(line);
+			}
+			return Flux.empty();
+		}
+
+		/**
+		 * Advance the delimiter matchers with the given byte.
+		 * @return the length of the longest delimiter completed by the byte,
+		 * or 0 if none
+		 */
+		private int match(byte b) {
+			int matched = 0;
+			boolean partialMatch = false;
+			for (int i = 0; i < this.delimiters.length; i++) {
+				byte[] delimiter = this.delimiters[i];
+				if (delimiter.length == 0) {
+					continue;
+				}
+				int count = this.matches[i];
+				while (count > 0 && delimiter[count] != b) {
+					count = this.failures[i][count - 1];
+				}
+				if (delimiter[count] == b) {
+					count++;
+				}
+				if (count == delimiter.length) {
+					matched = Math.max(matched, count);
+					count = 0;
+				}
+				this.matches[i] = count;
+				partialMatch |= (count > 0);
+			}
+			if (matched > 0) {
+				Arrays.fill(this.matches, 0);
+				partialMatch = false;
+			}
+			this.partialMatch = partialMatch;
+			return matched;
+		}
+
+		private void append(DataBuffer dataBuffer, int start, int end) {
+			int length = end - start;
+			int newLength = this.pendingLength + length;
+			checkLimit(newLength);
+			if (newLength > this.pending.length) {
+				this.pending = Arrays.copyOf(this.pending, Math.max(newLength, this.pending.length * 2));
+			}
+			dataBuffer.asByteBuffer(start, length).get(this.pending, this.pendingLength, length);
+			this.pendingLength = newLength;
+		}
+
+		private void checkLimit(int length) {
+			if (this.maxInMemorySize >= 0 && length > this.maxInMemorySize) {
+				throw new DecodingException("Exceeded limit on max bytes per line: " + this.maxInMemorySize);
+			}
+		}
+	}
+
 }
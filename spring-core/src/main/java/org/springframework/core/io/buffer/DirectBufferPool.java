@@ -0,0 +1,248 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Pool of direct memory chunks in power-of-two size classes, from
+ * {@link #MIN_CHUNK_SIZE} to {@link #MAX_CHUNK_SIZE}. Chunks are carved out
+ * of slabs of {@link #SLAB_SIZE} bytes, allocated on demand up to a maximum
+ * total size, and never given back to the operating system.
+ *
+ * <p>Each thread keeps a small cache of free chunks per size class, so that
+ * the common case of allocating and releasing on the same thread does not
+ * touch the shared free lists. The cache holds up to 32 chunks and up to
+ * 128 KB per size class. The caches of threads that have terminated are
+ * drained back into the shared free lists before the pool gives up on an
+ * allocation, so that chunks are not lost along with their thread.
+ *
+ * @since 5.0.16
+ * @see PooledDirectDataBufferFactory
+ */
+final class DirectBufferPool {
+
+	/** Size of the smallest size class: 256 bytes. */
+	static final int MIN_CHUNK_SIZE = 256;
+
+	/** Size of the largest size class: 64 KB. */
+	static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+	/** Size of the slabs that chunks are carved out of: 1 MB. */
+	static final int SLAB_SIZE = 1024 * 1024;
+
+	private static final int MIN_CHUNK_SHIFT = Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+
+	private static final int SIZE_CLASS_COUNT = Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE) - MIN_CHUNK_SHIFT + 1;
+
+	private static final int THREAD_CACHE_MAX_CHUNKS = 32;
+
+	private static final int THREAD_CACHE_MAX_BYTES = 128 * 1024;
+
+
+	private final long maxPoolSize;
+
+	private final AtomicLong poolSize = new AtomicLong();
+
+	private final Queue<ByteBuffer>[] freeLists;
+
+	private final Queue<ThreadCache> allThreadCaches = new ConcurrentLinkedQueue<>();
+
+	private final ThreadLocal<ThreadCache> threadCaches = ThreadLocal.withInitial(this::createThreadCache);
+
+
+	@SuppressWarnings("unchecked")
+	DirectBufferPool(long maxPoolSize) {
+		this.maxPoolSize = maxPoolSize;
+		this.freeLists = (Queue<ByteBuffer>[]) new Queue<?>[SIZE_CLASS_COUNT];
+		for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+			this.freeLists[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+
+	private ThreadCache createThreadCache() {
+		// Drop the caches of terminated threads as new threads come along
+		reclaimThreadCaches();
+		ThreadCache cache = new ThreadCache(Thread.currentThread());
+		this.allThreadCaches.add(cache);
+		return cache;
+	}
+
+
+	/**
+	 * Return the total size of the slabs allocated so far. Slabs are never
+	 * given back, so this only grows, up to the maximum pool size.
+	 */
+	long getPoolSize() {
+		return this.poolSize.get();
+	}
+
+	/**
+	 * Allocate a chunk of at least the given capacity, with its position at 0
+	 * and its limit at its capacity.
+	 * @return the chunk, or {@code null} if the capacity is beyond the largest
+	 * size class or the pool is exhausted
+	 */
+	@Nullable
+	ByteBuffer allocate(int capacity) {
+		int sizeClass = sizeClass(capacity);
+		if (sizeClass < 0) {
+			return null;
+		}
+		ByteBuffer chunk = this.threadCaches.get().poll(sizeClass);
+		if (chunk == null) {
+			chunk = this.freeLists[sizeClass].poll();
+		}
+		if (chunk == null) {
+			chunk = allocateSlab(sizeClass);
+		}
+		if (chunk == null && reclaimThreadCaches()) {
+			chunk = this.freeLists[sizeClass].poll();
+		}
+		return chunk;
+	}
+
+	/**
+	 * Return a chunk previously obtained from {@link #allocate} to the pool.
+	 */
+	void release(ByteBuffer chunk) {
+		int sizeClass = sizeClass(chunk.capacity());
+		((Buffer) chunk).clear();
+		if (!this.threadCaches.get().offer(sizeClass, chunk)) {
+			this.freeLists[sizeClass].offer(chunk);
+		}
+	}
+
+	/**
+	 * Move the chunks cached by terminated threads to the shared free lists.
+	 * @return whether any chunks were reclaimed
+	 */
+	private boolean reclaimThreadCaches() {
+		boolean reclaimed = false;
+		for (Iterator<ThreadCache> it = this.allThreadCaches.iterator(); it.hasNext();) {
+			ThreadCache cache = it.next();
+			if (cache.isOwnerTerminated()) {
+				it.remove();
+				for (int sizeClass = 0; sizeClass < SIZE_CLASS_COUNT; sizeClass++) {
+					ByteBuffer chunk;
+					while ((chunk = cache.poll(sizeClass)) != null) {
+						this.freeLists[sizeClass].offer(chunk);
+						reclaimed = true;
+					}
+				}
+			}
+		}
+		return reclaimed;
+	}
+
+	@Nullable
+	private ByteBuffer allocateSlab(int sizeClass) {
+		long size;
+		do {
+			size = this.poolSize.get();
+			if (size + SLAB_SIZE > this.maxPoolSize) {
+				return null;
+			}
+		}
+		while (!this.poolSize.compareAndSet(size, size + SLAB_SIZE));
+
+		ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+		int chunkSize = MIN_CHUNK_SIZE << sizeClass;
+		ByteBuffer first = null;
+		for (int offset = 0; offset < SLAB_SIZE; offset += chunkSize) {
+			((Buffer) slab).limit(offset + chunkSize).position(offset);
+			ByteBuffer chunk = slab.slice();
+			if (first == null) {
+				first = chunk;
+			}
+			else {
+				this.freeLists[sizeClass].offer(chunk);
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Return the size class for the given capacity, or -1 if beyond the largest.
+	 */
+	static int sizeClass(int capacity) {
+		if (capacity > MAX_CHUNK_SIZE) {
+			return -1;
+		}
+		int shift = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 1) - 1);
+		return Math.max(shift - MIN_CHUNK_SHIFT, 0);
+	}
+
+
+	/**
+	 * Per-thread stacks of free chunks, one per size class.
+	 */
+	private static final class ThreadCache {
+
+		private final WeakReference<Thread> owner;
+
+		private final ByteBuffer[][] chunks = new ByteBuffer[SIZE_CLASS_COUNT][];
+
+		private final int[] counts = new int[SIZE_CLASS_COUNT];
+
+		ThreadCache(Thread owner) {
+			this.owner = new WeakReference<>(owner);
+			for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+				int chunkSize = MIN_CHUNK_SIZE << i;
+				this.chunks[i] = new ByteBuffer[Math.min(THREAD_CACHE_MAX_CHUNKS, THREAD_CACHE_MAX_BYTES / chunkSize)];
+			}
+		}
+
+		@Nullable
+		ByteBuffer poll(int sizeClass) {
+			int count = this.counts[sizeClass];
+			if (count == 0) {
+				return null;
+			}
+			ByteBuffer[] stack = this.chunks[sizeClass];
+			ByteBuffer chunk = stack[count - 1];
+			stack[count - 1] = null;
+			this.counts[sizeClass] = count - 1;
+			return chunk;
+		}
+
+		boolean offer(int sizeClass, ByteBuffer chunk) {
+			int count = this.counts[sizeClass];
+			if (count == this.chunks[sizeClass].length) {
+				return false;
+			}
+			this.chunks[sizeClass][count] = chunk;
+			this.counts[sizeClass] = count + 1;
+			return true;
+		}
+
+		boolean isOwnerTerminated() {
+			Thread thread = this.owner.get();
+			return (thread == null || !thread.isAlive());
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link DefaultDataBuffer} over a chunk of pooled direct memory, returned to
+ * the pool of its {@link PooledDirectDataBufferFactory} once the reference
+ * count drops to zero. Slices share the reference count of the buffer they
+ * were created from.
+ *
+ * @since 5.0.16
+ * @see PooledDirectDataBufferFactory
+ */
+final class PooledDirectDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+	private static final ByteBuffer RELEASED_BUFFER = ByteBuffer.allocateDirect(0);
+
+	private static final AtomicIntegerFieldUpdater<PooledDirectDataBuffer> REF_COUNT_UPDATER =
+			AtomicIntegerFieldUpdater.newUpdater(PooledDirectDataBuffer.class, "refCount");
+
+
+	private final PooledDirectDataBufferFactory factory;
+
+	private ByteBuffer chunk;
+
+	private boolean pooled;
+
+	@Nullable
+	private ByteBuffer nextChunk;
+
+	private boolean nextPooled;
+
+	@Nullable
+	private final PooledDirectDataBufferFactory.LeakTracker leakTracker;
+
+	private volatile int refCount = 1;
+
+
+	PooledDirectDataBuffer(PooledDirectDataBufferFactory factory, ByteBuffer chunk, boolean pooled, int capacity) {
+		super(factory, limit(chunk, capacity));
+		this.factory = factory;
+		this.chunk = chunk;
+		this.pooled = pooled;
+		this.leakTracker = factory.track(this);
+	}
+
+	private static ByteBuffer limit(ByteBuffer chunk, int capacity) {
+		((Buffer) chunk).position(0).limit(capacity);
+		return chunk;
+	}
+
+
+	@Override
+	public PooledDataBuffer retain() {
+		int count;
+		do {
+			count = this.refCount;
+			if (count <= 0) {
+				throw new IllegalStateException("Buffer has already been released: " + this);
+			}
+		}
+		while (!REF_COUNT_UPDATER.compareAndSet(this, count, count + 1));
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		int count;
+		do {
+			count = this.refCount;
+			if (count <= 0) {
+				throw new IllegalStateException("Buffer has already been released: " + this);
+			}
+		}
+		while (!REF_COUNT_UPDATER.compareAndSet(this, count, count - 1));
+		if (count == 1) {
+			deallocate();
+			return true;
+		}
+		return false;
+	}
+
+	private void deallocate() {
+		ByteBuffer chunk = this.chunk;
+		boolean pooled = this.pooled;
+		// Fail fast on access after release rather than read or write memory now owned by another buffer,
+		// and forget the chunk so that nothing can give it back to the pool a second time
+		super.setNativeBuffer(RELEASED_BUFFER);
+		this.chunk = RELEASED_BUFFER;
+		this.pooled = false;
+		this.nextChunk = null;
+		this.nextPooled = false;
+		readPosition(0);
+		writePosition(0);
+		if (pooled) {
+			this.factory.releaseChunk(chunk);
+		}
+		this.factory.bufferReleased();
+		if (this.leakTracker != null) {
+			this.leakTracker.close();
+		}
+	}
+
+	@Override
+	ByteBuffer allocate(int capacity, boolean direct) {
+		if (this.refCount <= 0) {
+			throw new IllegalStateException("Buffer has already been released: " + this);
+		}
+		ByteBuffer chunk = this.factory.allocateChunk(capacity);
+		this.nextPooled = (chunk != null);
+		this.nextChunk = (chunk != null ? chunk : ByteBuffer.allocateDirect(capacity));
+		return limit(this.nextChunk, capacity).slice();
+	}
+
+	@Override
+	void setNativeBuffer(ByteBuffer byteBuffer) {
+		super.setNativeBuffer(byteBuffer);
+		ByteBuffer previous = this.chunk;
+		boolean previousPooled = this.pooled;
+		if (this.nextChunk != null) {
+			this.chunk = this.nextChunk;
+			this.pooled = this.nextPooled;
+			this.nextChunk = null;
+		}
+		if (previousPooled) {
+			this.factory.releaseChunk(previous);
+		}
+	}
+
+	@Override
+	public DefaultDataBuffer slice(int index, int length) {
+		DefaultDataBuffer slice = super.slice(index, length);
+		return new PooledSlice(this, slice.getNativeBuffer(), length);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PooledDirectDataBuffer (r: %d, w: %d, c: %d, refCount: %d)",
+				readPosition(), writePosition(), capacity(), this.refCount);
+	}
+
+
+	/**
+	 * A slice sharing the reference count of its parent buffer.
+	 */
+	private static final class PooledSlice extends SlicedDefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDirectDataBuffer parent;
+
+		PooledSlice(PooledDirectDataBuffer parent, ByteBuffer byteBuffer, int length) {
+			super(byteBuffer, parent.factory, length);
+			this.parent = parent;
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+	}
+
+}
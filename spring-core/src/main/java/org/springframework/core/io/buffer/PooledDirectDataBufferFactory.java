@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DefaultDataBufferFactory} that allocates {@link PooledDataBuffer
+ * PooledDataBuffers} over direct memory from a pool, for runtimes without a
+ * pooled allocator of their own, i.e. Servlet containers and Undertow.
+ *
+ * <p>Buffers of up to 64 KB are served from power-of-two size classes carved
+ * out of 1 MB slabs, with per-thread caches of free chunks. Larger buffers, and
+ * any buffers requested once the pool has reached its {@link #getMaxPoolSize()
+ * maximum size}, are allocated as regular direct buffers and left to garbage
+ * collection. A buffer returns its memory to the pool when its reference count
+ * drops to zero, so every allocated buffer must be
+ * {@linkplain DataBufferUtils#release released}, as with Netty's pooled buffers.
+ * For this reason, the factory is never used by default: it must be configured
+ * explicitly where all consumers of the buffers are known to release them.
+ *
+ * <p>A sample of allocations, one in {@link #DEFAULT_LEAK_DETECTION_INTERVAL}
+ * by default, is tracked, and an error is logged with the allocation stack
+ * trace for each tracked buffer that is garbage collected without having
+ * been released.
+ *
+ * @since 5.0.16
+ */
+public class PooledDirectDataBufferFactory extends DefaultDataBufferFactory {
+
+	/** Default maximum total size of pooled memory: 64 MB. */
+	public static final long DEFAULT_MAX_POOL_SIZE = 64 * 1024 * 1024;
+
+	/** Default interval for leak detection sampling: one in 128 allocations. */
+	public static final int DEFAULT_LEAK_DETECTION_INTERVAL = 128;
+
+	private static final Log logger = LogFactory.getLog(PooledDirectDataBufferFactory.class);
+
+
+	private final long maxPoolSize;
+
+	private final DirectBufferPool pool;
+
+	private final LongAdder activeBuffers = new LongAdder();
+
+	private volatile int leakDetectionInterval = DEFAULT_LEAK_DETECTION_INTERVAL;
+
+	private final ReferenceQueue<PooledDirectDataBuffer> leakQueue = new ReferenceQueue<>();
+
+	private final Map<LeakTracker, Boolean> leakTrackers = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Create a new {@code PooledDirectDataBufferFactory} with a maximum pool
+	 * size of {@link #DEFAULT_MAX_POOL_SIZE}.
+	 */
+	public PooledDirectDataBufferFactory() {
+		this(DEFAULT_MAX_POOL_SIZE);
+	}
+
+	/**
+	 * Create a new {@code PooledDirectDataBufferFactory} with the given maximum
+	 * total size of pooled memory.
+	 * @param maxPoolSize the maximum pool size in bytes
+	 */
+	public PooledDirectDataBufferFactory(long maxPoolSize) {
+		super(true);
+		Assert.isTrue(maxPoolSize >= 0, "'maxPoolSize' must not be negative");
+		this.maxPoolSize = maxPoolSize;
+		this.pool = new DirectBufferPool(maxPoolSize);
+	}
+
+
+	/**
+	 * Return the maximum total size of pooled memory in bytes.
+	 */
+	public long getMaxPoolSize() {
+		return this.maxPoolSize;
+	}
+
+	/**
+	 * Return the total size of the memory pooled so far in bytes.
+	 */
+	public long getPoolSize() {
+		return this.pool.getPoolSize();
+	}
+
+	/**
+	 * Return the number of allocated buffers that have not been released yet.
+	 */
+	public long getActiveBufferCount() {
+		return this.activeBuffers.sum();
+	}
+
+	/**
+	 * Set the interval for leak detection sampling, i.e. track one in every
+	 * given number of allocations, 1 to track all of them (e.g. in tests),
+	 * or 0 to turn leak detection off.
+	 * <p>By default this is set to {@link #DEFAULT_LEAK_DETECTION_INTERVAL}.
+	 */
+	public void setLeakDetectionInterval(int leakDetectionInterval) {
+		Assert.isTrue(leakDetectionInterval >= 0, "'leakDetectionInterval' must not be negative");
+		this.leakDetectionInterval = leakDetectionInterval;
+	}
+
+	/**
+	 * Return the interval for leak detection sampling.
+	 */
+	public int getLeakDetectionInterval() {
+		return this.leakDetectionInterval;
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		reportLeaks();
+		ByteBuffer chunk = this.pool.allocate(initialCapacity);
+		boolean pooled = (chunk != null);
+		if (chunk == null) {
+			chunk = ByteBuffer.allocateDirect(initialCapacity);
+		}
+		this.activeBuffers.increment();
+		return new PooledDirectDataBuffer(this, chunk, pooled, initialCapacity);
+	}
+
+	@Nullable
+	ByteBuffer allocateChunk(int capacity) {
+		return this.pool.allocate(capacity);
+	}
+
+	void releaseChunk(ByteBuffer chunk) {
+		this.pool.release(chunk);
+	}
+
+	void bufferReleased() {
+		this.activeBuffers.decrement();
+	}
+
+	@Nullable
+	LeakTracker track(PooledDirectDataBuffer buffer) {
+		int interval = this.leakDetectionInterval;
+		if (interval == 0 || (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0)) {
+			return null;
+		}
+		LeakTracker tracker = new LeakTracker(buffer, this);
+		this.leakTrackers.put(tracker, Boolean.TRUE);
+		return tracker;
+	}
+
+	private void reportLeaks() {
+		LeakTracker tracker;
+		while ((tracker = (LeakTracker) this.leakQueue.poll()) != null) {
+			if (this.leakTrackers.remove(tracker) != null) {
+				logger.error("LEAK: PooledDirectDataBuffer was garbage collected without having been released; " +
+						"its memory is lost to the pool. Allocated at:", tracker.allocationSite);
+			}
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDirectDataBufferFactory (maxPoolSize=" + this.maxPoolSize + ")";
+	}
+
+
+	/**
+	 * Weak reference to a tracked buffer, enqueued if the buffer is garbage
+	 * collected before it is released.
+	 */
+	static final class LeakTracker extends WeakReference<PooledDirectDataBuffer> {
+
+		private final PooledDirectDataBufferFactory factory;
+
+		final Throwable allocationSite = new Throwable("Buffer allocation site");
+
+		LeakTracker(PooledDirectDataBuffer buffer, PooledDirectDataBufferFactory factory) {
+			super(buffer, factory.leakQueue);
+			this.factory = factory;
+		}
+
+		void close() {
+			this.factory.leakTrackers.remove(this);
+			clear();
+		}
+	}
+
+}
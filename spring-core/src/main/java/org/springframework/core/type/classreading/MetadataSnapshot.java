@@ -0,0 +1,961 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Snapshot of ASM-based class metadata and of the results of classpath scans,
+ * allowing an application to start up without re-reading every class file and
+ * re-scanning the classpath for candidate components.
+ *
+ * <p>A snapshot is either created empty for recording, typically at build time
+ * through a {@link SnapshotMetadataReaderFactory} and then {@linkplain #write
+ * written} once all configuration classes have been parsed, or {@linkplain #read
+ * loaded} from such a recording. Every class and every scan is stored along with
+ * a fingerprint of the classpath roots it was read from: the names, sizes and
+ * CRCs of all entries of a jar file, or the names, sizes and timestamps of all
+ * class files in a directory. A loaded snapshot checks those fingerprints against
+ * the runtime classpath and ignores stale entries, so that callers fall back to
+ * reading the actual class files. Class metadata is only decoded on first access.
+ *
+ * @since 5.0.16
+ * @see SnapshotMetadataReaderFactory
+ */
+public final class MetadataSnapshot {
+
+	/**
+	 * The default location of a metadata snapshot within the classpath.
+	 * @see #loadSnapshot(ClassLoader)
+	 */
+	public static final String DEFAULT_SNAPSHOT_LOCATION = "META-INF/spring.metadata-snapshot";
+
+	private static final int MAGIC = 0x53504d53;
+
+	private static final int VERSION = 1;
+
+	private static final long NO_FINGERPRINT = -1;
+
+	private static final int FLAG_INTERFACE = 1;
+
+	private static final int FLAG_ANNOTATION = 2;
+
+	private static final int FLAG_ABSTRACT = 4;
+
+	private static final int FLAG_FINAL = 8;
+
+	private static final int FLAG_INDEPENDENT = 16;
+
+	private static final byte TAG_STRING = 1;
+
+	private static final byte TAG_BOOLEAN = 2;
+
+	private static final byte TAG_BYTE = 3;
+
+	private static final byte TAG_CHAR = 4;
+
+	private static final byte TAG_SHORT = 5;
+
+	private static final byte TAG_INT = 6;
+
+	private static final byte TAG_LONG = 7;
+
+	private static final byte TAG_FLOAT = 8;
+
+	private static final byte TAG_DOUBLE = 9;
+
+	private static final byte TAG_TYPE = 10;
+
+	private static final byte TAG_CLASS = 11;
+
+	private static final byte TAG_ENUM = 12;
+
+	private static final byte TAG_ATTRIBUTES = 13;
+
+	private static final byte TAG_ARRAY = 14;
+
+	private static final Log logger = LogFactory.getLog(MetadataSnapshot.class);
+
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final boolean recording;
+
+	private final List<String> strings;
+
+	private final Map<String, Integer> stringIndexes;
+
+	private final Map<String, ClassEntry> classEntries = new ConcurrentHashMap<>(256);
+
+	private final Map<String, ScanEntry> scanEntries = new ConcurrentHashMap<>(16);
+
+	private final Map<String, Long> rootFingerprints = new ConcurrentHashMap<>(16);
+
+
+	/**
+	 * Create a new, empty snapshot for recording.
+	 * @param classLoader the ClassLoader to resolve classpath roots against
+	 * (may be {@code null} to use the system ClassLoader)
+	 */
+	public MetadataSnapshot(@Nullable ClassLoader classLoader) {
+		this.classLoader = classLoader;
+		this.recording = true;
+		this.strings = new ArrayList<>(1024);
+		this.stringIndexes = new HashMap<>(1024);
+	}
+
+	private MetadataSnapshot(@Nullable ClassLoader classLoader, String[] strings) {
+		this.classLoader = classLoader;
+		this.recording = false;
+		this.strings = Arrays.asList(strings);
+		this.stringIndexes = Collections.emptyMap();
+	}
+
+
+	/**
+	 * Return whether this snapshot is being recorded, as opposed to
+	 * having been loaded from a previous recording.
+	 */
+	public boolean isRecording() {
+		return this.recording;
+	}
+
+	/**
+	 * Return the number of classes in this snapshot.
+	 */
+	public int getClassCount() {
+		return this.classEntries.size();
+	}
+
+	/**
+	 * Return the number of classpath scans in this snapshot.
+	 */
+	public int getScanCount() {
+		return this.scanEntries.size();
+	}
+
+	/**
+	 * Record the metadata exposed by the given reader.
+	 * <p>Only metadata read through ASM from a class file within a jar file or
+	 * a classpath directory can be recorded.
+	 * @param metadataReader the reader to take the metadata from
+	 * @return {@code true} if the metadata has been recorded, {@code false} if
+	 * it is not supported by this snapshot
+	 */
+	public boolean addMetadataReader(MetadataReader metadataReader) {
+		assertRecording();
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		String className = metadata.getClassName();
+		if (this.classEntries.containsKey(className)) {
+			return true;
+		}
+		if (metadata.getClass() != AnnotationMetadataReadingVisitor.class) {
+			return false;
+		}
+		long rootFingerprint;
+		try {
+			rootFingerprint = getRootFingerprint(metadataReader.getResource().getURL(), getResourcePath(className));
+		}
+		catch (IOException ex) {
+			rootFingerprint = NO_FINGERPRINT;
+		}
+		if (rootFingerprint == NO_FINGERPRINT) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not recording metadata for class [" + className +
+						"] since it has not been read from a classpath root: " + metadataReader.getResource());
+			}
+			return false;
+		}
+		byte[] payload;
+		synchronized (this.strings) {
+			try {
+				payload = encodeClass((AnnotationMetadataReadingVisitor) metadata);
+			}
+			catch (IllegalArgumentException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Not recording metadata for class [" + className + "]: " + ex.getMessage());
+				}
+				return false;
+			}
+		}
+		this.classEntries.put(className, new ClassEntry(className, rootFingerprint, payload));
+		return true;
+	}
+
+	/**
+	 * Return a {@link MetadataReader} for the given class from this snapshot.
+	 * @param className the fully qualified class name
+	 * @return the reader, or {@code null} if this snapshot is being recorded,
+	 * does not contain the given class, or contains outdated metadata for it
+	 */
+	@Nullable
+	public MetadataReader getMetadataReader(String className) {
+		if (this.recording) {
+			return null;
+		}
+		ClassEntry entry = this.classEntries.get(className);
+		if (entry == null || entry.invalid) {
+			return null;
+		}
+		String resourcePath = getResourcePath(className);
+		if (!entry.validated) {
+			URL url = getResource(resourcePath);
+			if (url == null || getRootFingerprint(url, resourcePath) != entry.rootFingerprint) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring outdated metadata snapshot entry for class [" + className + "]");
+				}
+				entry.invalid = true;
+				return null;
+			}
+			entry.validated = true;
+		}
+		try {
+			return new SnapshotMetadataReader(
+					new ClassPathResource(resourcePath, this.classLoader), decodeClass(entry.payload));
+		}
+		catch (IOException | ClassNotFoundException | LinkageError | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to decode metadata snapshot entry for class [" + className + "]", ex);
+			}
+			entry.invalid = true;
+			return null;
+		}
+	}
+
+	/**
+	 * Record the names of the classes found by a classpath scan.
+	 * @param basePackagePath the resource path of the base package to scan
+	 * (e.g. "com/mycompany"), without any wildcards
+	 * @param resourcePattern the resource pattern used within the base package
+	 * @param classNames the fully qualified names of the classes found
+	 * @return {@code true} if the scan has been recorded, {@code false} if any
+	 * of its classpath roots cannot be fingerprinted
+	 */
+	public boolean addScannedClassNames(String basePackagePath, String resourcePattern, Collection<String> classNames) {
+		assertRecording();
+		long[] rootFingerprints = getScanRootFingerprints(basePackagePath);
+		if (rootFingerprints == null) {
+			return false;
+		}
+		this.scanEntries.put(getScanKey(basePackagePath, resourcePattern),
+				new ScanEntry(rootFingerprints, StringUtils.toStringArray(classNames)));
+		return true;
+	}
+
+	/**
+	 * Return the names of the classes found by a classpath scan from this snapshot.
+	 * @param basePackagePath the resource path of the base package to scan
+	 * (e.g. "com/mycompany"), without any wildcards
+	 * @param resourcePattern the resource pattern used within the base package
+	 * @return the fully qualified names of the classes found, or {@code null}
+	 * if this snapshot is being recorded, does not contain the given scan, or
+	 * if any classpath root of the given base package has changed since
+	 */
+	@Nullable
+	public List<String> getScannedClassNames(String basePackagePath, String resourcePattern) {
+		if (this.recording) {
+			return null;
+		}
+		ScanEntry entry = this.scanEntries.get(getScanKey(basePackagePath, resourcePattern));
+		if (entry == null) {
+			return null;
+		}
+		if (!Arrays.equals(entry.rootFingerprints, getScanRootFingerprints(basePackagePath))) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring outdated metadata snapshot entry for scan of [" + basePackagePath + "]");
+			}
+			return null;
+		}
+		return Collections.unmodifiableList(Arrays.asList(entry.classNames));
+	}
+
+	/**
+	 * Write this snapshot to the given stream, leaving the stream open.
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void write(OutputStream out) throws IOException {
+		Map<String, ClassEntry> sortedClassEntries = new TreeMap<>(this.classEntries);
+		Map<String, ScanEntry> sortedScanEntries = new TreeMap<>(this.scanEntries);
+		DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(deflater));
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		synchronized (this.strings) {
+			for (Map.Entry<String, ScanEntry> entry : sortedScanEntries.entrySet()) {
+				getStringIndex(entry.getKey());
+				for (String className : entry.getValue().classNames) {
+					getStringIndex(className);
+				}
+			}
+			for (String className : sortedClassEntries.keySet()) {
+				getStringIndex(className);
+			}
+			dos.writeInt(this.strings.size());
+			for (String string : this.strings) {
+				writeUtf8(dos, string);
+			}
+			dos.writeInt(sortedClassEntries.size());
+			for (ClassEntry entry : sortedClassEntries.values()) {
+				dos.writeInt(getStringIndex(entry.className));
+				dos.writeLong(entry.rootFingerprint);
+				dos.writeInt(entry.payload.length);
+				dos.write(entry.payload);
+			}
+			dos.writeInt(sortedScanEntries.size());
+			for (Map.Entry<String, ScanEntry> entry : sortedScanEntries.entrySet()) {
+				dos.writeInt(getStringIndex(entry.getKey()));
+				ScanEntry scanEntry = entry.getValue();
+				dos.writeInt(scanEntry.rootFingerprints.length);
+				for (long rootFingerprint : scanEntry.rootFingerprints) {
+					dos.writeLong(rootFingerprint);
+				}
+				dos.writeInt(scanEntry.classNames.length);
+				for (String className : scanEntry.classNames) {
+					dos.writeInt(getStringIndex(className));
+				}
+			}
+		}
+		dos.flush();
+		deflater.finish();
+	}
+
+	@Override
+	public String toString() {
+		return "MetadataSnapshot with " + getClassCount() + " classes and " + getScanCount() + " scans" +
+				(this.recording ? " (recording)" : "");
+	}
+
+
+	/**
+	 * Read a snapshot from the given stream, leaving the stream open.
+	 * @param in the stream to read from
+	 * @param classLoader the ClassLoader to resolve classes and classpath roots
+	 * against (may be {@code null} to use the system ClassLoader)
+	 * @return the snapshot
+	 * @throws IOException in case of I/O errors or an unsupported format
+	 */
+	public static MetadataSnapshot read(InputStream in, @Nullable ClassLoader classLoader) throws IOException {
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in)));
+		if (dis.readInt() != MAGIC) {
+			throw new IOException("Not a metadata snapshot");
+		}
+		int version = dis.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported metadata snapshot version " + version);
+		}
+		String[] strings = new String[dis.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = readUtf8(dis);
+		}
+		MetadataSnapshot snapshot = new MetadataSnapshot(classLoader, strings);
+		int classCount = dis.readInt();
+		for (int i = 0; i < classCount; i++) {
+			String className = strings[dis.readInt()];
+			long rootFingerprint = dis.readLong();
+			byte[] payload = new byte[dis.readInt()];
+			dis.readFully(payload);
+			snapshot.classEntries.put(className, new ClassEntry(className, rootFingerprint, payload));
+		}
+		int scanCount = dis.readInt();
+		for (int i = 0; i < scanCount; i++) {
+			String key = strings[dis.readInt()];
+			long[] rootFingerprints = new long[dis.readInt()];
+			for (int j = 0; j < rootFingerprints.length; j++) {
+				rootFingerprints[j] = dis.readLong();
+			}
+			String[] classNames = new String[dis.readInt()];
+			for (int j = 0; j < classNames.length; j++) {
+				classNames[j] = strings[dis.readInt()];
+			}
+			snapshot.scanEntries.put(key, new ScanEntry(rootFingerprints, classNames));
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Load the snapshot at {@link #DEFAULT_SNAPSHOT_LOCATION} from the classpath.
+	 * @param classLoader the ClassLoader to load the snapshot with, and to resolve
+	 * classes and classpath roots against (may be {@code null} to use the system ClassLoader)
+	 * @return the snapshot, or {@code null} if none is present
+	 * @throws IOException in case of I/O errors or an unsupported format
+	 */
+	@Nullable
+	public static MetadataSnapshot loadSnapshot(@Nullable ClassLoader classLoader) throws IOException {
+		URL url = (classLoader != null ? classLoader.getResource(DEFAULT_SNAPSHOT_LOCATION) :
+				ClassLoader.getSystemResource(DEFAULT_SNAPSHOT_LOCATION));
+		if (url == null) {
+			return null;
+		}
+		try (InputStream in = url.openStream()) {
+			return read(in, classLoader);
+		}
+	}
+
+
+	private void assertRecording() {
+		if (!this.recording) {
+			throw new IllegalStateException("Cannot add to a MetadataSnapshot that has been loaded");
+		}
+	}
+
+	private static String getResourcePath(String className) {
+		return ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+	}
+
+	private static String getScanKey(String basePackagePath, String resourcePattern) {
+		return StringUtils.trimTrailingCharacter(basePackagePath, '/') + '/' + resourcePattern;
+	}
+
+	@Nullable
+	private URL getResource(String resourcePath) {
+		return (this.classLoader != null ? this.classLoader.getResource(resourcePath) :
+				ClassLoader.getSystemResource(resourcePath));
+	}
+
+	@Nullable
+	private long[] getScanRootFingerprints(String basePackagePath) {
+		String path = StringUtils.trimTrailingCharacter(basePackagePath, '/') + '/';
+		List<Long> fingerprints = new ArrayList<>();
+		try {
+			Enumeration<URL> urls = (this.classLoader != null ? this.classLoader.getResources(path) :
+					ClassLoader.getSystemResources(path));
+			while (urls.hasMoreElements()) {
+				long fingerprint = getRootFingerprint(urls.nextElement(), path);
+				if (fingerprint == NO_FINGERPRINT) {
+					return null;
+				}
+				fingerprints.add(fingerprint);
+			}
+		}
+		catch (IOException ex) {
+			return null;
+		}
+		long[] result = new long[fingerprints.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = fingerprints.get(i);
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Determine the fingerprint of the classpath root (jar file or directory)
+	 * that the given URL for the given resource path has been resolved from.
+	 */
+	private long getRootFingerprint(URL url, String resourcePath) {
+		try {
+			File root;
+			if (ResourceUtils.isJarURL(url)) {
+				root = ResourceUtils.getFile(ResourceUtils.extractArchiveURL(url));
+			}
+			else if (ResourceUtils.isFileURL(url)) {
+				root = ResourceUtils.getFile(url);
+				for (int i = StringUtils.tokenizeToStringArray(resourcePath, "/").length; i > 0 && root != null; i--) {
+					root = root.getParentFile();
+				}
+				if (root == null) {
+					return NO_FINGERPRINT;
+				}
+			}
+			else {
+				return NO_FINGERPRINT;
+			}
+			String key = root.getAbsolutePath();
+			Long fingerprint = this.rootFingerprints.get(key);
+			if (fingerprint == null) {
+				fingerprint = (root.isDirectory() ? getDirectoryFingerprint(root) : getArchiveFingerprint(root));
+				this.rootFingerprints.put(key, fingerprint);
+			}
+			return fingerprint;
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot determine classpath root fingerprint for " + url, ex);
+			}
+			return NO_FINGERPRINT;
+		}
+	}
+
+	private static long getArchiveFingerprint(File archive) throws IOException {
+		CRC32 crc = new CRC32();
+		try (ZipFile zipFile = new ZipFile(archive)) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				crc.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+				updateLong(crc, entry.getCrc());
+				updateLong(crc, entry.getSize());
+			}
+		}
+		return crc.getValue();
+	}
+
+	private static long getDirectoryFingerprint(File directory) throws IOException {
+		Path rootPath = directory.toPath();
+		List<String> classFiles = new ArrayList<>();
+		Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (attrs.isRegularFile() && file.toString().endsWith(ClassUtils.CLASS_FILE_SUFFIX)) {
+					classFiles.add(rootPath.relativize(file).toString() + '|' + attrs.size() + '|' +
+							attrs.lastModifiedTime().toMillis());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(classFiles);
+		CRC32 crc = new CRC32();
+		for (String classFile : classFiles) {
+			crc.update(classFile.getBytes(StandardCharsets.UTF_8));
+		}
+		return crc.getValue();
+	}
+
+	private static void updateLong(CRC32 crc, long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			crc.update((int) (value >>> shift));
+		}
+	}
+
+
+	// Encoding of class metadata
+
+	private int getStringIndex(String string) {
+		Integer index = this.stringIndexes.get(string);
+		if (index == null) {
+			index = this.strings.size();
+			this.strings.add(string);
+			this.stringIndexes.put(string, index);
+		}
+		return index;
+	}
+
+	private byte[] encodeClass(AnnotationMetadataReadingVisitor metadata) {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bos);
+		try {
+			writeString(out, metadata.getClassName());
+			out.writeInt((metadata.isInterface() ? FLAG_INTERFACE : 0) |
+					(metadata.isAnnotation() ? FLAG_ANNOTATION : 0) |
+					(metadata.isAbstract() ? FLAG_ABSTRACT : 0) |
+					(metadata.isFinal() ? FLAG_FINAL : 0) |
+					(metadata.isIndependent() ? FLAG_INDEPENDENT : 0));
+			writeNullableString(out, metadata.getEnclosingClassName());
+			writeNullableString(out, metadata.getSuperClassName());
+			writeStrings(out, Arrays.asList(metadata.getInterfaceNames()));
+			writeStrings(out, Arrays.asList(metadata.getMemberClassNames()));
+			writeStrings(out, metadata.annotationSet);
+			writeMetaAnnotationMap(out, metadata.metaAnnotationMap);
+			writeAttributesMap(out, metadata.attributesMap);
+			out.writeInt(metadata.methodMetadataSet.size());
+			for (MethodMetadata methodMetadata : metadata.methodMetadataSet) {
+				if (methodMetadata.getClass() != MethodMetadataReadingVisitor.class) {
+					throw new IllegalArgumentException("unsupported method metadata " + methodMetadata);
+				}
+				MethodMetadataReadingVisitor method = (MethodMetadataReadingVisitor) methodMetadata;
+				writeString(out, method.methodName);
+				out.writeInt(method.access);
+				writeString(out, method.declaringClassName);
+				writeString(out, method.returnTypeName);
+				writeMetaAnnotationMap(out, method.metaAnnotationMap);
+				writeAttributesMap(out, method.attributesMap);
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return bos.toByteArray();
+	}
+
+	private void writeString(DataOutputStream out, String string) throws IOException {
+		out.writeInt(getStringIndex(string));
+	}
+
+	private void writeNullableString(DataOutputStream out, @Nullable String string) throws IOException {
+		out.writeInt(string != null ? getStringIndex(string) : -1);
+	}
+
+	private void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String string : strings) {
+			writeString(out, string);
+		}
+	}
+
+	private void writeMetaAnnotationMap(DataOutputStream out, Map<String, Set<String>> map) throws IOException {
+		out.writeInt(map.size());
+		for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+			writeString(out, entry.getKey());
+			writeStrings(out, entry.getValue());
+		}
+	}
+
+	private void writeAttributesMap(DataOutputStream out, MultiValueMap<String, AnnotationAttributes> map)
+			throws IOException {
+
+		out.writeInt(map.size());
+		for (Map.Entry<String, List<AnnotationAttributes>> entry : map.entrySet()) {
+			writeString(out, entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (AnnotationAttributes attributes : entry.getValue()) {
+				writeAttributes(out, attributes);
+			}
+		}
+	}
+
+	private void writeAttributes(DataOutputStream out, AnnotationAttributes attributes) throws IOException {
+		if (attributes.annotationType() == null) {
+			throw new IllegalArgumentException("unresolvable annotation type in " + attributes);
+		}
+		writeString(out, attributes.annotationType().getName());
+		List<Map.Entry<String, Object>> entries = new ArrayList<>(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			// Default values get registered again when decoding
+			if (entry.getValue() == null || entry.getValue().getClass().getEnclosingClass() != AnnotationUtils.class) {
+				entries.add(entry);
+			}
+		}
+		out.writeInt(entries.size());
+		for (Map.Entry<String, Object> entry : entries) {
+			writeString(out, entry.getKey());
+			writeValue(out, entry.getValue());
+		}
+	}
+
+	private void writeValue(DataOutputStream out, @Nullable Object value) throws IOException {
+		if (value instanceof String) {
+			out.writeByte(TAG_STRING);
+			writeString(out, (String) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(TAG_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte(TAG_BYTE);
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte(TAG_CHAR);
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte(TAG_SHORT);
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte(TAG_INT);
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte(TAG_LONG);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte(TAG_FLOAT);
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte(TAG_DOUBLE);
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof Type) {
+			out.writeByte(TAG_TYPE);
+			writeString(out, ((Type) value).getDescriptor());
+		}
+		else if (value instanceof Class) {
+			out.writeByte(TAG_CLASS);
+			writeString(out, ((Class<?>) value).getName());
+		}
+		else if (value instanceof Enum) {
+			out.writeByte(TAG_ENUM);
+			writeString(out, ((Enum<?>) value).getDeclaringClass().getName());
+			writeString(out, ((Enum<?>) value).name());
+		}
+		else if (value instanceof AnnotationAttributes) {
+			out.writeByte(TAG_ATTRIBUTES);
+			writeAttributes(out, (AnnotationAttributes) value);
+		}
+		else if (value != null && value.getClass().isArray()) {
+			out.writeByte(TAG_ARRAY);
+			writeString(out, value.getClass().getComponentType().getName());
+			int length = Array.getLength(value);
+			out.writeInt(length);
+			for (int i = 0; i < length; i++) {
+				writeValue(out, Array.get(value, i));
+			}
+		}
+		else {
+			throw new IllegalArgumentException("unsupported annotation attribute value [" + value + "]");
+		}
+	}
+
+	private static void writeUtf8(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+
+	// Decoding of class metadata
+
+	private AnnotationMetadataReadingVisitor decodeClass(byte[] payload) throws IOException, ClassNotFoundException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		String className = readString(in);
+		int flags = in.readInt();
+		String enclosingClassName = readNullableString(in);
+		String superClassName = readNullableString(in);
+		String[] interfaceNames = readStrings(in);
+		String[] memberClassNames = readStrings(in);
+
+		// Replay the class structure onto a regular ASM visitor...
+		AnnotationMetadataReadingVisitor metadata = new AnnotationMetadataReadingVisitor(this.classLoader);
+		int access = ((flags & FLAG_INTERFACE) != 0 ? Opcodes.ACC_INTERFACE : 0) |
+				((flags & FLAG_ANNOTATION) != 0 ? Opcodes.ACC_ANNOTATION : 0) |
+				((flags & FLAG_ABSTRACT) != 0 ? Opcodes.ACC_ABSTRACT : 0) |
+				((flags & FLAG_FINAL) != 0 ? Opcodes.ACC_FINAL : 0);
+		String[] interfaces = new String[interfaceNames.length];
+		for (int i = 0; i < interfaceNames.length; i++) {
+			interfaces[i] = ClassUtils.convertClassNameToResourcePath(interfaceNames[i]);
+		}
+		String internalName = ClassUtils.convertClassNameToResourcePath(className);
+		metadata.visit(0, access, internalName, null,
+				(superClassName != null ? ClassUtils.convertClassNameToResourcePath(superClassName) : null), interfaces);
+		if (enclosingClassName != null) {
+			metadata.visitInnerClass(internalName, ClassUtils.convertClassNameToResourcePath(enclosingClassName),
+					"", ((flags & FLAG_INDEPENDENT) != 0 ? Opcodes.ACC_STATIC : 0));
+		}
+		for (String memberClassName : memberClassNames) {
+			metadata.visitInnerClass(ClassUtils.convertClassNameToResourcePath(memberClassName), internalName, "", 0);
+		}
+
+		// ... and fill in the annotation details directly
+		metadata.annotationSet.addAll(Arrays.asList(readStrings(in)));
+		readMetaAnnotationMap(in, metadata.metaAnnotationMap);
+		readAttributesMap(in, metadata.attributesMap);
+		int methodCount = in.readInt();
+		for (int i = 0; i < methodCount; i++) {
+			MethodMetadataReadingVisitor method = new MethodMetadataReadingVisitor(readString(in), in.readInt(),
+					readString(in), readString(in), this.classLoader, metadata.methodMetadataSet);
+			readMetaAnnotationMap(in, method.metaAnnotationMap);
+			readAttributesMap(in, method.attributesMap);
+			metadata.methodMetadataSet.add(method);
+		}
+		return metadata;
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		return this.strings.get(in.readInt());
+	}
+
+	@Nullable
+	private String readNullableString(DataInputStream in) throws IOException {
+		int index = in.readInt();
+		return (index != -1 ? this.strings.get(index) : null);
+	}
+
+	private String[] readStrings(DataInputStream in) throws IOException {
+		String[] strings = new String[in.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = readString(in);
+		}
+		return strings;
+	}
+
+	private void readMetaAnnotationMap(DataInputStream in, Map<String, Set<String>> map) throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			map.put(key, new LinkedHashSet<>(Arrays.asList(readStrings(in))));
+		}
+	}
+
+	private void readAttributesMap(DataInputStream in, MultiValueMap<String, AnnotationAttributes> map)
+			throws IOException, ClassNotFoundException {
+
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			int count = in.readInt();
+			for (int j = 0; j < count; j++) {
+				map.add(key, readAttributes(in));
+			}
+		}
+	}
+
+	private AnnotationAttributes readAttributes(DataInputStream in) throws IOException, ClassNotFoundException {
+		AnnotationAttributes attributes = new AnnotationAttributes(readString(in), this.classLoader);
+		if (attributes.annotationType() == null) {
+			throw new ClassNotFoundException(attributes.toString());
+		}
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String name = readString(in);
+			attributes.put(name, readValue(in));
+		}
+		AnnotationUtils.registerDefaultValues(attributes);
+		return attributes;
+	}
+
+	private Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case TAG_STRING:
+				return readString(in);
+			case TAG_BOOLEAN:
+				return in.readBoolean();
+			case TAG_BYTE:
+				return in.readByte();
+			case TAG_CHAR:
+				return in.readChar();
+			case TAG_SHORT:
+				return in.readShort();
+			case TAG_INT:
+				return in.readInt();
+			case TAG_LONG:
+				return in.readLong();
+			case TAG_FLOAT:
+				return in.readFloat();
+			case TAG_DOUBLE:
+				return in.readDouble();
+			case TAG_TYPE:
+				return Type.getType(readString(in));
+			case TAG_CLASS:
+				return ClassUtils.forName(readString(in), this.classLoader);
+			case TAG_ENUM:
+				Class<?> enumType = ClassUtils.forName(readString(in), this.classLoader);
+				String constantName = readString(in);
+				Field enumConstant = ReflectionUtils.findField(enumType, constantName);
+				if (enumConstant == null) {
+					throw new ClassNotFoundException(enumType.getName() + "." + constantName);
+				}
+				ReflectionUtils.makeAccessible(enumConstant);
+				return ReflectionUtils.getField(enumConstant, null);
+			case TAG_ATTRIBUTES:
+				return readAttributes(in);
+			case TAG_ARRAY:
+				Class<?> componentType = ClassUtils.forName(readString(in), this.classLoader);
+				Object array = Array.newInstance(componentType, in.readInt());
+				for (int i = 0; i < Array.getLength(array); i++) {
+					Array.set(array, i, readValue(in));
+				}
+				return array;
+			default:
+				throw new IOException("Unknown value tag " + tag);
+		}
+	}
+
+	private static String readUtf8(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Recorded metadata for a single class.
+	 */
+	private static final class ClassEntry {
+
+		final String className;
+
+		final long rootFingerprint;
+
+		final byte[] payload;
+
+		volatile boolean validated;
+
+		volatile boolean invalid;
+
+		ClassEntry(String className, long rootFingerprint, byte[] payload) {
+			this.className = className;
+			this.rootFingerprint = rootFingerprint;
+			this.payload = payload;
+		}
+	}
+
+
+	/**
+	 * Recorded result of a single classpath scan.
+	 */
+	private static final class ScanEntry {
+
+		final long[] rootFingerprints;
+
+		final String[] classNames;
+
+		ScanEntry(long[] rootFingerprints, String[] classNames) {
+			this.rootFingerprints = rootFingerprints;
+			this.classNames = classNames;
+		}
+	}
+
+}
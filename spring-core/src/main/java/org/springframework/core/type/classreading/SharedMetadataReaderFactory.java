@@ -0,0 +1,300 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * {@link MetadataReaderFactory} implementation backed by a JVM-wide cache,
+ * sharing {@link MetadataReader} instances between all factories (and therefore
+ * all application contexts) for the same {@link ClassLoader}.
+ *
+ * <p>Cache entries are keyed by the URL of the class file along with its last
+ * modification timestamp, so that a changed class file gets parsed again.
+ * The cache for each ClassLoader is bounded by {@link #DEFAULT_CACHE_LIMIT}
+ * entries, or by the value of the {@value #CACHE_LIMIT_PROPERTY_NAME} property,
+ * evicting the least recently used entries first. It is split into stripes
+ * with separate locks in order to allow for concurrent access, and it is only
+ * softly referenced, allowing it to be reclaimed under memory pressure.
+ *
+ * <p>The cache for an application ClassLoader that is not the ClassLoader of the
+ * Spring classes themselves, e.g. in an application server with Spring in a
+ * shared library, is removed through {@link #clearClassLoader(ClassLoader)} when
+ * an application context for it closes, so that a redeployed application does
+ * not remain reachable until memory runs low.
+ *
+ * <p>{@link CachingMetadataReaderFactory} instances use the shared cache
+ * behind their local cache if the {@value #SHARED_CACHE_PROPERTY_NAME}
+ * property is set to "true", which makes the shared cache apply to the
+ * application contexts created by a test suite or a multi-context server
+ * without any further configuration.
+ *
+ * @since 5.0.16
+ * @see org.springframework.core.SpringProperties
+ */
+public class SharedMetadataReaderFactory extends SimpleMetadataReaderFactory {
+
+	/**
+	 * System property that instructs Spring to let every {@link CachingMetadataReaderFactory}
+	 * read through the JVM-wide cache of this factory. Default is "false".
+	 */
+	public static final String SHARED_CACHE_PROPERTY_NAME = "spring.classreading.shared-cache";
+
+	/**
+	 * System property for the maximum number of entries in the JVM-wide cache
+	 * for each ClassLoader. Default is {@link #DEFAULT_CACHE_LIMIT}.
+	 */
+	public static final String CACHE_LIMIT_PROPERTY_NAME = "spring.classreading.shared-cache.limit";
+
+	/** Default maximum number of entries in the JVM-wide cache for each ClassLoader: 4096 */
+	public static final int DEFAULT_CACHE_LIMIT = 4096;
+
+	private static final int STRIPE_COUNT = 16;
+
+	private static final Map<Object, SharedCache> sharedCaches =
+			new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.SOFT);
+
+
+	/**
+	 * Create a new SharedMetadataReaderFactory for the default class loader.
+	 */
+	public SharedMetadataReaderFactory() {
+		super();
+	}
+
+	/**
+	 * Create a new SharedMetadataReaderFactory for the given resource loader.
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 */
+	public SharedMetadataReaderFactory(@Nullable ResourceLoader resourceLoader) {
+		super(resourceLoader);
+	}
+
+	/**
+	 * Create a new SharedMetadataReaderFactory for the given class loader.
+	 * @param classLoader the ClassLoader to use
+	 */
+	public SharedMetadataReaderFactory(@Nullable ClassLoader classLoader) {
+		super(classLoader);
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		return getMetadataReader(resource, getResourceLoader().getClassLoader());
+	}
+
+	/**
+	 * Return the number of requests served from the shared cache
+	 * for the ClassLoader of this factory.
+	 */
+	public long getHitCount() {
+		return getSharedCache(getResourceLoader().getClassLoader()).hitCount.sum();
+	}
+
+	/**
+	 * Return the number of requests that required a class file to be parsed
+	 * for the ClassLoader of this factory.
+	 */
+	public long getMissCount() {
+		return getSharedCache(getResourceLoader().getClassLoader()).missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries evicted from the shared cache
+	 * for the ClassLoader of this factory.
+	 */
+	public long getEvictionCount() {
+		return getSharedCache(getResourceLoader().getClassLoader()).evictionCount.sum();
+	}
+
+	/**
+	 * Return the current number of entries in the shared cache
+	 * for the ClassLoader of this factory.
+	 */
+	public int getCacheSize() {
+		return getSharedCache(getResourceLoader().getClassLoader()).size();
+	}
+
+	/**
+	 * Clear the shared cache for the ClassLoader of this factory,
+	 * removing all cached class metadata and resetting its counters.
+	 */
+	public void clearCache() {
+		sharedCaches.remove(getCacheKey(getResourceLoader().getClassLoader()));
+	}
+
+
+	/**
+	 * Clear the shared cache for the given ClassLoader, removing the cached
+	 * class metadata for that ClassLoader and for all ClassLoaders underneath it.
+	 * @param classLoader the ClassLoader to clear the cache for
+	 */
+	public static void clearClassLoader(@Nullable ClassLoader classLoader) {
+		if (classLoader == null) {
+			return;
+		}
+		sharedCaches.keySet().removeIf(key ->
+				key instanceof ClassLoader && isUnderneathClassLoader((ClassLoader) key, classLoader));
+	}
+
+	private static boolean isUnderneathClassLoader(ClassLoader candidate, ClassLoader parent) {
+		ClassLoader classLoaderToCheck = candidate;
+		while (classLoaderToCheck != null) {
+			if (classLoaderToCheck == parent) {
+				return true;
+			}
+			classLoaderToCheck = classLoaderToCheck.getParent();
+		}
+		return false;
+	}
+
+
+	/**
+	 * Obtain a {@link MetadataReader} for the given resource from the JVM-wide cache,
+	 * parsing the class file if necessary.
+	 * @param resource the resource (pointing to a ".class" file)
+	 * @param classLoader the ClassLoader to use for the metadata
+	 * @return a holder for the ClassReader instance (never {@code null})
+	 * @throws IOException in case of I/O failure
+	 */
+	static MetadataReader getMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		String key;
+		try {
+			URL url = resource.getURL();
+			key = url.toExternalForm() + '@' + resource.lastModified();
+		}
+		catch (IOException ex) {
+			// Not resolvable as a URL or not existing: no caching possible
+			return new SimpleMetadataReader(resource, classLoader);
+		}
+		return getSharedCache(classLoader).getMetadataReader(key, resource, classLoader);
+	}
+
+	private static SharedCache getSharedCache(@Nullable ClassLoader classLoader) {
+		return sharedCaches.computeIfAbsent(getCacheKey(classLoader), key -> new SharedCache(getCacheLimit()));
+	}
+
+	private static Object getCacheKey(@Nullable ClassLoader classLoader) {
+		return (classLoader != null ? classLoader : SharedMetadataReaderFactory.class);
+	}
+
+	private static int getCacheLimit() {
+		String cacheLimit = SpringProperties.getProperty(CACHE_LIMIT_PROPERTY_NAME);
+		if (cacheLimit != null) {
+			try {
+				return Integer.parseInt(cacheLimit.trim());
+			}
+			catch (NumberFormatException ex) {
+				// ignore -> use default
+			}
+		}
+		return DEFAULT_CACHE_LIMIT;
+	}
+
+
+	/**
+	 * JVM-wide cache for a specific ClassLoader, split into stripes that
+	 * are individually locked and bounded in LRU order.
+	 */
+	private static final class SharedCache {
+
+		final LongAdder hitCount = new LongAdder();
+
+		final LongAdder missCount = new LongAdder();
+
+		final LongAdder evictionCount = new LongAdder();
+
+		private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+		SharedCache(int cacheLimit) {
+			int stripeLimit = Math.max(1, (cacheLimit + STRIPE_COUNT - 1) / STRIPE_COUNT);
+			for (int i = 0; i < STRIPE_COUNT; i++) {
+				this.stripes[i] = new Stripe(stripeLimit, this.evictionCount);
+			}
+		}
+
+		MetadataReader getMetadataReader(String key, Resource resource, @Nullable ClassLoader classLoader)
+				throws IOException {
+
+			int hash = key.hashCode();
+			Stripe stripe = this.stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+			MetadataReader metadataReader;
+			synchronized (stripe) {
+				metadataReader = stripe.get(key);
+			}
+			if (metadataReader != null) {
+				this.hitCount.increment();
+				return metadataReader;
+			}
+			this.missCount.increment();
+			// Parse outside of the lock: concurrent misses for the same class may
+			// parse it twice, but never block requests for unrelated classes.
+			metadataReader = new SimpleMetadataReader(resource, classLoader);
+			synchronized (stripe) {
+				MetadataReader existing = stripe.putIfAbsent(key, metadataReader);
+				return (existing != null ? existing : metadataReader);
+			}
+		}
+
+		int size() {
+			int size = 0;
+			for (Stripe stripe : this.stripes) {
+				synchronized (stripe) {
+					size += stripe.size();
+				}
+			}
+			return size;
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static final class Stripe extends LinkedHashMap<String, MetadataReader> {
+
+		private final int cacheLimit;
+
+		private final LongAdder evictionCount;
+
+		Stripe(int cacheLimit, LongAdder evictionCount) {
+			super(16, 0.75f, true);
+			this.cacheLimit = cacheLimit;
+			this.evictionCount = evictionCount;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, MetadataReader> eldest) {
+			if (size() > this.cacheLimit) {
+				this.evictionCount.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * {@link MetadataReaderFactory} decorator that serves class metadata from a
+ * {@link MetadataSnapshot}, falling back to the target factory for classes that
+ * are not contained in the snapshot or that have changed since it was recorded.
+ *
+ * <p>If the given snapshot is {@linkplain MetadataSnapshot#isRecording() being
+ * recorded}, all metadata obtained from the target factory gets added to it.
+ *
+ * @since 5.0.16
+ */
+public class SnapshotMetadataReaderFactory implements MetadataReaderFactory {
+
+	private final MetadataReaderFactory targetFactory;
+
+	private final MetadataSnapshot snapshot;
+
+
+	/**
+	 * Create a new SnapshotMetadataReaderFactory for the given target factory and snapshot.
+	 * @param targetFactory the factory to read metadata from if not available in the snapshot
+	 * @param snapshot the snapshot to serve metadata from, or to record metadata into
+	 */
+	public SnapshotMetadataReaderFactory(MetadataReaderFactory targetFactory, MetadataSnapshot snapshot) {
+		Assert.notNull(targetFactory, "Target MetadataReaderFactory must not be null");
+		Assert.notNull(snapshot, "MetadataSnapshot must not be null");
+		this.targetFactory = targetFactory;
+		this.snapshot = snapshot;
+	}
+
+
+	/**
+	 * Return the factory to read metadata from if not available in the snapshot.
+	 */
+	public final MetadataReaderFactory getTargetFactory() {
+		return this.targetFactory;
+	}
+
+	/**
+	 * Return the snapshot that this factory serves metadata from.
+	 */
+	public final MetadataSnapshot getMetadataSnapshot() {
+		return this.snapshot;
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(String className) throws IOException {
+		MetadataReader metadataReader = this.snapshot.getMetadataReader(className);
+		if (metadataReader == null && !this.snapshot.isRecording()) {
+			// Maybe an inner class name using the dot name syntax?
+			int lastDotIndex = className.lastIndexOf('.');
+			if (lastDotIndex != -1) {
+				metadataReader = this.snapshot.getMetadataReader(
+						className.substring(0, lastDotIndex) + '$' + className.substring(lastDotIndex + 1));
+			}
+		}
+		if (metadataReader == null) {
+			metadataReader = this.targetFactory.getMetadataReader(className);
+			if (this.snapshot.isRecording()) {
+				this.snapshot.addMetadataReader(metadataReader);
+			}
+		}
+		return metadataReader;
+	}
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		MetadataReader metadataReader = this.targetFactory.getMetadataReader(resource);
+		if (this.snapshot.isRecording()) {
+			this.snapshot.addMetadataReader(metadataReader);
+		}
+		return metadataReader;
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DirectMethodInvoker}.
+ *
+ * @since 5.0.16
+ */
+public class DirectMethodInvokerTests {
+
+	@Test
+	public void generatedForPublicMethod() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(
+				PublicTarget.class.getMethod("concat", String.class, int.class, List.class));
+		assertNotEquals("ReflectiveMethodInvoker", invoker.getClass().getSimpleName());
+		assertEquals("a1null", invoker.invoke(new PublicTarget(), "a", 1, null));
+		assertSame(invoker, DirectMethodInvoker.forMethod(
+				PublicTarget.class.getMethod("concat", String.class, int.class, List.class)));
+	}
+
+	@Test
+	public void generatedOncePerClassLoader() throws Exception {
+		Method method = PublicTarget.class.getMethod("add", long.class, long.class);
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method);
+		ClassLoader invokerClassLoader = invoker.getClass().getClassLoader();
+		assertNotSame(PublicTarget.class.getClassLoader(), invokerClassLoader);
+		assertSame(PublicTarget.class.getClassLoader(), invokerClassLoader.getParent());
+		assertSame(invoker, DirectMethodInvoker.forMethod(method));
+		DirectMethodInvoker other = DirectMethodInvoker.forMethod(PublicTarget.class.getMethod("run"));
+		assertSame(invokerClassLoader, other.getClass().getClassLoader());
+	}
+
+	@Test
+	public void reflectiveForBootstrapClass() throws Exception {
+		Method method = String.class.getMethod("length");
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method);
+		assertEquals("ReflectiveMethodInvoker", invoker.getClass().getSimpleName());
+		assertEquals(3, invoker.invoke("abc"));
+		assertSame(invoker, DirectMethodInvoker.forMethod(method));
+	}
+
+	@Test
+	public void primitiveReturnValueAndVoid() throws Exception {
+		PublicTarget target = new PublicTarget();
+		assertEquals(5L, DirectMethodInvoker.forMethod(
+				PublicTarget.class.getMethod("add", long.class, long.class)).invoke(target, 2L, 3L));
+		assertNull(DirectMethodInvoker.forMethod(PublicTarget.class.getMethod("run")).invoke(target));
+		assertEquals(1, target.runs);
+	}
+
+	@Test
+	public void staticAndInterfaceMethods() throws Exception {
+		assertEquals("x", DirectMethodInvoker.forMethod(
+				PublicTarget.class.getMethod("echo", Object.class)).invoke(null, "x"));
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(Greeter.class.getMethod("greet", String.class));
+		assertNotEquals("ReflectiveMethodInvoker", invoker.getClass().getSimpleName());
+		assertEquals("Hello x", invoker.invoke(new PublicTarget(), "x"));
+		assertEquals("Hi x", invoker.invoke(new Greeter() {
+			@Override
+			public String greet(String name) {
+				return "Hi " + name;
+			}
+		}, "x"));
+	}
+
+	@Test
+	public void argumentConversionThroughReflection() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(
+				PublicTarget.class.getMethod("add", long.class, long.class));
+		// int -> long widening as supported by Method.invoke
+		assertEquals(5L, invoker.invoke(new PublicTarget(), 2, 3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongTargetType() throws Exception {
+		DirectMethodInvoker.forMethod(PublicTarget.class.getMethod("run")).invoke("not a target");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongArgumentType() throws Exception {
+		DirectMethodInvoker.forMethod(PublicTarget.class.getMethod("concat", String.class, int.class, List.class))
+				.invoke(new PublicTarget(), 1, "a", null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullForPrimitiveArgument() throws Exception {
+		DirectMethodInvoker.forMethod(PublicTarget.class.getMethod("add", long.class, long.class))
+				.invoke(new PublicTarget(), null, 1L);
+	}
+
+	@Test
+	public void exceptionWrappedAsInvocationTargetException() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(PublicTarget.class.getMethod("fail"));
+		try {
+			invoker.invoke(new PublicTarget());
+			fail("Should have thrown InvocationTargetException");
+		}
+		catch (InvocationTargetException ex) {
+			assertTrue(ex.getTargetException() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void reflectiveForNonPublicClass() throws Exception {
+		Method method = PackagePrivateTarget.class.getMethod("value");
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method);
+		assertEquals("ReflectiveMethodInvoker", invoker.getClass().getSimpleName());
+		assertEquals("value", invoker.invoke(new PackagePrivateTarget()));
+	}
+
+
+	public interface Greeter {
+
+		default String greet(String name) {
+			return "Hello " + name;
+		}
+	}
+
+
+	public static class PublicTarget implements Greeter {
+
+		int runs;
+
+		public String concat(String s, int i, List<String> list) {
+			return s + i + list;
+		}
+
+		public long add(long a, long b) {
+			return a + b;
+		}
+
+		public void run() {
+			this.runs++;
+		}
+
+		public void fail() throws IOException {
+			throw new IOException("fail");
+		}
+
+		public static Object echo(Object value) {
+			return value;
+		}
+	}
+
+
+	static class PackagePrivateTarget {
+
+		public String value() {
+			return "value";
+		}
+	}
+
+}
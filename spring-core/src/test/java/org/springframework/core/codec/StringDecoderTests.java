@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -141,6 +141,62 @@ public class StringDecoderTests extends AbstractDataBufferAllocatingTestCase {
 				.verify();
 	}
 
+	@Test
+	public void decodeNewLineAcrossBuffers() {
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef\r"),
+				stringBuffer("ghi\n"),
+				stringBuffer("jkl"));
+
+		Flux<String> output = this.decoder.decode(source, ResolvableType.forClass(String.class),
+				null, Collections.emptyMap());
+
+		StepVerifier.create(output)
+				.expectNext("abc")
+				.expectNext("def\rghi")
+				.expectNext("jkl")
+				.verifyComplete();
+	}
+
+	@Test
+	public void decodeNewLineWithinLimit() {
+		this.decoder.setMaxInMemorySize(5);
+
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("abc\r\n"),
+				stringBuffer("de"),
+				stringBuffer("fg\n"),
+				stringBuffer("hij"));
+
+		Flux<String> output = this.decoder.decode(source, ResolvableType.forClass(String.class),
+				null, Collections.emptyMap());
+
+		StepVerifier.create(output)
+				.expectNext("abc")
+				.expectNext("defg")
+				.expectNext("hij")
+				.verifyComplete();
+	}
+
+	@Test
+	public void decodeNewLineExceedsLimit() {
+		this.decoder.setMaxInMemorySize(5);
+
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("abc\n"),
+				stringBuffer("def"),
+				stringBuffer("ghi\n"));
+
+		Flux<String> output = this.decoder.decode(source, ResolvableType.forClass(String.class),
+				null, Collections.emptyMap());
+
+		StepVerifier.create(output)
+				.expectNext("abc")
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
 	@Test
 	public void decodeEmptyFlux() {
 		Flux<DataBuffer> source = Flux.empty();
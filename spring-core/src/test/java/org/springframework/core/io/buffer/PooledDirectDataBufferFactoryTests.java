@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PooledDirectDataBufferFactory}.
+ *
+ * @since 5.0.16
+ */
+public class PooledDirectDataBufferFactoryTests {
+
+	private final PooledDirectDataBufferFactory bufferFactory = new PooledDirectDataBufferFactory();
+
+
+	@Test
+	public void allocateAndRelease() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(300);
+		assertTrue(buffer instanceof PooledDataBuffer);
+		assertTrue(buffer.asByteBuffer().isDirect());
+		assertEquals(300, buffer.capacity());
+		assertEquals(1, this.bufferFactory.getActiveBufferCount());
+		assertEquals(DirectBufferPool.SLAB_SIZE, this.bufferFactory.getPoolSize());
+
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		assertEquals("foo", readString(buffer));
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void reuseReleasedMemory() {
+		for (int i = 0; i < 10000; i++) {
+			DataBuffer buffer = this.bufferFactory.allocateBuffer(8192);
+			buffer.write(new byte[8192]);
+			DataBufferUtils.release(buffer);
+		}
+		assertEquals(DirectBufferPool.SLAB_SIZE, this.bufferFactory.getPoolSize());
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void growCapacity() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(4);
+		byte[] bytes = new byte[1000];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		buffer.write(bytes);
+		assertTrue(buffer.capacity() >= 1000);
+		byte[] result = new byte[1000];
+		buffer.read(result);
+		assertArrayEquals(bytes, result);
+		DataBufferUtils.release(buffer);
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void slicesShareReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(16);
+		buffer.write("foobar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(3, 3);
+		assertTrue(slice instanceof PooledDataBuffer);
+		DataBufferUtils.retain(slice);
+
+		assertFalse(DataBufferUtils.release(buffer));
+		assertEquals("bar", readString(slice));
+		assertTrue(DataBufferUtils.release(slice));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void releaseTwice() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(16);
+		DataBufferUtils.release(buffer);
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void accessAfterRelease() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(16);
+		buffer.write((byte) 'a');
+		DataBufferUtils.release(buffer);
+		buffer.getByte(0);
+	}
+
+	@Test
+	public void writeAfterRelease() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(16);
+		buffer.write((byte) 'a');
+		DataBufferUtils.release(buffer);
+		try {
+			buffer.write(new byte[100]);
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+
+		// The chunk must have been given back to the pool only once
+		DataBuffer first = this.bufferFactory.allocateBuffer(16);
+		DataBuffer second = this.bufferFactory.allocateBuffer(16);
+		first.write("foo".getBytes(StandardCharsets.UTF_8));
+		second.write("bar".getBytes(StandardCharsets.UTF_8));
+		assertEquals("foo", readString(first));
+		assertEquals("bar", readString(second));
+		DataBufferUtils.release(first);
+		DataBufferUtils.release(second);
+	}
+
+	@Test
+	public void reclaimCacheOfTerminatedThread() throws Exception {
+		DirectBufferPool pool = new DirectBufferPool(DirectBufferPool.SLAB_SIZE);
+		int chunkCount = DirectBufferPool.SLAB_SIZE / DirectBufferPool.MAX_CHUNK_SIZE;
+		Thread thread = new Thread(() -> {
+			List<ByteBuffer> chunks = new ArrayList<>();
+			for (int i = 0; i < chunkCount; i++) {
+				chunks.add(pool.allocate(DirectBufferPool.MAX_CHUNK_SIZE));
+			}
+			chunks.forEach(pool::release);
+		});
+		thread.start();
+		thread.join();
+
+		for (int i = 0; i < chunkCount; i++) {
+			assertNotNull(pool.allocate(DirectBufferPool.MAX_CHUNK_SIZE));
+		}
+		assertNull(pool.allocate(DirectBufferPool.MAX_CHUNK_SIZE));
+		assertEquals(DirectBufferPool.SLAB_SIZE, pool.getPoolSize());
+	}
+
+	@Test
+	public void largeBufferNotPooled() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(DirectBufferPool.MAX_CHUNK_SIZE + 1);
+		assertEquals(DirectBufferPool.MAX_CHUNK_SIZE + 1, buffer.capacity());
+		assertEquals(0, this.bufferFactory.getPoolSize());
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void poolExhausted() {
+		PooledDirectDataBufferFactory bufferFactory = new PooledDirectDataBufferFactory(0);
+		DataBuffer buffer = bufferFactory.allocateBuffer(1024);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		assertEquals("foo", readString(buffer));
+		assertEquals(0, bufferFactory.getPoolSize());
+		assertTrue(DataBufferUtils.release(buffer));
+	}
+
+	@Test
+	public void sizeClasses() {
+		assertEquals(0, DirectBufferPool.sizeClass(0));
+		assertEquals(0, DirectBufferPool.sizeClass(256));
+		assertEquals(1, DirectBufferPool.sizeClass(257));
+		assertEquals(5, DirectBufferPool.sizeClass(8192));
+		assertEquals(8, DirectBufferPool.sizeClass(DirectBufferPool.MAX_CHUNK_SIZE));
+		assertEquals(-1, DirectBufferPool.sizeClass(DirectBufferPool.MAX_CHUNK_SIZE + 1));
+	}
+
+
+	private static String readString(DataBuffer buffer) {
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
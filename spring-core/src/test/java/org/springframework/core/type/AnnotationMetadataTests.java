@@ -16,6 +16,8 @@
 
 package org.springframework.core.type;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
@@ -34,7 +36,9 @@ import org.springframework.core.annotation.AliasFor;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataSnapshot;
 import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.core.type.classreading.SnapshotMetadataReaderFactory;
 import org.springframework.stereotype.Component;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -67,6 +71,13 @@ public class AnnotationMetadataTests {
 		doTestMethodAnnotationInfo(metadata);
 	}
 
+	@Test
+	public void snapshotAnnotationMetadata() throws Exception {
+		AnnotationMetadata metadata = getSnapshotAnnotationMetadata(AnnotatedComponent.class);
+		doTestAnnotationInfo(metadata);
+		doTestMethodAnnotationInfo(metadata);
+	}
+
 	@Test
 	public void standardAnnotationMetadataForSubclass() {
 		AnnotationMetadata metadata = new StandardAnnotationMetadata(AnnotatedComponentSubClass.class, true);
@@ -81,6 +92,11 @@ public class AnnotationMetadataTests {
 		doTestSubClassAnnotationInfo(metadata);
 	}
 
+	@Test
+	public void snapshotAnnotationMetadataForSubclass() throws Exception {
+		doTestSubClassAnnotationInfo(getSnapshotAnnotationMetadata(AnnotatedComponentSubClass.class));
+	}
+
 	private void doTestSubClassAnnotationInfo(AnnotationMetadata metadata) {
 		assertThat(metadata.getClassName(), is(AnnotatedComponentSubClass.class.getName()));
 		assertThat(metadata.isInterface(), is(false));
@@ -117,6 +133,11 @@ public class AnnotationMetadataTests {
 		doTestMetadataForInterfaceClass(metadata);
 	}
 
+	@Test
+	public void snapshotAnnotationMetadataForInterface() throws Exception {
+		doTestMetadataForInterfaceClass(getSnapshotAnnotationMetadata(AnnotationMetadata.class));
+	}
+
 	private void doTestMetadataForInterfaceClass(AnnotationMetadata metadata) {
 		assertThat(metadata.getClassName(), is(AnnotationMetadata.class.getName()));
 		assertThat(metadata.isInterface(), is(true));
@@ -145,6 +166,11 @@ public class AnnotationMetadataTests {
 		doTestMetadataForAnnotationClass(metadata);
 	}
 
+	@Test
+	public void snapshotAnnotationMetadataForAnnotation() throws Exception {
+		doTestMetadataForAnnotationClass(getSnapshotAnnotationMetadata(Component.class));
+	}
+
 	private void doTestMetadataForAnnotationClass(AnnotationMetadata metadata) {
 		assertThat(metadata.getClassName(), is(Component.class.getName()));
 		assertThat(metadata.isInterface(), is(true));
@@ -234,6 +260,20 @@ public class AnnotationMetadataTests {
 	}
 
 
+	private AnnotationMetadata getSnapshotAnnotationMetadata(Class<?> clazz) throws Exception {
+		ClassLoader classLoader = getClass().getClassLoader();
+		MetadataSnapshot snapshot = new MetadataSnapshot(classLoader);
+		new SnapshotMetadataReaderFactory(new SimpleMetadataReaderFactory(), snapshot).getMetadataReader(clazz.getName());
+		assertThat(snapshot.getClassCount(), is(1));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.write(out);
+
+		MetadataSnapshot loadedSnapshot = MetadataSnapshot.read(new ByteArrayInputStream(out.toByteArray()), classLoader);
+		MetadataReader metadataReader = loadedSnapshot.getMetadataReader(clazz.getName());
+		assertThat(metadataReader, notNullValue());
+		return metadataReader.getAnnotationMetadata();
+	}
+
 	private void assertMultipleAnnotationsWithIdenticalAttributeNames(AnnotationMetadata metadata) {
 		AnnotationAttributes attributes1 = (AnnotationAttributes) metadata.getAnnotationAttributes(
 				NamedAnnotation1.class.getName(), false);
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SharedMetadataReaderFactory}.
+ *
+ * @since 5.0.16
+ */
+public class SharedMetadataReaderFactoryTests {
+
+	@Test
+	public void metadataReaderSharedAcrossFactories() throws Exception {
+		ClassLoader classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+		SharedMetadataReaderFactory factory1 = new SharedMetadataReaderFactory(classLoader);
+		SharedMetadataReaderFactory factory2 = new SharedMetadataReaderFactory(classLoader);
+
+		MetadataReader metadataReader = factory1.getMetadataReader(getClass().getName());
+		assertEquals(getClass().getName(), metadataReader.getClassMetadata().getClassName());
+		assertEquals(0, factory1.getHitCount());
+		assertEquals(1, factory1.getMissCount());
+
+		assertSame(metadataReader, factory2.getMetadataReader(getClass().getName()));
+		assertEquals(1, factory2.getHitCount());
+		assertEquals(1, factory2.getMissCount());
+		assertEquals(1, factory2.getCacheSize());
+	}
+
+	@Test
+	public void metadataReaderNotSharedAcrossClassLoaders() throws Exception {
+		SharedMetadataReaderFactory factory1 =
+				new SharedMetadataReaderFactory(new URLClassLoader(new URL[0], getClass().getClassLoader()));
+		SharedMetadataReaderFactory factory2 =
+				new SharedMetadataReaderFactory(new URLClassLoader(new URL[0], getClass().getClassLoader()));
+
+		MetadataReader metadataReader = factory1.getMetadataReader(getClass().getName());
+		assertNotSame(metadataReader, factory2.getMetadataReader(getClass().getName()));
+		assertEquals(0, factory2.getHitCount());
+		assertEquals(1, factory2.getMissCount());
+	}
+
+	@Test
+	public void clearCache() throws Exception {
+		SharedMetadataReaderFactory factory =
+				new SharedMetadataReaderFactory(new URLClassLoader(new URL[0], getClass().getClassLoader()));
+		MetadataReader metadataReader = factory.getMetadataReader(getClass().getName());
+		factory.clearCache();
+		assertEquals(0, factory.getCacheSize());
+		assertEquals(0, factory.getMissCount());
+
+		assertNotSame(metadataReader, factory.getMetadataReader(getClass().getName()));
+		assertEquals(1, factory.getMissCount());
+	}
+
+	@Test
+	public void clearClassLoader() throws Exception {
+		URLClassLoader parent = new URLClassLoader(new URL[0], getClass().getClassLoader());
+		SharedMetadataReaderFactory parentFactory = new SharedMetadataReaderFactory(parent);
+		SharedMetadataReaderFactory childFactory =
+				new SharedMetadataReaderFactory(new URLClassLoader(new URL[0], parent));
+		SharedMetadataReaderFactory otherFactory =
+				new SharedMetadataReaderFactory(new URLClassLoader(new URL[0], getClass().getClassLoader()));
+		parentFactory.getMetadataReader(getClass().getName());
+		childFactory.getMetadataReader(getClass().getName());
+		otherFactory.getMetadataReader(getClass().getName());
+
+		SharedMetadataReaderFactory.clearClassLoader(parent);
+		assertEquals(0, parentFactory.getCacheSize());
+		assertEquals(0, childFactory.getCacheSize());
+		assertEquals(1, otherFactory.getCacheSize());
+	}
+
+	@Test
+	public void cacheLimit() throws Exception {
+		System.setProperty(SharedMetadataReaderFactory.CACHE_LIMIT_PROPERTY_NAME, "16");
+		try {
+			SharedMetadataReaderFactory factory =
+					new SharedMetadataReaderFactory(new URLClassLoader(new URL[0], getClass().getClassLoader()));
+			Class<?>[] classes = {String.class, Integer.class, Long.class, Short.class, Byte.class,
+					Character.class, Boolean.class, Double.class, Float.class, Number.class, Object.class,
+					Class.class, Thread.class, Runnable.class, Iterable.class, Comparable.class,
+					CharSequence.class, StringBuilder.class, Math.class, System.class, Enum.class,
+					Exception.class, RuntimeException.class, Error.class, Throwable.class, Void.class,
+					Process.class, Runtime.class, ThreadLocal.class, AutoCloseable.class, Package.class,
+					ClassLoader.class, StackTraceElement.class};
+			for (Class<?> clazz : classes) {
+				factory.getMetadataReader(clazz.getName());
+			}
+			assertEquals(classes.length, factory.getMissCount());
+			assertTrue(factory.getCacheSize() <= 16);
+			assertEquals(classes.length, factory.getCacheSize() + factory.getEvictionCount());
+		}
+		finally {
+			System.clearProperty(SharedMetadataReaderFactory.CACHE_LIMIT_PROPERTY_NAME);
+		}
+	}
+
+}
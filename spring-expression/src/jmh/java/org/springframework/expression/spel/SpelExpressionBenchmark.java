@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmarks for {@link org.springframework.expression.spel.standard.SpelExpression#getValue}
+ * in interpreted and compiled mode.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class SpelExpressionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		public Expression propertyExpression;
+
+		public Expression booleanExpression;
+
+		public Expression methodExpression;
+
+		public StandardEvaluationContext context;
+
+		public Person person;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			SpelExpressionParser parser = new SpelExpressionParser(
+					new SpelParserConfiguration(this.compilerMode, getClass().getClassLoader()));
+			this.propertyExpression = parser.parseExpression("address.city");
+			this.booleanExpression = parser.parseExpression("age > 18 and name.length() > 3");
+			this.methodExpression = parser.parseExpression("greet('Hello')");
+			this.person = new Person("Juergen", 42, new Address("Linz"));
+			this.context = new StandardEvaluationContext(this.person);
+			// Evaluate once: compiled expressions get compiled on first evaluation
+			this.propertyExpression.getValue(this.context);
+			this.booleanExpression.getValue(this.context);
+			this.methodExpression.getValue(this.context);
+		}
+	}
+
+
+	@Benchmark
+	public Object propertyNavigation(BenchmarkState state) {
+		return state.propertyExpression.getValue(state.context);
+	}
+
+	@Benchmark
+	public Object booleanOperators(BenchmarkState state) {
+		return state.booleanExpression.getValue(state.context, Boolean.class);
+	}
+
+	@Benchmark
+	public Object methodInvocation(BenchmarkState state) {
+		return state.methodExpression.getValue(state.context);
+	}
+
+	@Benchmark
+	public Object rootObjectEvaluation(BenchmarkState state) {
+		return state.propertyExpression.getValue(state.person);
+	}
+
+
+	public static class Person {
+
+		private final String name;
+
+		private final int age;
+
+		private final Address address;
+
+		public Person(String name, int age, Address address) {
+			this.name = name;
+			this.age = age;
+			this.address = address;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+
+		public String greet(String greeting) {
+			return greeting + " " + this.name;
+		}
+	}
+
+
+	public static class Address {
+
+		private final String city;
+
+		public Address(String city) {
+			this.city = city;
+		}
+
+		public String getCity() {
+			return this.city;
+		}
+	}
+
+}
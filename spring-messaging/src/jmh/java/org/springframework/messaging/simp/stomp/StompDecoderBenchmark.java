@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.messaging.Message;
+
+/**
+ * Benchmarks for {@link StompDecoder#decode} and {@link StompEncoder#encode}.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StompDecoderBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"64", "4096"})
+		public int payloadSize;
+
+		public StompDecoder decoder;
+
+		public StompEncoder encoder;
+
+		public byte[] frame;
+
+		public Message<byte[]> message;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			StringBuilder payload = new StringBuilder();
+			while (payload.length() < this.payloadSize) {
+				payload.append("{\"symbol\":\"ACME\",\"price\":42.0}");
+			}
+			String frame = "MESSAGE\n" +
+					"subscription:sub-0\n" +
+					"message-id:7ab3fd2c-1\n" +
+					"destination:/topic/prices.ACME\n" +
+					"content-type:application/json;charset=UTF-8\n" +
+					"content-length:" + payload.length() + "\n" +
+					"\n" +
+					payload + "\0";
+			this.frame = frame.getBytes(StandardCharsets.UTF_8);
+			this.decoder = new StompDecoder();
+			this.encoder = new StompEncoder();
+			this.message = this.decoder.decode(ByteBuffer.wrap(this.frame)).get(0);
+		}
+	}
+
+
+	@Benchmark
+	public List<Message<byte[]>> decode(BenchmarkState state) {
+		return state.decoder.decode(ByteBuffer.wrap(state.frame));
+	}
+
+	@Benchmark
+	public byte[] encode(BenchmarkState state) {
+		return state.encoder.encode(state.message);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.DirectMethodInvoker;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.annotation.AnnotatedElementUtils;
@@ -66,6 +67,9 @@ public class HandlerMethod {
 
 	private final MethodParameter[] parameters;
 
+	@Nullable
+	private volatile DirectMethodInvoker methodInvoker;
+
 	@Nullable
 	private HandlerMethod resolvedFromHandlerMethod;
 
@@ -131,6 +135,7 @@ public class HandlerMethod {
 		this.method = handlerMethod.method;
 		this.bridgedMethod = handlerMethod.bridgedMethod;
 		this.parameters = handlerMethod.parameters;
+		this.methodInvoker = handlerMethod.obtainMethodInvoker();
 		this.resolvedFromHandlerMethod = handlerMethod.resolvedFromHandlerMethod;
 	}
 
@@ -146,6 +151,7 @@ public class HandlerMethod {
 		this.method = handlerMethod.method;
 		this.bridgedMethod = handlerMethod.bridgedMethod;
 		this.parameters = handlerMethod.parameters;
+		this.methodInvoker = handlerMethod.obtainMethodInvoker();
 		this.resolvedFromHandlerMethod = handlerMethod;
 	}
 
@@ -192,6 +198,24 @@ public class HandlerMethod {
 		return this.bridgedMethod;
 	}
 
+	/**
+	 * Return the invoker for the {@link #getBridgedMethod() bridged method},
+	 * obtained once and then shared with all copies of this handler method.
+	 * @since 5.0.16
+	 */
+	protected DirectMethodInvoker getMethodInvoker() {
+		return obtainMethodInvoker();
+	}
+
+	private DirectMethodInvoker obtainMethodInvoker() {
+		DirectMethodInvoker methodInvoker = this.methodInvoker;
+		if (methodInvoker == null) {
+			methodInvoker = DirectMethodInvoker.forMethod(this.bridgedMethod);
+			this.methodInvoker = methodInvoker;
+		}
+		return methodInvoker;
+	}
+
 	/**
 	 * Return the method parameters for this handler method.
 	 */
@@ -55,6 +55,11 @@ import org.springframework.util.StringUtils;
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
  *
+ * <p>As of 5.0.16, subscriptions are indexed in a trie of the segments of
+ * their destination patterns when using an {@link AntPathMatcher}, so that
+ * resolving a destination that is not in the cache only matches it against
+ * the patterns along its path rather than against all subscriptions.
+ *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
  * @author Juergen Hoeller
@@ -85,12 +90,39 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
 
+	private volatile DestinationTrie destinationTrie = new DestinationTrie(getPathSeparator(this.pathMatcher));
+
 
 	/**
 	 * Specify the {@link PathMatcher} to use.
 	 */
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		DestinationTrie trie = new DestinationTrie(getPathSeparator(pathMatcher));
+		for (SessionSubscriptionInfo info : this.subscriptionRegistry.getAllSubscriptions()) {
+			for (String destination : info.getDestinations()) {
+				for (Subscription sub : info.getSubscriptions(destination)) {
+					trie.addSubscription(destination, info.getSessionId(), sub.getId());
+				}
+			}
+		}
+		this.destinationTrie = trie;
+	}
+
+	/**
+	 * Return the separator of the segments of destinations for indexing
+	 * subscriptions, i.e. the path separator of an {@link AntPathMatcher},
+	 * as used to combine patterns, or {@code null} for other path matchers.
+	 */
+	@Nullable
+	private static String getPathSeparator(PathMatcher pathMatcher) {
+		if (pathMatcher instanceof AntPathMatcher) {
+			String combined = pathMatcher.combine("a", "b");
+			if (combined.length() > 2 && combined.startsWith("a") && combined.endsWith("b")) {
+				return combined.substring(1, combined.length() - 1);
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -149,6 +181,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		Expression expression = getSelectorExpression(message.getHeaders());
 		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
+		this.destinationTrie.addSubscription(destination, sessionId, subsId);
 		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
 	}
 
@@ -181,6 +214,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
+				this.destinationTrie.removeSubscription(destination, sessionId, subsId);
 				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
 			}
 		}
@@ -190,6 +224,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
+			for (String destination : info.getDestinations()) {
+				this.destinationTrie.removeSession(destination, sessionId);
+			}
 			this.destinationCache.updateAfterRemovedSession(info);
 		}
 	}
@@ -273,23 +310,32 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 				};
 
 
+		/** Number of updates, to detect those made while resolving a destination */
+		private volatile int updateCount;
+
+
 		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
 			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
 			if (result == null) {
-				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
-								}
+				int count = this.updateCount;
+				result = new LinkedMultiValueMap<>();
+				for (Map.Entry<String, Map<String, Set<String>>> entry :
+						destinationTrie.getCandidates(destination).entrySet()) {
+					if (getPathMatcher().match(entry.getKey(), destination)) {
+						for (Map.Entry<String, Set<String>> sessionEntry : entry.getValue().entrySet()) {
+							for (String subsId : sessionEntry.getValue()) {
+								result.add(sessionEntry.getKey(), subsId);
 							}
 						}
 					}
-					if (!result.isEmpty()) {
-						this.updateCache.put(destination, result.deepCopy());
-						this.accessCache.put(destination, result);
+				}
+				if (!result.isEmpty()) {
+					synchronized (this.updateCache) {
+						// Only cache the result if no subscriptions changed in the meantime
+						if (count == this.updateCount) {
+							this.updateCache.put(destination, result.deepCopy());
+							this.accessCache.put(destination, result);
+						}
 					}
 				}
 			}
@@ -298,6 +344,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
 			synchronized (this.updateCache) {
+				this.updateCount++;
 				this.updateCache.forEach((cachedDestination, subscriptions) -> {
 					if (getPathMatcher().match(destination, cachedDestination)) {
 						// Subscription id's may also be populated via getSubscriptions()
@@ -313,6 +360,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
 			synchronized (this.updateCache) {
+				this.updateCount++;
 				Set<String> destinationsToRemove = new HashSet<>();
 				this.updateCache.forEach((destination, sessionMap) -> {
 					List<String> subscriptions = sessionMap.get(sessionId);
@@ -338,6 +386,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
 			synchronized (this.updateCache) {
+				this.updateCount++;
 				Set<String> destinationsToRemove = new HashSet<>();
 				this.updateCache.forEach((destination, sessionMap) -> {
 					if (sessionMap.remove(info.getSessionId()) != null) {
@@ -363,6 +412,227 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 
+	/**
+	 * Index of subscriptions by destination pattern, in a trie of the pattern
+	 * segments. A segment with wildcards or URI variables is indexed as a
+	 * {@code "*"} child that matches any one segment, and {@code "**"} as a
+	 * child that matches any number of segments. Literal segments are keyed
+	 * trimmed and case-folded, so the patterns found for a destination are
+	 * candidates to be matched with the {@link PathMatcher}. Without a path
+	 * separator, all patterns are held in the root node.
+	 * <p>Updates lock only the nodes they change, while look-ups do not lock.
+	 */
+	private static final class DestinationTrie {
+
+		private static final String SEGMENT_WILDCARD = "*";
+
+		private static final String MULTI_SEGMENT_WILDCARD = "**";
+
+		@Nullable
+		private final String separator;
+
+		private final Node root = new Node();
+
+		public DestinationTrie(@Nullable String separator) {
+			this.separator = separator;
+		}
+
+		public void addSubscription(String pattern, String sessionId, String subsId) {
+			String[] keys = getPatternKeys(pattern);
+			while (true) {
+				Node node = this.root;
+				for (String key : keys) {
+					node = node.getOrCreateChild(key);
+					if (node == null) {
+						break;
+					}
+				}
+				// Retry if a node was removed concurrently after becoming empty
+				if (node != null && node.addSubscription(pattern, sessionId, subsId)) {
+					return;
+				}
+			}
+		}
+
+		public void removeSubscription(String pattern, String sessionId, String subsId) {
+			removeSubscriptions(pattern, sessionId, subsId);
+		}
+
+		public void removeSession(String pattern, String sessionId) {
+			removeSubscriptions(pattern, sessionId, null);
+		}
+
+		private void removeSubscriptions(String pattern, String sessionId, @Nullable String subsId) {
+			String[] keys = getPatternKeys(pattern);
+			Node[] path = new Node[keys.length + 1];
+			path[0] = this.root;
+			for (int i = 0; i < keys.length; i++) {
+				path[i + 1] = path[i].children.get(keys[i]);
+				if (path[i + 1] == null) {
+					return;
+				}
+			}
+			if (path[keys.length].removeSubscriptions(pattern, sessionId, subsId)) {
+				for (int i = keys.length; i > 0; i--) {
+					if (!path[i - 1].removeChildIfEmpty(keys[i - 1], path[i])) {
+						break;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Return the subscriptions of the patterns that may match the given
+		 * destination, by pattern and then by session id.
+		 */
+		public Map<String, Map<String, Set<String>>> getCandidates(String destination) {
+			Map<String, Map<String, Set<String>>> result = new LinkedHashMap<>();
+			collect(this.root, getDestinationKeys(destination), 0, result);
+			return result;
+		}
+
+		private void collect(Node node, String[] keys, int index, Map<String, Map<String, Set<String>>> result) {
+			if (index == keys.length) {
+				node.subscriptions.forEach(result::putIfAbsent);
+				// A trailing "*" also matches a destination that ends with a separator
+				Node child = node.children.get(SEGMENT_WILDCARD);
+				if (child != null) {
+					child.subscriptions.forEach(result::putIfAbsent);
+				}
+				child = node.children.get(MULTI_SEGMENT_WILDCARD);
+				if (child != null) {
+					collect(child, keys, index, result);
+				}
+				return;
+			}
+			Node child = node.children.get(keys[index]);
+			if (child != null) {
+				collect(child, keys, index + 1, result);
+			}
+			child = node.children.get(SEGMENT_WILDCARD);
+			if (child != null) {
+				collect(child, keys, index + 1, result);
+			}
+			child = node.children.get(MULTI_SEGMENT_WILDCARD);
+			if (child != null) {
+				for (int i = index; i <= keys.length; i++) {
+					collect(child, keys, i, result);
+				}
+			}
+		}
+
+		private String[] getPatternKeys(String pattern) {
+			String[] keys = getDestinationKeys(pattern);
+			for (int i = 0; i < keys.length; i++) {
+				String key = keys[i];
+				if (!key.equals(MULTI_SEGMENT_WILDCARD) &&
+						(key.indexOf('*') != -1 || key.indexOf('?') != -1 || key.indexOf('{') != -1)) {
+					keys[i] = SEGMENT_WILDCARD;
+				}
+			}
+			return keys;
+		}
+
+		private String[] getDestinationKeys(String destination) {
+			if (this.separator == null) {
+				return new String[0];
+			}
+			String[] keys = StringUtils.tokenizeToStringArray(destination, this.separator, false, true);
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = foldCase(keys[i].trim());
+			}
+			return keys;
+		}
+
+		private static String foldCase(String segment) {
+			for (int i = 0; i < segment.length(); i++) {
+				char c = segment.charAt(i);
+				if (Character.toLowerCase(Character.toUpperCase(c)) != c) {
+					char[] chars = segment.toCharArray();
+					for (int j = i; j < chars.length; j++) {
+						chars[j] = Character.toLowerCase(Character.toUpperCase(chars[j]));
+					}
+					return new String(chars);
+				}
+			}
+			return segment;
+		}
+
+		@Override
+		public String toString() {
+			return "trie[separator=" + this.separator + "]";
+		}
+
+
+		private static final class Node {
+
+			// segment key -> child node
+			private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>(4);
+
+			// pattern -> sessionId -> subscription ids
+			private final ConcurrentMap<String, Map<String, Set<String>>> subscriptions =
+					new ConcurrentHashMap<>(2);
+
+			/** Whether removed from the trie, guarded by this node. */
+			private boolean removed;
+
+			@Nullable
+			public synchronized Node getOrCreateChild(String key) {
+				return (this.removed ? null : this.children.computeIfAbsent(key, k -> new Node()));
+			}
+
+			public synchronized boolean addSubscription(String pattern, String sessionId, String subsId) {
+				if (this.removed) {
+					return false;
+				}
+				this.subscriptions.computeIfAbsent(pattern, p -> new ConcurrentHashMap<>(4))
+						.computeIfAbsent(sessionId, id -> new CopyOnWriteArraySet<>()).add(subsId);
+				return true;
+			}
+
+			/**
+			 * Remove the given subscription, or all subscriptions of the session.
+			 * @return whether this node is now empty
+			 */
+			public synchronized boolean removeSubscriptions(String pattern, String sessionId, @Nullable String subsId) {
+				Map<String, Set<String>> sessions = this.subscriptions.get(pattern);
+				if (sessions != null) {
+					Set<String> subsIds = sessions.get(sessionId);
+					if (subsIds != null && subsId != null) {
+						subsIds.remove(subsId);
+					}
+					if (subsIds != null && (subsId == null || subsIds.isEmpty())) {
+						sessions.remove(sessionId);
+					}
+					if (sessions.isEmpty()) {
+						this.subscriptions.remove(pattern);
+					}
+				}
+				return isEmpty();
+			}
+
+			/**
+			 * Remove the given child if it has neither subscriptions nor children.
+			 * @return whether the child was removed
+			 */
+			public synchronized boolean removeChildIfEmpty(String key, Node child) {
+				synchronized (child) {
+					if (child.removed || !child.isEmpty()) {
+						return false;
+					}
+					child.removed = true;
+					this.children.remove(key, child);
+					return true;
+				}
+			}
+
+			private boolean isEmpty() {
+				return (this.subscriptions.isEmpty() && this.children.isEmpty());
+			}
+		}
+	}
+
+
 	/**
 	 * Provide access to session subscriptions by sessionId.
 	 */
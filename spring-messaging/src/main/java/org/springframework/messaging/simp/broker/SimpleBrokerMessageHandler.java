@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,25 @@
 package org.springframework.messaging.simp.broker;
 
 import java.security.Principal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -30,11 +44,14 @@ import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.SubscribableChannel;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.IdTimestampMessageHeaderInitializer;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderInitializer;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
+import org.springframework.util.IdGenerator;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.PathMatcher;
 
@@ -43,6 +60,13 @@ import org.springframework.util.PathMatcher;
  * {@link SimpMessageType}, keeps track of subscriptions with the help of a
  * {@link SubscriptionRegistry} and sends messages to subscribers.
  *
+ * <p>By default messages are sent to subscribers on the thread that handles
+ * them, i.e. a thread of the broker channel. As of 5.0.16, messages can be
+ * sent from a number of {@link #setShardCount shards} instead, each with a
+ * daemon thread and a bounded queue, to which destinations are assigned by
+ * hash, so that messages to different destinations are sent in parallel,
+ * while messages to the same destination keep their order.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0
@@ -70,6 +94,10 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
+	private int shardCount;
+
+	private int shardQueueCapacity = 1000;
+
 
 	private SubscriptionRegistry subscriptionRegistry;
 
@@ -78,6 +106,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private ScheduledFuture<?> heartbeatFuture;
 
+	@Nullable
+	private volatile ThreadPoolExecutor[] shards;
+
 
 	/**
 	 * Create a SimpleBrokerMessageHandler instance with the given message channels
@@ -249,9 +280,66 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		return this.headerInitializer;
 	}
 
+	/**
+	 * Configure the number of shards to send messages to subscribers from,
+	 * each with a single daemon thread and a queue of up to
+	 * {@link #setShardQueueCapacity shardQueueCapacity} messages, to which
+	 * destinations are assigned by hash.
+	 * Messages to the same destination are sent in the order received, while
+	 * messages to destinations of different shards are sent in parallel.
+	 * <p>By default this is set to 0, meaning messages are sent to subscribers
+	 * on the thread that handles them.
+	 * @since 5.0.16
+	 */
+	public void setShardCount(int shardCount) {
+		Assert.isTrue(shardCount >= 0, "'shardCount' must not be negative");
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * Return the configured number of shards.
+	 * @since 5.0.16
+	 */
+	public int getShardCount() {
+		return this.shardCount;
+	}
+
+	/**
+	 * Configure the maximum number of messages waiting to be sent by each
+	 * {@link #setShardCount shard}. Once the queue of a shard is full, the
+	 * thread handling a message for it waits for space in the queue, which
+	 * slows down the broker channel rather than buffering without limit.
+	 * <p>By default this is set to 1000.
+	 * @since 5.0.16
+	 */
+	public void setShardQueueCapacity(int shardQueueCapacity) {
+		Assert.isTrue(shardQueueCapacity > 0, "'shardQueueCapacity' must be positive");
+		this.shardQueueCapacity = shardQueueCapacity;
+	}
+
+	/**
+	 * Return the configured queue capacity of each shard.
+	 * @since 5.0.16
+	 */
+	public int getShardQueueCapacity() {
+		return this.shardQueueCapacity;
+	}
+
 
 	@Override
 	public void startInternal() {
+		if (this.shardCount > 0) {
+			ThreadPoolExecutor[] shards = new ThreadPoolExecutor[this.shardCount];
+			for (int i = 0; i < shards.length; i++) {
+				CustomizableThreadFactory threadFactory =
+						new CustomizableThreadFactory("SimpleBroker-shard-" + (i + 1) + "-");
+				threadFactory.setDaemon(true);
+				shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+						new LinkedBlockingQueue<>(this.shardQueueCapacity), threadFactory,
+						SimpleBrokerMessageHandler::awaitShardCapacity);
+			}
+			this.shards = shards;
+		}
 		publishBrokerAvailableEvent();
 		if (this.taskScheduler != null) {
 			long interval = initHeartbeatTaskDelay();
@@ -278,12 +366,36 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		}
 	}
 
+	/**
+	 * Wait for space in the queue of a shard that is full, rather than drop
+	 * the message or send it out of order on the calling thread.
+	 */
+	private static void awaitShardCapacity(Runnable task, ThreadPoolExecutor shard) {
+		if (shard.isShutdown()) {
+			throw new RejectedExecutionException("Shard has been shut down");
+		}
+		try {
+			shard.getQueue().put(task);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for shard queue capacity", ex);
+		}
+	}
+
 	@Override
 	public void stopInternal() {
 		publishBrokerUnavailableEvent();
 		if (this.heartbeatFuture != null) {
 			this.heartbeatFuture.cancel(true);
 		}
+		ThreadPoolExecutor[] shards = this.shards;
+		if (shards != null) {
+			this.shards = null;
+			for (ThreadPoolExecutor shard : shards) {
+				shard.shutdown();
+			}
+		}
 	}
 
 	@Override
@@ -301,7 +413,22 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 
 		if (SimpMessageType.MESSAGE.equals(messageType)) {
 			logMessage(message);
-			sendMessageToSubscribers(destination, message);
+			ThreadPoolExecutor[] shards = this.shards;
+			if (shards != null) {
+				int hash = (destination != null ? destination.hashCode() : 0);
+				ThreadPoolExecutor shard = shards[Math.floorMod(hash, shards.length)];
+				try {
+					shard.execute(() -> sendMessageToSubscribers(destination, message));
+				}
+				catch (RejectedExecutionException ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Broker stopped, not sending " + message);
+					}
+				}
+			}
+			else {
+				sendMessageToSubscribers(destination, message);
+			}
 		}
 		else if (SimpMessageType.CONNECT.equals(messageType)) {
 			logMessage(message);
@@ -383,16 +510,23 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (!subscriptions.isEmpty() && logger.isDebugEnabled()) {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+		// Headers shared by all subscriptions, overlaid with session and subscription ids
+		SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		initHeaders(headerAccessor);
+		headerAccessor.copyHeadersIfAbsent(message.getHeaders());
+		MessageHeaders sharedHeaders = headerAccessor.getMessageHeaders();
+		IdGenerator idGenerator = (getHeaderInitializer() instanceof IdTimestampMessageHeaderInitializer ?
+				((IdTimestampMessageHeaderInitializer) getHeaderInitializer()).getIdGenerator() : null);
+		Object payload = message.getPayload();
 		long now = System.currentTimeMillis();
 		subscriptions.forEach((sessionId, subscriptionIds) -> {
 			for (String subscriptionId : subscriptionIds) {
-				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
-				initHeaders(headerAccessor);
-				headerAccessor.setSessionId(sessionId);
-				headerAccessor.setSubscriptionId(subscriptionId);
-				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
-				Object payload = message.getPayload();
-				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+				MessageHeaders headers = new SubscriptionMessageHeaders(
+						sharedHeaders, sessionId, subscriptionId, idGenerator);
+				Message<?> reply = MessageBuilder.createMessage(payload, headers);
 				try {
 					getClientOutboundChannel().send(reply);
 				}
@@ -488,6 +622,221 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	}
 
 
+	/**
+	 * Headers of a message sent to one subscription: the headers shared by all
+	 * subscriptions, overlaid with the session and subscription ids and with
+	 * a message id that is generated on first access. Iterating over the
+	 * headers, e.g. to copy them into a header accessor, goes over the shared
+	 * headers and the overlaid ones without creating a map of all headers,
+	 * which is only done for less common operations such as equality checks.
+	 */
+	@SuppressWarnings("serial")
+	private static final class SubscriptionMessageHeaders extends MessageHeaders {
+
+		private final MessageHeaders sharedHeaders;
+
+		private final String sessionId;
+
+		private final String subscriptionId;
+
+		@Nullable
+		private final transient IdGenerator idGenerator;
+
+		@Nullable
+		private volatile UUID id;
+
+		@Nullable
+		private transient volatile Map<String, Object> headers;
+
+		public SubscriptionMessageHeaders(MessageHeaders sharedHeaders, String sessionId,
+				String subscriptionId, @Nullable IdGenerator idGenerator) {
+
+			super(null, ID_VALUE_NONE, -1L);
+			this.sharedHeaders = sharedHeaders;
+			this.sessionId = sessionId;
+			this.subscriptionId = subscriptionId;
+			this.idGenerator = idGenerator;
+		}
+
+		@Override
+		@Nullable
+		public Object get(Object key) {
+			if (SimpMessageHeaderAccessor.SESSION_ID_HEADER.equals(key)) {
+				return this.sessionId;
+			}
+			else if (SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER.equals(key)) {
+				return this.subscriptionId;
+			}
+			else if (ID.equals(key)) {
+				return getIdValue();
+			}
+			return this.sharedHeaders.get(key);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		@Nullable
+		public <T> T get(Object key, Class<T> type) {
+			Object value = get(key);
+			if (value == null) {
+				return null;
+			}
+			if (!type.isAssignableFrom(value.getClass())) {
+				throw new IllegalArgumentException("Incorrect type specified for header '" +
+						key + "'. Expected [" + type + "] but actual type is [" + value.getClass() + "]");
+			}
+			return (T) value;
+		}
+
+		@Nullable
+		private UUID getIdValue() {
+			UUID id = this.id;
+			if (id == null) {
+				synchronized (this) {
+					id = this.id;
+					if (id == null) {
+						id = (this.idGenerator != null ? this.idGenerator : getIdGenerator()).generateId();
+						this.id = id;
+					}
+				}
+			}
+			return (id != ID_VALUE_NONE ? id : null);
+		}
+
+		@Override
+		protected Map<String, Object> getRawHeaders() {
+			Map<String, Object> headers = this.headers;
+			if (headers == null) {
+				headers = new HashMap<>(this.sharedHeaders);
+				headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, this.sessionId);
+				headers.put(SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER, this.subscriptionId);
+				UUID id = getIdValue();
+				if (id != null) {
+					headers.put(ID, id);
+				}
+				else {
+					headers.remove(ID);
+				}
+				this.headers = headers;
+			}
+			return headers;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return (get(key) != null);
+		}
+
+		@Override
+		public boolean containsValue(Object value) {
+			return getRawHeaders().containsValue(value);
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<String, Object>>() {
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return entryIterator();
+				}
+				@Override
+				public int size() {
+					return SubscriptionMessageHeaders.this.size();
+				}
+			};
+		}
+
+		private Iterator<Map.Entry<String, Object>> entryIterator() {
+			List<Map.Entry<String, Object>> overlaidEntries = new ArrayList<>(3);
+			overlaidEntries.add(new AbstractMap.SimpleImmutableEntry<>(
+					SimpMessageHeaderAccessor.SESSION_ID_HEADER, this.sessionId));
+			overlaidEntries.add(new AbstractMap.SimpleImmutableEntry<>(
+					SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER, this.subscriptionId));
+			UUID id = getIdValue();
+			if (id != null) {
+				overlaidEntries.add(new AbstractMap.SimpleImmutableEntry<>(ID, id));
+			}
+			return Stream.concat(
+					this.sharedHeaders.entrySet().stream().filter(entry -> !isOverlaid(entry.getKey())),
+					overlaidEntries.stream()).iterator();
+		}
+
+		private static boolean isOverlaid(String key) {
+			return (SimpMessageHeaderAccessor.SESSION_ID_HEADER.equals(key) ||
+					SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER.equals(key) || ID.equals(key));
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return false;
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return Collections.unmodifiableSet(getRawHeaders().keySet());
+		}
+
+		@Override
+		public int size() {
+			int size = this.sharedHeaders.size() + 2;
+			if (this.sharedHeaders.containsKey(SimpMessageHeaderAccessor.SESSION_ID_HEADER)) {
+				size--;
+			}
+			if (this.sharedHeaders.containsKey(SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER)) {
+				size--;
+			}
+			if (this.sharedHeaders.containsKey(ID)) {
+				size--;
+			}
+			return (getIdValue() != null ? size + 1 : size);
+		}
+
+		@Override
+		public Collection<Object> values() {
+			return Collections.unmodifiableCollection(getRawHeaders().values());
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof MessageHeaders && getRawHeaders().equals(other)));
+		}
+
+		@Override
+		public int hashCode() {
+			return getRawHeaders().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return getRawHeaders().toString();
+		}
+
+		/**
+		 * Serialize a copy of all headers, since the header map of the
+		 * {@code MessageHeaders} superclass is empty.
+		 */
+		private Object writeReplace() {
+			UUID id = getIdValue();
+			Long timestamp = this.sharedHeaders.getTimestamp();
+			return new CopiedMessageHeaders(getRawHeaders(),
+					(id != null ? id : ID_VALUE_NONE), (timestamp != null ? timestamp : -1L));
+		}
+	}
+
+
+	/**
+	 * A copy of the headers of a message sent to one subscription, with the
+	 * same id and timestamp.
+	 */
+	@SuppressWarnings("serial")
+	private static final class CopiedMessageHeaders extends MessageHeaders {
+
+		CopiedMessageHeaders(Map<String, Object> headers, UUID id, Long timestamp) {
+			super(headers, id, timestamp);
+		}
+	}
+
+
 	private class HeartbeatTask implements Runnable {
 
 		@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,11 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 	@Nullable
 	private String selectorHeaderName = "selector";
 
+	private int shardCount;
+
+	@Nullable
+	private Integer shardQueueCapacity;
+
 
 	public SimpleBrokerRegistration(SubscribableChannel inChannel, MessageChannel outChannel, String[] prefixes) {
 		super(inChannel, outChannel, prefixes);
@@ -89,6 +94,34 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 		this.selectorHeaderName = selectorHeaderName;
 	}
 
+	/**
+	 * Configure the number of shards, each with a single thread, to send
+	 * messages to subscribers from. Destinations are assigned to shards by
+	 * hash, so messages to the same destination are sent in order.
+	 * <p>By default this is set to 0, meaning messages are sent to subscribers
+	 * on the thread of the broker channel.
+	 * @param shardCount the number of shards
+	 * @since 5.0.16
+	 * @see SimpleBrokerMessageHandler#setShardCount
+	 */
+	public SimpleBrokerRegistration setShardCount(int shardCount) {
+		this.shardCount = shardCount;
+		return this;
+	}
+
+	/**
+	 * Configure the maximum number of messages waiting to be sent by each
+	 * shard, beyond which the broker channel waits for space.
+	 * <p>By default this is set to 1000.
+	 * @param shardQueueCapacity the queue capacity of each shard
+	 * @since 5.0.16
+	 * @see SimpleBrokerMessageHandler#setShardQueueCapacity
+	 */
+	public SimpleBrokerRegistration setShardQueueCapacity(int shardQueueCapacity) {
+		this.shardQueueCapacity = shardQueueCapacity;
+		return this;
+	}
+
 
 	@Override
 	protected SimpleBrokerMessageHandler getMessageHandler(SubscribableChannel brokerChannel) {
@@ -101,6 +134,10 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 			handler.setHeartbeatValue(this.heartbeat);
 		}
 		handler.setSelectorHeaderName(this.selectorHeaderName);
+		handler.setShardCount(this.shardCount);
+		if (this.shardQueueCapacity != null) {
+			handler.setShardQueueCapacity(this.shardQueueCapacity);
+		}
 		return handler;
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -57,6 +57,10 @@ public class BufferingStompDecoder {
 	@Nullable
 	private volatile Integer expectedContentLength;
 
+	/** Buffer for assembling chunks, re-used while it holds a partial frame. */
+	@Nullable
+	private ByteBuffer assemblyBuffer;
+
 
 	/**
 	 * Create a new {@code BufferingStompDecoder} wrapping the given {@code StompDecoder}.
@@ -117,6 +121,9 @@ public class BufferingStompDecoder {
 			this.chunks.add(bufferToDecode);
 			this.expectedContentLength = StompHeaderAccessor.getContentLength(headers);
 		}
+		else {
+			this.assemblyBuffer = null;
+		}
 
 		return messages;
 	}
@@ -125,13 +132,25 @@ public class BufferingStompDecoder {
 		ByteBuffer result;
 		if (this.chunks.size() == 1) {
 			result = this.chunks.remove();
+			this.assemblyBuffer = null;
 		}
 		else {
-			result = ByteBuffer.allocate(getBufferSize());
+			int size = getBufferSize();
+			ByteBuffer first = this.chunks.peek();
+			if (first != null && first == this.assemblyBuffer && first.capacity() >= size) {
+				// Append to the partial frame left over in the previous assembly buffer
+				this.chunks.remove();
+				result = first.compact();
+			}
+			else {
+				// Leave room to grow, so that a large frame is not copied again for every chunk
+				result = ByteBuffer.allocate(Math.max(size, Math.min(size * 2, this.bufferSizeLimit)));
+			}
 			for (ByteBuffer partial : this.chunks) {
 				result.put(partial);
 			}
 			result.flip();
+			this.assemblyBuffer = result;
 		}
 		this.chunks.clear();
 		this.expectedContentLength = null;
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -43,6 +42,10 @@ import org.springframework.util.MultiValueMap;
  * partial content. The caller is then responsible for dealing with that
  * incomplete content by buffering until there is more input available.
  *
+ * <p>The command, header names and header values are decoded directly from
+ * the input buffer, without intermediate copies, and common command and header
+ * names are shared rather than decoded for each frame.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -53,6 +56,28 @@ public class StompDecoder {
 
 	private static final Log logger = LogFactory.getLog(StompDecoder.class);
 
+	private static final String[] COMMAND_NAMES;
+
+	private static final String[] HEADER_NAMES = new String[] {
+			StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER, StompHeaderAccessor.STOMP_ACK_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_HEARTBEAT_HEADER,
+			StompHeaderAccessor.STOMP_HOST_HEADER, StompHeaderAccessor.STOMP_ID_HEADER,
+			StompHeaderAccessor.STOMP_LOGIN_HEADER, StompHeaderAccessor.STOMP_MESSAGE_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, StompHeaderAccessor.STOMP_NACK_HEADER,
+			StompHeaderAccessor.STOMP_PASSCODE_HEADER, StompHeaderAccessor.STOMP_RECEIPT_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+			StompHeaderAccessor.STOMP_VERSION_HEADER, "server", "session", "transaction"};
+
+	static {
+		StompCommand[] commands = StompCommand.values();
+		COMMAND_NAMES = new String[commands.length];
+		for (int i = 0; i < commands.length; i++) {
+			COMMAND_NAMES[i] = commands[i].name();
+		}
+	}
+
+
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
@@ -207,36 +232,56 @@ public class StompDecoder {
 	}
 
 	private String readCommand(ByteBuffer byteBuffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (byteBuffer.remaining() > 0 && !tryConsumeEndOfLine(byteBuffer)) {
-			command.write(byteBuffer.get());
+		int start = byteBuffer.position();
+		int end = byteBuffer.limit();
+		while (byteBuffer.remaining() > 0) {
+			int position = byteBuffer.position();
+			if (tryConsumeEndOfLine(byteBuffer)) {
+				end = position;
+				break;
+			}
+			byteBuffer.get();
 		}
-		return new String(command.toByteArray(), StandardCharsets.UTF_8);
+		return decodeString(byteBuffer, start, end, COMMAND_NAMES);
 	}
 
 	private void readHeaders(ByteBuffer byteBuffer, StompHeaderAccessor headerAccessor) {
 		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
-			boolean headerComplete = false;
+			int start = byteBuffer.position();
+			int end = -1;
+			int colonIndex = -1;
+			boolean escaped = false;
 			while (byteBuffer.hasRemaining()) {
+				int position = byteBuffer.position();
 				if (tryConsumeEndOfLine(byteBuffer)) {
-					headerComplete = true;
+					end = position;
 					break;
 				}
-				headerStream.write(byteBuffer.get());
+				byte b = byteBuffer.get();
+				if (b == ':') {
+					if (colonIndex == -1) {
+						colonIndex = position;
+					}
+				}
+				else if (b == '\\') {
+					escaped = true;
+				}
 			}
-			if (headerStream.size() > 0 && headerComplete) {
-				String header = new String(headerStream.toByteArray(), StandardCharsets.UTF_8);
-				int colonIndex = header.indexOf(':');
-				if (colonIndex <= 0) {
+			if (end > start) {
+				if (colonIndex <= start) {
 					if (byteBuffer.remaining() > 0) {
+						String header = decodeString(byteBuffer, start, end, null);
 						throw new StompConversionException("Illegal header: '" + header +
 								"'. A header must be of the form <name>:[<value>].");
 					}
 				}
 				else {
-					String headerName = unescape(header.substring(0, colonIndex));
-					String headerValue = unescape(header.substring(colonIndex + 1));
+					String headerName = decodeString(byteBuffer, start, colonIndex, HEADER_NAMES);
+					String headerValue = decodeString(byteBuffer, colonIndex + 1, end, null);
+					if (escaped) {
+						headerName = unescape(headerName);
+						headerValue = unescape(headerValue);
+					}
 					try {
 						headerAccessor.addNativeHeader(headerName, headerValue);
 					}
@@ -253,6 +298,38 @@ public class StompDecoder {
 		}
 	}
 
+	/**
+	 * Decode the given range of the buffer as a UTF-8 String, returning the
+	 * matching one of the given known values instead, if any.
+	 */
+	private static String decodeString(ByteBuffer byteBuffer, int start, int end, @Nullable String[] knownValues) {
+		int length = end - start;
+		if (knownValues != null) {
+			for (String knownValue : knownValues) {
+				if (knownValue.length() == length && matches(byteBuffer, start, knownValue)) {
+					return knownValue;
+				}
+			}
+		}
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = byteBuffer.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static boolean matches(ByteBuffer byteBuffer, int start, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (byteBuffer.get(start + i) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * See STOMP Spec 1.2:
 	 * <a href="https://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
@@ -319,14 +396,12 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (byteBuffer.remaining() > 0) {
-				byte b = byteBuffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
-				}
-				else {
-					payload.write(b);
+			for (int i = byteBuffer.position(); i < byteBuffer.limit(); i++) {
+				if (byteBuffer.get(i) == 0) {
+					byte[] payload = new byte[i - byteBuffer.position()];
+					byteBuffer.get(payload);
+					byteBuffer.get();
+					return payload;
 				}
 			}
 		}
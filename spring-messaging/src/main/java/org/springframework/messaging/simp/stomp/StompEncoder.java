@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,10 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -40,6 +40,11 @@ import org.springframework.util.Assert;
 /**
  * An encoder for STOMP frames.
  *
+ * <p>Frames are written directly to the target, either a {@code byte[]}
+ * allocated up front from the {@link #estimateSize estimated size} of the
+ * frame, or an {@link OutputStream}, e.g. over a pooled buffer. Header values
+ * are escaped and encoded as they are written.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -51,6 +56,9 @@ public class StompEncoder  {
 
 	private static final byte COLON = ':';
 
+	private static final byte[] CONTENT_LENGTH_HEADER =
+			(StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER + ":").getBytes(StandardCharsets.UTF_8);
+
 	private static final Log logger = LogFactory.getLog(StompEncoder.class);
 
 	private static final int HEADER_KEY_CACHE_LIMIT = 32;
@@ -92,14 +100,28 @@ public class StompEncoder  {
 	public byte[] encode(Map<String, Object> headers, byte[] payload) {
 		Assert.notNull(headers, "'headers' is required");
 		Assert.notNull(payload, "'payload' is required");
+		FrameOutputStream output = new FrameOutputStream(estimateSize(headers, payload));
+		encode(headers, payload, output);
+		return output.toByteArray();
+	}
 
-		try {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
-			DataOutputStream output = new DataOutputStream(baos);
+	/**
+	 * Encodes the given payload and headers into the given {@code OutputStream},
+	 * e.g. one that writes to a pooled buffer, without an intermediate
+	 * {@code byte[]}. Use {@link #estimateSize} to reserve space up front.
+	 * @param headers the headers
+	 * @param payload the payload
+	 * @param outputStream the stream to write the encoded message to
+	 * @since 5.0.16
+	 */
+	public void encode(Map<String, Object> headers, byte[] payload, OutputStream outputStream) {
+		Assert.notNull(headers, "'headers' is required");
+		Assert.notNull(payload, "'payload' is required");
 
+		try {
 			if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
 				logger.trace("Encoding heartbeat");
-				output.write(StompDecoder.HEARTBEAT_PAYLOAD);
+				outputStream.write(StompDecoder.HEARTBEAT_PAYLOAD);
 			}
 
 			else {
@@ -108,23 +130,62 @@ public class StompEncoder  {
 					throw new IllegalStateException("Missing STOMP command: " + headers);
 				}
 
-				output.write(command.toString().getBytes(StandardCharsets.UTF_8));
-				output.write(LF);
-				writeHeaders(command, headers, payload, output);
-				output.write(LF);
-				writeBody(payload, output);
-				output.write((byte) 0);
+				writeString(command.toString(), false, outputStream);
+				outputStream.write(LF);
+				writeHeaders(command, headers, payload, outputStream);
+				outputStream.write(LF);
+				writeBody(payload, outputStream);
+				outputStream.write((byte) 0);
 			}
-
-			return baos.toByteArray();
 		}
 		catch (IOException ex) {
 			throw new StompConversionException("Failed to encode STOMP frame, headers=" + headers,  ex);
 		}
 	}
 
+	/**
+	 * Return the size of the encoded frame for the given payload and headers.
+	 * The size is exact unless headers need to be escaped or contain non-ASCII
+	 * characters, in which case the encoded frame is larger.
+	 * @param headers the headers
+	 * @param payload the payload
+	 * @return the estimated number of bytes
+	 * @since 5.0.16
+	 */
+	public int estimateSize(Map<String, Object> headers, byte[] payload) {
+		if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
+			return StompDecoder.HEARTBEAT_PAYLOAD.length;
+		}
+		StompCommand command = StompHeaderAccessor.getCommand(headers);
+		if (command == null) {
+			return 0;
+		}
+		int size = command.toString().length() + 1 + 1 + payload.length + 1;
+		@SuppressWarnings("unchecked")
+		Map<String, List<String>> nativeHeaders =
+				(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+		if (nativeHeaders != null) {
+			for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+				if (command.requiresContentLength() && "content-length".equals(entry.getKey())) {
+					continue;
+				}
+				for (String value : entry.getValue()) {
+					size += entry.getKey().length() + 1 + (value != null ? value.length() : 0) + 1;
+				}
+			}
+		}
+		if (command.requiresContentLength()) {
+			int digits = 1;
+			for (int length = payload.length; length >= 10; length /= 10) {
+				digits++;
+			}
+			size += CONTENT_LENGTH_HEADER.length + digits + 1;
+		}
+		return size;
+	}
+
 	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload,
-			DataOutputStream output) throws IOException {
+			OutputStream output) throws IOException {
 
 		@SuppressWarnings("unchecked")
 		Map<String,List<String>> nativeHeaders =
@@ -155,15 +216,15 @@ public class StompEncoder  {
 			for (String value : values) {
 				output.write(encodedKey);
 				output.write(COLON);
-				output.write(encodeHeaderValue(value, shouldEscape));
+				writeString(value, shouldEscape, output);
 				output.write(LF);
 			}
 		}
 
 		if (command.requiresContentLength()) {
 			int contentLength = payload.length;
-			output.write("content-length:".getBytes(StandardCharsets.UTF_8));
-			output.write(Integer.toString(contentLength).getBytes(StandardCharsets.UTF_8));
+			output.write(CONTENT_LENGTH_HEADER);
+			writeString(Integer.toString(contentLength), false, output);
 			output.write(LF);
 		}
 	}
@@ -184,9 +245,46 @@ public class StompEncoder  {
 		}
 	}
 
-	private byte[] encodeHeaderValue(String input, boolean escape) {
-		String inputToUse = (escape ? escape(input) : input);
-		return inputToUse.getBytes(StandardCharsets.UTF_8);
+	/**
+	 * Write the given String as UTF-8, escaping it if necessary, see STOMP Spec 1.2:
+	 * <a href="https://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
+	 */
+	private void writeString(String input, boolean escape, OutputStream output) throws IOException {
+		int length = input.length();
+		for (int i = 0; i < length; i++) {
+			char c = input.charAt(i);
+			if (c < 0x80) {
+				if (escape && (c == '\\' || c == ':' || c == '\n' || c == '\r')) {
+					output.write('\\');
+					output.write(c == '\\' ? '\\' : c == ':' ? 'c' : c == '\n' ? 'n' : 'r');
+				}
+				else {
+					output.write(c);
+				}
+			}
+			else if (c < 0x800) {
+				output.write(0xc0 | (c >> 6));
+				output.write(0x80 | (c & 0x3f));
+			}
+			else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(input.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, input.charAt(++i));
+					output.write(0xf0 | (codePoint >> 18));
+					output.write(0x80 | ((codePoint >> 12) & 0x3f));
+					output.write(0x80 | ((codePoint >> 6) & 0x3f));
+					output.write(0x80 | (codePoint & 0x3f));
+				}
+				else {
+					// Malformed, replaced as by String#getBytes
+					output.write('?');
+				}
+			}
+			else {
+				output.write(0xe0 | (c >> 12));
+				output.write(0x80 | ((c >> 6) & 0x3f));
+				output.write(0x80 | (c & 0x3f));
+			}
+		}
 	}
 
 	/**
@@ -228,8 +326,47 @@ public class StompEncoder  {
 		return sb;
 	}
 
-	private void writeBody(byte[] payload, DataOutputStream output) throws IOException {
+	private void writeBody(byte[] payload, OutputStream output) throws IOException {
 		output.write(payload);
 	}
 
+
+	/**
+	 * Unsynchronized output into a {@code byte[]} of the estimated frame size,
+	 * returned as is if the estimate was exact.
+	 */
+	private static final class FrameOutputStream extends OutputStream {
+
+		private byte[] buffer;
+
+		private int count;
+
+		public FrameOutputStream(int size) {
+			this.buffer = new byte[size];
+		}
+
+		@Override
+		public void write(int b) {
+			ensureCapacity(1);
+			this.buffer[this.count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			ensureCapacity(length);
+			System.arraycopy(bytes, offset, this.buffer, this.count, length);
+			this.count += length;
+		}
+
+		private void ensureCapacity(int length) {
+			if (this.count + length > this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.count + length));
+			}
+		}
+
+		public byte[] toByteArray() {
+			return (this.count == this.buffer.length ? this.buffer : Arrays.copyOf(this.buffer, this.count));
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,9 @@ package org.springframework.messaging.simp.stomp;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+
 import org.springframework.messaging.Message;
 import org.springframework.messaging.tcp.reactor.AbstractNioBufferReactorNettyCodec;
 
@@ -53,6 +56,16 @@ public class StompReactorNettyCodec extends AbstractNioBufferReactorNettyCodec<b
 		return this.decoder.decode(nioBuffer);
 	}
 
+	/**
+	 * Encode directly into the given output buffer, after reserving space for
+	 * the estimated size of the frame.
+	 */
+	@Override
+	public void encode(Message<byte[]> message, ByteBuf outputBuffer) {
+		outputBuffer.ensureWritable(this.encoder.estimateSize(message.getHeaders(), message.getPayload()));
+		this.encoder.encode(message.getHeaders(), message.getPayload(), new ByteBufOutputStream(outputBuffer));
+	}
+
 	protected ByteBuffer encodeInternal(Message<byte[]> message) {
 		return ByteBuffer.wrap(this.encoder.encode(message));
 	}
@@ -42,6 +42,11 @@ import org.springframework.util.ObjectUtils;
  * handled by {@link UserRegistryMessageHandler} which in turn notifies this
  * registry when updates are received.
  *
+ * <p>Broadcasts are either a full snapshot of the local registry or only the
+ * users that changed since the previous broadcast. Remote registries apply
+ * changes only on top of the broadcast they are based on, and otherwise keep
+ * their content until the next full snapshot.
+ *
  * @author Rossen Stoyanchev
  * @since 4.2
  */
@@ -59,6 +64,19 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 	/* Cross-server session lookup (e.g. same user connected to multiple servers) */
 	private final SessionLookup sessionLookup = new SessionLookup();
 
+	/* Local users as of the last broadcast, the base for broadcasting changes only */
+	@Nullable
+	private Map<String, TransferSimpUser> lastBroadcastUsers;
+
+	private long lastBroadcastVersion;
+
+	/* Most recently created broadcast, and its local users, until it has been sent */
+	@Nullable
+	private Object pendingBroadcastDto;
+
+	@Nullable
+	private Map<String, TransferSimpUser> pendingBroadcastUsers;
+
 
 	/**
 	 * Create an instance wrapping the local user registry.
@@ -157,19 +175,98 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 		return result;
 	}
 
+	@Override
+	public Set<SimpSubscription> findSubscriptions(String destination) {
+		Set<SimpSubscription> result = new HashSet<>();
+		for (UserRegistrySnapshot registry : this.remoteRegistries.values()) {
+			result.addAll(registry.findSubscriptions(
+					subscription -> destination.equals(subscription.getDestination())));
+		}
+		result.addAll(this.localRegistry.findSubscriptions(destination));
+		return result;
+	}
+
 
 	// Internal methods for UserRegistryMessageHandler to manage broadcasts
 
+	/**
+	 * Return a full snapshot of the local registry to broadcast.
+	 */
 	Object getLocalRegistryDto() {
-		return new UserRegistrySnapshot(this.id, this.localRegistry);
+		return createLocalRegistryDto(false);
+	}
+
+	/**
+	 * Return the changes to the local registry since the previous broadcast,
+	 * or a full snapshot if there was none.
+	 */
+	Object getLocalRegistryDeltaDto() {
+		return createLocalRegistryDto(true);
+	}
+
+	/**
+	 * Record that the given snapshot has been sent, making it the base for
+	 * the changes in the next broadcast.
+	 */
+	synchronized void localRegistryDtoSent(Object registryDto) {
+		if (registryDto == this.pendingBroadcastDto) {
+			this.lastBroadcastUsers = this.pendingBroadcastUsers;
+			this.lastBroadcastVersion = ((UserRegistrySnapshot) registryDto).getVersion();
+			this.pendingBroadcastDto = null;
+			this.pendingBroadcastUsers = null;
+		}
+	}
+
+	private synchronized UserRegistrySnapshot createLocalRegistryDto(boolean delta) {
+		Set<SimpUser> localUsers = this.localRegistry.getUsers();
+		Map<String, TransferSimpUser> users = new HashMap<>(localUsers.size());
+		for (SimpUser user : localUsers) {
+			users.put(user.getName(), new TransferSimpUser(user));
+		}
+		long version = this.lastBroadcastVersion + 1;
+		Map<String, TransferSimpUser> lastUsers = this.lastBroadcastUsers;
+		UserRegistrySnapshot registryDto = (!delta || lastUsers == null ?
+				new UserRegistrySnapshot(this.id, version, users) :
+				createDeltaDto(version, users, lastUsers));
+		this.pendingBroadcastDto = registryDto;
+		this.pendingBroadcastUsers = users;
+		return registryDto;
+	}
+
+	private UserRegistrySnapshot createDeltaDto(long version, Map<String, TransferSimpUser> users,
+			Map<String, TransferSimpUser> lastUsers) {
+
+		Map<String, TransferSimpUser> changedUsers = new HashMap<>();
+		for (TransferSimpUser user : users.values()) {
+			TransferSimpUser lastUser = lastUsers.get(user.getName());
+			if (lastUser == null || !lastUser.hasSameSessions(user)) {
+				changedUsers.put(user.getName(), user);
+			}
+		}
+		Set<String> removedUserNames = new HashSet<>();
+		for (String userName : lastUsers.keySet()) {
+			if (!users.containsKey(userName)) {
+				removedUserNames.add(userName);
+			}
+		}
+		return new UserRegistrySnapshot(this.id, version, version - 1, changedUsers, removedUserNames);
 	}
 
 	void addRemoteRegistryDto(Message<?> message, MessageConverter converter, long expirationPeriod) {
 		UserRegistrySnapshot registry = (UserRegistrySnapshot) converter.fromMessage(message, UserRegistrySnapshot.class);
-		if (registry != null && !registry.getId().equals(this.id)) {
+		if (registry == null || registry.getId().equals(this.id)) {
+			return;
+		}
+		if (registry.getBaseVersion() == 0) {
 			registry.init(expirationPeriod, this.sessionLookup);
 			this.remoteRegistries.put(registry.getId(), registry);
 		}
+		else {
+			UserRegistrySnapshot current = this.remoteRegistries.get(registry.getId());
+			if (current != null) {
+				current.applyDelta(registry, expirationPeriod, this.sessionLookup);
+			}
+		}
 	}
 
 	void purgeExpiredRegistries() {
@@ -185,8 +282,9 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 
 
 	/**
-	 * Holds a copy of a SimpUserRegistry for the purpose of broadcasting to and
-	 * receiving broadcasts from other application servers.
+	 * Holds a copy of a SimpUserRegistry, or the changes to it since a previous
+	 * copy, for the purpose of broadcasting to and receiving broadcasts from
+	 * other application servers.
 	 */
 	private static class UserRegistrySnapshot {
 
@@ -194,6 +292,14 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 
 		private Map<String, TransferSimpUser> users = Collections.emptyMap();
 
+		private Set<String> removedUserNames = Collections.emptySet();
+
+		// Sequence number of the broadcast, or 0 if changes cannot be applied
+		private long version;
+
+		// Version the changes apply to, or 0 for a full snapshot
+		private long baseVersion;
+
 		private long expirationTime;
 
 		/**
@@ -204,15 +310,25 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 		}
 
 		/**
-		 * Constructor to create DTO from a local user registry.
+		 * Constructor to create DTO with the users of a local user registry.
 		 */
-		public UserRegistrySnapshot(String id, SimpUserRegistry registry) {
+		public UserRegistrySnapshot(String id, long version, Map<String, TransferSimpUser> users) {
 			this.id = id;
-			Set<SimpUser> users = registry.getUsers();
-			this.users = new HashMap<>(users.size());
-			for (SimpUser user : users) {
-				this.users.put(user.getName(), new TransferSimpUser(user));
-			}
+			this.version = version;
+			this.users = users;
+		}
+
+		/**
+		 * Constructor to create DTO with the changes to a local user registry.
+		 */
+		public UserRegistrySnapshot(String id, long version, long baseVersion,
+				Map<String, TransferSimpUser> changedUsers, Set<String> removedUserNames) {
+
+			this.id = id;
+			this.version = version;
+			this.baseVersion = baseVersion;
+			this.users = changedUsers;
+			this.removedUserNames = removedUserNames;
 		}
 
 		public void setId(String id) {
@@ -231,6 +347,30 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 			return this.users;
 		}
 
+		public void setRemovedUserNames(Set<String> removedUserNames) {
+			this.removedUserNames = removedUserNames;
+		}
+
+		public Set<String> getRemovedUserNames() {
+			return this.removedUserNames;
+		}
+
+		public void setVersion(long version) {
+			this.version = version;
+		}
+
+		public long getVersion() {
+			return this.version;
+		}
+
+		public void setBaseVersion(long baseVersion) {
+			this.baseVersion = baseVersion;
+		}
+
+		public long getBaseVersion() {
+			return this.baseVersion;
+		}
+
 		public boolean isExpired(long now) {
 			return (now > this.expirationTime);
 		}
@@ -240,6 +380,30 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 			for (TransferSimpUser user : this.users.values()) {
 				user.afterDeserialization(sessionLookup);
 			}
+			// Subsequent changes are applied while being read
+			this.users = new ConcurrentHashMap<>(this.users);
+		}
+
+		/**
+		 * Apply the changes in the given DTO, if based on the current version,
+		 * or else keep the current users until the next full snapshot.
+		 */
+		public synchronized void applyDelta(UserRegistrySnapshot delta, long expirationPeriod,
+				SessionLookup sessionLookup) {
+
+			this.expirationTime = System.currentTimeMillis() + expirationPeriod;
+			if (this.version == 0 || delta.getBaseVersion() != this.version) {
+				this.version = 0;
+				return;
+			}
+			for (TransferSimpUser user : delta.getUserMap().values()) {
+				user.afterDeserialization(sessionLookup);
+				this.users.put(user.getName(), user);
+			}
+			for (String userName : delta.getRemovedUserNames()) {
+				this.users.remove(userName);
+			}
+			this.version = delta.getVersion();
 		}
 
 		public Set<SimpSubscription> findSubscriptions(SimpSubscriptionMatcher matcher) {
@@ -355,6 +519,26 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 			}
 		}
 
+		/**
+		 * Whether the given user, from a different snapshot, has the same
+		 * sessions with the same subscriptions as this user.
+		 */
+		private boolean hasSameSessions(TransferSimpUser other) {
+			return getDestinationsBySession().equals(other.getDestinationsBySession());
+		}
+
+		private Map<String, Map<String, String>> getDestinationsBySession() {
+			Map<String, Map<String, String>> result = new HashMap<>(this.sessions.size());
+			for (TransferSimpSession session : this.sessions) {
+				Map<String, String> destinations = new HashMap<>(session.subscriptions.size());
+				for (TransferSimpSubscription subscription : session.subscriptions) {
+					destinations.put(subscription.getId(), subscription.getDestination());
+				}
+				result.put(session.getId(), destinations);
+			}
+			return result;
+		}
+
 
 		@Override
 		public boolean equals(Object other) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,12 @@ import org.springframework.util.Assert;
  *
  * <p>The aggregated information is maintained in a {@link MultiServerUserRegistry}.
  *
+ * <p>By default every broadcast contains the full content of the local user
+ * registry. Optionally, only every {@link #setFullBroadcastInterval n-th}
+ * broadcast is a full one, while the ones in between contain only the users
+ * that connected, disconnected, or changed subscriptions since the previous
+ * broadcast that was sent successfully.
+ *
  * @author Rossen Stoyanchev
  * @since 4.2
  */
@@ -59,6 +65,8 @@ public class UserRegistryMessageHandler implements MessageHandler, ApplicationLi
 
 	private long registryExpirationPeriod = TimeUnit.SECONDS.toMillis(20);
 
+	private int fullBroadcastInterval = 1;
+
 
 	/**
 	 * Constructor.
@@ -107,10 +115,36 @@ public class UserRegistryMessageHandler implements MessageHandler, ApplicationLi
 		return this.registryExpirationPeriod;
 	}
 
+	/**
+	 * Configure how often to broadcast the full content of the local user
+	 * registry, as opposed to the changes since the previous broadcast, which
+	 * other servers apply only if they have received all previous broadcasts.
+	 * <p>By default this is set to 1, i.e. every broadcast is a full one.
+	 * A value of 6, for example, means a full broadcast once per minute with
+	 * the default expiration period. Values above 1 must not be used while
+	 * servers of versions prior to 5.0.16, which treat every broadcast as
+	 * full, share the destination.
+	 * @param interval the number of broadcasts per full broadcast
+	 * @since 5.0.16
+	 */
+	public void setFullBroadcastInterval(int interval) {
+		Assert.isTrue(interval > 0, "'interval' must be positive");
+		this.fullBroadcastInterval = interval;
+	}
+
+	/**
+	 * Return the configured full broadcast interval.
+	 * @since 5.0.16
+	 */
+	public int getFullBroadcastInterval() {
+		return this.fullBroadcastInterval;
+	}
+
 
 	@Override
 	public void onApplicationEvent(BrokerAvailabilityEvent event) {
 		if (event.isBrokerAvailable()) {
+			this.schedulerTask.reset();
 			long delay = getRegistryExpirationPeriod() / 2;
 			this.scheduledFuture = this.scheduler.scheduleWithFixedDelay(this.schedulerTask, delay);
 		}
@@ -132,14 +166,22 @@ public class UserRegistryMessageHandler implements MessageHandler, ApplicationLi
 
 	private class UserRegistryTask implements Runnable {
 
+		private int broadcastCount;
+
+		public void reset() {
+			this.broadcastCount = 0;
+		}
+
 		@Override
 		public void run() {
 			try {
 				SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
 				accessor.setHeader(SimpMessageHeaderAccessor.IGNORE_ERROR, true);
 				accessor.setLeaveMutable(true);
-				Object payload = userRegistry.getLocalRegistryDto();
+				boolean full = (this.broadcastCount++ % getFullBroadcastInterval() == 0);
+				Object payload = (full ? userRegistry.getLocalRegistryDto() : userRegistry.getLocalRegistryDeltaDto());
 				brokerTemplate.convertAndSend(getBroadcastDestination(), payload, accessor.getMessageHeaders());
+				userRegistry.localRegistryDtoSent(payload);
 			}
 			finally {
 				userRegistry.purgeExpiredRegistries();
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.handler;
+
+import org.junit.Test;
+
+import org.springframework.core.DirectMethodInvoker;
+import org.springframework.messaging.handler.invocation.InvocableHandlerMethod;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link HandlerMethod}.
+ */
+public class HandlerMethodTests {
+
+	@Test
+	public void methodInvokerSharedWithCopies() throws Exception {
+		HandlerMethod handlerMethod = new HandlerMethod(new Handler(), "handle", String.class);
+		DirectMethodInvoker invoker = handlerMethod.getMethodInvoker();
+		assertEquals("handle", invoker.getMethod().getName());
+
+		HandlerMethod resolved = handlerMethod.createWithResolvedBean();
+		assertSame(invoker, resolved.getMethodInvoker());
+		assertSame(invoker, new InvocableHandlerMethod(resolved).getMethodInvoker());
+	}
+
+	@Test
+	public void methodInvokerObtainedOnceForAllCopies() throws Exception {
+		HandlerMethod handlerMethod = new HandlerMethod(new Handler(), "handle", String.class);
+		InvocableHandlerMethod first = new InvocableHandlerMethod(handlerMethod);
+		InvocableHandlerMethod second = new InvocableHandlerMethod(handlerMethod);
+		assertSame(first.getMethodInvoker(), second.getMethodInvoker());
+		assertSame(handlerMethod.getMethodInvoker(), first.getMethodInvoker());
+	}
+
+
+	public static class Handler {
+
+		public String handle(String payload) {
+			return payload;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.assertEquals;
@@ -257,6 +258,71 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals("Expected no elements " + actual, 0, actual.size());
 	}
 
+	@Test
+	public void registerSubscriptionsWithDotSeparatedDestinations() {
+		this.registry.setPathMatcher(new AntPathMatcher("."));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/prices.{symbol}"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/prices.IBM"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/topic/prices.**"));
+		this.registry.registerSubscription(subscribeMessage("sess03", "subs01", "/topic/*.IBM.nasdaq"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/prices.IBM"));
+		assertEquals(2, actual.size());
+		assertEquals(Arrays.asList("subs01", "subs02"), sort(actual.get("sess01")));
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess02"));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/prices.IBM.nasdaq"));
+		assertEquals(2, actual.size());
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess02"));
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess03"));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/prices"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess02"));
+
+		this.registry.unregisterAllSubscriptions("sess02");
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs01"));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/prices.MSFT"));
+		assertEquals(0, actual.size());
+		actual = this.registry.findSubscriptions(createMessage("/topic/prices.IBM"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("subs02"), actual.get("sess01"));
+	}
+
+	@Test
+	public void registerSubscriptionsWithCaseInsensitivePathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/Topic/PRICE/*"));
+		this.registry.setPathMatcher(pathMatcher);
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/price/ibm"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/TOPIC/Price/IBM"));
+		assertEquals(1, actual.size());
+		assertEquals(Arrays.asList("subs01", "subs02"), sort(actual.get("sess01")));
+	}
+
+	@Test
+	public void registerSubscriptionsWithCustomPathMatcher() {
+		this.registry.setPathMatcher(new AntPathMatcher() {
+			@Override
+			public boolean match(String pattern, String path) {
+				return path.startsWith(pattern);
+			}
+			@Override
+			public String combine(String pattern1, String pattern2) {
+				return pattern1 + pattern2;
+			}
+		});
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/queue"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/price/ibm"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess01"));
+	}
+
 	@Test
 	public void registerSubscriptionWithSelector() {
 		String sessionId = "sess01";
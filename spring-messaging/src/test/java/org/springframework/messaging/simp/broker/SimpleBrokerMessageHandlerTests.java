@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,8 +18,13 @@ package org.springframework.messaging.simp.broker;
 
 import java.security.Principal;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +42,7 @@ import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.TestPrincipal;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.SerializationTestUtils;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -100,6 +106,153 @@ public class SimpleBrokerMessageHandlerTests {
 		assertTrue(messageCaptured("sess2", "sub3", "/bar"));
 	}
 
+	@Test
+	public void subscribePublishHeaders() {
+		this.messageHandler.start();
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub2", "/foo"));
+
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setDestination("/foo");
+		accessor.setSessionId("sess0");
+		accessor.setNativeHeader("bar", "baz");
+		Message<String> message = MessageBuilder.createMessage("message1", accessor.getMessageHeaders());
+		this.messageHandler.handleMessage(message);
+
+		verify(this.clientOutboundChannel, times(2)).send(this.messageCaptor.capture());
+		List<Message<?>> messages = this.messageCaptor.getAllValues();
+		assertSame(messages.get(0).getPayload(), messages.get(1).getPayload());
+		assertNotNull(messages.get(0).getHeaders().getId());
+		assertNotNull(messages.get(1).getHeaders().getId());
+		assertNotEquals(messages.get(0).getHeaders().getId(), messages.get(1).getHeaders().getId());
+		assertNotEquals(message.getHeaders().getId(), messages.get(0).getHeaders().getId());
+
+		for (Message<?> captured : messages) {
+			SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(captured);
+			assertEquals(SimpMessageType.MESSAGE, headers.getMessageType());
+			assertEquals("/foo", headers.getDestination());
+			assertEquals("baz", headers.getFirstNativeHeader("bar"));
+			Map<String, Object> copy = new HashMap<>(captured.getHeaders());
+			assertEquals(captured.getHeaders().getId(), copy.get(MessageHeaders.ID));
+			assertEquals(copy, captured.getHeaders());
+		}
+		assertTrue(messageCaptured("sess1", "sub1", "/foo"));
+		assertTrue(messageCaptured("sess2", "sub2", "/foo"));
+	}
+
+	@Test
+	public void subscribePublishWithShards() throws Exception {
+		List<Message<?>> messages = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch(30);
+		MessageChannel outboundChannel = (message, timeout) -> {
+			messages.add(message);
+			latch.countDown();
+			return true;
+		};
+		this.messageHandler = new SimpleBrokerMessageHandler(this.clientInboundChannel,
+				outboundChannel, this.brokerChannel, Collections.emptyList());
+		this.messageHandler.setShardCount(2);
+		this.messageHandler.start();
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub2", "/bar"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub1", "/foo"));
+
+		for (int i = 0; i < 10; i++) {
+			this.messageHandler.handleMessage(createMessage("/foo", "foo" + i));
+			this.messageHandler.handleMessage(createMessage("/bar", "bar" + i));
+		}
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		this.messageHandler.stop();
+
+		int[] counts = new int[3];
+		for (Message<?> message : messages) {
+			SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+			int index = ("sess2".equals(headers.getSessionId()) ? 2 : "sub2".equals(headers.getSubscriptionId()) ? 1 : 0);
+			String prefix = (index == 1 ? "bar" : "foo");
+			assertEquals(prefix + counts[index]++, message.getPayload());
+		}
+		assertArrayEquals(new int[] {10, 10, 10}, counts);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeShardCount() {
+		this.messageHandler.setShardCount(-1);
+	}
+
+	@Test
+	public void subscribePublishWithFullShardQueue() throws Exception {
+		List<Message<?>> messages = new CopyOnWriteArrayList<>();
+		List<Boolean> daemonThreads = new CopyOnWriteArrayList<>();
+		CountDownLatch sendLatch = new CountDownLatch(1);
+		CountDownLatch deliveredLatch = new CountDownLatch(5);
+		MessageChannel outboundChannel = (message, timeout) -> {
+			try {
+				sendLatch.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			messages.add(message);
+			daemonThreads.add(Thread.currentThread().isDaemon());
+			deliveredLatch.countDown();
+			return true;
+		};
+		this.messageHandler = new SimpleBrokerMessageHandler(this.clientInboundChannel,
+				outboundChannel, this.brokerChannel, Collections.emptyList());
+		this.messageHandler.setShardCount(1);
+		this.messageHandler.setShardQueueCapacity(1);
+		this.messageHandler.start();
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+
+		Thread publisher = new Thread(() -> {
+			for (int i = 0; i < 5; i++) {
+				this.messageHandler.handleMessage(createMessage("/foo", "foo" + i));
+			}
+		});
+		publisher.start();
+
+		// One message being sent, one queued, and the publisher waiting for space
+		publisher.join(200);
+		assertTrue(publisher.isAlive());
+
+		sendLatch.countDown();
+		publisher.join(5000);
+		assertFalse(publisher.isAlive());
+		assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+		this.messageHandler.stop();
+
+		assertEquals(5, messages.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals("foo" + i, messages.get(i).getPayload());
+			assertTrue(daemonThreads.get(i));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidShardQueueCapacity() {
+		this.messageHandler.setShardQueueCapacity(0);
+	}
+
+	@Test
+	public void subscribePublishSerializeHeaders() throws Exception {
+		this.messageHandler.start();
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+
+		verify(this.clientOutboundChannel).send(this.messageCaptor.capture());
+		MessageHeaders headers = this.messageCaptor.getValue().getHeaders();
+		MessageHeaders output = (MessageHeaders) SerializationTestUtils.serializeAndDeserialize(headers);
+
+		assertEquals(headers.getId(), output.getId());
+		assertEquals(headers.getTimestamp(), output.getTimestamp());
+		assertEquals("sess1", SimpMessageHeaderAccessor.getSessionId(output));
+		assertEquals("sub1", SimpMessageHeaderAccessor.getSubscriptionId(output));
+		assertEquals("/foo", SimpMessageHeaderAccessor.getDestination(output));
+	}
+
 	@Test
 	public void subscribeDisconnectPublish() {
 		String sess1 = "sess1";
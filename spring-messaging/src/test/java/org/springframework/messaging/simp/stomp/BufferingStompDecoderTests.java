@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.messaging.simp.stomp;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -204,6 +205,26 @@ public class BufferingStompDecoderTests {
 		stompDecoder.decode(toByteBuffer(payload));
 	}
 
+	@Test
+	public void messagesInManySmallChunks() {
+		BufferingStompDecoder stompDecoder = new BufferingStompDecoder(STOMP_DECODER, 128);
+		String frames = "SEND\na:alpha\n\nMessage body\0SEND\ncontent-length:5\n\nfirst\0" +
+				"SEND\nb:br\\cavo\n\nsecond\0";
+
+		List<Message<byte[]>> messages = new ArrayList<>();
+		for (int i = 0; i < frames.length(); i += 3) {
+			String chunk = frames.substring(i, Math.min(i + 3, frames.length()));
+			messages.addAll(stompDecoder.decode(toByteBuffer(chunk)));
+		}
+
+		assertEquals(3, messages.size());
+		assertEquals("Message body", new String(messages.get(0).getPayload()));
+		assertEquals("first", new String(messages.get(1).getPayload()));
+		assertEquals("second", new String(messages.get(2).getPayload()));
+		assertEquals("br:avo", StompHeaderAccessor.wrap(messages.get(2)).getFirstNativeHeader("b"));
+		assertEquals(0, stompDecoder.getBufferSize());
+	}
+
 	private ByteBuffer toByteBuffer(String chunk) {
 		return ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8));
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.messaging.simp.stomp;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.junit.Test;
@@ -160,6 +161,18 @@ public class StompDecoderTests {
 		assertEquals("alpha:bravo\r\n\\", headers.getFirstNativeHeader("a:\r\n\\b"));
 	}
 
+	@Test
+	public void decodeFrameWithNonAsciiHeaders() {
+		String frameString = "SEND\ndestination:/topic/\u00e9t\u00e9\n\u20ac:\uD83D\uDE00\\c\n\nbody\0";
+		Message<byte[]> frame = decode(ByteBuffer.wrap(frameString.getBytes(StandardCharsets.UTF_8)));
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+
+		assertEquals(2, headers.toNativeHeaderMap().size());
+		assertEquals("/topic/\u00e9t\u00e9", headers.getDestination());
+		assertEquals("\uD83D\uDE00:", headers.getFirstNativeHeader("\u20ac"));
+		assertEquals("body", new String(frame.getPayload()));
+	}
+
 	@Test(expected = StompConversionException.class)
 	public void decodeFrameBodyNotAllowed() {
 		decode("CONNECT\naccept-version:1.2\n\nThe body of the message\0");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,10 @@
 
 package org.springframework.messaging.simp.stomp;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
 import org.junit.Test;
 
 import org.springframework.messaging.Message;
@@ -88,4 +92,28 @@ public class StompEncoderTests {
 				new String(encoder.encode(frame)));
 	}
 
+	@Test
+	public void encodeFrameWithNonAsciiHeaders() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.addNativeHeader("a", "\u00e9t\u00e9 \u20ac \uD83D\uDE00:");
+		Message<byte[]> frame = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+
+		assertEquals("SEND\na:\u00e9t\u00e9 \u20ac \uD83D\uDE00\\c\ncontent-length:0\n\n\0",
+				new String(encoder.encode(frame), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void encodeFrameToOutputStream() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.addNativeHeader("a", "alpha");
+		Map<String, Object> messageHeaders = headers.getMessageHeaders();
+		byte[] payload = "Message body".getBytes();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		encoder.encode(messageHeaders, payload, output);
+
+		assertEquals("SEND\na:alpha\ncontent-length:12\n\nMessage body\0", new String(output.toByteArray()));
+		assertEquals(output.size(), encoder.estimateSize(messageHeaders, payload));
+	}
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link StompReactorNettyCodec}.
+ */
+public class StompReactorNettyCodecTests {
+
+	private final StompReactorNettyCodec codec = new StompReactorNettyCodec();
+
+
+	@Test
+	public void encode() {
+		Message<byte[]> message = createSendMessage("/topic/a\\b:c", "Message body");
+		ByteBuf buffer = Unpooled.buffer(1);
+		try {
+			this.codec.encode(message, buffer);
+			assertEquals(new String(new StompEncoder().encode(message), StandardCharsets.UTF_8),
+					buffer.toString(StandardCharsets.UTF_8));
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	@Test
+	public void encodeHeartbeat() {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.HEARTBEAT);
+		Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+		ByteBuf buffer = Unpooled.buffer(0);
+		try {
+			this.codec.encode(message, buffer);
+			assertEquals("\n", buffer.toString(StandardCharsets.UTF_8));
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	@Test
+	public void encodeAndDecodeMultipleFrames() {
+		ByteBuf buffer = Unpooled.buffer(16);
+		try {
+			this.codec.encode(createSendMessage("/topic/a", "first"), buffer);
+			this.codec.encode(createSendMessage("/topic/b", "second"), buffer);
+
+			List<Message<byte[]>> messages = new ArrayList<>(this.codec.decode(buffer));
+			assertEquals(2, messages.size());
+			assertEquals(0, buffer.readableBytes());
+
+			StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+			assertEquals(StompCommand.SEND, headers.getCommand());
+			assertEquals("/topic/a", headers.getDestination());
+			assertEquals("first", new String(messages.get(0).getPayload(), StandardCharsets.UTF_8));
+
+			headers = StompHeaderAccessor.wrap(messages.get(1));
+			assertEquals("/topic/b", headers.getDestination());
+			assertEquals(MimeTypeUtils.TEXT_PLAIN, headers.getContentType());
+			assertEquals("second", new String(messages.get(1).getPayload(), StandardCharsets.UTF_8));
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+
+	private static Message<byte[]> createSendMessage(String destination, String payload) {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.setDestination(destination);
+		headers.setContentType(MimeTypeUtils.TEXT_PLAIN);
+		return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders());
+	}
+
+}
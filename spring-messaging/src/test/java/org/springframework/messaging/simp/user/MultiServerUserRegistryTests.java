@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -168,6 +168,124 @@ public class MultiServerUserRegistryTests {
 		assertEquals(remoteSession, user.getSession("sess456"));
 	}
 
+	@Test
+	public void findSubscriptionsByDestination() throws Exception {
+		TestSimpUser remoteUser = new TestSimpUser("joe");
+		TestSimpSession remoteSession = new TestSimpSession("sess1");
+		remoteSession.addSubscriptions(new TestSimpSubscription("sub1", "/match"));
+		remoteUser.addSessions(remoteSession);
+		SimpUserRegistry remoteRegistry = mock(SimpUserRegistry.class);
+		when(remoteRegistry.getUsers()).thenReturn(Collections.singleton(remoteUser));
+		Object registryDto = new MultiServerUserRegistry(remoteRegistry).getLocalRegistryDto();
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+
+		SimpSubscription localSubscription = new TestSimpSubscription("sub1", "/match");
+		when(this.localRegistry.findSubscriptions("/match")).thenReturn(Collections.singleton(localSubscription));
+
+		Set<SimpSubscription> matches = this.registry.findSubscriptions("/match");
+		assertEquals(2, matches.size());
+		assertTrue(matches.contains(localSubscription));
+	}
+
+	@Test
+	public void deltaBroadcastFromRemoteRegistry() throws Exception {
+		TestSimpUser joe = new TestSimpUser("joe");
+		TestSimpSession joeSession = new TestSimpSession("sess1");
+		joeSession.addSubscriptions(new TestSimpSubscription("sub1", "/dest1"));
+		joe.addSessions(joeSession);
+		SimpUserRegistry remoteRegistry = mock(SimpUserRegistry.class);
+		when(remoteRegistry.getUsers()).thenReturn(Collections.singleton(joe));
+		MultiServerUserRegistry remoteServerRegistry = new MultiServerUserRegistry(remoteRegistry);
+		Object registryDto = remoteServerRegistry.getLocalRegistryDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+
+		// Joe subscribes and Jane connects
+		joe = new TestSimpUser("joe");
+		joeSession = new TestSimpSession("sess1");
+		joeSession.addSubscriptions(new TestSimpSubscription("sub1", "/dest1"), new TestSimpSubscription("sub2", "/dest2"));
+		joe.addSessions(joeSession);
+		TestSimpUser jane = new TestSimpUser("jane");
+		jane.addSessions(new TestSimpSession("sess2"));
+		when(remoteRegistry.getUsers()).thenReturn(new HashSet<>(Arrays.asList(joe, jane)));
+		registryDto = remoteServerRegistry.getLocalRegistryDeltaDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+
+		assertEquals(2, this.registry.getUserCount());
+		assertEquals(2, this.registry.getUser("joe").getSession("sess1").getSubscriptions().size());
+		assertNotNull(this.registry.getUser("jane").getSession("sess2"));
+
+		// Joe disconnects
+		when(remoteRegistry.getUsers()).thenReturn(Collections.singleton(jane));
+		registryDto = remoteServerRegistry.getLocalRegistryDeltaDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+
+		assertEquals(1, this.registry.getUserCount());
+		assertNull(this.registry.getUser("joe"));
+		assertNotNull(this.registry.getUser("jane"));
+	}
+
+	@Test
+	public void deltaBroadcastIgnoredAfterMissedBroadcast() throws Exception {
+		TestSimpUser joe = new TestSimpUser("joe");
+		joe.addSessions(new TestSimpSession("sess1"));
+		TestSimpUser jane = new TestSimpUser("jane");
+		jane.addSessions(new TestSimpSession("sess2"));
+		SimpUserRegistry remoteRegistry = mock(SimpUserRegistry.class);
+		when(remoteRegistry.getUsers()).thenReturn(Collections.singleton(joe));
+		MultiServerUserRegistry remoteServerRegistry = new MultiServerUserRegistry(remoteRegistry);
+		Object registryDto = remoteServerRegistry.getLocalRegistryDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+
+		// Broadcast with Jane connected is missed
+		when(remoteRegistry.getUsers()).thenReturn(new HashSet<>(Arrays.asList(joe, jane)));
+		remoteServerRegistry.localRegistryDtoSent(remoteServerRegistry.getLocalRegistryDeltaDto());
+
+		// Changes since the missed broadcast are not applied
+		when(remoteRegistry.getUsers()).thenReturn(Collections.singleton(jane));
+		registryDto = remoteServerRegistry.getLocalRegistryDeltaDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+		assertNotNull(this.registry.getUser("joe"));
+		assertNull(this.registry.getUser("jane"));
+
+		// Until the next full broadcast
+		registryDto = remoteServerRegistry.getLocalRegistryDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+		assertNull(this.registry.getUser("joe"));
+		assertNotNull(this.registry.getUser("jane"));
+	}
+
+	@Test
+	public void deltaBroadcastAfterUnsentBroadcast() throws Exception {
+		TestSimpUser joe = new TestSimpUser("joe");
+		joe.addSessions(new TestSimpSession("sess1"));
+		TestSimpUser jane = new TestSimpUser("jane");
+		jane.addSessions(new TestSimpSession("sess2"));
+		SimpUserRegistry remoteRegistry = mock(SimpUserRegistry.class);
+		when(remoteRegistry.getUsers()).thenReturn(Collections.singleton(joe));
+		MultiServerUserRegistry remoteServerRegistry = new MultiServerUserRegistry(remoteRegistry);
+		Object registryDto = remoteServerRegistry.getLocalRegistryDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+
+		// Broadcast with Jane connected fails to be sent
+		when(remoteRegistry.getUsers()).thenReturn(new HashSet<>(Arrays.asList(joe, jane)));
+		remoteServerRegistry.getLocalRegistryDeltaDto();
+
+		// Changes are relative to the last broadcast sent
+		when(remoteRegistry.getUsers()).thenReturn(Collections.singleton(jane));
+		registryDto = remoteServerRegistry.getLocalRegistryDeltaDto();
+		remoteServerRegistry.localRegistryDtoSent(registryDto);
+		this.registry.addRemoteRegistryDto(this.converter.toMessage(registryDto, null), this.converter, 20000);
+		assertNull(this.registry.getUser("joe"));
+		assertNotNull(this.registry.getUser("jane"));
+	}
+
 	@Test
 	public void purgeExpiredRegistries() throws Exception {
 		// Prepare broadcast message from remote server
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.mockito.MockitoAnnotations;
 
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
@@ -131,6 +132,79 @@ public class UserRegistryMessageHandlerTests {
 		assertNotNull(remoteRegistry.getUser("jane"));
 	}
 
+	@Test
+	public void broadcastRegistryChanges() throws Exception {
+
+		TestSimpUser simpUser1 = new TestSimpUser("joe");
+		TestSimpUser simpUser2 = new TestSimpUser("jane");
+
+		simpUser1.addSessions(new TestSimpSession("123"));
+		simpUser2.addSessions(new TestSimpSession("456"));
+
+		this.handler.setFullBroadcastInterval(6);
+		when(this.localRegistry.getUsers()).thenReturn(Collections.singleton(simpUser1));
+		Runnable task = getUserRegistryTask();
+		task.run();
+		when(this.localRegistry.getUsers()).thenReturn(Collections.singleton(simpUser2));
+		task.run();
+
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+		verify(this.brokerChannel, times(2)).send(captor.capture());
+
+		MultiServerUserRegistry remoteRegistry = new MultiServerUserRegistry(mock(SimpUserRegistry.class));
+		remoteRegistry.addRemoteRegistryDto(captor.getAllValues().get(0), this.converter, 20000);
+		assertEquals(1, remoteRegistry.getUserCount());
+		assertNotNull(remoteRegistry.getUser("joe"));
+
+		Message<?> message = captor.getAllValues().get(1);
+		assertFalse(new String((byte[]) message.getPayload()).contains("\"123\""));
+		remoteRegistry.addRemoteRegistryDto(message, this.converter, 20000);
+		assertEquals(1, remoteRegistry.getUserCount());
+		assertNotNull(remoteRegistry.getUser("jane"));
+	}
+
+	@Test
+	public void broadcastRegistryChangesAfterFailedBroadcast() throws Exception {
+
+		TestSimpUser simpUser1 = new TestSimpUser("joe");
+		TestSimpUser simpUser2 = new TestSimpUser("jane");
+
+		simpUser1.addSessions(new TestSimpSession("123"));
+		simpUser2.addSessions(new TestSimpSession("456"));
+
+		this.handler.setFullBroadcastInterval(6);
+		when(this.localRegistry.getUsers()).thenReturn(Collections.singleton(simpUser1));
+		Runnable task = getUserRegistryTask();
+		task.run();
+
+		when(this.brokerChannel.send(any())).thenReturn(false);
+		when(this.localRegistry.getUsers()).thenReturn(new HashSet<>(Arrays.asList(simpUser1, simpUser2)));
+		try {
+			task.run();
+			fail("Expected MessageDeliveryException");
+		}
+		catch (MessageDeliveryException ex) {
+			// expected
+		}
+
+		when(this.brokerChannel.send(any())).thenReturn(true);
+		when(this.localRegistry.getUsers()).thenReturn(Collections.singleton(simpUser2));
+		task.run();
+
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+		verify(this.brokerChannel, times(3)).send(captor.capture());
+
+		MultiServerUserRegistry remoteRegistry = new MultiServerUserRegistry(mock(SimpUserRegistry.class));
+		remoteRegistry.addRemoteRegistryDto(captor.getAllValues().get(0), this.converter, 20000);
+		assertNotNull(remoteRegistry.getUser("joe"));
+
+		// Changes are relative to the last broadcast that was sent
+		remoteRegistry.addRemoteRegistryDto(captor.getAllValues().get(2), this.converter, 20000);
+		assertEquals(1, remoteRegistry.getUserCount());
+		assertNull(remoteRegistry.getUser("joe"));
+		assertNotNull(remoteRegistry.getUser("jane"));
+	}
+
 	@Test
 	public void handleMessage() throws Exception {
 
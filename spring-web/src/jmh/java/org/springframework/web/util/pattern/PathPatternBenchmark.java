@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Benchmarks for {@link PathPattern#matches}, using the same patterns and paths
+ * as {@code AntPathMatcherBenchmark} in spring-core for comparison.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathPatternBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public final String[] patterns = new String[] {
+				"/", "/login", "/logout", "/static/**", "/api/v1/users", "/api/v1/users/{id}",
+				"/api/v1/users/{id}/orders", "/api/v1/users/{id}/orders/{orderId}", "/api/v1/products/*.json",
+				"/api/v1/products/{category}/**", "/files/{name:[a-z]+}.{ext}"};
+
+		public final String[] paths = new String[] {
+				"/", "/login", "/static/css/app.css", "/api/v1/users/42", "/api/v1/users/42/orders/7",
+				"/api/v1/products/list.json", "/api/v1/products/books/1234/reviews", "/admin/system/global/settings",
+				"/files/report.pdf", "/unknown/path/to/resource"};
+
+		public List<PathPattern> parsedPatterns;
+
+		public List<PathContainer> parsedPaths;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			PathPatternParser parser = new PathPatternParser();
+			this.parsedPatterns = new ArrayList<>(this.patterns.length);
+			for (String pattern : this.patterns) {
+				this.parsedPatterns.add(parser.parse(pattern));
+			}
+			this.parsedPaths = new ArrayList<>(this.paths.length);
+			for (String path : this.paths) {
+				this.parsedPaths.add(PathContainer.parsePath(path));
+			}
+		}
+	}
+
+
+	@Benchmark
+	public void matchParsedPaths(BenchmarkState state, Blackhole blackhole) {
+		for (PathContainer path : state.parsedPaths) {
+			for (PathPattern pattern : state.parsedPatterns) {
+				blackhole.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void parseAndMatchPaths(BenchmarkState state, Blackhole blackhole) {
+		for (String path : state.paths) {
+			PathContainer pathContainer = PathContainer.parsePath(path);
+			for (PathPattern pattern : state.parsedPatterns) {
+				blackhole.consume(pattern.matches(pathContainer));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAndExtract(BenchmarkState state, Blackhole blackhole) {
+		blackhole.consume(state.parsedPatterns.get(7).matchAndExtract(state.parsedPaths.get(4)));
+	}
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.jetty.client.ConnectionPool;
+import org.eclipse.jetty.client.DuplexConnectionPool;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
+import org.eclipse.jetty.client.api.Destination;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.reactive.client.ContentChunk;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Jetty ReactiveStreams HttpClient implementation of {@link ClientHttpConnector}.
+ *
+ * <p>Connections are pooled per destination, i.e. per scheme, host and port,
+ * as configured on the Jetty {@link HttpClient}, see
+ * {@link #JettyClientHttpConnector(int, int)} for explicit pool sizing. Use
+ * {@link #http2(SslContextFactory)} for an HTTP/2 client that multiplexes
+ * concurrent requests over the pooled connections.
+ *
+ * <p>Request bodies are passed to Jetty as views of the written data buffers,
+ * which are released once Jetty has written them. Response content is copied
+ * once into buffers from the configured {@link DataBufferFactory}, as Jetty
+ * only delivers further content once the previous chunk has been given back,
+ * which must not depend on when decoders release buffers.
+ *
+ * @since 5.0.16
+ * @see <a href="https://github.com/jetty-project/jetty-reactive-httpclient">Jetty ReactiveStreams HttpClient</a>
+ * @see JettyConnectionPoolListener
+ */
+public class JettyClientHttpConnector implements ClientHttpConnector {
+
+	private static final Log logger = LogFactory.getLog(JettyClientHttpConnector.class);
+
+
+	private final HttpClient httpClient;
+
+	private DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	@Nullable
+	private volatile JettyConnectionPoolListener connectionPoolListener;
+
+
+	/**
+	 * Create a Jetty {@link ClientHttpConnector} with a default
+	 * HTTP/1.1 {@link HttpClient}.
+	 */
+	public JettyClientHttpConnector() {
+		this(new HttpClient());
+	}
+
+	/**
+	 * Create a Jetty {@link ClientHttpConnector} with a default HTTP/1.1
+	 * {@link HttpClient} and the given connection pool sizing.
+	 * @param maxConnectionsPerDestination the maximum number of connections
+	 * to open to each destination
+	 * @param maxRequestsQueuedPerDestination the maximum number of requests
+	 * that may wait for a connection to each destination, beyond which
+	 * requests are rejected
+	 */
+	public JettyClientHttpConnector(int maxConnectionsPerDestination, int maxRequestsQueuedPerDestination) {
+		this(createHttpClient(maxConnectionsPerDestination, maxRequestsQueuedPerDestination));
+	}
+
+	/**
+	 * Create a Jetty {@link ClientHttpConnector} with the given {@link HttpClient},
+	 * which is started on first use if necessary.
+	 * @param httpClient the Jetty HttpClient to use
+	 */
+	public JettyClientHttpConnector(HttpClient httpClient) {
+		Assert.notNull(httpClient, "HttpClient is required");
+		this.httpClient = httpClient;
+	}
+
+
+	/**
+	 * Create a Jetty {@link ClientHttpConnector} with an HTTP/2
+	 * {@link HttpClient}, which multiplexes concurrent requests to the same
+	 * destination over a shared connection, up to the number of concurrent
+	 * streams the server allows.
+	 * @param sslContextFactory the SSL configuration for {@code https}
+	 * requests, or {@code null} for clear-text HTTP/2 only
+	 */
+	public static JettyClientHttpConnector http2(@Nullable SslContextFactory sslContextFactory) {
+		return new JettyClientHttpConnector(
+				new HttpClient(new HttpClientTransportOverHTTP2(new HTTP2Client()), sslContextFactory));
+	}
+
+	private static HttpClient createHttpClient(int maxConnectionsPerDestination, int maxRequestsQueuedPerDestination) {
+		Assert.isTrue(maxConnectionsPerDestination > 0, "'maxConnectionsPerDestination' must be positive");
+		Assert.isTrue(maxRequestsQueuedPerDestination > 0, "'maxRequestsQueuedPerDestination' must be positive");
+		HttpClient httpClient = new HttpClient();
+		httpClient.setMaxConnectionsPerDestination(maxConnectionsPerDestination);
+		httpClient.setMaxRequestsQueuedPerDestination(maxRequestsQueuedPerDestination);
+		return httpClient;
+	}
+
+
+	/**
+	 * Set the factory to allocate response body buffers from.
+	 * <p>By default this is a {@link DefaultDataBufferFactory}. A pooled
+	 * factory such as
+	 * {@link org.springframework.core.io.buffer.PooledDirectDataBufferFactory}
+	 * may be set instead, provided that all response body buffers are
+	 * released once consumed.
+	 */
+	public void setBufferFactory(DataBufferFactory bufferFactory) {
+		Assert.notNull(bufferFactory, "DataBufferFactory is required");
+		this.bufferFactory = bufferFactory;
+	}
+
+	/**
+	 * Return the configured factory for response body buffers.
+	 */
+	public DataBufferFactory getBufferFactory() {
+		return this.bufferFactory;
+	}
+
+	/**
+	 * Set a listener to be notified with the metrics of the connection pool of
+	 * the destination each time a request acquires a connection.
+	 * <p>By default this is not set.
+	 */
+	public void setConnectionPoolListener(@Nullable JettyConnectionPoolListener connectionPoolListener) {
+		this.connectionPoolListener = connectionPoolListener;
+	}
+
+	/**
+	 * Return the configured connection pool listener, if any.
+	 */
+	@Nullable
+	public JettyConnectionPoolListener getConnectionPoolListener() {
+		return this.connectionPoolListener;
+	}
+
+
+	@Override
+	public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+			Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+
+		if (!uri.isAbsolute()) {
+			return Mono.error(new IllegalArgumentException("URI is not absolute: " + uri));
+		}
+
+		if (!this.httpClient.isStarted()) {
+			try {
+				this.httpClient.start();
+			}
+			catch (Exception ex) {
+				return Mono.error(ex);
+			}
+		}
+
+		Request request = this.httpClient.newRequest(uri).method(method.toString());
+		JettyConnectionPoolListener listener = this.connectionPoolListener;
+		if (listener != null) {
+			registerConnectionPoolListener(request, listener);
+		}
+
+		JettyClientHttpRequest clientHttpRequest = new JettyClientHttpRequest(request, this.bufferFactory);
+		return requestCallback.apply(clientHttpRequest).then(Mono.defer(() -> Mono.from(
+				clientHttpRequest.getReactiveRequest().response((response, chunks) -> {
+					Flux<DataBuffer> content = Flux.from(chunks).map(this::toDataBuffer);
+					return Mono.just(new JettyClientHttpResponse(response, content));
+				}))));
+	}
+
+	private DataBuffer toDataBuffer(ContentChunk chunk) {
+		// Jetty's callback both gives back the chunk and demands more content,
+		// so we copy rather than hold on to the chunk until the buffer is released
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(chunk.buffer.remaining());
+		buffer.write(chunk.buffer);
+		chunk.callback.succeeded();
+		return buffer;
+	}
+
+
+	/**
+	 * Time the wait for a connection, from when the request is queued on its
+	 * destination until it begins to be sent, and then notify the listener.
+	 */
+	private void registerConnectionPoolListener(Request request, JettyConnectionPoolListener listener) {
+		AtomicLong queuedTime = new AtomicLong();
+		request.onRequestQueued(queuedRequest -> queuedTime.set(System.nanoTime()));
+		request.onRequestBegin(begunRequest -> {
+			Duration acquireTime = Duration.ofNanos(System.nanoTime() - queuedTime.get());
+			try {
+				String scheme = begunRequest.getScheme();
+				Destination destination = this.httpClient.getDestination(
+						scheme, begunRequest.getHost(), getPort(scheme, begunRequest.getPort()));
+				listener.connectionAcquired(createMetrics(destination, acquireTime));
+			}
+			catch (Throwable ex) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Failed to notify connection pool listener", ex);
+				}
+			}
+		});
+	}
+
+	private static int getPort(String scheme, int port) {
+		if (port > 0) {
+			return port;
+		}
+		return ("https".equalsIgnoreCase(scheme) || "wss".equalsIgnoreCase(scheme) ? 443 : 80);
+	}
+
+	private static JettyConnectionPoolListener.PoolMetrics createMetrics(Destination destination, Duration acquireTime) {
+		int active = -1;
+		int idle = -1;
+		int pending = -1;
+		if (destination instanceof HttpDestination) {
+			HttpDestination httpDestination = (HttpDestination) destination;
+			pending = httpDestination.getQueuedRequestCount();
+			ConnectionPool pool = httpDestination.getConnectionPool();
+			if (pool instanceof DuplexConnectionPool) {
+				active = ((DuplexConnectionPool) pool).getActiveConnectionCount();
+				idle = ((DuplexConnectionPool) pool).getIdleConnectionCount();
+			}
+			else if (pool instanceof MultiplexConnectionPool) {
+				active = ((MultiplexConnectionPool) pool).getActiveConnectionCount();
+				idle = ((MultiplexConnectionPool) pool).getIdleConnectionCount();
+			}
+		}
+		String name = destination.getScheme() + "://" + destination.getHost() + ":" + destination.getPort();
+		return new JettyConnectionPoolListener.PoolMetrics(name, active, idle, pending, acquireTime);
+	}
+
+}
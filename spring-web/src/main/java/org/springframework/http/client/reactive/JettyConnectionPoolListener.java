@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.time.Duration;
+
+/**
+ * Listener for the connection pools of a {@link JettyClientHttpConnector},
+ * e.g. to record their metrics with a monitoring system.
+ *
+ * @since 5.0.16
+ * @see JettyClientHttpConnector#setConnectionPoolListener
+ */
+@FunctionalInterface
+public interface JettyConnectionPoolListener {
+
+	/**
+	 * Invoked on a Jetty thread when a request has acquired a connection from
+	 * the pool of its destination and is about to be sent. Implementations
+	 * should return quickly and must not block.
+	 * @param metrics the metrics of the connection pool, including the time
+	 * the request waited for the connection
+	 */
+	void connectionAcquired(PoolMetrics metrics);
+
+
+	/**
+	 * A snapshot of the metrics of the connection pool of one destination.
+	 */
+	final class PoolMetrics {
+
+		private final String destination;
+
+		private final int activeConnections;
+
+		private final int idleConnections;
+
+		private final int pendingAcquisitions;
+
+		private final Duration acquireTime;
+
+		PoolMetrics(String destination, int activeConnections, int idleConnections,
+				int pendingAcquisitions, Duration acquireTime) {
+
+			this.destination = destination;
+			this.activeConnections = activeConnections;
+			this.idleConnections = idleConnections;
+			this.pendingAcquisitions = pendingAcquisitions;
+			this.acquireTime = acquireTime;
+		}
+
+		/**
+		 * Return the destination of the pool, as {@code scheme://host:port}.
+		 */
+		public String getDestination() {
+			return this.destination;
+		}
+
+		/**
+		 * Return the number of connections in use, or -1 if not available
+		 * for the type of connection pool.
+		 */
+		public int getActiveConnections() {
+			return this.activeConnections;
+		}
+
+		/**
+		 * Return the number of idle connections, or -1 if not available
+		 * for the type of connection pool.
+		 */
+		public int getIdleConnections() {
+			return this.idleConnections;
+		}
+
+		/**
+		 * Return the number of requests waiting for a connection, or -1 if
+		 * not available for the type of destination.
+		 */
+		public int getPendingAcquisitions() {
+			return this.pendingAcquisitions;
+		}
+
+		/**
+		 * Return how long the request waited for a connection.
+		 */
+		public Duration getAcquireTime() {
+			return this.acquireTime;
+		}
+
+		@Override
+		public String toString() {
+			return "PoolMetrics[destination=" + this.destination + ", active=" + this.activeConnections +
+					", idle=" + this.idleConnections + ", pending=" + this.pendingAcquisitions +
+					", acquireTime=" + this.acquireTime.toMillis() + "ms]";
+		}
+	}
+
+}
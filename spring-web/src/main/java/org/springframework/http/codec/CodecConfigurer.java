@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -109,6 +109,23 @@ public interface CodecConfigurer {
 		 * @see org.springframework.http.codec.json.Jackson2JsonEncoder
 		 */
 		void jackson2JsonEncoder(Encoder<?> encoder);
+
+		/**
+		 * Override the default Protobuf {@code Decoder}.
+		 * @param decoder the decoder instance to use
+		 * @since 5.0.16
+		 * @see org.springframework.http.codec.protobuf.ProtobufDecoder
+		 */
+		void protobufDecoder(Decoder<?> decoder);
+
+		/**
+		 * Override the default Protobuf {@code Encoder}.
+		 * @param encoder the encoder instance to use
+		 * @since 5.0.16
+		 * @see org.springframework.http.codec.protobuf.ProtobufEncoder
+		 * @see org.springframework.http.codec.protobuf.ProtobufHttpMessageWriter
+		 */
+		void protobufEncoder(Encoder<?> encoder);
 	}
 
 
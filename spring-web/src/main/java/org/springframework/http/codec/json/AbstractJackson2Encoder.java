@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -43,13 +43,17 @@ import org.springframework.core.codec.CodecException;
 import org.springframework.core.codec.EncodingException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.HttpMessageEncoder;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.MimeType;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Base class providing support methods for Jackson 2.9 encoding. For non-streaming use
@@ -75,6 +79,8 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 	private final List<MediaType> streamingMediaTypes = new ArrayList<>(1);
 
+	private final Map<WriterCacheKey, ObjectWriter> writerCache = new ConcurrentReferenceHashMap<>(64);
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -115,48 +121,66 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		JsonEncoding encoding = getJsonEncoding(mimeType);
 
 		if (inputStream instanceof Mono) {
+			ObjectWriter writer = getObjectWriter(elementType, mimeType, hints);
 			return Flux.from(inputStream).map(value ->
-					encodeValue(value, mimeType, bufferFactory, elementType, hints, encoding));
+					encodeValue(value, bufferFactory, writer, encoding, null));
 		}
 
 		for (MediaType streamingMediaType : this.streamingMediaTypes) {
 			if (streamingMediaType.isCompatibleWith(mimeType)) {
 				byte[] separator = STREAM_SEPARATORS.getOrDefault(streamingMediaType, NEWLINE_SEPARATOR);
-				return Flux.from(inputStream).map(value -> {
-					DataBuffer buffer = encodeValue(value, mimeType, bufferFactory, elementType, hints, encoding);
-					if (separator != null) {
-						buffer.write(separator);
-					}
-					return buffer;
-				});
+				ObjectWriter writer = getObjectWriter(elementType, mimeType, hints);
+				return Flux.from(inputStream).map(value ->
+						encodeValue(value, bufferFactory, writer, encoding, separator));
 			}
 		}
 
 		ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+		ObjectWriter writer = getObjectWriter(listType, mimeType, hints);
 		return Flux.from(inputStream).collectList().map(list ->
-				encodeValue(list, mimeType, bufferFactory, listType, hints, encoding)).flux();
+				encodeValue(list, bufferFactory, writer, encoding, null)).flux();
 	}
 
-	private DataBuffer encodeValue(Object value, @Nullable MimeType mimeType, DataBufferFactory bufferFactory,
-			ResolvableType elementType, @Nullable Map<String, Object> hints, JsonEncoding encoding) {
+	/**
+	 * Return the {@link ObjectWriter} for the given element type, MIME type
+	 * and hints, created and {@link #customizeWriter customized} once and then
+	 * cached, since writers are immutable and thread-safe.
+	 */
+	private ObjectWriter getObjectWriter(ResolvableType elementType, @Nullable MimeType mimeType,
+			@Nullable Map<String, Object> hints) {
 
 		JavaType javaType = getJavaType(elementType.getType(), null);
-		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
-		ObjectWriter writer = (jsonView != null ?
-				getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer());
-
-		if (javaType.isContainerType()) {
-			writer = writer.forType(javaType);
+		WriterCacheKey key = new WriterCacheKey(javaType, mimeType, hints);
+		ObjectWriter writer = this.writerCache.get(key);
+		if (writer == null) {
+			Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
+			writer = (jsonView != null ?
+					getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer());
+			if (javaType.isContainerType()) {
+				writer = writer.forType(javaType);
+			}
+			writer = customizeWriter(writer, mimeType, elementType, hints);
+			// Copy the hints, which may be changed by the caller after encoding
+			Map<String, Object> hintsToUse = (hints != null ? new HashMap<>(hints) : null);
+			this.writerCache.put(new WriterCacheKey(javaType, mimeType, hintsToUse), writer);
 		}
+		return writer;
+	}
 
-		writer = customizeWriter(writer, mimeType, elementType, hints);
+	private DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ObjectWriter writer,
+			JsonEncoding encoding, @Nullable byte[] separator) {
 
 		DataBuffer buffer = bufferFactory.allocateBuffer();
 		OutputStream outputStream = buffer.asOutputStream();
+		boolean release = true;
 
 		try {
-			JsonGenerator generator = getObjectMapper().getFactory().createGenerator(outputStream, encoding);
+			JsonGenerator generator = writer.getFactory().createGenerator(outputStream, encoding);
 			writer.writeValue(generator, value);
+			if (separator != null) {
+				buffer.write(separator);
+			}
+			release = false;
 		}
 		catch (InvalidDefinitionException ex) {
 			throw new CodecException("Type definition error: " + ex.getType(), ex);
@@ -167,10 +191,27 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		catch (IOException ex) {
 			throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
 		}
+		finally {
+			if (release) {
+				DataBufferUtils.release(buffer);
+			}
+		}
 
 		return buffer;
 	}
-	
+
+	/**
+	 * Customize the {@link ObjectWriter} to use for writing values.
+	 * <p>As of 5.0.16, the resulting writer is cached per element type, MIME
+	 * type and hints, so this method is invoked once for each combination of
+	 * those rather than for every value, and must return the same writer for
+	 * the same arguments.
+	 * @param writer the writer instance to customize
+	 * @param mimeType the MIME type
+	 * @param elementType the type of element values to write
+	 * @param hints a map with serialization hints
+	 * @return the customized writer to use
+	 */
 	protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable MimeType mimeType,
 			ResolvableType elementType, @Nullable Map<String, Object> hints) {
 
@@ -221,5 +262,43 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	protected <A extends Annotation> A getAnnotation(MethodParameter parameter, Class<A> annotType) {
 		return parameter.getMethodAnnotation(annotType);
 	}
-	
+
+
+	private static final class WriterCacheKey {
+
+		private final JavaType javaType;
+
+		@Nullable
+		private final MimeType mimeType;
+
+		@Nullable
+		private final Map<String, Object> hints;
+
+		WriterCacheKey(JavaType javaType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+			this.javaType = javaType;
+			this.mimeType = mimeType;
+			this.hints = (!CollectionUtils.isEmpty(hints) ? hints : null);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof WriterCacheKey)) {
+				return false;
+			}
+			WriterCacheKey otherKey = (WriterCacheKey) other;
+			return (this.javaType.equals(otherKey.javaType) &&
+					ObjectUtils.nullSafeEquals(this.mimeType, otherKey.mimeType) &&
+					ObjectUtils.nullSafeEquals(this.hints, otherKey.hints));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.javaType.hashCode() * 31 + ObjectUtils.nullSafeHashCode(this.mimeType)) * 31 +
+					ObjectUtils.nullSafeHashCode(this.hints);
+		}
+	}
+
 }
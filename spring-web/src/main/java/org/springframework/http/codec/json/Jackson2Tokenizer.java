@@ -17,6 +17,7 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -32,12 +33,18 @@ import reactor.core.publisher.Flux;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
 
 /**
  * {@link Function} to transform a JSON stream of arbitrary size, byte array
  * chunks into a {@code Flux<TokenBuffer>} where each token buffer is a
  * well-formed JSON object.
  *
+ * <p>Input from heap buffers is fed to the parser in place, and input from
+ * other buffers through a copy buffer reused across chunks, since the parser
+ * only refers to its input until it needs more. An optional limit on the
+ * number of bytes per JSON object guards against unbounded buffering.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @since 5.0
@@ -48,6 +55,8 @@ class Jackson2Tokenizer {
 
 	private final boolean tokenizeArrayElements;
 
+	private final int maxInMemorySize;
+
 	private TokenBuffer tokenBuffer;
 
 	private int objectDepth;
@@ -58,30 +67,51 @@ class Jackson2Tokenizer {
 	// See https://github.com/FasterXML/jackson-core/issues/478
 	private final ByteArrayFeeder inputFeeder;
 
+	private byte[] inputBuffer = new byte[0];
+
+	private long byteCount;
+
+	private long elementStart;
+
 
-	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements) {
+	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements, int maxInMemorySize) {
 		this.parser = parser;
 		this.tokenizeArrayElements = tokenizeArrayElements;
+		this.maxInMemorySize = maxInMemorySize;
 		this.tokenBuffer = new TokenBuffer(parser);
 		this.inputFeeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
 	}
 
 
 	private Flux<TokenBuffer> tokenize(DataBuffer dataBuffer) {
-		byte[] bytes = new byte[dataBuffer.readableByteCount()];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			int length = dataBuffer.readableByteCount();
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+			if (byteBuffer.hasArray()) {
+				this.inputFeeder.feedInput(byteBuffer.array(),
+						byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.arrayOffset() + byteBuffer.limit());
+			}
+			else {
+				if (this.inputBuffer.length < length) {
+					this.inputBuffer = new byte[length];
+				}
+				dataBuffer.read(this.inputBuffer, 0, length);
+				this.inputFeeder.feedInput(this.inputBuffer, 0, length);
+			}
+			this.byteCount += length;
 			return parseTokenBufferFlux();
 		}
 		catch (JsonProcessingException ex) {
 			return Flux.error(new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex));
 		}
-		catch (IOException ex) {
+		catch (IOException | DecodingException ex) {
 			return Flux.error(ex);
 		}
+		finally {
+			// The parser has consumed all input by now, and only holds on to
+			// an incomplete token in its own buffers
+			DataBufferUtils.release(dataBuffer);
+		}
 	}
 
 	private Flux<TokenBuffer> endOfInput() {
@@ -92,13 +122,13 @@ class Jackson2Tokenizer {
 		catch (JsonProcessingException ex) {
 			return Flux.error(new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex));
 		}
-		catch (IOException ex) {
+		catch (IOException | DecodingException ex) {
 			return Flux.error(ex);
 		}
 	}
 
 	private Flux<TokenBuffer> parseTokenBufferFlux() throws IOException {
-		List<TokenBuffer> result = new ArrayList<>();
+		List<TokenBuffer> result = null;
 
 		while (true) {
 			JsonToken token = this.parser.nextToken();
@@ -108,14 +138,22 @@ class Jackson2Tokenizer {
 				break;
 			}
 			updateDepth(token);
-			if (!this.tokenizeArrayElements) {
-				processTokenNormal(token, result);
-			}
-			else {
-				processTokenArray(token, result);
+			TokenBuffer completed = (!this.tokenizeArrayElements ?
+					processTokenNormal(token) : processTokenArray(token));
+			if (completed != null) {
+				if (result == null) {
+					result = new ArrayList<>();
+				}
+				result.add(completed);
 			}
 		}
-		return Flux.fromIterable(result);
+		if (this.maxInMemorySize >= 0 && this.byteCount - this.elementStart > this.maxInMemorySize) {
+			raiseLimitException();
+		}
+		if (result == null) {
+			return Flux.empty();
+		}
+		return (result.size() == 1 ? Flux.just(result.get(0)) : Flux.fromIterable(result));
 	}
 
 	private void updateDepth(JsonToken token) {
@@ -135,26 +173,45 @@ class Jackson2Tokenizer {
 		}
 	}
 
-	private void processTokenNormal(JsonToken token, List<TokenBuffer> result) throws IOException {
+	@Nullable
+	private TokenBuffer processTokenNormal(JsonToken token) throws IOException {
 		this.tokenBuffer.copyCurrentEvent(this.parser);
 
 		if ((token.isStructEnd() || token.isScalarValue()) && this.objectDepth == 0 && this.arrayDepth == 0) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = new TokenBuffer(this.parser);
+			return completeTokenBuffer();
 		}
-
+		return null;
 	}
 
-	private void processTokenArray(JsonToken token, List<TokenBuffer> result) throws IOException {
+	@Nullable
+	private TokenBuffer processTokenArray(JsonToken token) throws IOException {
 		if (!isTopLevelArrayToken(token)) {
 			this.tokenBuffer.copyCurrentEvent(this.parser);
 		}
 
 		if (this.objectDepth == 0 && (this.arrayDepth == 0 || this.arrayDepth == 1) &&
 				(token == JsonToken.END_OBJECT || token.isScalarValue())) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = new TokenBuffer(this.parser);
+			return completeTokenBuffer();
 		}
+		return null;
+	}
+
+	private TokenBuffer completeTokenBuffer() {
+		if (this.maxInMemorySize >= 0) {
+			long elementEnd = this.parser.getCurrentLocation().getByteOffset();
+			if (elementEnd - this.elementStart > this.maxInMemorySize) {
+				raiseLimitException();
+			}
+			this.elementStart = elementEnd;
+		}
+		TokenBuffer result = this.tokenBuffer;
+		this.tokenBuffer = new TokenBuffer(this.parser);
+		return result;
+	}
+
+	private void raiseLimitException() {
+		throw new DecodingException(
+				"Exceeded limit on max bytes per JSON object: " + this.maxInMemorySize);
 	}
 
 	private boolean isTopLevelArrayToken(JsonToken token) {
@@ -174,9 +231,26 @@ class Jackson2Tokenizer {
 	public static Flux<TokenBuffer> tokenize(
 			Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory, boolean tokenizeArrayElements) {
 
+		return tokenize(dataBuffers, jsonFactory, tokenizeArrayElements, -1);
+	}
+
+	/**
+	 * Tokenize the given {@code Flux<DataBuffer>} into {@code Flux<TokenBuffer>}.
+	 * @param dataBuffers the source data buffers
+	 * @param jsonFactory the factory to use
+	 * @param tokenizeArrayElements if {@code true} and the "top level" JSON object is
+	 * an array, each element is returned individually immediately after it is received
+	 * @param maxInMemorySize the maximum number of bytes to buffer per JSON object,
+	 * or -1 for unlimited
+	 * @return the resulting token buffers
+	 * @since 5.0.16
+	 */
+	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
+			boolean tokenizeArrayElements, int maxInMemorySize) {
+
 		try {
 			JsonParser parser = jsonFactory.createNonBlockingByteArrayParser();
-			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements);
+			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements, maxInMemorySize);
 			return dataBuffers.flatMap(tokenizer::tokenize, Flux::error, tokenizer::endOfInput);
 		}
 		catch (IOException ex) {
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default {@code HttpMessageReader} for parsing {@code "multipart/form-data"}
+ * requests to a stream of {@link Part}s, without dependencies on third-party
+ * multipart libraries.
+ *
+ * <p>The request body is parsed incrementally as it arrives. The content of
+ * each part is held in memory up to {@link #setMaxInMemorySize maxInMemorySize}
+ * bytes, beyond which it is written to a temporary file in the
+ * {@link #setFileStorageDirectory file storage directory}, so that large
+ * uploads do not have to fit into memory. The request body is only read as
+ * fast as part content is stored and parts are consumed.
+ *
+ * <p>The content of a part stored in a temporary file can be consumed once,
+ * either via {@link Part#content()} or {@link FilePart#transferTo}, after
+ * which the temporary file is removed. The files of parts that are not
+ * consumed are removed via {@link Part#delete()}, which is done once the
+ * request has been handled for parts obtained through
+ * {@link org.springframework.web.server.ServerWebExchange#getMultipartData()},
+ * and which is otherwise up to the consumer of the parts.
+ *
+ * <p>This reader can be provided to {@link MultipartHttpMessageReader} in order
+ * to aggregate all parts into a Map.
+ *
+ * @since 5.0.16
+ * @see MultipartHttpMessageReader
+ */
+public class DefaultPartHttpMessageReader implements HttpMessageReader<Part> {
+
+	private static final String BOUNDARY_PARAMETER = "boundary";
+
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private int maxHeadersSize = 8 * 1024;
+
+	private long maxDiskUsagePerPart = -1;
+
+	private int maxParts = -1;
+
+	private Charset headersCharset = StandardCharsets.UTF_8;
+
+	private Scheduler blockingOperationScheduler = Schedulers.elastic();
+
+	@Nullable
+	private Path fileStorageDirectory;
+
+
+	/**
+	 * Configure the maximum number of bytes of a part that is held in memory,
+	 * beyond which its content is stored in a temporary file. Form fields,
+	 * i.e. parts without a filename and with plain text content, are always
+	 * held in memory and limited to this size.
+	 * <p>By default this is set to 256K.
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Return the {@link #setMaxInMemorySize configured} max in-memory size.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Configure the maximum number of bytes for the headers of each part.
+	 * <p>By default this is set to 8K.
+	 */
+	public void setMaxHeadersSize(int maxHeadersSize) {
+		this.maxHeadersSize = maxHeadersSize;
+	}
+
+	/**
+	 * Return the {@link #setMaxHeadersSize configured} max headers size.
+	 */
+	public int getMaxHeadersSize() {
+		return this.maxHeadersSize;
+	}
+
+	/**
+	 * Configure the maximum number of bytes of a part that is stored on disk.
+	 * <p>By default this is set to -1, meaning unlimited.
+	 */
+	public void setMaxDiskUsagePerPart(long maxDiskUsagePerPart) {
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Return the {@link #setMaxDiskUsagePerPart configured} max disk usage per part.
+	 */
+	public long getMaxDiskUsagePerPart() {
+		return this.maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Configure the maximum number of parts allowed in a request.
+	 * <p>By default this is set to -1, meaning unlimited.
+	 */
+	public void setMaxParts(int maxParts) {
+		this.maxParts = maxParts;
+	}
+
+	/**
+	 * Return the {@link #setMaxParts configured} max number of parts.
+	 */
+	public int getMaxParts() {
+		return this.maxParts;
+	}
+
+	/**
+	 * Set the character set used to decode part headers.
+	 * <p>By default this is set to UTF-8.
+	 */
+	public void setHeadersCharset(Charset headersCharset) {
+		Assert.notNull(headersCharset, "HeadersCharset must not be null");
+		this.headersCharset = headersCharset;
+	}
+
+	/**
+	 * Set the directory used to store the content of parts larger than
+	 * {@link #setMaxInMemorySize maxInMemorySize}.
+	 * <p>By default, a new directory with a {@code spring-multipart-} prefix
+	 * is created in the system temporary directory on first use, and removed
+	 * when the JVM exits.
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) {
+		Assert.notNull(fileStorageDirectory, "FileStorageDirectory must not be null");
+		this.fileStorageDirectory = fileStorageDirectory;
+	}
+
+	/**
+	 * Set the {@link Scheduler} used to store part content in files and to
+	 * transfer it to destination files, as these are blocking operations.
+	 * <p>By default this is {@link Schedulers#elastic()}.
+	 */
+	public void setBlockingOperationScheduler(Scheduler blockingOperationScheduler) {
+		Assert.notNull(blockingOperationScheduler, "BlockingOperationScheduler must not be null");
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+
+	@Override
+	public List<MediaType> getReadableMediaTypes() {
+		return Collections.singletonList(MediaType.MULTIPART_FORM_DATA);
+	}
+
+	@Override
+	public boolean canRead(ResolvableType elementType, @Nullable MediaType mediaType) {
+		return Part.class.equals(elementType.resolve(Object.class)) &&
+				(mediaType == null || MediaType.MULTIPART_FORM_DATA.isCompatibleWith(mediaType));
+	}
+
+
+	@Override
+	public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Flux.defer(() -> {
+			byte[] boundary = getBoundary(message);
+			if (boundary == null) {
+				return Flux.error(new DecodingException("No multipart boundary found in Content-Type: \"" +
+						message.getHeaders().getContentType() + "\""));
+			}
+			MultipartParser parser = new MultipartParser(boundary, this.maxHeadersSize, this.headersCharset);
+			Flux<MultipartParser.Token> tokens = message.getBody()
+					.flatMapIterable(parser, 1)
+					.concatWith(Flux.defer(parser::complete));
+			return PartGenerator.createParts(tokens, this.maxInMemorySize, this.maxDiskUsagePerPart,
+					this.maxParts, this::getFileStorageDirectory, this.blockingOperationScheduler);
+		});
+	}
+
+	@Override
+	public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+	}
+
+	@Nullable
+	private static byte[] getBoundary(ReactiveHttpInputMessage message) {
+		MediaType contentType = message.getHeaders().getContentType();
+		if (contentType != null) {
+			String boundary = contentType.getParameter(BOUNDARY_PARAMETER);
+			if (boundary != null) {
+				int length = boundary.length();
+				if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+					boundary = boundary.substring(1, length - 1);
+				}
+				return boundary.getBytes(StandardCharsets.ISO_8859_1);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the file storage directory, creating the default one on first
+	 * use. Invoked on the blocking operation scheduler.
+	 */
+	private synchronized Path getFileStorageDirectory() {
+		if (this.fileStorageDirectory == null) {
+			try {
+				Path directory = Files.createTempDirectory("spring-multipart-");
+				// Removed on exit once empty, since part files are deleted as they are consumed
+				directory.toFile().deleteOnExit();
+				this.fileStorageDirectory = directory;
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException("Could not create file storage directory", ex);
+			}
+		}
+		return this.fileStorageDirectory;
+	}
+
+}
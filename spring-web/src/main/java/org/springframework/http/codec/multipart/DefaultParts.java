@@ -0,0 +1,303 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+
+/**
+ * Default implementations of {@link Part} and subtypes, as created by
+ * {@link DefaultPartHttpMessageReader}.
+ *
+ * @since 5.0.16
+ */
+abstract class DefaultParts {
+
+	private static final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private static final int FILE_READ_BUFFER_SIZE = 8192;
+
+
+	/**
+	 * Create a form field part with the given in-memory content.
+	 */
+	static FormFieldPart formFieldPart(HttpHeaders headers, List<byte[]> content, int size) {
+		byte[] bytes = new byte[size];
+		int offset = 0;
+		for (byte[] chunk : content) {
+			System.arraycopy(chunk, 0, bytes, offset, chunk.length);
+			offset += chunk.length;
+		}
+		return new DefaultFormFieldPart(headers, new String(bytes, charset(headers)));
+	}
+
+	/**
+	 * Create a part, or a file part if a filename is present, with the given
+	 * in-memory content.
+	 */
+	static Part part(HttpHeaders headers, List<byte[]> content, Scheduler scheduler) {
+		return part(headers, new InMemoryContent(content, scheduler));
+	}
+
+	/**
+	 * Create a part, or a file part if a filename is present, with content
+	 * stored in the given file.
+	 */
+	static Part part(HttpHeaders headers, Path file, Scheduler scheduler) {
+		return part(headers, new FileContent(file, scheduler));
+	}
+
+	private static Part part(HttpHeaders headers, Content content) {
+		String filename = headers.getContentDisposition().getFilename();
+		return (filename != null ? new DefaultFilePart(headers, filename, content) : new DefaultPart(headers, content));
+	}
+
+	/**
+	 * Whether the given part headers indicate a form field, i.e. no filename
+	 * and plain text content, if any content type.
+	 */
+	static boolean isFormField(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		return ((contentType == null || (MediaType.TEXT_PLAIN.getType().equals(contentType.getType()) &&
+				MediaType.TEXT_PLAIN.getSubtype().equals(contentType.getSubtype()))) &&
+				headers.getContentDisposition().getFilename() == null);
+	}
+
+	private static Charset charset(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		Charset charset = (contentType != null ? contentType.getCharset() : null);
+		return (charset != null ? charset : StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * The content of a part, held in memory or in a file.
+	 */
+	private interface Content {
+
+		Flux<DataBuffer> content();
+
+		Mono<Void> transferTo(Path dest);
+
+		Mono<Void> delete();
+	}
+
+
+	private static final class InMemoryContent implements Content {
+
+		private final List<byte[]> content;
+
+		private final Scheduler scheduler;
+
+		InMemoryContent(List<byte[]> content, Scheduler scheduler) {
+			this.content = content;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.fromIterable(this.content).map(bufferFactory::wrap);
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromRunnable(() -> {
+				try (OutputStream outputStream = Files.newOutputStream(dest)) {
+					for (byte[] chunk : this.content) {
+						outputStream.write(chunk);
+					}
+				}
+				catch (IOException ex) {
+					throw new IllegalStateException("Could not transfer part to " + dest, ex);
+				}
+			}).subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.empty();
+		}
+	}
+
+
+	/**
+	 * Content stored in a temporary file, which is deleted once the content
+	 * has been read or moved to its destination, or else when the part is
+	 * {@linkplain Part#delete() deleted}.
+	 */
+	private static final class FileContent implements Content {
+
+		private final Path file;
+
+		private final Scheduler scheduler;
+
+		FileContent(Path file, Scheduler scheduler) {
+			this.file = file;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return DataBufferUtils.readAsynchronousFileChannel(
+					() -> AsynchronousFileChannel.open(this.file, StandardOpenOption.READ),
+					bufferFactory, FILE_READ_BUFFER_SIZE)
+					.doFinally(signal -> deleteFile());
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromRunnable(() -> {
+				try {
+					Files.move(this.file, dest, StandardCopyOption.REPLACE_EXISTING);
+				}
+				catch (IOException ex) {
+					throw new IllegalStateException("Could not transfer part to " + dest, ex);
+				}
+			}).subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.<Void>fromRunnable(this::deleteFile).subscribeOn(this.scheduler);
+		}
+
+		private void deleteFile() {
+			try {
+				Files.deleteIfExists(this.file);
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+
+	private abstract static class AbstractPart implements Part {
+
+		private final HttpHeaders headers;
+
+		private final String name;
+
+		AbstractPart(HttpHeaders headers) {
+			Assert.notNull(headers, "HttpHeaders is required");
+			this.headers = headers;
+			String name = headers.getContentDisposition().getName();
+			this.name = (name != null ? name : "");
+		}
+
+		@Override
+		public String name() {
+			return this.name;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	private static class DefaultPart extends AbstractPart {
+
+		private final Content content;
+
+		DefaultPart(HttpHeaders headers, Content content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return this.content.content();
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return this.content.delete();
+		}
+
+		Content getContent() {
+			return this.content;
+		}
+	}
+
+
+	private static final class DefaultFilePart extends DefaultPart implements FilePart {
+
+		private final String filename;
+
+		DefaultFilePart(HttpHeaders headers, String filename, Content content) {
+			super(headers, content);
+			this.filename = filename;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(File dest) {
+			return getContent().transferTo(dest.toPath());
+		}
+	}
+
+
+	private static final class DefaultFormFieldPart extends AbstractPart implements FormFieldPart {
+
+		private final String value;
+
+		DefaultFormFieldPart(HttpHeaders headers, String value) {
+			super(headers);
+			this.value = value;
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> {
+				byte[] bytes = this.value.getBytes(charset(headers()));
+				return Flux.just(bufferFactory.wrap(bytes));
+			});
+		}
+	}
+
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Incremental parser for {@code "multipart/form-data"} content, applied to
+ * each data buffer of the request body in turn and turning it into
+ * {@link Token}s for part headers and part body content.
+ *
+ * <p>Boundaries are located with a Boyer-Moore-Horspool search over the
+ * current data buffer, preceded by the few bytes held back from the previous
+ * one in case they start a boundary. Body content is emitted as retained
+ * slices of the input buffers rather than being copied.
+ *
+ * @since 5.0.16
+ * @see PartGenerator
+ */
+final class MultipartParser implements Function<DataBuffer, Iterable<MultipartParser.Token>> {
+
+	private static final byte CR = '\r';
+
+	private static final byte LF = '\n';
+
+	private static final byte HYPHEN = '-';
+
+	private static final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+
+	private final byte[] delimiter;
+
+	private final int[] skipTable = new int[256];
+
+	private final int maxHeadersSize;
+
+	private final Charset headersCharset;
+
+	private State state = State.PREAMBLE;
+
+	/** Bytes held back from the previous buffer, as they may start a delimiter. */
+	private final byte[] carry;
+
+	private int carryLength;
+
+	private byte[] headerBytes = new byte[256];
+
+	private int headerLength;
+
+
+	/**
+	 * Create a new parser for the given boundary.
+	 * @param boundary the multipart boundary, as found in the content type
+	 * @param maxHeadersSize the maximum number of bytes for the headers of a part
+	 * @param headersCharset the charset to decode part headers with
+	 */
+	MultipartParser(byte[] boundary, int maxHeadersSize, Charset headersCharset) {
+		this.delimiter = new byte[boundary.length + 4];
+		this.delimiter[0] = CR;
+		this.delimiter[1] = LF;
+		this.delimiter[2] = HYPHEN;
+		this.delimiter[3] = HYPHEN;
+		System.arraycopy(boundary, 0, this.delimiter, 4, boundary.length);
+		Arrays.fill(this.skipTable, this.delimiter.length);
+		for (int i = 0; i < this.delimiter.length - 1; i++) {
+			this.skipTable[this.delimiter[i] & 0xff] = this.delimiter.length - 1 - i;
+		}
+		this.maxHeadersSize = maxHeadersSize;
+		this.headersCharset = headersCharset;
+		// The first boundary may directly start the content, without preceding CRLF
+		this.carry = new byte[this.delimiter.length - 1];
+		this.carry[0] = CR;
+		this.carry[1] = LF;
+		this.carryLength = 2;
+	}
+
+
+	@Override
+	public Iterable<Token> apply(DataBuffer buffer) {
+		try {
+			List<Token> tokens = null;
+			int position = buffer.readPosition();
+			int end = buffer.writePosition();
+			while (position < end && this.state != State.EPILOGUE) {
+				if (this.state == State.HEADERS) {
+					position = readHeaders(buffer, position, end);
+					if (this.state == State.BODY) {
+						tokens = addToken(tokens, new HeadersToken(parseHeaders()));
+						this.headerLength = 0;
+					}
+				}
+				else {
+					int index = indexOfDelimiter(buffer, position, end);
+					if (index != -1) {
+						if (this.state == State.BODY) {
+							tokens = addBodyTokens(tokens, buffer, position, index);
+						}
+						position += index + this.delimiter.length - this.carryLength;
+						this.carryLength = 0;
+						this.state = State.HEADERS;
+					}
+					else {
+						int length = this.carryLength + end - position;
+						int heldBack = partialDelimiterLength(buffer, position, length);
+						if (this.state == State.BODY) {
+							tokens = addBodyTokens(tokens, buffer, position, length - heldBack);
+						}
+						holdBack(buffer, position, length, heldBack);
+						position = end;
+					}
+				}
+			}
+			return (tokens != null ? tokens : Collections.emptyList());
+		}
+		finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	/**
+	 * Verify that the closing boundary was found, to be invoked once the input
+	 * has completed.
+	 */
+	Flux<Token> complete() {
+		if (this.state != State.EPILOGUE) {
+			return Flux.error(new DecodingException(this.state == State.PREAMBLE ?
+					"Could not find first boundary in multipart content" :
+					"Could not find closing boundary in multipart content"));
+		}
+		return Flux.empty();
+	}
+
+
+	private List<Token> addToken(@Nullable List<Token> tokens, Token token) {
+		List<Token> result = (tokens != null ? tokens : new ArrayList<>());
+		result.add(token);
+		return result;
+	}
+
+	/**
+	 * Add body tokens for the given number of bytes of the held back bytes
+	 * followed by the buffer, starting at the given buffer position.
+	 */
+	@Nullable
+	private List<Token> addBodyTokens(@Nullable List<Token> tokens, DataBuffer buffer, int position, int length) {
+		if (length <= 0) {
+			return tokens;
+		}
+		List<Token> result = tokens;
+		int carried = Math.min(this.carryLength, length);
+		if (carried > 0) {
+			result = addToken(result, new BodyToken(bufferFactory.wrap(Arrays.copyOf(this.carry, carried))));
+		}
+		if (length > carried) {
+			DataBuffer slice = DataBufferUtils.retain(buffer.slice(position, length - carried));
+			result = addToken(result, new BodyToken(slice));
+		}
+		return result;
+	}
+
+	/**
+	 * Search for the delimiter in the held back bytes followed by the buffer
+	 * from the given position, using Boyer-Moore-Horspool.
+	 * @return the index of the delimiter relative to the start of the held back
+	 * bytes, or -1 if not found
+	 */
+	private int indexOfDelimiter(DataBuffer buffer, int position, int end) {
+		int length = this.carryLength + end - position;
+		int last = this.delimiter.length - 1;
+		int index = last;
+		while (index < length) {
+			int matched = 0;
+			while (matched <= last &&
+					byteAt(buffer, position, index - matched) == this.delimiter[last - matched]) {
+				matched++;
+			}
+			if (matched > last) {
+				return index - last;
+			}
+			index += this.skipTable[byteAt(buffer, position, index) & 0xff];
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the length of the longest suffix of the held back bytes followed
+	 * by the buffer that is also a prefix of the delimiter.
+	 */
+	private int partialDelimiterLength(DataBuffer buffer, int position, int length) {
+		for (int candidate = Math.min(this.delimiter.length - 1, length); candidate > 0; candidate--) {
+			int start = length - candidate;
+			int matched = 0;
+			while (matched < candidate && byteAt(buffer, position, start + matched) == this.delimiter[matched]) {
+				matched++;
+			}
+			if (matched == candidate) {
+				return candidate;
+			}
+		}
+		return 0;
+	}
+
+	private void holdBack(DataBuffer buffer, int position, int length, int count) {
+		int start = length - count;
+		// Copying forward is safe: the source index is never below the target index
+		for (int i = 0; i < count; i++) {
+			this.carry[i] = byteAt(buffer, position, start + i);
+		}
+		this.carryLength = count;
+	}
+
+	private byte byteAt(DataBuffer buffer, int position, int index) {
+		return (index < this.carryLength ? this.carry[index] : buffer.getByte(position + index - this.carryLength));
+	}
+
+	/**
+	 * Accumulate header bytes up to and including the empty line that ends
+	 * them, or detect the closing boundary.
+	 * @return the buffer position after the bytes read
+	 */
+	private int readHeaders(DataBuffer buffer, int position, int end) {
+		while (position < end) {
+			if (this.headerLength == this.maxHeadersSize) {
+				throw new DecodingException(
+						"Part headers exceeded the memory usage limit of " + this.maxHeadersSize + " bytes");
+			}
+			if (this.headerLength == this.headerBytes.length) {
+				this.headerBytes = Arrays.copyOf(this.headerBytes,
+						Math.min(this.headerBytes.length * 2, this.maxHeadersSize));
+			}
+			byte b = buffer.getByte(position++);
+			this.headerBytes[this.headerLength++] = b;
+			if (this.headerLength == 2 && this.headerBytes[0] == HYPHEN && b == HYPHEN) {
+				this.state = State.EPILOGUE;
+				return position;
+			}
+			if (b == LF && this.headerLength >= 4 && this.headerBytes[this.headerLength - 2] == CR &&
+					this.headerBytes[this.headerLength - 3] == LF && this.headerBytes[this.headerLength - 4] == CR) {
+				this.state = State.BODY;
+				return position;
+			}
+		}
+		return position;
+	}
+
+	private HttpHeaders parseHeaders() {
+		HttpHeaders headers = new HttpHeaders();
+		String content = new String(this.headerBytes, 0, this.headerLength, this.headersCharset);
+		String[] lines = StringUtils.delimitedListToStringArray(content, "\r\n");
+		String name = null;
+		StringBuilder value = new StringBuilder();
+		// The first line holds what follows the boundary, i.e. transport padding
+		for (int i = 1; i < lines.length; i++) {
+			String line = lines[i];
+			if (!line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+				// Obsolete line folding
+				value.append(' ').append(line.trim());
+				continue;
+			}
+			if (name != null) {
+				headers.add(name, value.toString());
+				name = null;
+			}
+			int colon = line.indexOf(':');
+			if (colon > 0) {
+				name = line.substring(0, colon).trim();
+				value.setLength(0);
+				value.append(line.substring(colon + 1).trim());
+			}
+		}
+		if (name != null) {
+			headers.add(name, value.toString());
+		}
+		return headers;
+	}
+
+
+	private enum State {
+
+		/** Before the first boundary. */
+		PREAMBLE,
+
+		/** After a boundary, reading the headers of a part. */
+		HEADERS,
+
+		/** Reading the body of a part, until the next boundary. */
+		BODY,
+
+		/** After the closing boundary. */
+		EPILOGUE
+	}
+
+
+	/**
+	 * Represents the output of the parser.
+	 */
+	abstract static class Token {
+	}
+
+
+	/**
+	 * The headers of a part, starting a new part.
+	 */
+	static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	/**
+	 * Content of the body of the current part, to be released by the consumer.
+	 */
+	static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		DataBuffer buffer() {
+			return this.buffer;
+		}
+	}
+
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * Subscribes to the {@link MultipartParser.Token}s of a multipart request and
+ * turns them into {@link Part}s.
+ *
+ * <p>The content of a part is kept in memory up to a threshold, beyond which
+ * it is written to a temporary file on the given {@link Scheduler}. Tokens are
+ * requested one at a time, and only while there is demand for parts, so that
+ * the request body is consumed no faster than parts are stored and consumed.
+ *
+ * @since 5.0.16
+ * @see MultipartParser
+ */
+final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
+
+	private final FluxSink<Part> sink;
+
+	private final int maxInMemorySize;
+
+	private final long maxDiskUsagePerPart;
+
+	private final int maxParts;
+
+	private final Supplier<Path> fileStorageDirectory;
+
+	private final Scheduler blockingOperationScheduler;
+
+	private final AtomicBoolean awaitingDemand = new AtomicBoolean();
+
+	private int partCount;
+
+	@Nullable
+	private HttpHeaders headers;
+
+	private List<byte[]> content = new ArrayList<>();
+
+	private int contentSize;
+
+	@Nullable
+	private Path file;
+
+	@Nullable
+	private FileChannel channel;
+
+	private long fileSize;
+
+	/** Whether a file write is in progress, guarded by this generator. */
+	private boolean writing;
+
+	/** Terminal signal received during a file write, guarded by this generator. */
+	@Nullable
+	private Runnable pendingTermination;
+
+
+	private PartGenerator(FluxSink<Part> sink, int maxInMemorySize, long maxDiskUsagePerPart, int maxParts,
+			Supplier<Path> fileStorageDirectory, Scheduler blockingOperationScheduler) {
+
+		this.sink = sink;
+		this.maxInMemorySize = maxInMemorySize;
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+		this.maxParts = maxParts;
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+
+	/**
+	 * Create a {@code Flux} of parts from the given tokens.
+	 * @param tokens the tokens produced by a {@link MultipartParser}
+	 * @param maxInMemorySize the maximum number of bytes of a part held in memory
+	 * @param maxDiskUsagePerPart the maximum number of bytes of a part stored on
+	 * disk, or -1 for unlimited
+	 * @param maxParts the maximum number of parts, or -1 for unlimited
+	 * @param fileStorageDirectory the directory to store part content in
+	 * @param blockingOperationScheduler the scheduler for file operations
+	 */
+	static Flux<Part> createParts(Flux<MultipartParser.Token> tokens, int maxInMemorySize,
+			long maxDiskUsagePerPart, int maxParts, Supplier<Path> fileStorageDirectory,
+			Scheduler blockingOperationScheduler) {
+
+		return Flux.create(sink -> {
+			PartGenerator generator = new PartGenerator(sink, maxInMemorySize, maxDiskUsagePerPart,
+					maxParts, fileStorageDirectory, blockingOperationScheduler);
+			sink.onRequest(n -> generator.onDemand());
+			sink.onCancel(generator);
+			tokens.subscribe(generator);
+		});
+	}
+
+
+	@Override
+	protected void hookOnSubscribe(Subscription subscription) {
+		requestToken();
+	}
+
+	@Override
+	protected void hookOnNext(MultipartParser.Token token) {
+		if (token instanceof MultipartParser.HeadersToken) {
+			if (!completePart()) {
+				return;
+			}
+			if (this.maxParts != -1 && ++this.partCount > this.maxParts) {
+				fail(new DecodingException("Too many parts (" + this.maxParts + " allowed)"));
+				return;
+			}
+			this.headers = ((MultipartParser.HeadersToken) token).headers();
+			requestToken();
+		}
+		else {
+			DataBuffer buffer = ((MultipartParser.BodyToken) token).buffer();
+			if (this.headers == null) {
+				DataBufferUtils.release(buffer);
+				requestToken();
+			}
+			else if (this.channel == null && this.contentSize + buffer.readableByteCount() <= this.maxInMemorySize) {
+				byte[] bytes = new byte[buffer.readableByteCount()];
+				buffer.read(bytes);
+				DataBufferUtils.release(buffer);
+				this.content.add(bytes);
+				this.contentSize += bytes.length;
+				requestToken();
+			}
+			else if (DefaultParts.isFormField(this.headers)) {
+				DataBufferUtils.release(buffer);
+				fail(new DecodingException(
+						"Form field exceeded the memory usage limit of " + this.maxInMemorySize + " bytes"));
+			}
+			else {
+				writeToFile(buffer);
+			}
+		}
+	}
+
+	@Override
+	protected void hookOnComplete() {
+		terminate(() -> {
+			if (completePart()) {
+				this.sink.complete();
+			}
+		});
+	}
+
+	@Override
+	protected void hookOnError(Throwable throwable) {
+		terminate(() -> {
+			deleteFile();
+			this.sink.error(throwable);
+		});
+	}
+
+	@Override
+	protected void hookOnCancel() {
+		terminate(this::deleteFile);
+	}
+
+
+	/**
+	 * Request the next token if there is demand for parts, or else wait for
+	 * demand to be signalled.
+	 */
+	private void requestToken() {
+		if (this.sink.requestedFromDownstream() > 0) {
+			request(1);
+		}
+		else {
+			this.awaitingDemand.set(true);
+			if (this.sink.requestedFromDownstream() > 0 && this.awaitingDemand.compareAndSet(true, false)) {
+				request(1);
+			}
+		}
+	}
+
+	private void onDemand() {
+		if (this.awaitingDemand.compareAndSet(true, false)) {
+			request(1);
+		}
+	}
+
+	/**
+	 * Run the given terminal action now, or after the current file write.
+	 */
+	private void terminate(Runnable action) {
+		synchronized (this) {
+			if (this.writing) {
+				this.pendingTermination = action;
+				return;
+			}
+		}
+		action.run();
+	}
+
+	private void writeToFile(DataBuffer buffer) {
+		synchronized (this) {
+			this.writing = true;
+		}
+		this.blockingOperationScheduler.schedule(() -> {
+			boolean success = false;
+			try {
+				if (this.maxDiskUsagePerPart != -1 &&
+						this.fileSize + this.contentSize + buffer.readableByteCount() > this.maxDiskUsagePerPart) {
+					throw new DecodingException(
+							"Part exceeded the disk usage limit of " + this.maxDiskUsagePerPart + " bytes");
+				}
+				FileChannel channel = this.channel;
+				if (channel == null) {
+					Path file = Files.createTempFile(this.fileStorageDirectory.get(), "part-", ".multipart");
+					this.file = file;
+					channel = FileChannel.open(file, StandardOpenOption.WRITE);
+					this.channel = channel;
+					for (byte[] bytes : this.content) {
+						write(channel, ByteBuffer.wrap(bytes));
+					}
+					this.fileSize = this.contentSize;
+					this.content = new ArrayList<>();
+					this.contentSize = 0;
+				}
+				this.fileSize += write(channel, buffer.asByteBuffer());
+				success = true;
+			}
+			catch (DecodingException ex) {
+				fail(ex);
+			}
+			catch (Exception ex) {
+				fail(new DecodingException("Could not store part content", ex));
+			}
+			finally {
+				DataBufferUtils.release(buffer);
+			}
+			Runnable termination;
+			synchronized (this) {
+				this.writing = false;
+				termination = this.pendingTermination;
+				this.pendingTermination = null;
+			}
+			if (!success) {
+				return;
+			}
+			if (termination != null) {
+				termination.run();
+			}
+			else {
+				requestToken();
+			}
+		});
+	}
+
+	private static int write(FileChannel channel, ByteBuffer byteBuffer) throws IOException {
+		int count = byteBuffer.remaining();
+		while (byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+		return count;
+	}
+
+	/**
+	 * Emit the current part, if any.
+	 * @return {@code true} if successful, {@code false} if an error was signalled
+	 */
+	private boolean completePart() {
+		HttpHeaders headers = this.headers;
+		if (headers == null) {
+			return true;
+		}
+		Part part;
+		if (this.channel != null && this.file != null) {
+			try {
+				this.channel.close();
+			}
+			catch (IOException ex) {
+				fail(new DecodingException("Could not store part content", ex));
+				return false;
+			}
+			part = DefaultParts.part(headers, this.file, this.blockingOperationScheduler);
+			this.channel = null;
+			this.file = null;
+			this.fileSize = 0;
+		}
+		else if (DefaultParts.isFormField(headers)) {
+			part = DefaultParts.formFieldPart(headers, this.content, this.contentSize);
+		}
+		else {
+			part = DefaultParts.part(headers, this.content, this.blockingOperationScheduler);
+		}
+		this.headers = null;
+		this.content = new ArrayList<>();
+		this.contentSize = 0;
+		this.sink.next(part);
+		return true;
+	}
+
+	private void fail(Throwable ex) {
+		cancel();
+		deleteFile();
+		this.sink.error(ex);
+	}
+
+	private void deleteFile() {
+		FileChannel channel = this.channel;
+		Path file = this.file;
+		this.channel = null;
+		this.file = null;
+		try {
+			if (channel != null) {
+				channel.close();
+			}
+			if (file != null) {
+				Files.deleteIfExists(file);
+			}
+		}
+		catch (IOException ex) {
+			// ignore
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.protobuf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+/**
+ * An {@code Encoder} that writes {@link com.google.protobuf.Message}s
+ * using <a href="https://developers.google.com/protocol-buffers/">Google Protocol Buffers</a>.
+ *
+ * <p>Flux are serialized using
+ * <a href="https://developers.google.com/protocol-buffers/docs/techniques?hl=en#streaming">delimited Protobuf messages</a>
+ * with the size of each message specified before the message itself. Single values are
+ * serialized using regular Protobuf message format (without the size prepended before the message).
+ * Each message is written directly into a data buffer allocated at its exact serialized size.
+ *
+ * <p>To generate {@code Message} Java classes, you need to install the {@code protoc} binary.
+ *
+ * <p>This encoder requires Protobuf 3 or higher, and supports
+ * {@code "application/x-protobuf"} and {@code "application/octet-stream"} with the official
+ * {@code "com.google.protobuf:protobuf-java"} library.
+ *
+ * @since 5.0.16
+ * @see ProtobufDecoder
+ */
+public class ProtobufEncoder extends ProtobufCodecSupport implements HttpMessageEncoder<Message> {
+
+	private static final List<MediaType> streamingMediaTypes = Collections.unmodifiableList(Arrays.asList(
+			new MediaType("application", "x-protobuf", Collections.singletonMap(DELIMITED_KEY, DELIMITED_VALUE)),
+			new MediaType("application", "octet-stream", Collections.singletonMap(DELIMITED_KEY, DELIMITED_VALUE))));
+
+
+	@Override
+	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+		return (Message.class.isAssignableFrom(elementType.resolve(Object.class)) && supportsMimeType(mimeType));
+	}
+
+	@Override
+	public Flux<DataBuffer> encode(Publisher<? extends Message> inputStream, DataBufferFactory bufferFactory,
+			ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+
+		boolean delimited = !(inputStream instanceof Mono);
+		return Flux.from(inputStream).map(message -> encodeMessage(message, bufferFactory, delimited));
+	}
+
+	private DataBuffer encodeMessage(Message message, DataBufferFactory bufferFactory, boolean delimited) {
+		int size = message.getSerializedSize();
+		int length = (delimited ? CodedOutputStream.computeUInt32SizeNoTag(size) + size : size);
+		DataBuffer buffer = bufferFactory.allocateBuffer(length);
+		boolean release = true;
+		try {
+			CodedOutputStream outputStream = CodedOutputStream.newInstance(buffer.asByteBuffer(0, length));
+			if (delimited) {
+				outputStream.writeUInt32NoTag(size);
+			}
+			message.writeTo(outputStream);
+			outputStream.flush();
+			buffer.writePosition(length);
+			release = false;
+			return buffer;
+		}
+		catch (IOException ex) {
+			throw new EncodingException("Unexpected I/O error while writing to data buffer", ex);
+		}
+		finally {
+			if (release) {
+				DataBufferUtils.release(buffer);
+			}
+		}
+	}
+
+	@Override
+	public List<MediaType> getStreamingMediaTypes() {
+		return streamingMediaTypes;
+	}
+
+	@Override
+	public List<MimeType> getEncodableMimeTypes() {
+		return getMimeTypes();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,9 @@ import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.http.codec.json.Jackson2SmileDecoder;
 import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.codec.protobuf.ProtobufDecoder;
+import org.springframework.http.codec.protobuf.ProtobufEncoder;
+import org.springframework.http.codec.protobuf.ProtobufHttpMessageWriter;
 import org.springframework.http.codec.xml.Jaxb2XmlDecoder;
 import org.springframework.http.codec.xml.Jaxb2XmlEncoder;
 import org.springframework.lang.Nullable;
@@ -67,6 +70,9 @@ class BaseDefaultCodecs implements CodecConfigurer.DefaultCodecs {
 	private static final boolean jaxb2Present =
 			ClassUtils.isPresent("javax.xml.bind.Binder", BaseCodecConfigurer.class.getClassLoader());
 
+	private static final boolean protobufPresent =
+			ClassUtils.isPresent("com.google.protobuf.Message", BaseCodecConfigurer.class.getClassLoader());
+
 
 	@Nullable
 	private Decoder<?> jackson2JsonDecoder;
@@ -74,6 +80,12 @@ class BaseDefaultCodecs implements CodecConfigurer.DefaultCodecs {
 	@Nullable
 	private Encoder<?> jackson2JsonEncoder;
 
+	@Nullable
+	private Decoder<?> protobufDecoder;
+
+	@Nullable
+	private Encoder<?> protobufEncoder;
+
 	private boolean registerDefaults = true;
 
 
@@ -87,6 +99,16 @@ class BaseDefaultCodecs implements CodecConfigurer.DefaultCodecs {
 		this.jackson2JsonEncoder = encoder;
 	}
 
+	@Override
+	public void protobufDecoder(Decoder<?> decoder) {
+		this.protobufDecoder = decoder;
+	}
+
+	@Override
+	public void protobufEncoder(Encoder<?> encoder) {
+		this.protobufEncoder = encoder;
+	}
+
 	/**
 	 * Delegate method used from {@link BaseCodecConfigurer#registerDefaults}.
 	 */
@@ -109,6 +131,9 @@ class BaseDefaultCodecs implements CodecConfigurer.DefaultCodecs {
 		readers.add(new DecoderHttpMessageReader<>(new ResourceDecoder()));
 		readers.add(new DecoderHttpMessageReader<>(StringDecoder.textPlainOnly()));
 		readers.add(new FormHttpMessageReader());
+		if (protobufPresent) {
+			readers.add(new DecoderHttpMessageReader<>(getProtobufDecoder()));
+		}
 		extendTypedReaders(readers);
 		return readers;
 	}
@@ -174,6 +199,9 @@ class BaseDefaultCodecs implements CodecConfigurer.DefaultCodecs {
 		writers.add(new EncoderHttpMessageWriter<>(new DataBufferEncoder()));
 		writers.add(new ResourceHttpMessageWriter());
 		writers.add(new EncoderHttpMessageWriter<>(CharSequenceEncoder.textPlainOnly()));
+		if (protobufPresent) {
+			writers.add(getProtobufWriter());
+		}
 		// No client or server specific multipart writers currently..
 		if (!forMultipart) {
 			extendTypedWriters(writers);
@@ -243,5 +271,18 @@ class BaseDefaultCodecs implements CodecConfigurer.DefaultCodecs {
 		return (this.jackson2JsonEncoder != null ? this.jackson2JsonEncoder : new Jackson2JsonEncoder());
 	}
 
+	protected Decoder<?> getProtobufDecoder() {
+		return (this.protobufDecoder != null ? this.protobufDecoder : new ProtobufDecoder());
+	}
+
+	protected HttpMessageWriter<?> getProtobufWriter() {
+		if (this.protobufEncoder == null) {
+			return new ProtobufHttpMessageWriter();
+		}
+		return (this.protobufEncoder instanceof ProtobufEncoder ?
+				new ProtobufHttpMessageWriter((ProtobufEncoder) this.protobufEncoder) :
+				new EncoderHttpMessageWriter<>(this.protobufEncoder));
+	}
+
 }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -138,6 +138,16 @@ public abstract class AbstractListenerReadPublisher<T> implements Publisher<T> {
 	 */
 	protected abstract void discardData();
 
+	/**
+	 * Invoked for an item that was read but could not be published because
+	 * the publisher completed in the mean time, e.g. after a cancellation
+	 * signal, to allow sub-classes to release it.
+	 * <p>The default implementation is a no-op.
+	 * @since 5.0.16
+	 */
+	protected void discardData(T data) {
+	}
+
 
 	// Private methods for use in State...
 
@@ -152,6 +162,10 @@ public abstract class AbstractListenerReadPublisher<T> implements Publisher<T> {
 		while ((r = this.demand) > 0 && !this.state.get().equals(State.COMPLETED)) {
 			T data = read();
 			if (data != null) {
+				if (this.state.get().equals(State.COMPLETED)) {
+					discardData(data);
+					return false;
+				}
 				if (r != Long.MAX_VALUE) {
 					DEMAND_FIELD_UPDATER.addAndGet(this, -1L);
 				}
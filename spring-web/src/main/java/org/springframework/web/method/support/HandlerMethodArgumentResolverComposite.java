@@ -16,6 +16,7 @@
 
 package org.springframework.web.method.support;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -49,6 +50,9 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 	private final Map<MethodParameter, HandlerMethodArgumentResolver> argumentResolverCache =
 			new ConcurrentHashMap<>(256);
 
+	private final Map<ParametersKey, HandlerMethodArgumentResolver[]> argumentResolversCache =
+			new ConcurrentHashMap<>(256);
+
 
 	/**
 	 * Add the given {@link HandlerMethodArgumentResolver}.
@@ -127,6 +131,30 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 		return resolver.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
 	}
 
+	/**
+	 * Find the registered {@link HandlerMethodArgumentResolver HandlerMethodArgumentResolvers}
+	 * for all of the given method parameters at once, with the returned array holding
+	 * the resolver for each parameter at the same index, or {@code null} if not supported.
+	 * <p>The result is cached for equal method parameters, just like the resolver
+	 * for each individual parameter, allowing the parameters of a handler method
+	 * to be resolved with a single lookup per invocation.
+	 * @param parameters the method parameters, typically from
+	 * {@link org.springframework.web.method.HandlerMethod#getMethodParameters()}
+	 * @since 5.0.16
+	 */
+	public HandlerMethodArgumentResolver[] getArgumentResolvers(MethodParameter[] parameters) {
+		ParametersKey key = new ParametersKey(parameters);
+		HandlerMethodArgumentResolver[] result = this.argumentResolversCache.get(key);
+		if (result == null) {
+			result = new HandlerMethodArgumentResolver[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				result[i] = getArgumentResolver(parameters[i]);
+			}
+			this.argumentResolversCache.put(key, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Find a registered {@link HandlerMethodArgumentResolver} that supports
 	 * the given method parameter.
@@ -146,4 +174,38 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 		return result;
 	}
 
+
+	/**
+	 * Cache key for the parameters of a handler method, with the array of a given
+	 * HandlerMethod shared by all of its copies (e.g. the per-request invocable ones).
+	 */
+	private static final class ParametersKey {
+
+		private final MethodParameter[] parameters;
+
+		private final int hashCode;
+
+		ParametersKey(MethodParameter[] parameters) {
+			this.parameters = parameters;
+			this.hashCode = Arrays.hashCode(parameters);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ParametersKey)) {
+				return false;
+			}
+			MethodParameter[] otherParameters = ((ParametersKey) other).parameters;
+			return (this.parameters == otherParameters || Arrays.equals(this.parameters, otherParameters));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
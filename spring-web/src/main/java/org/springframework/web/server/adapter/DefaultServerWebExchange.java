@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,6 +94,8 @@ public class DefaultServerWebExchange implements ServerWebExchange {
 	@Nullable
 	private final ApplicationContext applicationContext;
 
+	private volatile boolean multipartRead;
+
 	private volatile boolean notModified;
 
 	private Function<String, String> urlTransformer = url -> url;
@@ -121,7 +123,8 @@ public class DefaultServerWebExchange implements ServerWebExchange {
 		this.sessionMono = sessionManager.getSession(this).cache();
 		this.localeContextResolver = localeContextResolver;
 		this.formDataMono = initFormData(request, codecConfigurer);
-		this.multipartDataMono = initMultipartData(request, codecConfigurer);
+		this.multipartDataMono = initMultipartData(request, codecConfigurer)
+				.doOnSubscribe(subscription -> this.multipartRead = true);
 		this.applicationContext = applicationContext;
 	}
 
@@ -213,6 +216,25 @@ public class DefaultServerWebExchange implements ServerWebExchange {
 		return this.multipartDataMono;
 	}
 
+	/**
+	 * Delete the storage of the multipart data parts, if the multipart data
+	 * has been read, e.g. temporary files of parts that were not consumed.
+	 * Invoked once the exchange has been handled.
+	 */
+	Mono<Void> cleanupMultipart() {
+		return Mono.defer(() -> {
+			if (!this.multipartRead) {
+				return Mono.empty();
+			}
+			return getMultipartData()
+					.onErrorResume(ex -> Mono.empty())
+					.flatMapIterable(Map::values)
+					.flatMapIterable(Function.identity())
+					.flatMap(part -> part.delete().onErrorResume(ex -> Mono.empty()))
+					.then();
+		});
+	}
+
 	@Override
 	public LocaleContext getLocaleContext() {
 		return this.localeContextResolver.resolveLocaleContext(this);
@@ -182,9 +182,15 @@ public class HttpWebHandlerAdapter extends WebHandlerDecorator implements HttpHa
 		ServerWebExchange exchange = createExchange(request, response);
 		return getDelegate().handle(exchange)
 				.onErrorResume(ex -> handleFailure(request, response, ex))
+				.then(cleanupMultipart(exchange))
 				.then(Mono.defer(response::setComplete));
 	}
 
+	private Mono<Void> cleanupMultipart(ServerWebExchange exchange) {
+		return (exchange instanceof DefaultServerWebExchange ?
+				((DefaultServerWebExchange) exchange).cleanupMultipart() : Mono.empty());
+	}
+
 	protected ServerWebExchange createExchange(ServerHttpRequest request, ServerHttpResponse response) {
 		return new DefaultServerWebExchange(request, response, this.sessionManager,
 				getCodecConfigurer(), getLocaleContextResolver(), this.applicationContext);
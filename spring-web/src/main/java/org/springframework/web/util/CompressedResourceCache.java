@@ -0,0 +1,471 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Size-bounded cache of compressed variants of resources, for serving static
+ * resources with a content coding for which no pre-compressed variant exists.
+ * Each resource gets compressed once per content coding, with the result kept
+ * in memory or, if a {@link #setCacheDirectory cache directory} is configured,
+ * in a file in that directory.
+ *
+ * <p>Compressed variants are keyed by the MD5 hash of the original content,
+ * so that identical content at different locations or in different versions
+ * is compressed only once, and files in the cache directory remain valid
+ * across restarts. The hash of a resource is in turn cached by URL and last
+ * modification timestamp. Least recently used variants are evicted once the
+ * total size exceeds the {@link #setMaxSize maximum size}. The file of an
+ * evicted variant is only deleted once no stream is reading it anymore;
+ * a variant that has been handed out but is only read after its file has
+ * been deleted gets compressed in memory again.
+ *
+ * <p>Supports the "gzip" and "deflate" content codings, as available in the JDK.
+ * Used by the {@code EncodedResourceResolver} of Spring MVC and Spring WebFlux.
+ *
+ * @since 5.0.16
+ */
+public class CompressedResourceCache {
+
+	/** Default maximum total size of compressed variants: 10 MB. */
+	public static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+
+	private static final int CONTENT_HASH_CACHE_LIMIT = 1024;
+
+
+	private long maxSize = DEFAULT_MAX_SIZE;
+
+	@Nullable
+	private File cacheDirectory;
+
+	@SuppressWarnings("serial")
+	private final Map<String, String> contentHashes =
+			new LinkedHashMap<String, String>(64, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+					return size() > CONTENT_HASH_CACHE_LIMIT;
+				}
+			};
+
+	private final Map<String, CacheEntry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	/** Evicted entries whose files are still being read, by key. */
+	private final Map<String, CacheEntry> evictedEntries = new HashMap<>();
+
+	private long size;
+
+
+	/**
+	 * Set the maximum total size in bytes of the compressed variants to keep,
+	 * in memory or in the cache directory. Resources larger than this are not
+	 * compressed at all.
+	 * <p>By default this is set to {@link #DEFAULT_MAX_SIZE}.
+	 */
+	public void setMaxSize(long maxSize) {
+		Assert.isTrue(maxSize >= 0, "Maximum size must not be negative");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Return the maximum total size in bytes of the compressed variants to keep.
+	 */
+	public long getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Set a directory to keep compressed variants in, instead of in memory.
+	 * Files in that directory are named after the content hash and coding,
+	 * and reused if present, e.g. after a restart.
+	 * <p>By default this is not set, keeping compressed variants in memory.
+	 */
+	public void setCacheDirectory(@Nullable File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Return the configured cache directory, if any.
+	 */
+	@Nullable
+	public File getCacheDirectory() {
+		return this.cacheDirectory;
+	}
+
+	/**
+	 * Whether the given content coding is supported for compression.
+	 * @param coding the content coding, e.g. "gzip"
+	 */
+	public boolean isSupportedCoding(String coding) {
+		return ("gzip".equals(coding) || "deflate".equals(coding));
+	}
+
+	/**
+	 * Return a variant of the given resource compressed with the given coding,
+	 * compressing the resource content if not cached yet.
+	 * @param resource the resource to compress
+	 * @param coding a {@link #isSupportedCoding supported} content coding
+	 * @return the compressed variant, or {@code null} if the resource is too
+	 * large to be cached or compression does not reduce its size
+	 * @throws IOException if the resource cannot be read or the variant cannot be stored
+	 */
+	@Nullable
+	public Resource getCompressedResource(Resource resource, String coding) throws IOException {
+		Assert.isTrue(isSupportedCoding(coding), () -> "Unsupported content coding: " + coding);
+		if (resource.contentLength() > this.maxSize) {
+			return null;
+		}
+
+		String identity = resource.getURL().toExternalForm() + '@' + resource.lastModified();
+		String contentHash;
+		synchronized (this.contentHashes) {
+			contentHash = this.contentHashes.get(identity);
+		}
+		byte[] content = null;
+		if (contentHash == null) {
+			content = readContent(resource);
+			contentHash = DigestUtils.md5DigestAsHex(content);
+			synchronized (this.contentHashes) {
+				this.contentHashes.put(identity, contentHash);
+			}
+		}
+
+		String key = contentHash + '.' + coding;
+		CacheEntry entry;
+		synchronized (this.entries) {
+			entry = this.entries.get(key);
+		}
+		if (entry == null) {
+			entry = loadEntry(key);
+		}
+		if (entry == null) {
+			// Compress outside of the lock: concurrent misses for the same content
+			// may compress it twice, but never block requests for other resources.
+			if (content == null) {
+				content = readContent(resource);
+			}
+			byte[] compressed = compress(content, coding);
+			entry = (compressed.length < content.length ? storeEntry(key, compressed) : CacheEntry.notCompressible());
+			addEntry(key, entry);
+		}
+		return entry.getResource(resource, coding);
+	}
+
+	/**
+	 * Return the current total size in bytes of the cached compressed variants.
+	 */
+	public long getSize() {
+		synchronized (this.entries) {
+			return this.size;
+		}
+	}
+
+	/**
+	 * Remove all compressed variants from this cache, including the files
+	 * in the cache directory once they are not being read anymore.
+	 */
+	public void clear() {
+		synchronized (this.contentHashes) {
+			this.contentHashes.clear();
+		}
+		synchronized (this.entries) {
+			this.entries.forEach(this::evictEntry);
+			this.entries.clear();
+			this.size = 0;
+		}
+	}
+
+
+	private static byte[] readContent(Resource resource) throws IOException {
+		try (InputStream in = resource.getInputStream()) {
+			return StreamUtils.copyToByteArray(in);
+		}
+	}
+
+	private static byte[] compress(byte[] content, String coding) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 64);
+		try (OutputStream compressingOut = ("gzip".equals(coding) ?
+				new GZIPOutputStream(out) : new DeflaterOutputStream(out))) {
+			compressingOut.write(content);
+		}
+		return out.toByteArray();
+	}
+
+	@Nullable
+	private CacheEntry loadEntry(String key) {
+		synchronized (this.entries) {
+			// Keep using an evicted entry whose file is still being read
+			CacheEntry evicted = this.evictedEntries.get(key);
+			if (evicted != null && evicted.cancelDeletion()) {
+				addEntry(key, evicted);
+				return evicted;
+			}
+		}
+		if (this.cacheDirectory != null) {
+			File file = new File(this.cacheDirectory, key);
+			if (file.isFile()) {
+				CacheEntry entry = new CacheEntry(null, file, file.length());
+				addEntry(key, entry);
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private CacheEntry storeEntry(String key, byte[] compressed) throws IOException {
+		if (this.cacheDirectory == null) {
+			return new CacheEntry(compressed, null, compressed.length);
+		}
+		// Write to a temporary file first, so that a concurrent load never sees partial content
+		Files.createDirectories(this.cacheDirectory.toPath());
+		File tempFile = File.createTempFile(key, ".tmp", this.cacheDirectory);
+		Files.write(tempFile.toPath(), compressed);
+		File file = new File(this.cacheDirectory, key);
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return new CacheEntry(null, file, compressed.length);
+	}
+
+	private void addEntry(String key, CacheEntry entry) {
+		synchronized (this.entries) {
+			// The file of an evicted entry for the same key is in use again
+			CacheEntry evicted = this.evictedEntries.remove(key);
+			if (evicted != null && evicted != entry) {
+				evicted.cancelDeletion();
+			}
+			CacheEntry previous = this.entries.put(key, entry);
+			if (previous != null) {
+				this.size -= previous.size;
+			}
+			this.size += entry.size;
+			Iterator<Map.Entry<String, CacheEntry>> it = this.entries.entrySet().iterator();
+			while (this.size > this.maxSize && it.hasNext()) {
+				Map.Entry<String, CacheEntry> eldest = it.next();
+				if (eldest.getValue() != entry) {
+					it.remove();
+					this.size -= eldest.getValue().size;
+					evictEntry(eldest.getKey(), eldest.getValue());
+				}
+			}
+			this.evictedEntries.values().removeIf(CacheEntry::isDeleted);
+		}
+	}
+
+	private void evictEntry(String key, CacheEntry entry) {
+		if (!entry.evict()) {
+			this.evictedEntries.put(key, entry);
+		}
+	}
+
+
+	/**
+	 * A compressed variant, held in memory or in a file. The file of an evicted
+	 * entry is deleted as soon as no stream is reading it anymore.
+	 */
+	private static final class CacheEntry {
+
+		@Nullable
+		private final byte[] content;
+
+		@Nullable
+		private final File file;
+
+		final long size;
+
+		private int readers;
+
+		private boolean evicted;
+
+		private boolean deleted;
+
+		CacheEntry(@Nullable byte[] content, @Nullable File file, long size) {
+			this.content = content;
+			this.file = file;
+			this.size = size;
+		}
+
+		/**
+		 * Create an entry recording that a resource does not get smaller when
+		 * compressed. Each resource gets its own, as entries hold eviction state.
+		 */
+		static CacheEntry notCompressible() {
+			return new CacheEntry(null, null, 0);
+		}
+
+		@Nullable
+		Resource getResource(Resource original, String coding) {
+			if (this.content != null) {
+				return new ByteArrayResource(this.content, "compressed " + original.getDescription());
+			}
+			else if (this.file != null) {
+				return new CompressedFileResource(this, this.file, original, coding);
+			}
+			return null;
+		}
+
+		/**
+		 * Register a reader of the file, unless the file has been deleted already.
+		 */
+		synchronized boolean acquire() {
+			if (this.deleted) {
+				return false;
+			}
+			this.readers++;
+			return true;
+		}
+
+		synchronized void release() {
+			this.readers--;
+			if (this.readers == 0 && this.evicted) {
+				delete();
+			}
+		}
+
+		/**
+		 * Mark this entry as evicted, deleting its file right away if not being read.
+		 * @return whether the file has been deleted (or there is none)
+		 */
+		synchronized boolean evict() {
+			this.evicted = true;
+			if (this.readers == 0) {
+				delete();
+			}
+			return this.deleted;
+		}
+
+		/**
+		 * Keep the file of this entry after all, unless deleted already.
+		 * @return whether the file is still available
+		 */
+		synchronized boolean cancelDeletion() {
+			this.evicted = false;
+			return !this.deleted;
+		}
+
+		synchronized boolean isDeleted() {
+			return this.deleted;
+		}
+
+		private void delete() {
+			if (this.file != null) {
+				this.file.delete();
+			}
+			this.deleted = true;
+		}
+	}
+
+
+	/**
+	 * A compressed variant in a file, registering its streams as readers of the
+	 * cache entry, or compressing the original resource in memory again if the
+	 * file has been deleted in the meantime. Not exposed as a file, since its
+	 * use could not be tracked.
+	 */
+	private static final class CompressedFileResource extends AbstractResource {
+
+		private final CacheEntry entry;
+
+		private final File file;
+
+		private final Resource original;
+
+		private final String coding;
+
+		CompressedFileResource(CacheEntry entry, File file, Resource original, String coding) {
+			this.entry = entry;
+			this.file = file;
+			this.original = original;
+			this.coding = coding;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			if (!this.entry.acquire()) {
+				return new ByteArrayInputStream(compress(readContent(this.original), this.coding));
+			}
+			try {
+				return new FilterInputStream(new FileInputStream(this.file)) {
+					private boolean closed;
+					@Override
+					public void close() throws IOException {
+						try {
+							super.close();
+						}
+						finally {
+							if (!this.closed) {
+								this.closed = true;
+								entry.release();
+							}
+						}
+					}
+				};
+			}
+			catch (IOException | RuntimeException ex) {
+				this.entry.release();
+				throw ex;
+			}
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+
+		@Override
+		public long contentLength() {
+			return this.entry.size;
+		}
+
+		@Override
+		public long lastModified() throws IOException {
+			return this.original.lastModified();
+		}
+
+		@Override
+		public String getFilename() {
+			return this.file.getName();
+		}
+
+		@Override
+		public String getDescription() {
+			return "compressed file [" + this.file.getAbsolutePath() + "]";
+		}
+	}
+
+}
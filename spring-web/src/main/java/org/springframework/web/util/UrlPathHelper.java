@@ -29,6 +29,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -48,6 +49,13 @@ import org.springframework.util.StringUtils;
  */
 public class UrlPathHelper {
 
+	/**
+	 * Name of the request attribute that holds the lookup path resolved through
+	 * {@link #resolveAndCacheLookupPath}.
+	 * @since 5.0.16
+	 */
+	public static final String PATH_ATTRIBUTE = UrlPathHelper.class.getName() + ".PATH";
+
 	/**
 	 * Special WebSphere request attribute, indicating the original request URI.
 	 * Preferable over the standard Servlet 2.4 forward attribute on WebSphere,
@@ -163,6 +171,35 @@ public class UrlPathHelper {
 	 * @see #getPathWithinApplication
 	 */
 	public String getLookupPathForRequest(HttpServletRequest request) {
+		Object resolvedLookupPath = request.getAttribute(PATH_ATTRIBUTE);
+		if (resolvedLookupPath instanceof ResolvedLookupPath) {
+			String lookupPath = ((ResolvedLookupPath) resolvedLookupPath).getLookupPath(this, request);
+			if (lookupPath != null) {
+				return lookupPath;
+			}
+		}
+		return resolveLookupPath(request);
+	}
+
+	/**
+	 * Resolve the mapping lookup path for the given request as per
+	 * {@link #getLookupPathForRequest}, and keep it in a request attribute,
+	 * so that subsequent calls to {@code getLookupPathForRequest} on this
+	 * instance for the same request URI and servlet path return it directly.
+	 * <p>Handler mappings call this once per request, sparing the repeated
+	 * decoding and path resolution for each mapping that gets checked.
+	 * @param request current HTTP request
+	 * @return the lookup path
+	 * @since 5.0.16
+	 * @see #PATH_ATTRIBUTE
+	 */
+	public String resolveAndCacheLookupPath(HttpServletRequest request) {
+		String lookupPath = resolveLookupPath(request);
+		request.setAttribute(PATH_ATTRIBUTE, new ResolvedLookupPath(this, request, lookupPath));
+		return lookupPath;
+	}
+
+	private String resolveLookupPath(HttpServletRequest request) {
 		// Always use full path within current servlet context?
 		if (this.alwaysUseFullPath) {
 			return getPathWithinApplication(request);
@@ -605,4 +642,43 @@ public class UrlPathHelper {
 		return !flagToUse;
 	}
 
+
+	/**
+	 * Lookup path resolved by a specific {@code UrlPathHelper}, valid as long as
+	 * the request URI and servlet path remain the same (e.g. not after a forward).
+	 */
+	private static final class ResolvedLookupPath {
+
+		private final UrlPathHelper urlPathHelper;
+
+		@Nullable
+		private final Object requestUri;
+
+		@Nullable
+		private final String servletPath;
+
+		private final String lookupPath;
+
+		ResolvedLookupPath(UrlPathHelper urlPathHelper, HttpServletRequest request, String lookupPath) {
+			this.urlPathHelper = urlPathHelper;
+			this.requestUri = getRawRequestUri(request);
+			this.servletPath = request.getServletPath();
+			this.lookupPath = lookupPath;
+		}
+
+		@Nullable
+		String getLookupPath(UrlPathHelper urlPathHelper, HttpServletRequest request) {
+			return (this.urlPathHelper == urlPathHelper &&
+					ObjectUtils.nullSafeEquals(this.requestUri, getRawRequestUri(request)) &&
+					ObjectUtils.nullSafeEquals(this.servletPath, request.getServletPath()) ?
+					this.lookupPath : null);
+		}
+
+		@Nullable
+		private static Object getRawRequestUri(HttpServletRequest request) {
+			Object includeUri = request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+			return (includeUri != null ? includeUri : request.getRequestURI());
+		}
+	}
+
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link PathMatcher} implementation backed by {@link PathPattern PathPatterns},
+ * allowing components built on the {@code PathMatcher} contract, such as the
+ * handler mappings, resource handlers and mapped interceptors of Spring MVC,
+ * to match against pre-parsed patterns instead of tokenizing and regex-matching
+ * pattern strings for every request.
+ *
+ * <p>Patterns are parsed once through the configured {@link PathPatternParser}
+ * and cached, and the most recently matched path is kept in parsed form as well,
+ * since a lookup path is typically matched against many patterns in a row.
+ * Paths are matched as given, without URL decoding or parsing of path
+ * parameters, consistent with {@link org.springframework.util.AntPathMatcher}.
+ *
+ * <p>Patterns need to follow the {@link PathPattern} syntax: in particular,
+ * "**" and "{*spring}" are only supported at the end of a pattern.
+ *
+ * @since 5.0.16
+ * @see PathPattern
+ * @see org.springframework.util.AntPathMatcher
+ */
+public class PathPatternMatcher implements PathMatcher {
+
+	private static final String PATH_SEPARATOR = "/";
+
+	private static final int CACHE_TURNOFF_THRESHOLD = 65536;
+
+
+	private final PathPatternParser parser;
+
+	private final Map<String, PathPattern> patternCache = new ConcurrentHashMap<>(256);
+
+	@Nullable
+	private volatile ParsedPath lastParsedPath;
+
+
+	/**
+	 * Create a new {@code PathPatternMatcher} with a default {@link PathPatternParser}.
+	 */
+	public PathPatternMatcher() {
+		this(new PathPatternParser());
+	}
+
+	/**
+	 * Create a new {@code PathPatternMatcher} with the given {@link PathPatternParser}.
+	 * @param parser the parser to use for patterns
+	 */
+	public PathPatternMatcher(PathPatternParser parser) {
+		Assert.notNull(parser, "PathPatternParser must not be null");
+		this.parser = parser;
+	}
+
+
+	/**
+	 * Return the {@link PathPatternParser} used for patterns.
+	 */
+	public PathPatternParser getPathPatternParser() {
+		return this.parser;
+	}
+
+	@Override
+	public boolean isPattern(String path) {
+		return (path.indexOf('*') != -1 || path.indexOf('?') != -1 || path.indexOf('{') != -1);
+	}
+
+	@Override
+	public boolean match(String pattern, String path) {
+		return getPathPattern(pattern).matches(getPathContainer(path));
+	}
+
+	@Override
+	public boolean matchStart(String pattern, String path) {
+		// Match the path against as many leading segments of the pattern as it has
+		String[] patternSegments = StringUtils.tokenizeToStringArray(pattern, PATH_SEPARATOR, false, true);
+		int pathSegmentCount = StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true).length;
+		if (pathSegmentCount >= patternSegments.length) {
+			return match(pattern, path);
+		}
+		StringBuilder prefix = new StringBuilder(pattern.startsWith(PATH_SEPARATOR) ? PATH_SEPARATOR : "");
+		for (int i = 0; i < pathSegmentCount; i++) {
+			String segment = patternSegments[i];
+			if ("**".equals(segment) || segment.startsWith("{*")) {
+				prefix.append(segment);
+				break;
+			}
+			prefix.append(segment);
+			if (i < pathSegmentCount - 1) {
+				prefix.append(PATH_SEPARATOR);
+			}
+		}
+		return match(prefix.toString(), path);
+	}
+
+	@Override
+	public String extractPathWithinPattern(String pattern, String path) {
+		PathContainer pathContainer = getPathContainer(path);
+		String pathWithinPattern = getPathPattern(pattern).extractPathWithinPattern(pathContainer).value();
+		return (pathContainer.value().equals(path) ? pathWithinPattern : unescape(pathWithinPattern));
+	}
+
+	@Override
+	public Map<String, String> extractUriTemplateVariables(String pattern, String path) {
+		PathPattern.PathMatchInfo matchInfo = getPathPattern(pattern).matchAndExtract(getPathContainer(path));
+		if (matchInfo == null) {
+			throw new IllegalStateException("Pattern \"" + pattern + "\" is not a match for \"" + path + "\"");
+		}
+		return matchInfo.getUriVariables();
+	}
+
+	@Override
+	public Comparator<String> getPatternComparator(String path) {
+		return (pattern1, pattern2) -> {
+			// Patterns equal to the path itself come first
+			boolean pattern1EqualsPath = path.equals(pattern1);
+			boolean pattern2EqualsPath = path.equals(pattern2);
+			if (pattern1EqualsPath && pattern2EqualsPath) {
+				return 0;
+			}
+			else if (pattern1EqualsPath) {
+				return -1;
+			}
+			else if (pattern2EqualsPath) {
+				return 1;
+			}
+			return PathPattern.SPECIFICITY_COMPARATOR.compare(
+					(pattern1 != null ? getPathPattern(pattern1) : null),
+					(pattern2 != null ? getPathPattern(pattern2) : null));
+		};
+	}
+
+	@Override
+	public String combine(String pattern1, String pattern2) {
+		if (!StringUtils.hasText(pattern1) && !StringUtils.hasText(pattern2)) {
+			return "";
+		}
+		if (!StringUtils.hasText(pattern1)) {
+			return pattern2;
+		}
+		if (!StringUtils.hasText(pattern2)) {
+			return pattern1;
+		}
+		return getPathPattern(pattern1).combine(getPathPattern(pattern2)).getPatternString();
+	}
+
+
+	/**
+	 * Return the parsed {@link PathPattern} for the given pattern string,
+	 * from the cache if possible.
+	 * @param pattern the pattern string
+	 * @return the parsed pattern
+	 * @throws PatternParseException if the pattern cannot be parsed
+	 */
+	protected PathPattern getPathPattern(String pattern) {
+		PathPattern pathPattern = this.patternCache.get(pattern);
+		if (pathPattern == null) {
+			pathPattern = this.parser.parse(pattern);
+			// Stop caching if there are obviously too many different patterns,
+			// as they are unlikely to be reoccurring (same as in AntPathMatcher)
+			if (this.patternCache.size() < CACHE_TURNOFF_THRESHOLD) {
+				this.patternCache.put(pattern, pathPattern);
+			}
+		}
+		return pathPattern;
+	}
+
+	private PathContainer getPathContainer(String path) {
+		ParsedPath parsedPath = this.lastParsedPath;
+		if (parsedPath == null || !parsedPath.path.equals(path)) {
+			parsedPath = new ParsedPath(path, PathContainer.parsePath(escape(path)));
+			this.lastParsedPath = parsedPath;
+		}
+		return parsedPath.pathContainer;
+	}
+
+	/**
+	 * Escape characters that {@link PathContainer} would otherwise interpret,
+	 * so that the path gets matched as given.
+	 */
+	private static String escape(String path) {
+		if (path.indexOf('%') == -1 && path.indexOf(';') == -1) {
+			return path;
+		}
+		return StringUtils.replace(StringUtils.replace(path, "%", "%25"), ";", "%3B");
+	}
+
+	private static String unescape(String path) {
+		return StringUtils.replace(StringUtils.replace(path, "%3B", ";"), "%25", "%");
+	}
+
+
+	/**
+	 * A path along with its parsed representation.
+	 */
+	private static final class ParsedPath {
+
+		final String path;
+
+		final PathContainer pathContainer;
+
+		ParsedPath(String path, PathContainer pathContainer) {
+			this.path = path;
+			this.pathContainer = pathContainer;
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.eclipse.jetty.client.HttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.io.buffer.AbstractDataBufferAllocatingTestCase;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Integration tests for {@link JettyClientHttpConnector} against a mock server,
+ * checking that request and response body buffers are released.
+ */
+public class JettyClientHttpConnectorTests extends AbstractDataBufferAllocatingTestCase {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+
+	private MockWebServer server;
+
+	private HttpClient httpClient;
+
+	private JettyClientHttpConnector connector;
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.server = new MockWebServer();
+		this.server.start();
+		this.httpClient = new HttpClient();
+		this.connector = new JettyClientHttpConnector(this.httpClient);
+		this.connector.setBufferFactory(this.bufferFactory);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.httpClient.stop();
+		this.server.shutdown();
+		waitForDataBufferRelease(Duration.ofSeconds(2));
+	}
+
+
+	@Test
+	public void exchange() throws Exception {
+		this.server.enqueue(new MockResponse()
+				.setResponseCode(201)
+				.setHeader("Content-Type", "text/plain")
+				.setHeader("Set-Cookie", "id=42; Path=/")
+				.setChunkedBody("Hello Jetty", 3));
+
+		Mono<String> result = this.connector.connect(HttpMethod.POST, uri("/greeting"), request -> {
+			request.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+			request.getHeaders().add("X-Foo", "bar");
+			return request.writeWith(Mono.just(stringBuffer("Hello server")));
+		}).flatMap(response -> {
+			assertEquals(HttpStatus.CREATED, response.getStatusCode());
+			assertEquals(MediaType.TEXT_PLAIN, response.getHeaders().getContentType());
+			assertEquals("42", response.getCookies().getFirst("id").getValue());
+			return DataBufferUtils.join(response.getBody()).map(buffer -> {
+				String body = DataBufferTestUtils.dumpString(buffer, StandardCharsets.UTF_8);
+				DataBufferUtils.release(buffer);
+				return body;
+			});
+		});
+
+		StepVerifier.create(result)
+				.expectNext("Hello Jetty")
+				.expectComplete()
+				.verify(TIMEOUT);
+
+		RecordedRequest request = this.server.takeRequest();
+		assertEquals("POST", request.getMethod());
+		assertEquals("/greeting", request.getPath());
+		assertEquals("bar", request.getHeader("X-Foo"));
+		assertEquals("*/*", request.getHeader("Accept"));
+		assertEquals("Hello server", request.getBody().readUtf8());
+	}
+
+	@Test
+	public void exchangeWithoutBody() throws Exception {
+		this.server.enqueue(new MockResponse().setResponseCode(204));
+
+		Mono<HttpStatus> result = this.connector.connect(HttpMethod.GET, uri("/"), ClientHttpRequest::setComplete)
+				.flatMap(response -> response.getBody().then(Mono.just(response.getStatusCode())));
+
+		StepVerifier.create(result)
+				.expectNext(HttpStatus.NO_CONTENT)
+				.expectComplete()
+				.verify(TIMEOUT);
+
+		assertEquals("GET", this.server.takeRequest().getMethod());
+	}
+
+	@Test
+	public void releaseResponseBody() {
+		this.server.enqueue(new MockResponse()
+				.setResponseCode(200)
+				.setChunkedBody(new String(new char[64 * 1024]).replace('\0', 'x'), 1024));
+
+		Mono<Long> result = this.connector.connect(HttpMethod.GET, uri("/"), ClientHttpRequest::setComplete)
+				.flatMap(response -> response.getBody()
+						.map(buffer -> {
+							int count = buffer.readableByteCount();
+							DataBufferUtils.release(buffer);
+							return (long) count;
+						})
+						.reduce(0L, Long::sum));
+
+		StepVerifier.create(result)
+				.expectNext(64L * 1024)
+				.expectComplete()
+				.verify(TIMEOUT);
+	}
+
+	@Test
+	public void connectionPoolListener() {
+		List<JettyConnectionPoolListener.PoolMetrics> metrics = new CopyOnWriteArrayList<>();
+		this.connector.setConnectionPoolListener(metrics::add);
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("foo"));
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("bar"));
+
+		for (int i = 0; i < 2; i++) {
+			Mono<Void> result = this.connector.connect(HttpMethod.GET, uri("/"), ClientHttpRequest::setComplete)
+					.flatMap(response -> response.getBody().map(DataBufferUtils::release).then());
+			StepVerifier.create(result).expectComplete().verify(TIMEOUT);
+		}
+
+		assertEquals(2, metrics.size());
+		for (JettyConnectionPoolListener.PoolMetrics poolMetrics : metrics) {
+			assertEquals("http://" + this.server.getHostName() + ":" + this.server.getPort(),
+					poolMetrics.getDestination());
+			assertEquals(1, poolMetrics.getActiveConnections());
+			assertEquals(0, poolMetrics.getIdleConnections());
+			assertEquals(0, poolMetrics.getPendingAcquisitions());
+			assertFalse(poolMetrics.getAcquireTime().isNegative());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void connectionPoolSizingWithInvalidValue() {
+		new JettyClientHttpConnector(0, 8);
+	}
+
+	@Test
+	public void relativeUri() {
+		StepVerifier.create(this.connector.connect(HttpMethod.GET, URI.create("/"), ClientHttpRequest::setComplete))
+				.expectError(IllegalArgumentException.class)
+				.verify(TIMEOUT);
+	}
+
+
+	private URI uri(String path) {
+		return this.server.url(path).uri();
+	}
+
+}
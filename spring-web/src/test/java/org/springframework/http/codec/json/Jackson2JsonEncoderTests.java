@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import static java.util.Collections.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.springframework.http.MediaType.*;
@@ -41,6 +42,7 @@ import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.Pojo;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -175,6 +177,50 @@ public class Jackson2JsonEncoderTests extends AbstractDataBufferAllocatingTestCa
 				.verifyComplete();
 	}
 
+	@Test
+	public void jsonViewWithCachedWriter() throws Exception {
+		JacksonViewBean bean = new JacksonViewBean();
+		bean.setWithView1("with");
+		bean.setWithView2("with");
+		bean.setWithoutView("without");
+
+		ResolvableType type = ResolvableType.forClass(JacksonViewBean.class);
+		Map<String, Object> hints = singletonMap(JSON_VIEW_HINT, MyJacksonView1.class);
+		for (int i = 0; i < 2; i++) {
+			StepVerifier.create(this.encoder.encode(Mono.just(bean), this.bufferFactory, type, null, hints))
+					.consumeNextWith(stringConsumer("{\"withView1\":\"with\"}"))
+					.verifyComplete();
+			StepVerifier.create(this.encoder.encode(Mono.just(bean), this.bufferFactory, type, null, emptyMap()))
+					.consumeNextWith(stringConsumer(
+							"{\"withView1\":\"with\",\"withView2\":\"with\",\"withoutView\":\"without\"}"))
+					.verifyComplete();
+		}
+	}
+
+	@Test
+	public void customizeWriterPerHints() throws Exception {
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder() {
+			@Override
+			protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable MimeType mimeType,
+					ResolvableType elementType, @Nullable Map<String, Object> hints) {
+
+				return (hints != null && hints.containsKey("pretty") ? writer.withDefaultPrettyPrinter() : writer);
+			}
+		};
+
+		Pojo pojo = new Pojo("foo", "bar");
+		ResolvableType type = ResolvableType.forClass(Pojo.class);
+		for (int i = 0; i < 2; i++) {
+			StepVerifier.create(encoder.encode(Mono.just(pojo), this.bufferFactory, type, null, emptyMap()))
+					.consumeNextWith(stringConsumer("{\"foo\":\"foo\",\"bar\":\"bar\"}"))
+					.verifyComplete();
+			StepVerifier.create(encoder.encode(Mono.just(pojo), this.bufferFactory, type, null,
+					singletonMap("pretty", true)))
+					.consumeNextWith(stringConsumer("{\n  \"foo\" : \"foo\",\n  \"bar\" : \"bar\"\n}"))
+					.verifyComplete();
+		}
+	}
+
 	@Test
 	public void classLevelJsonView() throws Exception {
 		JacksonViewBean bean = new JacksonViewBean();
@@ -186,6 +186,37 @@ public class Jackson2TokenizerTests extends AbstractDataBufferAllocatingTestCase
 		tokens.blockLast();
 	}
 
+	@Test
+	public void tokenizeArrayElementsWithinLimit() {
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("[{\"foo\": \"foofoo\"},"),
+				stringBuffer("{\"foo\": \"foofoo\"},"),
+				stringBuffer("{\"foo\": \"foofoo\"}]"));
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 20);
+
+		StepVerifier.create(tokens).expectNextCount(3).verifyComplete();
+	}
+
+	@Test
+	public void tokenizeArrayElementsExceedsLimit() {
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("[{\"foo\": \"foofoo\"}"),
+				stringBuffer(", {\"bar\": \"barbarbarbarbarbar\"}]"));
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 20);
+
+		StepVerifier.create(tokens).expectNextCount(1).expectError(DecodingException.class).verify();
+	}
+
+	@Test
+	public void incompleteElementExceedsLimit() {
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("[{\"foo\": \"foofoofoo"),
+				stringBuffer("foofoofoofoo"));
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 20);
+
+		StepVerifier.create(tokens).expectError(DecodingException.class).verify();
+	}
+
 
 	private void testTokenize(List<String> source, List<String> expected, boolean tokenizeArrayElements) {
 		Flux<TokenBuffer> tokenBufferFlux = Jackson2Tokenizer.tokenize(
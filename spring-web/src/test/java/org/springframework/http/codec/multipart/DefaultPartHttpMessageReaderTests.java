@@ -0,0 +1,251 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.test.MockClientHttpRequest;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+import static org.springframework.core.ResolvableType.*;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.http.MediaType.*;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ */
+public class DefaultPartHttpMessageReaderTests {
+
+	private static final ResolvableType PARTS_TYPE =
+			forClassWithGenerics(MultiValueMap.class, String.class, Part.class);
+
+	private final DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+
+	private final MultipartHttpMessageReader reader = new MultipartHttpMessageReader(this.partReader);
+
+
+	@Test
+	public void canRead() {
+		assertTrue(this.partReader.canRead(forClass(Part.class), MediaType.MULTIPART_FORM_DATA));
+		assertTrue(this.partReader.canRead(forClass(Part.class), null));
+		assertFalse(this.partReader.canRead(forClass(Part.class), MediaType.APPLICATION_FORM_URLENCODED));
+		assertFalse(this.partReader.canRead(forClass(Object.class), MediaType.MULTIPART_FORM_DATA));
+	}
+
+	@Test
+	public void resolveParts() {
+		MultiValueMap<String, Part> parts = readParts(generateMultipartRequest());
+		assertEquals(2, parts.size());
+
+		assertTrue(parts.containsKey("fooPart"));
+		Part part = parts.getFirst("fooPart");
+		assertTrue(part instanceof FilePart);
+		assertEquals("fooPart", part.name());
+		assertEquals("foo.txt", ((FilePart) part).filename());
+		assertEquals("Lorem Ipsum.", contentAsString(part));
+
+		assertTrue(parts.containsKey("barPart"));
+		part = parts.getFirst("barPart");
+		assertTrue(part instanceof FormFieldPart);
+		assertEquals("barPart", part.name());
+		assertEquals("bar", ((FormFieldPart) part).value());
+	}
+
+	@Test
+	public void resolvePartsFromSingleByteBuffers() {
+		ServerHttpRequest request = generateMultipartRequest();
+		Flux<DataBuffer> body = request.getBody().flatMapIterable(buffer -> {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			DataBufferUtils.release(buffer);
+			DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+			DataBuffer[] buffers = new DataBuffer[bytes.length];
+			for (int i = 0; i < bytes.length; i++) {
+				buffers[i] = bufferFactory.wrap(new byte[] {bytes[i]});
+			}
+			return Arrays.asList(buffers);
+		});
+		request = MockServerHttpRequest.post("/").contentType(request.getHeaders().getContentType()).body(body);
+
+		MultiValueMap<String, Part> parts = readParts(request);
+		assertEquals(2, parts.size());
+		assertEquals("Lorem Ipsum.", contentAsString(parts.getFirst("fooPart")));
+		assertEquals("bar", ((FormFieldPart) parts.getFirst("barPart")).value());
+	}
+
+	@Test
+	public void transferTo() throws Exception {
+		MultiValueMap<String, Part> parts = readParts(generateMultipartRequest());
+		FilePart part = (FilePart) parts.getFirst("fooPart");
+		assertNotNull(part);
+
+		File dest = File.createTempFile("DefaultPartHttpMessageReaderTests", ".txt");
+		part.transferTo(dest).block(Duration.ofSeconds(5));
+
+		assertEquals("Lorem Ipsum.", new String(Files.readAllBytes(dest.toPath()), StandardCharsets.UTF_8));
+		assertTrue(dest.delete());
+	}
+
+	@Test
+	public void transferToFromFileStorage() throws Exception {
+		this.partReader.setMaxInMemorySize(5);
+		MultiValueMap<String, Part> parts = readParts(generateMultipartRequest());
+		FilePart part = (FilePart) parts.getFirst("fooPart");
+		assertNotNull(part);
+
+		File dest = File.createTempFile("DefaultPartHttpMessageReaderTests", ".txt");
+		part.transferTo(dest).block(Duration.ofSeconds(5));
+
+		assertEquals("Lorem Ipsum.", new String(Files.readAllBytes(dest.toPath()), StandardCharsets.UTF_8));
+		assertTrue(dest.delete());
+	}
+
+	@Test
+	public void contentFromFileStorage() {
+		this.partReader.setMaxInMemorySize(5);
+		MultiValueMap<String, Part> parts = readParts(generateMultipartRequest());
+
+		assertEquals("Lorem Ipsum.", contentAsString(parts.getFirst("fooPart")));
+	}
+
+	@Test
+	public void deleteFromFileStorage() throws Exception {
+		Path directory = Files.createTempDirectory("DefaultPartHttpMessageReaderTests");
+		this.partReader.setFileStorageDirectory(directory);
+		this.partReader.setMaxInMemorySize(5);
+		MultiValueMap<String, Part> parts = readParts(generateMultipartRequest());
+		Part part = parts.getFirst("fooPart");
+		assertNotNull(part);
+		assertEquals(1, fileCount(directory));
+
+		part.delete().block(Duration.ofSeconds(5));
+
+		assertEquals(0, fileCount(directory));
+		Files.delete(directory);
+	}
+
+	@Test
+	public void tooManyParts() {
+		this.partReader.setMaxParts(1);
+		StepVerifier.create(this.reader.readMono(PARTS_TYPE, generateMultipartRequest(), emptyMap()))
+				.verifyError(DecodingException.class);
+	}
+
+	@Test
+	public void formFieldTooLarge() {
+		this.partReader.setMaxInMemorySize(2);
+		StepVerifier.create(this.reader.readMono(PARTS_TYPE, generateMultipartRequest(), emptyMap()))
+				.verifyError(DecodingException.class);
+	}
+
+	@Test
+	public void headersTooLarge() {
+		this.partReader.setMaxHeadersSize(10);
+		StepVerifier.create(this.reader.readMono(PARTS_TYPE, generateMultipartRequest(), emptyMap()))
+				.verifyError(DecodingException.class);
+	}
+
+	@Test
+	public void diskUsageTooLarge() {
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setMaxDiskUsagePerPart(10);
+		StepVerifier.create(this.reader.readMono(PARTS_TYPE, generateMultipartRequest(), emptyMap()))
+				.verifyError(DecodingException.class);
+	}
+
+	@Test
+	public void noBoundary() {
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header(CONTENT_TYPE, MULTIPART_FORM_DATA.toString())
+				.body(Flux.just(new DefaultDataBufferFactory().wrap("invalid content".getBytes())));
+		StepVerifier.create(this.reader.readMono(PARTS_TYPE, request, emptyMap()))
+				.verifyError(DecodingException.class);
+	}
+
+	@Test
+	public void bodyError() {
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header(CONTENT_TYPE, MULTIPART_FORM_DATA.toString() + ";boundary=foo")
+				.body(Flux.just(new DefaultDataBufferFactory().wrap("invalid content".getBytes())));
+		StepVerifier.create(this.reader.readMono(PARTS_TYPE, request, emptyMap()))
+				.verifyError(DecodingException.class);
+	}
+
+
+	private MultiValueMap<String, Part> readParts(ServerHttpRequest request) {
+		MultiValueMap<String, Part> parts = this.reader.readMono(PARTS_TYPE, request, emptyMap())
+				.block(Duration.ofSeconds(5));
+		assertNotNull(parts);
+		return parts;
+	}
+
+	private static String contentAsString(Part part) {
+		DataBuffer buffer = DataBufferUtils.join(part.content()).block(Duration.ofSeconds(5));
+		assertNotNull(buffer);
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		DataBufferUtils.release(buffer);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static long fileCount(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private ServerHttpRequest generateMultipartRequest() {
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		partsBuilder.part("barPart", "bar");
+
+		MockClientHttpRequest outputMessage = new MockClientHttpRequest(HttpMethod.POST, "/");
+		new MultipartHttpMessageWriter()
+				.write(Mono.just(partsBuilder.build()), null, MediaType.MULTIPART_FORM_DATA, outputMessage, null)
+				.block(Duration.ofSeconds(5));
+
+		return MockServerHttpRequest.post("/")
+				.contentType(outputMessage.getHeaders().getContentType())
+				.body(outputMessage.getBody());
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.google.protobuf.Message;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.AbstractDataBufferAllocatingTestCase;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.protobuf.Msg;
+import org.springframework.protobuf.SecondMsg;
+import org.springframework.util.MimeType;
+
+import static org.junit.Assert.*;
+import static org.springframework.core.ResolvableType.*;
+
+/**
+ * Unit tests for {@link ProtobufDecoder}.
+ */
+public class ProtobufDecoderTests extends AbstractDataBufferAllocatingTestCase {
+
+	private static final MimeType PROTOBUF_MIME_TYPE = new MimeType("application", "x-protobuf");
+
+	private final SecondMsg secondMsg = SecondMsg.newBuilder().setBlah(123).build();
+
+	private final Msg testMsg1 = Msg.newBuilder().setFoo("Foo").setBlah(this.secondMsg).build();
+
+	private final SecondMsg secondMsg2 = SecondMsg.newBuilder().setBlah(456).build();
+
+	private final Msg testMsg2 = Msg.newBuilder().setFoo("Bar").setBlah(this.secondMsg2).build();
+
+	private final ProtobufDecoder decoder = new ProtobufDecoder();
+
+
+	@Test
+	public void canDecode() {
+		assertTrue(this.decoder.canDecode(forClass(Msg.class), null));
+		assertTrue(this.decoder.canDecode(forClass(Msg.class), PROTOBUF_MIME_TYPE));
+		assertTrue(this.decoder.canDecode(forClass(Msg.class), MimeType.valueOf("application/octet-stream")));
+		assertFalse(this.decoder.canDecode(forClass(Msg.class), MimeType.valueOf("application/json")));
+		assertFalse(this.decoder.canDecode(forClass(Object.class), PROTOBUF_MIME_TYPE));
+	}
+
+	@Test
+	public void decodeToMono() {
+		Mono<DataBuffer> input = Mono.fromCallable(() -> dataBuffer(this.testMsg1.toByteArray()));
+
+		Mono<Message> result = this.decoder.decodeToMono(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(result)
+				.expectNext(this.testMsg1)
+				.verifyComplete();
+	}
+
+	@Test
+	public void decodeChunksToMono() {
+		byte[] full = this.testMsg1.toByteArray();
+		byte[] chunk1 = new byte[full.length / 2];
+		byte[] chunk2 = new byte[full.length - chunk1.length];
+		System.arraycopy(full, 0, chunk1, 0, chunk1.length);
+		System.arraycopy(full, chunk1.length, chunk2, 0, chunk2.length);
+
+		Flux<DataBuffer> input = Flux.just(chunk1, chunk2).map(this::dataBuffer);
+
+		Mono<Message> result = this.decoder.decodeToMono(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(result)
+				.expectNext(this.testMsg1)
+				.verifyComplete();
+	}
+
+	@Test
+	public void exceedMaxSizeToMono() {
+		this.decoder.setMaxMessageSize(1);
+		Mono<DataBuffer> input = Mono.fromCallable(() -> dataBuffer(this.testMsg1.toByteArray()));
+
+		Mono<Message> result = this.decoder.decodeToMono(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(result)
+				.verifyError(DecodingException.class);
+	}
+
+	@Test
+	public void decode() {
+		Flux<DataBuffer> input = Flux.just(this.testMsg1, this.testMsg2).map(this::delimited);
+
+		Flux<Message> messages = this.decoder.decode(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(messages)
+				.expectNext(this.testMsg1)
+				.expectNext(this.testMsg2)
+				.verifyComplete();
+	}
+
+	@Test
+	public void decodeMessagesInSingleBuffer() {
+		Flux<DataBuffer> input = Flux.just(this.testMsg1, this.testMsg2).map(this::delimited)
+				.reduce((buffer1, buffer2) -> {
+					buffer1.write(buffer2);
+					DataBufferUtils.release(buffer2);
+					return buffer1;
+				}).flux();
+
+		Flux<Message> messages = this.decoder.decode(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(messages)
+				.expectNext(this.testMsg1)
+				.expectNext(this.testMsg2)
+				.verifyComplete();
+	}
+
+	@Test
+	public void decodeSplitChunks() {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try {
+			for (int i = 0; i < 10; i++) {
+				Msg msg = Msg.newBuilder().setFoo(new String(new char[i * 20]).replace('\0', 'x'))
+						.setBlah(this.secondMsg).build();
+				msg.writeDelimitedTo(bos);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		byte[] bytes = bos.toByteArray();
+
+		// Split at every byte, including within message sizes
+		Flux<DataBuffer> input = Flux.range(0, bytes.length)
+				.map(i -> dataBuffer(new byte[] {bytes[i]}));
+
+		Flux<Message> messages = this.decoder.decode(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(messages)
+				.expectNextCount(10)
+				.verifyComplete();
+	}
+
+	@Test
+	public void decodeTruncatedMessage() {
+		Flux<DataBuffer> input = Flux.just(this.testMsg1).map(this::delimited)
+				.map(buffer -> buffer.slice(0, buffer.readableByteCount() - 1));
+
+		Flux<Message> messages = this.decoder.decode(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(messages)
+				.verifyComplete();
+	}
+
+	@Test
+	public void cancelWithPartialMessage() {
+		DataBuffer buffer = delimited(this.testMsg1);
+		Flux<DataBuffer> input = Flux.concat(
+				Mono.just(buffer.slice(0, buffer.readableByteCount() - 1)), Flux.never());
+
+		Flux<Message> messages = this.decoder.decode(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(messages)
+				.expectSubscription()
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	public void exceedMaxSize() {
+		this.decoder.setMaxMessageSize(1);
+		Flux<DataBuffer> input = Flux.just(this.testMsg1).map(this::delimited);
+
+		Flux<Message> messages = this.decoder.decode(input, forClass(Msg.class), null, null);
+
+		StepVerifier.create(messages)
+				.verifyError(DecodingException.class);
+	}
+
+
+	private DataBuffer delimited(Message message) {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try {
+			message.writeDelimitedTo(bos);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return dataBuffer(bos.toByteArray());
+	}
+
+	private DataBuffer dataBuffer(byte[] bytes) {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length);
+		buffer.write(bytes);
+		return buffer;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.protobuf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.io.buffer.AbstractDataBufferAllocatingTestCase;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.protobuf.Msg;
+import org.springframework.protobuf.SecondMsg;
+import org.springframework.util.MimeType;
+
+import static org.junit.Assert.*;
+import static org.springframework.core.ResolvableType.*;
+
+/**
+ * Unit tests for {@link ProtobufEncoder}.
+ */
+public class ProtobufEncoderTests extends AbstractDataBufferAllocatingTestCase {
+
+	private static final MimeType PROTOBUF_MIME_TYPE = new MimeType("application", "x-protobuf");
+
+	private final Msg testMsg1 = Msg.newBuilder().setFoo("Foo")
+			.setBlah(SecondMsg.newBuilder().setBlah(123).build()).build();
+
+	private final Msg testMsg2 = Msg.newBuilder().setFoo("Bar")
+			.setBlah(SecondMsg.newBuilder().setBlah(456).build()).build();
+
+	private final ProtobufEncoder encoder = new ProtobufEncoder();
+
+
+	@Test
+	public void canEncode() {
+		assertTrue(this.encoder.canEncode(forClass(Msg.class), null));
+		assertTrue(this.encoder.canEncode(forClass(Msg.class), PROTOBUF_MIME_TYPE));
+		assertTrue(this.encoder.canEncode(forClass(Msg.class), MimeType.valueOf("application/octet-stream")));
+		assertFalse(this.encoder.canEncode(forClass(Msg.class), MimeType.valueOf("application/json")));
+		assertFalse(this.encoder.canEncode(forClass(Object.class), PROTOBUF_MIME_TYPE));
+	}
+
+	@Test
+	public void encode() {
+		Mono<Msg> input = Mono.just(this.testMsg1);
+
+		Flux<DataBuffer> output = this.encoder.encode(input, this.bufferFactory, forClass(Msg.class), null, null);
+
+		StepVerifier.create(output)
+				.consumeNextWith(dataBuffer -> {
+					try {
+						assertEquals(this.testMsg1.getSerializedSize(), dataBuffer.readableByteCount());
+						assertEquals(this.testMsg1, Msg.parseFrom(dataBuffer.asInputStream()));
+					}
+					catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+					finally {
+						DataBufferUtils.release(dataBuffer);
+					}
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	public void encodeStream() {
+		Flux<Msg> input = Flux.just(this.testMsg1, this.testMsg2);
+
+		Flux<DataBuffer> output = this.encoder.encode(input, this.bufferFactory, forClass(Msg.class), null, null);
+
+		StepVerifier.create(output)
+				.consumeNextWith(dataBuffer -> assertDelimited(this.testMsg1, dataBuffer))
+				.consumeNextWith(dataBuffer -> assertDelimited(this.testMsg2, dataBuffer))
+				.verifyComplete();
+	}
+
+
+	private void assertDelimited(Msg expected, DataBuffer dataBuffer) {
+		try {
+			assertEquals(expected, Msg.parseDelimitedFrom(dataBuffer.asInputStream()));
+			assertEquals(0, dataBuffer.readableByteCount());
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -77,6 +77,21 @@ public class HandlerMethodArgumentResolverCompositeTests {
 		this.resolvers.resolveArgument(paramStr, null, null, null);
 	}
 
+	@Test
+	public void getArgumentResolvers() throws Exception {
+		StubArgumentResolver resolver = registerResolver(Integer.class, Integer.valueOf(55));
+		MethodParameter[] parameters = new MethodParameter[] {paramInt, paramStr};
+		HandlerMethodArgumentResolver[] argumentResolvers = this.resolvers.getArgumentResolvers(parameters);
+
+		assertEquals(2, argumentResolvers.length);
+		assertSame(resolver, argumentResolvers[0]);
+		assertNull(argumentResolvers[1]);
+		assertSame(argumentResolvers, this.resolvers.getArgumentResolvers(parameters));
+		assertSame(argumentResolvers, this.resolvers.getArgumentResolvers(
+				new MethodParameter[] {new MethodParameter(paramInt), new MethodParameter(paramStr)}));
+		assertNotSame(argumentResolvers, this.resolvers.getArgumentResolvers(new MethodParameter[] {paramInt}));
+	}
+
 	protected StubArgumentResolver registerResolver(Class<?> supportedType, Object stubValue) {
 		StubArgumentResolver resolver = new StubArgumentResolver(supportedType, stubValue);
 		this.resolvers.addResolver(resolver);
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompressedResourceCache}.
+ *
+ * @since 5.0.16
+ */
+public class CompressedResourceCacheTests {
+
+	private final CompressedResourceCache cache = new CompressedResourceCache();
+
+	private File directory;
+
+	private byte[] content;
+
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("CompressedResourceCacheTests").toFile();
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			builder.append("body { color: red; }\n");
+		}
+		this.content = builder.toString().getBytes("UTF-8");
+	}
+
+	@After
+	public void tearDown() {
+		FileSystemUtils.deleteRecursively(this.directory);
+	}
+
+
+	@Test
+	public void compressInMemory() throws IOException {
+		Resource resource = createResource("main.css", this.content);
+		Resource gzipped = this.cache.getCompressedResource(resource, "gzip");
+		assertNotNull(gzipped);
+		assertTrue(gzipped.contentLength() < this.content.length);
+		assertArrayEquals(this.content, StreamUtils.copyToByteArray(new GZIPInputStream(gzipped.getInputStream())));
+
+		Resource deflated = this.cache.getCompressedResource(resource, "deflate");
+		assertNotNull(deflated);
+		assertArrayEquals(this.content, StreamUtils.copyToByteArray(new InflaterInputStream(deflated.getInputStream())));
+
+		assertEquals(gzipped.contentLength() + deflated.contentLength(), this.cache.getSize());
+		this.cache.clear();
+		assertEquals(0, this.cache.getSize());
+	}
+
+	@Test
+	public void identicalContentCompressedOnce() throws IOException {
+		this.cache.getCompressedResource(createResource("a.css", this.content), "gzip");
+		long size = this.cache.getSize();
+		assertTrue(size > 0);
+		Resource other = this.cache.getCompressedResource(createResource("b.css", this.content), "gzip");
+		assertNotNull(other);
+		assertEquals(size, this.cache.getSize());
+	}
+
+	@Test
+	public void compressToCacheDirectory() throws IOException {
+		File cacheDirectory = new File(this.directory, "cache");
+		this.cache.setCacheDirectory(cacheDirectory);
+		Resource resource = createResource("main.css", this.content);
+		Resource gzipped = this.cache.getCompressedResource(resource, "gzip");
+		assertNotNull(gzipped);
+		assertTrue(gzipped.getFilename().endsWith(".gzip"));
+		File file = new File(cacheDirectory, gzipped.getFilename());
+		assertTrue(file.isFile());
+		assertEquals(file.length(), gzipped.contentLength());
+		assertArrayEquals(this.content, StreamUtils.copyToByteArray(new GZIPInputStream(gzipped.getInputStream())));
+
+		// Reused by another cache instance, e.g. after a restart
+		CompressedResourceCache other = new CompressedResourceCache();
+		other.setCacheDirectory(cacheDirectory);
+		Resource reused = other.getCompressedResource(resource, "gzip");
+		assertNotNull(reused);
+		assertEquals(gzipped.getFilename(), reused.getFilename());
+		assertEquals(gzipped.contentLength(), other.getSize());
+	}
+
+	@Test
+	public void evictedFileDeletedOnceNotRead() throws IOException {
+		File cacheDirectory = new File(this.directory, "cache");
+		this.cache.setCacheDirectory(cacheDirectory);
+		Resource gzipped = this.cache.getCompressedResource(createResource("main.css", this.content), "gzip");
+		assertNotNull(gzipped);
+		File file = new File(cacheDirectory, gzipped.getFilename());
+
+		try (InputStream in = gzipped.getInputStream()) {
+			this.cache.clear();
+			assertTrue(file.isFile());
+			assertArrayEquals(this.content, StreamUtils.copyToByteArray(new GZIPInputStream(in)));
+		}
+		assertFalse(file.exists());
+
+		// Still readable, compressed again in memory
+		assertArrayEquals(this.content, StreamUtils.copyToByteArray(new GZIPInputStream(gzipped.getInputStream())));
+	}
+
+	@Test
+	public void evictedFileInUseReusedForSameContent() throws IOException {
+		File cacheDirectory = new File(this.directory, "cache");
+		this.cache.setCacheDirectory(cacheDirectory);
+		Resource resource = createResource("main.css", this.content);
+		Resource gzipped = this.cache.getCompressedResource(resource, "gzip");
+		assertNotNull(gzipped);
+		File file = new File(cacheDirectory, gzipped.getFilename());
+
+		InputStream in = gzipped.getInputStream();
+		this.cache.clear();
+		Resource again = this.cache.getCompressedResource(resource, "gzip");
+		assertNotNull(again);
+		in.close();
+		assertTrue(file.isFile());
+		assertEquals(file.length(), this.cache.getSize());
+		assertArrayEquals(this.content, StreamUtils.copyToByteArray(new GZIPInputStream(again.getInputStream())));
+	}
+
+	@Test
+	public void notCompressible() throws IOException {
+		byte[] random = new byte[2048];
+		new Random(42).nextBytes(random);
+		Resource resource = createResource("image.bin", random);
+		assertNull(this.cache.getCompressedResource(resource, "gzip"));
+		assertNull(this.cache.getCompressedResource(resource, "gzip"));
+		assertEquals(0, this.cache.getSize());
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws IOException {
+		this.cache.setMaxSize(2500);
+		Resource first = createResource("first.txt", randomText(2000));
+		Resource second = createResource("second.txt", randomText(2000));
+		long firstSize = this.cache.getCompressedResource(first, "gzip").contentLength();
+		long secondSize = this.cache.getCompressedResource(second, "gzip").contentLength();
+		assertTrue(firstSize + secondSize > 2500);
+		assertEquals(secondSize, this.cache.getSize());
+	}
+
+	@Test
+	public void tooLarge() throws IOException {
+		this.cache.setMaxSize(100);
+		assertNull(this.cache.getCompressedResource(createResource("main.css", this.content), "gzip"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedCoding() throws IOException {
+		this.cache.getCompressedResource(createResource("main.css", this.content), "br");
+	}
+
+
+	private Resource createResource(String name, byte[] bytes) throws IOException {
+		File file = new File(this.directory, name);
+		Files.write(file.toPath(), bytes);
+		return new FileSystemResource(file);
+	}
+
+	private byte[] randomText(int length) {
+		Random random = new Random();
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) ('a' + random.nextInt(26));
+		}
+		return bytes;
+	}
+
+}
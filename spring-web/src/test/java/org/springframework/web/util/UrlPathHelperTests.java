@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -166,6 +166,27 @@ public class UrlPathHelperTests {
 		assertEquals("/welcome.html;c=d", helper.getLookupPathForRequest(request));
 	}
 
+	@Test
+	public void resolveAndCacheLookupPath() {
+		request.setContextPath("/petclinic");
+		request.setServletPath("/main");
+		request.setRequestURI("/petclinic/main/welcome.html");
+
+		assertEquals("/welcome.html", helper.resolveAndCacheLookupPath(request));
+		assertNotNull(request.getAttribute(UrlPathHelper.PATH_ATTRIBUTE));
+
+		// Cached lookup path only applies to the same helper
+		UrlPathHelper otherHelper = new UrlPathHelper();
+		otherHelper.setAlwaysUseFullPath(true);
+		assertEquals("/main/welcome.html", otherHelper.getLookupPathForRequest(request));
+		assertEquals("/welcome.html", helper.getLookupPathForRequest(request));
+
+		// ... and to the same request URI and servlet path
+		request.setServletPath("/other");
+		request.setRequestURI("/petclinic/other/owners.html");
+		assertEquals("/owners.html", helper.getLookupPathForRequest(request));
+	}
+
 
 	//
 	// suite of tests root requests for default servlets (SRV 11.2) on Websphere vs Tomcat and other containers
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PathPatternMatcher}.
+ *
+ * @since 5.0.16
+ */
+public class PathPatternMatcherTests {
+
+	private final PathPatternMatcher pathMatcher = new PathPatternMatcher();
+
+
+	@Test
+	public void isPattern() {
+		assertTrue(this.pathMatcher.isPattern("/persons/*"));
+		assertTrue(this.pathMatcher.isPattern("/persons/{id}"));
+		assertTrue(this.pathMatcher.isPattern("/persons/?"));
+		assertFalse(this.pathMatcher.isPattern("/persons/42"));
+	}
+
+	@Test
+	public void match() {
+		assertTrue(this.pathMatcher.match("/persons/{id}", "/persons/42"));
+		assertTrue(this.pathMatcher.match("/persons/*.json", "/persons/42.json"));
+		assertTrue(this.pathMatcher.match("/resources/**", "/resources/css/main.css"));
+		assertFalse(this.pathMatcher.match("/persons/{id}", "/persons/42/orders"));
+		assertFalse(this.pathMatcher.match("/persons/{id}", "/orders/42"));
+	}
+
+	@Test
+	public void matchAsGiven() {
+		// No decoding and no parsing of path parameters
+		assertTrue(this.pathMatcher.match("/persons/{id}", "/persons/a%b"));
+		assertFalse(this.pathMatcher.match("/persons/a b", "/persons/a%20b"));
+		assertFalse(this.pathMatcher.match("/persons/42", "/persons/42;a=b"));
+		assertEquals(Collections.singletonMap("id", "42;a=b"),
+				this.pathMatcher.extractUriTemplateVariables("/persons/{id}", "/persons/42;a=b"));
+		assertEquals("a%b/c", this.pathMatcher.extractPathWithinPattern("/files/**", "/files/a%b/c"));
+	}
+
+	@Test
+	public void matchStart() {
+		assertTrue(this.pathMatcher.matchStart("/persons/{id}/orders", "/persons/42"));
+		assertTrue(this.pathMatcher.matchStart("/persons/**", "/persons/42/orders"));
+		assertTrue(this.pathMatcher.matchStart("/persons/{id}", "/persons/42"));
+		assertFalse(this.pathMatcher.matchStart("/persons/{id}/orders", "/orders/42"));
+	}
+
+	@Test
+	public void extractPathWithinPattern() {
+		assertEquals("css/main.css", this.pathMatcher.extractPathWithinPattern("/resources/**", "/resources/css/main.css"));
+		assertEquals("main.css", this.pathMatcher.extractPathWithinPattern("/resources/*.css", "/resources/main.css"));
+		assertEquals("", this.pathMatcher.extractPathWithinPattern("/resources/main.css", "/resources/main.css"));
+	}
+
+	@Test
+	public void extractUriTemplateVariables() {
+		Map<String, String> variables =
+				this.pathMatcher.extractUriTemplateVariables("/persons/{id}/orders/{order}", "/persons/42/orders/7");
+		assertEquals(2, variables.size());
+		assertEquals("42", variables.get("id"));
+		assertEquals("7", variables.get("order"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void extractUriTemplateVariablesWithoutMatch() {
+		this.pathMatcher.extractUriTemplateVariables("/persons/{id}", "/orders/42");
+	}
+
+	@Test
+	public void patternComparator() {
+		List<String> patterns = Arrays.asList("/persons/**", "/persons/{id}", "/persons/42", "/persons/*");
+		patterns.sort(this.pathMatcher.getPatternComparator("/persons/42"));
+		assertEquals(Arrays.asList("/persons/42", "/persons/{id}", "/persons/*", "/persons/**"), patterns);
+	}
+
+	@Test
+	public void combine() {
+		assertEquals("", this.pathMatcher.combine(null, null));
+		assertEquals("/persons", this.pathMatcher.combine("/persons", null));
+		assertEquals("/{id}", this.pathMatcher.combine(null, "/{id}"));
+		assertEquals("/persons/{id}", this.pathMatcher.combine("/persons", "/{id}"));
+		assertEquals("/persons/{id}", this.pathMatcher.combine("/persons/*", "/{id}"));
+		assertEquals("/persons.html", this.pathMatcher.combine("/*.html", "/persons"));
+	}
+
+	@Test
+	public void caseInsensitiveParser() {
+		PathPatternParser parser = new PathPatternParser();
+		parser.setCaseSensitive(false);
+		PathPatternMatcher pathMatcher = new PathPatternMatcher(parser);
+		assertSame(parser, pathMatcher.getPathPatternParser());
+		assertTrue(pathMatcher.match("/persons/{id}", "/PERSONS/42"));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,9 +94,11 @@ public class CachingResourceResolver extends AbstractResourceResolver {
 		StringBuilder key = new StringBuilder(RESOLVED_RESOURCE_CACHE_KEY_PREFIX);
 		key.append(requestPath);
 		if (exchange != null) {
-			String encoding = exchange.getRequest().getHeaders().getFirst("Accept-Encoding");
-			if (encoding != null && encoding.contains("gzip")) {
-				key.append("+encoding=gzip");
+			// Key by all codings accepted, as an EncodedResourceResolver may serve any of them
+			String codings = EncodedResourceResolver.getAcceptEncodingKey(
+					exchange.getRequest().getHeaders().getFirst("Accept-Encoding"));
+			if (!codings.isEmpty()) {
+				key.append("+encoding=").append(codings);
 			}
 		}
 		return key.toString();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,12 @@
 
 package org.springframework.web.reactive.resource;
 
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -24,7 +30,7 @@ import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
-import org.springframework.util.DigestUtils;
+import org.springframework.lang.Nullable;
 import org.springframework.util.StreamUtils;
 
 /**
@@ -32,6 +38,10 @@ import org.springframework.util.StreamUtils;
  * of the resource and appends it to the file name, e.g.
  * {@code "styles/main-e36d2e05253c6c7085a91522ce43a0b4.css"}.
  *
+ * <p>Hashes are computed over the streamed content, without joining it into
+ * a single buffer, and kept in a version manifest keyed by resource URL, valid
+ * for as long as the last-modified timestamp of the resource remains the same.
+ *
  * @author Rossen Stoyanchev
  * @author Brian Clozel
  * @since 5.0
@@ -41,18 +51,97 @@ public class ContentVersionStrategy extends AbstractFileNameVersionStrategy {
 
 	private static final DataBufferFactory dataBufferFactory = new DefaultDataBufferFactory();
 
+	private static final char[] HEX_CHARS =
+			{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+
+	private final Map<String, ContentVersion> versionManifest = new ConcurrentHashMap<>(256);
+
 
 	@Override
 	public Mono<String> getResourceVersion(Resource resource) {
+		String key = getManifestKey(resource);
+		long lastModified = (key != null ? getLastModified(resource) : 0);
+		if (key != null && lastModified > 0) {
+			ContentVersion cached = this.versionManifest.get(key);
+			if (cached != null && cached.lastModified == lastModified) {
+				return Mono.just(cached.version);
+			}
+		}
 		Flux<DataBuffer> flux =
 				DataBufferUtils.read(resource, dataBufferFactory, StreamUtils.BUFFER_SIZE);
-		return DataBufferUtils.join(flux)
-				.map(buffer -> {
-					byte[] result = new byte[buffer.readableByteCount()];
-					buffer.read(result);
+		return flux
+				.reduceWith(ContentVersionStrategy::createDigest, (digest, buffer) -> {
+					digest.update(buffer.asByteBuffer());
 					DataBufferUtils.release(buffer);
-					return DigestUtils.md5DigestAsHex(result);
+					return digest;
+				})
+				.map(digest -> {
+					String version = encodeHex(digest.digest());
+					if (key != null && lastModified > 0) {
+						this.versionManifest.put(key, new ContentVersion(lastModified, version));
+					}
+					return version;
 				});
 	}
 
+	/**
+	 * Remove all entries from the version manifest.
+	 * @since 5.0.16
+	 */
+	public void clearVersionManifest() {
+		this.versionManifest.clear();
+	}
+
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find MessageDigest with algorithm \"MD5\"", ex);
+		}
+	}
+
+	private static String encodeHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX_CHARS[(bytes[i] >> 4) & 0xf];
+			chars[i * 2 + 1] = HEX_CHARS[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+
+	@Nullable
+	private static String getManifestKey(Resource resource) {
+		try {
+			return resource.getURL().toExternalForm();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private static long getLastModified(Resource resource) {
+		try {
+			return resource.lastModified();
+		}
+		catch (IOException ex) {
+			return 0;
+		}
+	}
+
+
+	private static final class ContentVersion {
+
+		final long lastModified;
+
+		final String version;
+
+		ContentVersion(long lastModified, String version) {
+			this.lastModified = lastModified;
+			this.version = version;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,11 @@ package org.springframework.web.reactive.resource;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -51,6 +53,13 @@ import org.springframework.web.util.pattern.PathPatternParser;
  */
 public class ResourceUrlProvider implements ApplicationListener<ContextRefreshedEvent> {
 
+	/**
+	 * Default maximum number of public URL paths to cache.
+	 * @since 5.0.16
+	 * @see #setUrlCacheLimit
+	 */
+	public static final int DEFAULT_URL_CACHE_LIMIT = 1024;
+
 	private static final Log logger = LogFactory.getLog(ResourceUrlProvider.class);
 
 
@@ -58,6 +67,12 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 
 	private final Map<PathPattern, ResourceWebHandler> handlerMap = new LinkedHashMap<>();
 
+	private int urlCacheLimit = DEFAULT_URL_CACHE_LIMIT;
+
+	private final Map<String, String> urlCache = new ConcurrentHashMap<>(256);
+
+	private boolean precomputeVersions = false;
+
 
 	/**
 	 * Return a read-only view of the resource handler mappings either manually
@@ -81,6 +96,49 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 			PathPattern pattern = this.patternParser.parse(rawPattern);
 			this.handlerMap.put(pattern, resourceWebHandler);
 		});
+		this.urlCache.clear();
+	}
+
+	/**
+	 * Set the maximum number of resolved public URL paths to cache by lookup path,
+	 * or 0 to resolve every lookup path through the resolver chain again.
+	 * <p>Only URL paths resolved by a handler whose resolver chain includes a
+	 * {@link CachingResourceResolver} are cached, since the chain itself would
+	 * otherwise not cache them either, e.g. during development.
+	 * <p>By default this is set to {@link #DEFAULT_URL_CACHE_LIMIT}.
+	 * @since 5.0.16
+	 */
+	public void setUrlCacheLimit(int urlCacheLimit) {
+		this.urlCacheLimit = urlCacheLimit;
+		this.urlCache.clear();
+	}
+
+	/**
+	 * Return the maximum number of resolved public URL paths to cache.
+	 * @since 5.0.16
+	 */
+	public int getUrlCacheLimit() {
+		return this.urlCacheLimit;
+	}
+
+	/**
+	 * Whether to compute the content-based versions of the resources of all
+	 * resource handlers with a {@link VersionResourceResolver} when the
+	 * application context is refreshed, rather than on first use.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.0.16
+	 * @see VersionResourceResolver#precomputeVersions
+	 */
+	public void setPrecomputeVersions(boolean precomputeVersions) {
+		this.precomputeVersions = precomputeVersions;
+	}
+
+	/**
+	 * Whether content-based versions are computed on context refresh.
+	 * @since 5.0.16
+	 */
+	public boolean isPrecomputeVersions() {
+		return this.precomputeVersions;
 	}
 
 	@Override
@@ -91,6 +149,23 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 				logger.debug("No resource handling mappings found");
 			}
 		}
+		this.urlCache.clear();
+		if (isPrecomputeVersions()) {
+			precomputeVersions();
+		}
+	}
+
+	private void precomputeVersions() {
+		for (ResourceWebHandler handler : this.handlerMap.values()) {
+			for (ResourceResolver resolver : handler.getResourceResolvers()) {
+				if (resolver instanceof VersionResourceResolver) {
+					Integer count = ((VersionResourceResolver) resolver).precomputeVersions(handler.getLocations()).block();
+					if (logger.isDebugEnabled()) {
+						logger.debug("Precomputed " + count + " resource versions for " + handler.getLocations());
+					}
+				}
+			}
+		}
 	}
 
 	private void detectResourceHandlers(ApplicationContext context) {
@@ -154,6 +229,10 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 	}
 
 	private Mono<String> resolveResourceUrl(PathContainer lookupPath) {
+		String cached = this.urlCache.get(lookupPath.value());
+		if (cached != null) {
+			return Mono.just(cached);
+		}
 		return this.handlerMap.entrySet().stream()
 				.filter(entry -> entry.getKey().matches(lookupPath))
 				.sorted((entry1, entry2) ->
@@ -174,12 +253,40 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 								if (logger.isTraceEnabled()) {
 									logger.trace("Resolved public resource URL path \"" + resolvedPath + "\"");
 								}
-								return mapping.value() + resolvedPath;
+								String url = mapping.value() + resolvedPath;
+								if (isUrlCacheable(handler)) {
+									cacheUrl(lookupPath.value(), url);
+								}
+								return url;
 							});
 				})
 				.orElse(Mono.empty());
 	}
 
+	private boolean isUrlCacheable(ResourceWebHandler handler) {
+		if (this.urlCacheLimit <= 0) {
+			return false;
+		}
+		for (ResourceResolver resolver : handler.getResourceResolvers()) {
+			if (resolver instanceof CachingResourceResolver) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void cacheUrl(String lookupPath, String url) {
+		if (this.urlCache.size() >= this.urlCacheLimit) {
+			// Evict an arbitrary entry, keeping the cache within bounds without a lock
+			Iterator<String> it = this.urlCache.keySet().iterator();
+			if (it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+		}
+		this.urlCache.put(lookupPath, url);
+	}
+
 
 	private static String prependLeadingSlash(String pattern) {
 		if (StringUtils.hasLength(pattern) && !pattern.startsWith("/")) {
@@ -28,6 +28,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.AbstractResource;
@@ -154,6 +155,75 @@ public class VersionResourceResolver extends AbstractResourceResolver {
 	}
 
 
+	/**
+	 * Compute the content-based versions of all files in the given locations
+	 * in advance, so that the first requests for versioned URLs do not have
+	 * to hash the content of the resources they refer to.
+	 * <p>Only locations in the file system are walked, and only files for
+	 * which a {@link ContentVersionStrategy} applies are hashed. Each file is
+	 * resolved relative to its location, as by {@link PathResourceResolver},
+	 * so that the versions are found again for the resources resolved at
+	 * request time.
+	 * @param locations the resource locations, e.g. of a resource handler
+	 * @return the number of files for which a version has been computed,
+	 * once all of them have been computed
+	 * @since 5.0.16
+	 */
+	public Mono<Integer> precomputeVersions(List<? extends Resource> locations) {
+		List<Mono<String>> versions = new ArrayList<>();
+		for (Resource location : locations) {
+			File directory;
+			try {
+				directory = (location.isFile() ? location.getFile() : null);
+			}
+			catch (IOException ex) {
+				directory = null;
+			}
+			if (directory != null && directory.isDirectory()) {
+				collectVersions(location, directory, "", versions);
+			}
+		}
+		return Flux.fromIterable(versions)
+				.flatMap(version -> version, Runtime.getRuntime().availableProcessors())
+				.then(Mono.just(versions.size()));
+	}
+
+	private void collectVersions(Resource location, File directory, String basePath, List<Mono<String>> versions) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String path = basePath + file.getName();
+			if (file.isDirectory()) {
+				collectVersions(location, file, path + "/", versions);
+			}
+			else if (file.isFile()) {
+				VersionStrategy strategy = getStrategyForPath(path);
+				if (strategy instanceof ContentVersionStrategy) {
+					versions.add(precomputeVersion(strategy, location, path));
+				}
+			}
+		}
+	}
+
+	private Mono<String> precomputeVersion(VersionStrategy strategy, Resource location, String path) {
+		return Mono.defer(() -> {
+			try {
+				Resource resource = location.createRelative(path);
+				return (resource.isReadable() ? strategy.getResourceVersion(resource) : Mono.<String>empty());
+			}
+			catch (IOException ex) {
+				return Mono.error(ex);
+			}
+		}).onErrorResume(ex -> {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Failed to precompute version of \"" + path + "\" in " + location, ex);
+			}
+			return Mono.empty();
+		});
+	}
+
 	@Override
 	protected Mono<Resource> resolveResourceInternal(@Nullable ServerWebExchange exchange,
 			String requestPath, List<? extends Resource> locations, ResourceResolverChain chain) {
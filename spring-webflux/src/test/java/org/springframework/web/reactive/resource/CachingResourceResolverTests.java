@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -130,6 +130,30 @@ public class CachingResourceResolverTests {
 		assertEquals(expected, this.cache.get(cacheKey).get());
 	}
 
+	@Test
+	public void resolveResourceAcceptedCodingsInCacheKey() {
+		String file = "bar.css";
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(file)
+				.header("Accept-Encoding", "gzip, zstd, deflate, br;q=0.9, compress;q=0"));
+
+		Resource expected = this.chain.resolveResource(exchange, file, this.locations).block(TIMEOUT);
+		String cacheKey = CachingResourceResolver.RESOLVED_RESOURCE_CACHE_KEY_PREFIX + file + "+encoding=br,deflate,gzip,zstd";
+
+		assertEquals(expected, this.cache.get(cacheKey).get());
+	}
+
+	@Test
+	public void resolveResourceWildcardCodingInCacheKey() {
+		String file = "bar.css";
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(file)
+				.header("Accept-Encoding", "*, gzip;q=0"));
+
+		Resource expected = this.chain.resolveResource(exchange, file, this.locations).block(TIMEOUT);
+		String cacheKey = CachingResourceResolver.RESOLVED_RESOURCE_CACHE_KEY_PREFIX + file + "+encoding=*,-gzip";
+
+		assertEquals(expected, this.cache.get(cacheKey).get());
+	}
+
 	@Test
 	public void resolveResourceNoAcceptEncodingInCacheKey() {
 		String file = "bar.css";
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,18 +15,25 @@
  */
 package org.springframework.web.reactive.resource;
 
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.util.Collections;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link ContentVersionStrategy}.
@@ -37,11 +44,12 @@ public class ContentBasedVersionStrategyTests {
 
 	private ContentVersionStrategy strategy = new ContentVersionStrategy();
 
+	private VersionResourceResolver versionResourceResolver = new VersionResourceResolver();
+
 
 	@Before
 	public void setup() {
-		VersionResourceResolver versionResourceResolver = new VersionResourceResolver();
-		versionResourceResolver.setStrategyMap(Collections.singletonMap("/**", this.strategy));
+		this.versionResourceResolver.setStrategyMap(Collections.singletonMap("/**", this.strategy));
 	}
 
 	@Test
@@ -69,6 +77,31 @@ public class ContentBasedVersionStrategyTests {
 		assertEquals(hash, this.strategy.getResourceVersion(expected).block());
 	}
 
+	@Test
+	public void getResourceVersionFromManifest() throws Exception {
+		File file = File.createTempFile("ContentBasedVersionStrategyTests", ".css");
+		try {
+			Files.write(file.toPath(), "a { color: red; }".getBytes("UTF-8"));
+			assertTrue(file.setLastModified(1000000000000L));
+			Resource resource = new FileSystemResource(file);
+			String version = this.strategy.getResourceVersion(resource).block();
+			assertEquals(DigestUtils.md5DigestAsHex("a { color: red; }".getBytes("UTF-8")), version);
+
+			// Same timestamp: version taken from the manifest
+			Files.write(file.toPath(), "a { color: blue; }".getBytes("UTF-8"));
+			assertTrue(file.setLastModified(1000000000000L));
+			assertEquals(version, this.strategy.getResourceVersion(resource).block());
+
+			// Modified: version computed again
+			assertTrue(file.setLastModified(1000000002000L));
+			assertEquals(DigestUtils.md5DigestAsHex("a { color: blue; }".getBytes("UTF-8")),
+					this.strategy.getResourceVersion(resource).block());
+		}
+		finally {
+			file.delete();
+		}
+	}
+
 	@Test
 	public void addVersionToUrl() throws Exception {
 		String requestPath = "test/bar.css";
@@ -76,4 +109,28 @@ public class ContentBasedVersionStrategyTests {
 		assertEquals("test/bar-123.css", this.strategy.addVersion(requestPath, version));
 	}
 
+	@Test
+	public void precomputeVersions() throws Exception {
+		File directory = Files.createTempDirectory("ContentBasedVersionStrategyTests").toFile();
+		try {
+			File file = new File(directory, "css/main.css");
+			assertTrue(file.getParentFile().mkdirs());
+			Files.write(file.toPath(), "a { color: red; }".getBytes("UTF-8"));
+			assertTrue(file.setLastModified(1000000000000L));
+			ClassLoader classLoader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, null);
+			Resource location = new ClassPathResource("css/", classLoader);
+			assertEquals(Integer.valueOf(1),
+					this.versionResourceResolver.precomputeVersions(Collections.singletonList(location)).block());
+
+			// Same timestamp: version computed in advance, not from the current content
+			Files.write(file.toPath(), "a { color: blue; }".getBytes("UTF-8"));
+			assertTrue(file.setLastModified(1000000000000L));
+			assertEquals(DigestUtils.md5DigestAsHex("a { color: red; }".getBytes("UTF-8")),
+					this.strategy.getResourceVersion(location.createRelative("main.css")).block());
+		}
+		finally {
+			FileSystemUtils.deleteRecursively(directory);
+		}
+	}
+
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.mock.web.test.server.MockServerWebExchange;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.CompressedResourceCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link EncodedResourceResolver}.
+ *
+ * @since 5.0.16
+ */
+public class EncodedResourceResolverTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private static final List<String> CODINGS = EncodedResourceResolver.DEFAULT_CODINGS;
+
+	private File directory;
+
+	private byte[] content;
+
+	private ResourceResolverChain resolver;
+
+	private List<Resource> locations;
+
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("EncodedResourceResolverTests").toFile();
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			builder.append(".item-").append(i).append(" { color: red; }\n");
+		}
+		this.content = builder.toString().getBytes("UTF-8");
+		Files.write(new File(this.directory, "main.css").toPath(), this.content);
+		Files.write(new File(this.directory, "app.js").toPath(), this.content);
+		try (GZIPOutputStream out = new GZIPOutputStream(
+				Files.newOutputStream(new File(this.directory, "app.js.gz").toPath()))) {
+			out.write(this.content);
+		}
+		Files.write(new File(this.directory, "app.js.br").toPath(), new byte[] {1, 2, 3});
+
+		this.resolver = createResolverChain(new EncodedResourceResolver());
+		this.locations = Collections.singletonList(new FileSystemResource(this.directory.getPath() + "/"));
+	}
+
+	@After
+	public void tearDown() {
+		FileSystemUtils.deleteRecursively(this.directory);
+	}
+
+
+	@Test
+	public void acceptedCodings() {
+		assertEquals(Collections.emptyList(), EncodedResourceResolver.getAcceptedCodings(null, CODINGS));
+		assertEquals(Collections.singletonList("gzip"), EncodedResourceResolver.getAcceptedCodings("gzip", CODINGS));
+		assertEquals(Arrays.asList("br", "gzip", "deflate"),
+				EncodedResourceResolver.getAcceptedCodings("deflate, gzip;q=0.8, br", CODINGS));
+		assertEquals(Collections.singletonList("gzip"),
+				EncodedResourceResolver.getAcceptedCodings("GZIP, br;q=0, identity", CODINGS));
+		assertEquals(Arrays.asList("br", "deflate"),
+				EncodedResourceResolver.getAcceptedCodings("*, gzip;q=0.0", CODINGS));
+		assertEquals(Collections.emptyList(), EncodedResourceResolver.getAcceptedCodings("*;q=0", CODINGS));
+	}
+
+	@Test
+	public void resolvePreEncodedBrotli() throws IOException {
+		Resource resolved = resolve("app.js", "gzip, deflate, br");
+		assertEncoded(resolved, "br");
+		assertEquals("app.js", resolved.getFilename());
+		assertEquals(3, resolved.contentLength());
+	}
+
+	@Test
+	public void resolvePreEncodedGzip() throws IOException {
+		Resource resolved = resolve("app.js", "gzip, deflate");
+		assertEncoded(resolved, "gzip");
+		assertEquals(new File(this.directory, "app.js.gz"), resolved.getFile());
+	}
+
+	@Test
+	public void resolveCompressed() throws IOException {
+		Resource resolved = resolve("main.css", "gzip, br");
+		assertEncoded(resolved, "gzip");
+		assertEquals("main.css", resolved.getFilename());
+		assertTrue(resolved.contentLength() < this.content.length);
+		assertArrayEquals(this.content, StreamUtils.copyToByteArray(new GZIPInputStream(resolved.getInputStream())));
+	}
+
+	@Test
+	public void resolveCompressedOnSeparateThread() throws IOException {
+		List<Thread> compressingThreads = new ArrayList<>();
+		EncodedResourceResolver encodedResolver = new EncodedResourceResolver();
+		encodedResolver.setCompressedResourceCache(new CompressedResourceCache() {
+			@Override
+			public Resource getCompressedResource(Resource resource, String coding) throws IOException {
+				compressingThreads.add(Thread.currentThread());
+				return super.getCompressedResource(resource, coding);
+			}
+		});
+		this.resolver = createResolverChain(encodedResolver);
+
+		assertEncoded(resolve("main.css", "gzip"), "gzip");
+		assertEquals(1, compressingThreads.size());
+		assertNotSame(Thread.currentThread(), compressingThreads.get(0));
+	}
+
+	@Test
+	public void resolveWithoutCompressedResourceCache() throws IOException {
+		EncodedResourceResolver encodedResolver = new EncodedResourceResolver();
+		encodedResolver.setCompressedResourceCache(null);
+		this.resolver = createResolverChain(encodedResolver);
+
+		assertNotEncoded(resolve("main.css", "gzip"));
+		assertEncoded(resolve("app.js", "gzip"), "gzip");
+	}
+
+	@Test
+	public void resolveNotCompressible() throws IOException {
+		EncodedResourceResolver encodedResolver = new EncodedResourceResolver();
+		encodedResolver.setMinCompressionSize(this.content.length + 1);
+		this.resolver = createResolverChain(encodedResolver);
+
+		assertNotEncoded(resolve("main.css", "gzip"));
+	}
+
+	@Test
+	public void resolveWithoutAcceptedCoding() throws IOException {
+		assertNotEncoded(resolve("main.css", null));
+		assertNotEncoded(resolve("app.js", "identity"));
+	}
+
+	@Test
+	public void resolveWithNullExchange() throws IOException {
+		Resource resolved = this.resolver.resolveResource(null, "app.js", this.locations).block(TIMEOUT);
+		assertNotNull(resolved);
+		assertFalse(resolved instanceof HttpResource);
+	}
+
+
+	private ResourceResolverChain createResolverChain(EncodedResourceResolver encodedResolver) {
+		List<ResourceResolver> resolvers = new ArrayList<>();
+		resolvers.add(encodedResolver);
+		resolvers.add(new PathResourceResolver());
+		return new DefaultResourceResolverChain(resolvers);
+	}
+
+	private Resource resolve(String path, @Nullable String acceptEncoding) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/" + path);
+		if (acceptEncoding != null) {
+			request.header("Accept-Encoding", acceptEncoding);
+		}
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		Resource resolved = this.resolver.resolveResource(exchange, path, this.locations).block(TIMEOUT);
+		assertNotNull(resolved);
+		return resolved;
+	}
+
+	private void assertEncoded(Resource resolved, String coding) {
+		assertTrue(resolved instanceof HttpResource);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertEquals(coding, headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("Accept-Encoding", headers.getFirst(HttpHeaders.VARY));
+	}
+
+	private void assertNotEncoded(Resource resolved) {
+		assertTrue(resolved instanceof HttpResource);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("Accept-Encoding", headers.getFirst(HttpHeaders.VARY));
+	}
+
+}
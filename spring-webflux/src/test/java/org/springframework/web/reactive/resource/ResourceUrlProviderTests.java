@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.web.reactive.resource;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,16 +28,20 @@ import org.hamcrest.Description;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
+import reactor.core.publisher.Mono;
 
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
 import org.springframework.mock.web.test.MockServletContext;
 import org.springframework.mock.web.test.server.MockServerWebExchange;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.pattern.PathPattern;
 
 import static org.junit.Assert.assertEquals;
@@ -108,6 +113,29 @@ public class ResourceUrlProviderTests {
 		assertEquals("/resources/foo-e36d2e05253c6c7085a91522ce43a0b4.css", url);
 	}
 
+	@Test
+	public void getResourceUrlFromCache() {
+		List<ResourceResolver> resolvers = new ArrayList<>();
+		resolvers.add(new CachingResourceResolver(new ConcurrentMapCache("resourceCache")));
+		resolvers.add(new PathResourceResolver());
+		this.handler.setResourceResolvers(resolvers);
+		assertEquals("/resources/foo.css", getForUriString("/resources/foo.css"));
+
+		this.handler.setResourceResolvers(Collections.singletonList(new FixedUrlPathResolver("foo-1.css")));
+		assertEquals("/resources/foo.css", getForUriString("/resources/foo.css"));
+
+		this.urlProvider.setUrlCacheLimit(0);
+		assertEquals("/resources/foo-1.css", getForUriString("/resources/foo.css"));
+	}
+
+	@Test
+	public void getResourceUrlWithoutCachingResolver() {
+		assertEquals("/resources/foo.css", getForUriString("/resources/foo.css"));
+
+		this.handler.setResourceResolvers(Collections.singletonList(new FixedUrlPathResolver("foo-1.css")));
+		assertEquals("/resources/foo-1.css", getForUriString("/resources/foo.css"));
+	}
+
 	@Test  // SPR-12647
 	public void bestPatternMatch() throws Exception {
 		ResourceWebHandler otherHandler = new ResourceWebHandler();
@@ -144,6 +172,12 @@ public class ResourceUrlProviderTests {
 	}
 
 
+	private String getForUriString(String uriString) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		return this.urlProvider.getForUriString(uriString, exchange).block(Duration.ofSeconds(5));
+	}
+
+
 	@Configuration
 	@SuppressWarnings({"unused", "WeakerAccess"})
 	static class HandlerMappingConfiguration {
@@ -190,4 +224,28 @@ public class ResourceUrlProviderTests {
 		}
 	}
 
+
+	private static class FixedUrlPathResolver implements ResourceResolver {
+
+		private final String urlPath;
+
+		public FixedUrlPathResolver(String urlPath) {
+			this.urlPath = urlPath;
+		}
+
+		@Override
+		public Mono<Resource> resolveResource(@Nullable ServerWebExchange exchange, String requestPath,
+				List<? extends Resource> locations, ResourceResolverChain chain) {
+
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<String> resolveUrlPath(String resourcePath, List<? extends Resource> locations,
+				ResourceResolverChain chain) {
+
+			return Mono.just(this.urlPath);
+		}
+	}
+
 }
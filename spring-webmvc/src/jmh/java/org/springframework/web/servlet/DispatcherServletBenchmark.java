@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.*;
+
+/**
+ * Benchmarks for {@link DispatcherServlet#doDispatch} through {@link MockMvc},
+ * covering handler lookup, argument resolution and message conversion.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DispatcherServletBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public MockMvc mockMvc;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.mockMvc = standaloneSetup(new PersonController()).build();
+		}
+	}
+
+
+	@Benchmark
+	public MvcResult getWithPathVariable(BenchmarkState state) throws Exception {
+		return state.mockMvc.perform(get("/persons/{id}", 42)).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult getWithRequestParam(BenchmarkState state) throws Exception {
+		return state.mockMvc.perform(get("/persons").param("name", "Juergen")).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult postWithRequestBody(BenchmarkState state) throws Exception {
+		return state.mockMvc.perform(post("/persons").contentType("text/plain").content("Juergen")).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult notFound(BenchmarkState state) throws Exception {
+		return state.mockMvc.perform(get("/unknown")).andReturn();
+	}
+
+
+	@RestController
+	static class PersonController {
+
+		@GetMapping("/persons/{id}")
+		public String getPerson(@PathVariable long id) {
+			return "person-" + id;
+		}
+
+		@GetMapping("/persons")
+		public String findPerson(@RequestParam String name) {
+			return "person-" + name;
+		}
+
+		@PostMapping("/persons")
+		public String createPerson(@RequestBody String name) {
+			return "created-" + name;
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Benchmarks for the lookup of pattern-based mappings in
+ * {@link AbstractHandlerMethodMapping}, depending on the number of mappings.
+ *
+ * @since 5.0.16
+ */
+@BenchmarkMode(Mode.Throughput)
+public class HandlerMethodMappingBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"10", "100", "1000"})
+		public int mappingCount;
+
+		public RequestMappingHandlerMapping handlerMapping;
+
+		public MockHttpServletRequest firstRequest;
+
+		public MockHttpServletRequest lastRequest;
+
+		public MockHttpServletRequest notFoundRequest;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.handlerMapping = new RequestMappingHandlerMapping();
+			this.handlerMapping.setApplicationContext(new StaticWebApplicationContext());
+			this.handlerMapping.afterPropertiesSet();
+			Handler handler = new Handler();
+			Method method = Handler.class.getMethod("handle");
+			for (int i = 0; i < this.mappingCount; i++) {
+				RequestMappingInfo info = RequestMappingInfo.paths("/api/resource" + i + "/{id}/items").build();
+				this.handlerMapping.registerMapping(info, handler, method);
+			}
+			this.firstRequest = new MockHttpServletRequest("GET", "/api/resource0/42/items");
+			this.lastRequest = new MockHttpServletRequest("GET", "/api/resource" + (this.mappingCount - 1) + "/42/items");
+			this.notFoundRequest = new MockHttpServletRequest("GET", "/api/unknown/42/items");
+		}
+	}
+
+
+	@Benchmark
+	public HandlerExecutionChain lookupFirst(BenchmarkState state) throws Exception {
+		return state.handlerMapping.getHandler(state.firstRequest);
+	}
+
+	@Benchmark
+	public HandlerExecutionChain lookupLast(BenchmarkState state) throws Exception {
+		return state.handlerMapping.getHandler(state.lastRequest);
+	}
+
+	@Benchmark
+	public HandlerExecutionChain lookupNotFound(BenchmarkState state) throws Exception {
+		return state.handlerMapping.getHandler(state.notFoundRequest);
+	}
+
+
+	public static class Handler {
+
+		public String handle() {
+			return "handled";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,8 @@ package org.springframework.web.servlet.config.annotation;
 import org.springframework.lang.Nullable;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternMatcher;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Helps with configuring HandlerMappings path matching options such as trailing
@@ -104,12 +106,28 @@ public class PathMatchConfigurer {
 	 * Set the PathMatcher implementation to use for matching URL paths
 	 * against registered URL patterns. Default is AntPathMatcher.
 	 * @see org.springframework.util.AntPathMatcher
+	 * @see #setPatternParser
 	 */
 	public PathMatchConfigurer setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
 		return this;
 	}
 
+	/**
+	 * Match URL paths against {@link org.springframework.web.util.pattern.PathPattern
+	 * PathPatterns} parsed by the given parser instead of using AntPathMatcher,
+	 * for request mappings, resource handlers and mapped interceptors alike.
+	 * <p>This is a shortcut for {@link #setPathMatcher setting} a
+	 * {@link PathPatternMatcher}. Note that registered patterns need to follow
+	 * the {@code PathPattern} syntax then, e.g. with "**" only at the end.
+	 * @param patternParser the parser to use for URL patterns
+	 * @since 5.0.16
+	 */
+	public PathMatchConfigurer setPatternParser(PathPatternParser patternParser) {
+		this.pathMatcher = new PathPatternMatcher(patternParser);
+		return this;
+	}
+
 
 	@Nullable
 	public Boolean isUseSuffixPatternMatch() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -309,7 +309,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	@Override
 	protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
+		String lookupPath = getUrlPathHelper().resolveAndCacheLookupPath(request);
 		if (logger.isDebugEnabled()) {
 			logger.debug("Looking up handler method for path " + lookupPath);
 		}
@@ -348,8 +348,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			// Go through all mappings whose patterns may match...
+			addMatchingMappings(this.mappingRegistry.getMappingsByPattern(lookupPath), matches, request);
 		}
 
 		if (!matches.isEmpty()) {
@@ -455,6 +455,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	protected abstract Set<String> getMappingPathPatterns(T mapping);
 
+	/**
+	 * Whether a mapping can only match lookup paths that match one of its
+	 * {@link #getMappingPathPatterns URL patterns}, or any lookup path if it
+	 * has none, allowing the candidates for a lookup path to be narrowed down
+	 * through an index of those patterns.
+	 * <p>The default is {@code false}, checking all mappings for every lookup
+	 * path that has no direct match.
+	 * @since 5.0.16
+	 */
+	protected boolean isMatchedByPathPatterns() {
+		return false;
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -487,6 +500,11 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		@Nullable
+		private MappingPatternIndex<T> patternIndex;
+
+		private boolean patternIndexInitialized;
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -510,6 +528,18 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings whose URL patterns may match the given URL path,
+		 * in registration order, or all mappings if no pattern index is available
+		 * for the configured {@code PathMatcher}. Not thread-safe.
+		 * @since 5.0.16
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByPattern(String urlPath) {
+			return (this.patternIndex != null ? this.patternIndex.getCandidates(urlPath) :
+					this.mappingLookup.keySet());
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -555,6 +585,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					this.urlLookup.add(url, mapping);
 				}
 
+				if (!this.patternIndexInitialized) {
+					if (isMatchedByPathPatterns() && MappingPatternIndex.isApplicable(getPathMatcher())) {
+						this.patternIndex = new MappingPatternIndex<>();
+					}
+					this.patternIndexInitialized = true;
+				}
+				if (this.patternIndex != null) {
+					this.patternIndex.add(mapping, getMappingPathPatterns(mapping));
+				}
+
 				String name = null;
 				if (getNamingStrategy() != null) {
 					name = getNamingStrategy().getName(handlerMethod, mapping);
@@ -642,6 +682,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					}
 				}
 
+				if (this.patternIndex != null) {
+					this.patternIndex.remove(definition.getMapping());
+				}
+
 				removeMappingName(definition);
 
 				this.corsLookup.remove(definition.getHandlerMethod());
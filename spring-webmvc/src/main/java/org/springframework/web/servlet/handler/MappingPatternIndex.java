@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPatternMatcher;
+
+/**
+ * Segment trie over the URL patterns of handler method mappings, narrowing
+ * down the mappings to check for a given lookup path to those whose patterns
+ * can possibly match it.
+ *
+ * <p>Each pattern is split into path segments the same way {@link AntPathMatcher}
+ * does it. Its mapping is stored at the node reached by following its segments,
+ * with literal segments leading to literal children and any other single segment
+ * (e.g. "{id}" or "*.html") leading to a wildcard child. The walk stops before the
+ * last segment, since suffix pattern and trailing slash matching may extend the
+ * last segment, and at any "**" segment. A lookup collects the mappings of all
+ * nodes reachable through the segments of the lookup path: a superset of the
+ * actual matches, to be checked against the full mapping conditions as usual.
+ *
+ * <p>Candidates are returned in registration order, so that subsequent sorting
+ * leads to the same result as going through all mappings.
+ *
+ * <p>Only applicable with an {@link AntPathMatcher} or a {@link PathPatternMatcher}
+ * using "/" as path separator and case-sensitive, untrimmed matching, as determined
+ * by {@link #isApplicable}.
+ *
+ * @since 5.0.16
+ * @param <T> the mapping type
+ */
+final class MappingPatternIndex<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+	private final Node<T> root = new Node<>();
+
+	private long sequence;
+
+
+	/**
+	 * Whether the given {@link PathMatcher} matches patterns segment by segment
+	 * in the way that this index assumes.
+	 */
+	static boolean isApplicable(PathMatcher pathMatcher) {
+		if (pathMatcher.getClass() != AntPathMatcher.class && pathMatcher.getClass() != PathPatternMatcher.class) {
+			return false;
+		}
+		// Probe for non-default settings: custom path separator, case-insensitive
+		// matching or trimming of tokens
+		return (!pathMatcher.match("/*", "/a/b") && !pathMatcher.match("/a", "/A") &&
+				!pathMatcher.match("/a", "/ a"));
+	}
+
+
+	/**
+	 * Add the given mapping under each of its patterns.
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		long order = this.sequence++;
+		if (patterns.isEmpty()) {
+			// No patterns: matching any path
+			this.root.entries.add(new Entry<>(mapping, order));
+			return;
+		}
+		for (String pattern : patterns) {
+			Node<T> node = this.root;
+			String[] segments = tokenize(pattern);
+			for (int i = 0; i < segments.length - 1; i++) {
+				String segment = segments[i];
+				if ("**".equals(segment)) {
+					break;
+				}
+				node = node.getOrCreateChild(isLiteral(segment) ? segment : null);
+			}
+			node.entries.add(new Entry<>(mapping, order));
+		}
+	}
+
+	/**
+	 * Remove the given mapping from each of its patterns.
+	 */
+	public void remove(T mapping) {
+		removeFrom(this.root, mapping);
+	}
+
+	private boolean removeFrom(Node<T> node, T mapping) {
+		node.entries.removeIf(entry -> entry.mapping.equals(mapping));
+		if (node.literalChildren != null) {
+			node.literalChildren.values().removeIf(child -> removeFrom(child, mapping));
+			if (node.literalChildren.isEmpty()) {
+				node.literalChildren = null;
+			}
+		}
+		if (node.wildcardChild != null && removeFrom(node.wildcardChild, mapping)) {
+			node.wildcardChild = null;
+		}
+		return node.isEmpty();
+	}
+
+	/**
+	 * Return the mappings whose patterns may match the given lookup path,
+	 * in registration order.
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		List<Entry<T>> entries = new ArrayList<>();
+		collect(this.root, tokenize(lookupPath), 0, entries);
+		if (entries.size() > 1) {
+			entries.sort((entry1, entry2) -> Long.compare(entry1.order, entry2.order));
+		}
+		List<T> candidates = new ArrayList<>(entries.size());
+		long lastOrder = -1;
+		for (Entry<T> entry : entries) {
+			// Skip duplicates from several patterns of the same mapping
+			if (entry.order != lastOrder) {
+				candidates.add(entry.mapping);
+				lastOrder = entry.order;
+			}
+		}
+		return candidates;
+	}
+
+	private void collect(Node<T> node, String[] segments, int index, List<Entry<T>> entries) {
+		entries.addAll(node.entries);
+		if (index < segments.length) {
+			if (node.literalChildren != null) {
+				Node<T> child = node.literalChildren.get(segments[index]);
+				if (child != null) {
+					collect(child, segments, index + 1, entries);
+				}
+			}
+			if (node.wildcardChild != null) {
+				collect(node.wildcardChild, segments, index + 1, entries);
+			}
+		}
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+	}
+
+	private static boolean isLiteral(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{' || c == '}') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private static final class Node<T> {
+
+		final List<Entry<T>> entries = new ArrayList<>(1);
+
+		@Nullable
+		Map<String, Node<T>> literalChildren;
+
+		@Nullable
+		Node<T> wildcardChild;
+
+		Node<T> getOrCreateChild(@Nullable String literal) {
+			if (literal == null) {
+				if (this.wildcardChild == null) {
+					this.wildcardChild = new Node<>();
+				}
+				return this.wildcardChild;
+			}
+			if (this.literalChildren == null) {
+				this.literalChildren = new HashMap<>(4);
+			}
+			return this.literalChildren.computeIfAbsent(literal, key -> new Node<>());
+		}
+
+		boolean isEmpty() {
+			return (this.entries.isEmpty() && this.literalChildren == null && this.wildcardChild == null);
+		}
+	}
+
+
+	private static final class Entry<T> {
+
+		final T mapping;
+
+		final long order;
+
+		Entry(T mapping, long order) {
+			this.mapping = mapping;
+			this.order = order;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -82,6 +82,17 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		return info.getPatternsCondition().getPatterns();
 	}
 
+	/**
+	 * Return {@code true}, since a {@link RequestMappingInfo} only matches
+	 * lookup paths that match its URL patterns, or any path if it has none.
+	 * Subclasses that match mappings differently need to return {@code false}.
+	 * @since 5.0.16
+	 */
+	@Override
+	protected boolean isMatchedByPathPatterns() {
+		return true;
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -95,9 +95,10 @@ public class CachingResourceResolver extends AbstractResourceResolver {
 		StringBuilder key = new StringBuilder(RESOLVED_RESOURCE_CACHE_KEY_PREFIX);
 		key.append(requestPath);
 		if (request != null) {
-			String encoding = request.getHeader("Accept-Encoding");
-			if (encoding != null && encoding.contains("gzip")) {
-				key.append("+encoding=gzip");
+			// Key by all codings accepted, as an EncodedResourceResolver may serve any of them
+			String codings = EncodedResourceResolver.getAcceptEncodingKey(request.getHeader("Accept-Encoding"));
+			if (!codings.isEmpty()) {
+				key.append("+encoding=").append(codings);
 			}
 		}
 		return key.toString();
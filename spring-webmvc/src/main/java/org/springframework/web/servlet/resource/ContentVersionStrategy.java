@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,16 +17,24 @@
 package org.springframework.web.servlet.resource;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
 import org.springframework.util.DigestUtils;
-import org.springframework.util.FileCopyUtils;
 
 /**
  * A {@code VersionStrategy} that calculates an Hex MD5 hashes from the content
  * of the resource and appends it to the file name, e.g.
  * {@code "styles/main-e36d2e05253c6c7085a91522ce43a0b4.css"}.
  *
+ * <p>Hashes are computed over the streamed content and kept in a version
+ * manifest keyed by resource URL, valid for as long as the last-modified
+ * timestamp of the resource remains the same. Versions may be computed in
+ * advance through {@link VersionResourceResolver#precomputeVersions}.
+ *
  * @author Brian Clozel
  * @author Rossen Stoyanchev
  * @since 4.1
@@ -34,19 +42,79 @@ import org.springframework.util.FileCopyUtils;
  */
 public class ContentVersionStrategy extends AbstractVersionStrategy {
 
+	private final Map<String, ContentVersion> versionManifest = new ConcurrentHashMap<>(256);
+
+
 	public ContentVersionStrategy() {
 		super(new FileNameVersionPathStrategy());
 	}
 
+
 	@Override
 	public String getResourceVersion(Resource resource) {
-		try {
-			byte[] content = FileCopyUtils.copyToByteArray(resource.getInputStream());
-			return DigestUtils.md5DigestAsHex(content);
+		String key = getManifestKey(resource);
+		long lastModified = (key != null ? getLastModified(resource) : 0);
+		if (key != null && lastModified > 0) {
+			ContentVersion cached = this.versionManifest.get(key);
+			if (cached != null && cached.lastModified == lastModified) {
+				return cached.version;
+			}
+		}
+		String version = computeVersion(resource);
+		if (key != null && lastModified > 0) {
+			this.versionManifest.put(key, new ContentVersion(lastModified, version));
+		}
+		return version;
+	}
+
+	/**
+	 * Remove all entries from the version manifest.
+	 * @since 5.0.16
+	 */
+	public void clearVersionManifest() {
+		this.versionManifest.clear();
+	}
+
+
+	private String computeVersion(Resource resource) {
+		try (InputStream inputStream = resource.getInputStream()) {
+			return DigestUtils.md5DigestAsHex(inputStream);
 		}
 		catch (IOException ex) {
 			throw new IllegalStateException("Failed to calculate hash for " + resource, ex);
 		}
 	}
 
+	@Nullable
+	private static String getManifestKey(Resource resource) {
+		try {
+			return resource.getURL().toExternalForm();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private static long getLastModified(Resource resource) {
+		try {
+			return resource.lastModified();
+		}
+		catch (IOException ex) {
+			return 0;
+		}
+	}
+
+
+	private static final class ContentVersion {
+
+		final long lastModified;
+
+		final String version;
+
+		ContentVersion(long lastModified, String version) {
+			this.lastModified = lastModified;
+			this.version = version;
+		}
+	}
+
 }
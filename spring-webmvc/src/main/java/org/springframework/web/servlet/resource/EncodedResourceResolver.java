@@ -0,0 +1,474 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.CompressedResourceCache;
+
+/**
+ * A {@code ResourceResolver} that delegates to the chain to locate a resource
+ * and then serves an encoded variant of it, based on the "Accept-Encoding"
+ * request header.
+ *
+ * <p>The configured {@link #setContentCodings content codings} are tried in
+ * order of preference, among those accepted by the client. A pre-encoded
+ * variant next to the resource, with the file extension registered for the
+ * coding (".br" for "br", ".gz" for "gzip"), is preferred. Otherwise, for
+ * {@link #setCompressibleMediaTypes compressible} resources, the resource is
+ * compressed with the first accepted coding that the {@link CompressedResourceCache}
+ * supports, once, and then served from that cache. Brotli is available through
+ * pre-encoded variants only, since the JDK does not provide a Brotli encoder.
+ *
+ * <p>Resources resolved through this resolver always expose a
+ * "Vary: Accept-Encoding" response header, so that caches in between do not
+ * serve one encoding to clients that only accept another one.
+ *
+ * @since 5.0.16
+ * @see GzipResourceResolver
+ * @see CompressedResourceCache
+ */
+public class EncodedResourceResolver extends AbstractResourceResolver {
+
+	/**
+	 * The default content codings, in order of preference.
+	 */
+	public static final List<String> DEFAULT_CODINGS = Collections.unmodifiableList(
+			Arrays.asList("br", "gzip", "deflate"));
+
+	/**
+	 * The default compressible media types.
+	 */
+	public static final List<MediaType> DEFAULT_COMPRESSIBLE_MEDIA_TYPES = Collections.unmodifiableList(
+			Arrays.asList(MediaType.parseMediaType("text/*"), MediaType.parseMediaType("application/javascript"),
+					MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.parseMediaType("image/svg+xml")));
+
+	/** Default minimum size of resources to be compressed: 1 KB. */
+	public static final long DEFAULT_MIN_COMPRESSION_SIZE = 1024;
+
+
+	private final List<String> contentCodings = new ArrayList<>(DEFAULT_CODINGS);
+
+	private final Map<String, String> extensions = new HashMap<>();
+
+	private final List<MediaType> compressibleMediaTypes = new ArrayList<>(DEFAULT_COMPRESSIBLE_MEDIA_TYPES);
+
+	private long minCompressionSize = DEFAULT_MIN_COMPRESSION_SIZE;
+
+	@Nullable
+	private CompressedResourceCache compressedResourceCache = new CompressedResourceCache();
+
+
+	public EncodedResourceResolver() {
+		this.extensions.put("br", ".br");
+		this.extensions.put("gzip", ".gz");
+	}
+
+
+	/**
+	 * Configure the supported content codings in order of preference.
+	 * <p>By default this is set to {@link #DEFAULT_CODINGS}.
+	 */
+	public void setContentCodings(List<String> codings) {
+		Assert.notEmpty(codings, "At least one content coding expected");
+		this.contentCodings.clear();
+		this.contentCodings.addAll(codings);
+	}
+
+	/**
+	 * Return a read-only list with the supported content codings.
+	 */
+	public List<String> getContentCodings() {
+		return Collections.unmodifiableList(this.contentCodings);
+	}
+
+	/**
+	 * Register the file extension of pre-encoded variants for the given content coding.
+	 * <p>By default, ".br" is registered for "br", and ".gz" for "gzip".
+	 * @param coding the content coding
+	 * @param extension the associated file extension, including a leading dot
+	 */
+	public void registerExtension(String coding, String extension) {
+		this.extensions.put(coding, (extension.startsWith(".") ? extension : "." + extension));
+	}
+
+	/**
+	 * Return a read-only map with coding-to-extension associations.
+	 */
+	public Map<String, String> getExtensions() {
+		return Collections.unmodifiableMap(this.extensions);
+	}
+
+	/**
+	 * Configure the media types of resources to compress if no pre-encoded variant exists.
+	 * <p>By default this is set to {@link #DEFAULT_COMPRESSIBLE_MEDIA_TYPES}.
+	 */
+	public void setCompressibleMediaTypes(List<MediaType> mediaTypes) {
+		this.compressibleMediaTypes.clear();
+		this.compressibleMediaTypes.addAll(mediaTypes);
+	}
+
+	/**
+	 * Return a read-only list with the compressible media types.
+	 */
+	public List<MediaType> getCompressibleMediaTypes() {
+		return Collections.unmodifiableList(this.compressibleMediaTypes);
+	}
+
+	/**
+	 * Configure the minimum size of resources to compress.
+	 * <p>By default this is set to {@link #DEFAULT_MIN_COMPRESSION_SIZE}.
+	 */
+	public void setMinCompressionSize(long minCompressionSize) {
+		this.minCompressionSize = minCompressionSize;
+	}
+
+	/**
+	 * Return the minimum size of resources to compress.
+	 */
+	public long getMinCompressionSize() {
+		return this.minCompressionSize;
+	}
+
+	/**
+	 * Configure the cache for compressed variants, e.g. with a custom maximum
+	 * size or a cache directory, or {@code null} to serve pre-encoded variants only.
+	 * <p>By default, an in-memory {@link CompressedResourceCache} with default
+	 * settings is used.
+	 */
+	public void setCompressedResourceCache(@Nullable CompressedResourceCache compressedResourceCache) {
+		this.compressedResourceCache = compressedResourceCache;
+	}
+
+	/**
+	 * Return the cache for compressed variants, if any.
+	 */
+	@Nullable
+	public CompressedResourceCache getCompressedResourceCache() {
+		return this.compressedResourceCache;
+	}
+
+
+	@Override
+	protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		Resource resource = chain.resolveResource(request, requestPath, locations);
+		if (resource == null || request == null) {
+			return resource;
+		}
+
+		List<String> codings = getAcceptedCodings(request.getHeader(HttpHeaders.ACCEPT_ENCODING), this.contentCodings);
+		if (!codings.isEmpty()) {
+			Resource encoded = getPreEncodedResource(resource, codings);
+			if (encoded == null) {
+				encoded = getCompressedResource(resource, codings);
+			}
+			if (encoded != null) {
+				return encoded;
+			}
+		}
+		return new EncodedResource(resource, resource, null);
+	}
+
+	@Nullable
+	private Resource getPreEncodedResource(Resource resource, List<String> codings) {
+		String filename = resource.getFilename();
+		if (filename == null) {
+			return null;
+		}
+		for (String coding : codings) {
+			String extension = this.extensions.get(coding);
+			if (extension != null) {
+				try {
+					Resource encoded = resource.createRelative(filename + extension);
+					if (encoded.exists()) {
+						return new EncodedResource(resource, encoded, coding);
+					}
+				}
+				catch (IOException ex) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("No " + coding + " resource for [" + filename + "]", ex);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	@Nullable
+	private Resource getCompressedResource(Resource resource, List<String> codings) {
+		CompressedResourceCache cache = this.compressedResourceCache;
+		if (cache == null || !isCompressible(resource)) {
+			return null;
+		}
+		for (String coding : codings) {
+			if (cache.isSupportedCoding(coding)) {
+				try {
+					Resource compressed = cache.getCompressedResource(resource, coding);
+					return (compressed != null ? new EncodedResource(resource, compressed, coding) : null);
+				}
+				catch (IOException ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to compress [" + resource + "]", ex);
+					}
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean isCompressible(Resource resource) {
+		MediaType mediaType = MediaTypeFactory.getMediaType(resource).orElse(null);
+		if (mediaType == null) {
+			return false;
+		}
+		boolean compressibleType = false;
+		for (MediaType compressibleMediaType : this.compressibleMediaTypes) {
+			if (compressibleMediaType.includes(mediaType)) {
+				compressibleType = true;
+				break;
+			}
+		}
+		try {
+			return (compressibleType && resource.contentLength() >= this.minCompressionSize);
+		}
+		catch (IOException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	protected String resolveUrlPathInternal(String resourceUrlPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		return chain.resolveUrlPath(resourceUrlPath, locations);
+	}
+
+
+	/**
+	 * Return the given content codings that the "Accept-Encoding" header value
+	 * accepts, i.e. lists with a non-zero quality value or through "*", in the
+	 * order of the given codings.
+	 */
+	static List<String> getAcceptedCodings(@Nullable String acceptEncoding, List<String> codings) {
+		if (!StringUtils.hasText(acceptEncoding)) {
+			return Collections.emptyList();
+		}
+		Set<String> accepted = new LinkedHashSet<>(4);
+		Set<String> rejected = new LinkedHashSet<>(4);
+		boolean wildcard = parseAcceptEncoding(acceptEncoding, accepted, rejected);
+		List<String> result = new ArrayList<>(codings.size());
+		for (String coding : codings) {
+			if (accepted.contains(coding) || (wildcard && !rejected.contains(coding))) {
+				result.add(coding);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return a normalized form of the "Accept-Encoding" header value for use
+	 * as a cache key: all codings it accepts, whether configured or not, in
+	 * alphabetical order, followed by "*" and the codings it rejects, if it
+	 * accepts any other coding through "*". Header values that accept the
+	 * same codings result in the same key.
+	 * @return the key, or an empty String if no coding is accepted
+	 */
+	static String getAcceptEncodingKey(@Nullable String acceptEncoding) {
+		if (!StringUtils.hasText(acceptEncoding)) {
+			return "";
+		}
+		Set<String> accepted = new TreeSet<>();
+		Set<String> rejected = new TreeSet<>();
+		boolean wildcard = parseAcceptEncoding(acceptEncoding, accepted, rejected);
+		StringBuilder key = new StringBuilder(StringUtils.collectionToCommaDelimitedString(accepted));
+		if (wildcard) {
+			key.append(key.length() > 0 ? ",*" : "*");
+			for (String coding : rejected) {
+				key.append(",-").append(coding);
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Collect the accepted and rejected codings of the given "Accept-Encoding"
+	 * header value.
+	 * @return whether "*" accepts all other codings
+	 */
+	private static boolean parseAcceptEncoding(String acceptEncoding, Set<String> accepted, Set<String> rejected) {
+		boolean wildcard = false;
+		for (String token : StringUtils.tokenizeToStringArray(acceptEncoding.toLowerCase(Locale.ENGLISH), ",")) {
+			int index = token.indexOf(';');
+			String coding = (index != -1 ? token.substring(0, index).trim() : token);
+			boolean acceptable = (index == -1 || !isZeroQuality(token.substring(index + 1)));
+			if ("*".equals(coding)) {
+				wildcard = acceptable;
+			}
+			else if (acceptable) {
+				accepted.add(coding);
+			}
+			else {
+				rejected.add(coding);
+			}
+		}
+		return wildcard;
+	}
+
+	private static boolean isZeroQuality(String parameters) {
+		for (String parameter : StringUtils.tokenizeToStringArray(parameters, ";")) {
+			if (parameter.startsWith("q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2).trim()) <= 0;
+				}
+				catch (NumberFormatException ex) {
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * An encoded {@link HttpResource}, or the original resource with a "Vary"
+	 * header only if no coding applies.
+	 */
+	static final class EncodedResource extends AbstractResource implements HttpResource {
+
+		private final Resource original;
+
+		private final Resource encoded;
+
+		@Nullable
+		private final String coding;
+
+		EncodedResource(Resource original, Resource encoded, @Nullable String coding) {
+			this.original = original;
+			this.encoded = encoded;
+			this.coding = coding;
+		}
+
+		@Nullable
+		public String getContentCoding() {
+			return this.coding;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return this.encoded.getInputStream();
+		}
+
+		@Override
+		public boolean exists() {
+			return this.encoded.exists();
+		}
+
+		@Override
+		public boolean isReadable() {
+			return this.encoded.isReadable();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return this.encoded.isOpen();
+		}
+
+		@Override
+		public boolean isFile() {
+			return this.encoded.isFile();
+		}
+
+		@Override
+		public URL getURL() throws IOException {
+			return this.encoded.getURL();
+		}
+
+		@Override
+		public URI getURI() throws IOException {
+			return this.encoded.getURI();
+		}
+
+		@Override
+		public File getFile() throws IOException {
+			return this.encoded.getFile();
+		}
+
+		@Override
+		public long contentLength() throws IOException {
+			return this.encoded.contentLength();
+		}
+
+		@Override
+		public long lastModified() throws IOException {
+			return this.original.lastModified();
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.original.createRelative(relativePath);
+		}
+
+		@Override
+		@Nullable
+		public String getFilename() {
+			return this.original.getFilename();
+		}
+
+		@Override
+		public String getDescription() {
+			return this.encoded.getDescription();
+		}
+
+		@Override
+		public HttpHeaders getResponseHeaders() {
+			HttpHeaders headers = (this.original instanceof HttpResource ?
+					((HttpResource) this.original).getResponseHeaders() : new HttpHeaders());
+			if (this.coding != null) {
+				headers.add(HttpHeaders.CONTENT_ENCODING, this.coding);
+			}
+			headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			return headers;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -25,6 +26,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -36,10 +39,12 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.converter.ResourceHttpMessageConverter;
 import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
 import org.springframework.http.server.ServletServerHttpRequest;
@@ -96,10 +101,24 @@ import org.springframework.web.util.UrlPathHelper;
 public class ResourceHttpRequestHandler extends WebContentGenerator
 		implements HttpRequestHandler, EmbeddedValueResolverAware, InitializingBean, CorsConfigurationSource {
 
+	/**
+	 * Default minimum size of content to be written through sendfile: 48 KB, as in Tomcat.
+	 * @since 5.0.16
+	 */
+	public static final long DEFAULT_SENDFILE_MIN_SIZE = 48 * 1024;
+
 	private static final Log logger = LogFactory.getLog(ResourceHttpRequestHandler.class);
 
 	private static final String URL_RESOURCE_CHARSET_PREFIX = "[charset=";
 
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
 
 	private final List<String> locationValues = new ArrayList<>(4);
 
@@ -132,6 +151,8 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 	@Nullable
 	private StringValueResolver embeddedValueResolver;
 
+	private long sendfileMinSize = DEFAULT_SENDFILE_MIN_SIZE;
+
 
 	public ResourceHttpRequestHandler() {
 		super(HttpMethod.GET.name(), HttpMethod.HEAD.name());
@@ -303,6 +324,26 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		return this.urlPathHelper;
 	}
 
+	/**
+	 * Set the minimum size of content, full or a single range, to be written
+	 * by the Servlet container through Tomcat's sendfile support rather than
+	 * through this handler, if available. A negative value disables sendfile.
+	 * <p>By default this is set to {@link #DEFAULT_SENDFILE_MIN_SIZE}.
+	 * @since 5.0.16
+	 * @see #sendfile
+	 */
+	public void setSendfileMinSize(long sendfileMinSize) {
+		this.sendfileMinSize = sendfileMinSize;
+	}
+
+	/**
+	 * Return the minimum size of content to be written through sendfile.
+	 * @since 5.0.16
+	 */
+	public long getSendfileMinSize() {
+		return this.sendfileMinSize;
+	}
+
 	@Override
 	public void setEmbeddedValueResolver(StringValueResolver resolver) {
 		this.embeddedValueResolver = resolver;
@@ -484,6 +525,12 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		if (request.getHeader(HttpHeaders.RANGE) == null) {
 			Assert.state(this.resourceHttpMessageConverter != null, "Not initialized");
 			setHeaders(response, resource, mediaType);
+			if (sendfile(request, response, resource, 0, resource.contentLength())) {
+				if (mediaType == null) {
+					response.setContentType(getDefaultMediaType(resource).toString());
+				}
+				return;
+			}
 			this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
 		}
 		else {
@@ -493,8 +540,20 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 			try {
 				List<HttpRange> httpRanges = inputMessage.getHeaders().getRange();
 				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-				this.resourceRegionHttpMessageConverter.write(
-						HttpRange.toResourceRegions(httpRanges, resource), mediaType, outputMessage);
+				List<ResourceRegion> regions = HttpRange.toResourceRegions(httpRanges, resource);
+				if (regions.size() == 1) {
+					ResourceRegion region = regions.get(0);
+					long length = resource.contentLength();
+					long start = region.getPosition();
+					long end = Math.min(start + region.getCount(), length);
+					if (sendfile(request, response, resource, start, end)) {
+						response.setContentType((mediaType != null ? mediaType : getDefaultMediaType(resource)).toString());
+						response.setHeader("Content-Range", "bytes " + start + '-' + (end - 1) + '/' + length);
+						response.setContentLengthLong(end - start);
+						return;
+					}
+				}
+				this.resourceRegionHttpMessageConverter.write(regions, mediaType, outputMessage);
 			}
 			catch (IllegalArgumentException ex) {
 				response.setHeader("Content-Range", "bytes */" + resource.contentLength());
@@ -719,6 +778,56 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
 	}
 
+	/**
+	 * Let the Servlet container write the given range of the resource content
+	 * through Tomcat's sendfile support, if available for the current request.
+	 * <p>This requires the resource to be a file and to exceed the configured
+	 * {@link #setSendfileMinSize minimum size}, as well as the request and
+	 * response not to be wrapped, since the content bypasses any wrapper
+	 * (e.g. for compression or ETag calculation) then. The caller is expected
+	 * to set all response headers, but not to write any content if this method
+	 * returns {@code true}.
+	 * <p>This is the only way content is written without copying it through
+	 * the response {@code OutputStream}; on other containers, or if this
+	 * method returns {@code false}, the message converters copy it as usual.
+	 * @param request current servlet request
+	 * @param response current servlet response
+	 * @param resource the identified resource
+	 * @param start the position of the first byte to write
+	 * @param end the position after the last byte to write
+	 * @return {@code true} if the container is going to write the content,
+	 * {@code false} if it needs to be written by this handler
+	 * @since 5.0.16
+	 */
+	protected boolean sendfile(HttpServletRequest request, HttpServletResponse response,
+			Resource resource, long start, long end) {
+
+		if (this.sendfileMinSize < 0 || end - start < this.sendfileMinSize ||
+				request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE) != Boolean.TRUE ||
+				request instanceof ServletRequestWrapper || response instanceof ServletResponseWrapper ||
+				!resource.isFile()) {
+			return false;
+		}
+		File file;
+		try {
+			file = resource.getFile();
+		}
+		catch (IOException ex) {
+			return false;
+		}
+		request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getAbsolutePath());
+		request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+		request.setAttribute(SENDFILE_END_ATTRIBUTE, end);
+		if (logger.isTraceEnabled()) {
+			logger.trace("Writing bytes " + start + "-" + (end - 1) + " of " + resource + " through sendfile");
+		}
+		return true;
+	}
+
+	private MediaType getDefaultMediaType(Resource resource) {
+		return MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+	}
+
 
 	@Override
 	public String toString() {
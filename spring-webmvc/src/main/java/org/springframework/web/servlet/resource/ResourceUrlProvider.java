@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,11 @@ package org.springframework.web.servlet.resource;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.logging.Log;
@@ -50,6 +52,13 @@ import org.springframework.web.util.UrlPathHelper;
  */
 public class ResourceUrlProvider implements ApplicationListener<ContextRefreshedEvent> {
 
+	/**
+	 * Default maximum number of public URL paths to cache.
+	 * @since 5.0.16
+	 * @see #setUrlCacheLimit
+	 */
+	public static final int DEFAULT_URL_CACHE_LIMIT = 1024;
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private UrlPathHelper urlPathHelper = new UrlPathHelper();
@@ -60,6 +69,12 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 
 	private boolean autodetect = true;
 
+	private int urlCacheLimit = DEFAULT_URL_CACHE_LIMIT;
+
+	private boolean precomputeVersions = false;
+
+	private final Map<String, String> urlCache = new ConcurrentHashMap<>(256);
+
 
 	/**
 	 * Configure a {@code UrlPathHelper} to use in
@@ -104,6 +119,7 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 			this.handlerMap.clear();
 			this.handlerMap.putAll(handlerMap);
 			this.autodetect = false;
+			this.urlCache.clear();
 		}
 	}
 
@@ -123,6 +139,48 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 		return this.autodetect;
 	}
 
+	/**
+	 * Set the maximum number of resolved public URL paths to cache by lookup path,
+	 * or 0 to resolve every lookup path through the resolver chain again.
+	 * <p>Only URL paths resolved by a handler whose resolver chain includes a
+	 * {@link CachingResourceResolver} are cached, since the chain itself would
+	 * otherwise not cache them either, e.g. during development.
+	 * <p>By default this is set to {@link #DEFAULT_URL_CACHE_LIMIT}.
+	 * @since 5.0.16
+	 */
+	public void setUrlCacheLimit(int urlCacheLimit) {
+		this.urlCacheLimit = urlCacheLimit;
+		this.urlCache.clear();
+	}
+
+	/**
+	 * Return the maximum number of resolved public URL paths to cache.
+	 * @since 5.0.16
+	 */
+	public int getUrlCacheLimit() {
+		return this.urlCacheLimit;
+	}
+
+	/**
+	 * Whether to compute the content-based versions of the resources of all
+	 * resource handlers with a {@link VersionResourceResolver} when the
+	 * application context is refreshed, rather than on first use.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.0.16
+	 * @see VersionResourceResolver#precomputeVersions
+	 */
+	public void setPrecomputeVersions(boolean precomputeVersions) {
+		this.precomputeVersions = precomputeVersions;
+	}
+
+	/**
+	 * Whether content-based versions are computed on context refresh.
+	 * @since 5.0.16
+	 */
+	public boolean isPrecomputeVersions() {
+		return this.precomputeVersions;
+	}
+
 	@Override
 	public void onApplicationEvent(ContextRefreshedEvent event) {
 		if (isAutodetect()) {
@@ -135,6 +193,23 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 				this.autodetect = false;
 			}
 		}
+		this.urlCache.clear();
+		if (isPrecomputeVersions()) {
+			precomputeVersions();
+		}
+	}
+
+	private void precomputeVersions() {
+		for (ResourceHttpRequestHandler handler : this.handlerMap.values()) {
+			for (ResourceResolver resolver : handler.getResourceResolvers()) {
+				if (resolver instanceof VersionResourceResolver) {
+					int count = ((VersionResourceResolver) resolver).precomputeVersions(handler.getLocations());
+					if (logger.isDebugEnabled()) {
+						logger.debug("Precomputed " + count + " resource versions for " + handler.getLocations());
+					}
+				}
+			}
+		}
 	}
 
 
@@ -232,6 +307,11 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 			logger.trace("Getting resource URL for lookup path \"" + lookupPath + "\"");
 		}
 
+		String cached = this.urlCache.get(lookupPath);
+		if (cached != null) {
+			return cached;
+		}
+
 		List<String> matchingPatterns = new ArrayList<>();
 		for (String pattern : this.handlerMap.keySet()) {
 			if (getPathMatcher().match(pattern, lookupPath)) {
@@ -257,7 +337,19 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 				if (logger.isTraceEnabled()) {
 					logger.trace("Resolved public resource URL path \"" + resolved + "\"");
 				}
-				return pathMapping + resolved;
+				String url = pathMapping + resolved;
+				if (isUrlCacheable(handler)) {
+					if (this.urlCache.size() >= this.urlCacheLimit) {
+						// Evict an arbitrary entry, keeping the cache within bounds without a lock
+						Iterator<String> it = this.urlCache.keySet().iterator();
+						if (it.hasNext()) {
+							it.next();
+							it.remove();
+						}
+					}
+					this.urlCache.put(lookupPath, url);
+				}
+				return url;
 			}
 		}
 
@@ -267,4 +359,16 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 		return null;
 	}
 
+	private boolean isUrlCacheable(ResourceHttpRequestHandler handler) {
+		if (this.urlCacheLimit <= 0) {
+			return false;
+		}
+		for (ResourceResolver resolver : handler.getResourceResolvers()) {
+			if (resolver instanceof CachingResourceResolver) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 }
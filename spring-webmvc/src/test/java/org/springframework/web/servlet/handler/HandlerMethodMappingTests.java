@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -107,6 +107,25 @@ public class HandlerMethodMappingTests {
 		this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo"));
 	}
 
+	@Test
+	public void patternMatchWithMappingNotMatchedByPathPatterns() throws Exception {
+		AbstractHandlerMethodMapping<String> mapping = new MyHandlerMethodMapping() {
+			@Override
+			protected Set<String> getMappingPathPatterns(String key) {
+				return Collections.singleton(key);
+			}
+			@Override
+			protected String getMatchingMapping(String key, HttpServletRequest request) {
+				return (request.getRequestURI().endsWith(key.substring(key.lastIndexOf('/'))) ? key : null);
+			}
+		};
+		mapping.registerMapping("/foo/bar/baz", this.handler, this.method1);
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/other/baz"));
+		assertNotNull(result);
+		assertEquals(method1, result.getMethod());
+	}
+
 	@Test
 	public void detectHandlerMethodsInAncestorContexts() {
 		StaticApplicationContext cxt = new StaticApplicationContext();
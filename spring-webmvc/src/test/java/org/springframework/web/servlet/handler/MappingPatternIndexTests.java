@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.util.pattern.PathPatternMatcher;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MappingPatternIndex}.
+ *
+ * @since 5.0.16
+ */
+public class MappingPatternIndexTests {
+
+	private final MappingPatternIndex<String> index = new MappingPatternIndex<>();
+
+
+	@Test
+	public void literalAndCaptureSegments() {
+		this.index.add("persons", Collections.singletonList("/persons/{id}"));
+		this.index.add("orders", Collections.singletonList("/orders/{id}/items"));
+		this.index.add("anyItems", Collections.singletonList("/*/{id}/items"));
+
+		assertEquals(Collections.singletonList("persons"), this.index.getCandidates("/persons/"));
+		assertEquals(Arrays.asList("orders", "anyItems"), this.index.getCandidates("/orders/42/items"));
+		assertEquals(Collections.singletonList("anyItems"), this.index.getCandidates("/accounts/42/items"));
+		assertEquals(Collections.emptyList(), this.index.getCandidates("/accounts"));
+	}
+
+	@Test
+	public void lastSegmentAlwaysCandidate() {
+		// Suffix pattern and trailing slash matching may apply to the last segment
+		this.index.add("persons", Collections.singletonList("/persons/list"));
+
+		assertEquals(Collections.singletonList("persons"), this.index.getCandidates("/persons/list.json"));
+		assertEquals(Collections.singletonList("persons"), this.index.getCandidates("/persons/list/"));
+	}
+
+	@Test
+	public void multiSegmentWildcardsAndEmptyPatterns() {
+		this.index.add("resources", Collections.singletonList("/resources/**/*.css"));
+		this.index.add("files", Collections.singletonList("/files/{*path}"));
+		this.index.add("any", Collections.emptyList());
+
+		assertEquals(Arrays.asList("resources", "any"), this.index.getCandidates("/resources/a/b/c.css"));
+		assertEquals(Arrays.asList("files", "any"), this.index.getCandidates("/files/a/b/c.css"));
+		assertEquals(Collections.singletonList("any"), this.index.getCandidates("/other/c.css"));
+	}
+
+	@Test
+	public void registrationOrderAcrossPatterns() {
+		this.index.add("first", Arrays.asList("/a/{x}/c", "/a/b/{y}"));
+		this.index.add("second", Collections.singletonList("/{x}/b/c"));
+		this.index.add("third", Collections.singletonList("/a/b/c"));
+
+		assertEquals(Arrays.asList("first", "second", "third"), this.index.getCandidates("/a/b/c"));
+	}
+
+	@Test
+	public void remove() {
+		this.index.add("persons", Arrays.asList("/persons/{id}", "/people/{id}"));
+		this.index.add("orders", Collections.singletonList("/orders/{id}"));
+		this.index.remove("persons");
+
+		assertEquals(Collections.emptyList(), this.index.getCandidates("/persons/42"));
+		assertEquals(Collections.emptyList(), this.index.getCandidates("/people/42"));
+		assertEquals(Collections.singletonList("orders"), this.index.getCandidates("/orders/42"));
+	}
+
+	@Test
+	public void isApplicable() {
+		assertTrue(MappingPatternIndex.isApplicable(new AntPathMatcher()));
+
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		assertFalse(MappingPatternIndex.isApplicable(pathMatcher));
+
+		pathMatcher = new AntPathMatcher();
+		pathMatcher.setTrimTokens(true);
+		assertFalse(MappingPatternIndex.isApplicable(pathMatcher));
+
+		assertFalse(MappingPatternIndex.isApplicable(new AntPathMatcher(".")));
+		assertTrue(MappingPatternIndex.isApplicable(new PathPatternMatcher()));
+
+		PathPatternParser parser = new PathPatternParser();
+		parser.setCaseSensitive(false);
+		assertFalse(MappingPatternIndex.isApplicable(new PathPatternMatcher(parser)));
+
+		PathMatcher customMatcher = new AntPathMatcher() {
+		};
+		assertFalse(MappingPatternIndex.isApplicable(customMatcher));
+	}
+
+}
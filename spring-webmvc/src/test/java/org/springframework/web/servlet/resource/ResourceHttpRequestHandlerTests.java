@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -650,6 +651,65 @@ public class ResourceHttpRequestHandlerTests {
 		assertEquals("t.", ranges[11]);
 	}
 
+	@Test
+	public void sendfile() throws Exception {
+		this.handler.setSendfileMinSize(0);
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.txt");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertEquals(200, this.response.getStatus());
+		assertEquals("text/plain", this.response.getContentType());
+		assertEquals(10, this.response.getContentLength());
+		assertEquals(new ClassPathResource("test/foo.txt", getClass()).getFile().getAbsolutePath(),
+				this.request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals(0L, this.request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(10L, this.request.getAttribute("org.apache.tomcat.sendfile.end"));
+		assertEquals(0, this.response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void sendfileByteRange() throws Exception {
+		this.handler.setSendfileMinSize(0);
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		this.request.addHeader("Range", "bytes=2-5");
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.txt");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertEquals(206, this.response.getStatus());
+		assertEquals("text/plain", this.response.getContentType());
+		assertEquals(4, this.response.getContentLength());
+		assertEquals("bytes 2-5/10", this.response.getHeader("Content-Range"));
+		assertEquals(2L, this.request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(6L, this.request.getAttribute("org.apache.tomcat.sendfile.end"));
+		assertEquals(0, this.response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void sendfileNotApplicable() throws Exception {
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.txt");
+
+		// Below the default minimum size
+		this.handler.handleRequest(this.request, this.response);
+		assertNull(this.request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals("Some text.", this.response.getContentAsString());
+
+		// Wrapped response
+		this.handler.setSendfileMinSize(0);
+		this.response = new MockHttpServletResponse();
+		this.handler.handleRequest(this.request, new HttpServletResponseWrapper(this.response));
+		assertNull(this.request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals("Some text.", this.response.getContentAsString());
+
+		// No sendfile support
+		this.request.removeAttribute("org.apache.tomcat.sendfile.support");
+		this.response = new MockHttpServletResponse();
+		this.handler.handleRequest(this.request, this.response);
+		assertNull(this.request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals("Some text.", this.response.getContentAsString());
+	}
+
 	@Test  // SPR-14005
 	public void doOverwriteExistingCacheControlHeaders() throws Exception {
 		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
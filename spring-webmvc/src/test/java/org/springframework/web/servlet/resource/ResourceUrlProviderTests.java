@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.servlet.resource;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,7 @@ import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
@@ -116,6 +118,33 @@ public class ResourceUrlProviderTests {
 		assertEquals("/resources/foo-e36d2e05253c6c7085a91522ce43a0b4.css", url);
 	}
 
+	@Test
+	public void getResourceUrlFromCache() {
+		List<ResourceResolver> resolvers = new ArrayList<>();
+		resolvers.add(new CachingResourceResolver(new ConcurrentMapCache("resourceCache")));
+		resolvers.add(new PathResourceResolver());
+		this.handler.setResourceResolvers(resolvers);
+		assertEquals("/resources/foo.css", this.urlProvider.getForLookupPath("/resources/foo.css"));
+
+		ResourceResolver resolver = mock(ResourceResolver.class);
+		when(resolver.resolveUrlPath(any(), any(), any())).thenReturn("foo-1.css");
+		this.handler.setResourceResolvers(Collections.singletonList(resolver));
+		assertEquals("/resources/foo.css", this.urlProvider.getForLookupPath("/resources/foo.css"));
+
+		this.urlProvider.setUrlCacheLimit(0);
+		assertEquals("/resources/foo-1.css", this.urlProvider.getForLookupPath("/resources/foo.css"));
+	}
+
+	@Test
+	public void getResourceUrlWithoutCachingResolver() {
+		assertEquals("/resources/foo.css", this.urlProvider.getForLookupPath("/resources/foo.css"));
+
+		ResourceResolver resolver = mock(ResourceResolver.class);
+		when(resolver.resolveUrlPath(any(), any(), any())).thenReturn("foo-1.css");
+		this.handler.setResourceResolvers(Collections.singletonList(resolver));
+		assertEquals("/resources/foo-1.css", this.urlProvider.getForLookupPath("/resources/foo.css"));
+	}
+
 	@Test // SPR-12647
 	public void bestPatternMatch() throws Exception {
 		ResourceHttpRequestHandler otherHandler = new ResourceHttpRequestHandler();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -77,6 +77,13 @@ public class WebMvcStompEndpointRegistry implements StompEndpointRegistry {
 		if (transportRegistration.getSendBufferSizeLimit() != null) {
 			this.subProtocolWebSocketHandler.setSendBufferSizeLimit(transportRegistration.getSendBufferSizeLimit());
 		}
+		if (transportRegistration.getSendBufferOverflowStrategy() != null) {
+			this.subProtocolWebSocketHandler.setSendBufferOverflowStrategy(
+					transportRegistration.getSendBufferOverflowStrategy());
+		}
+		if (transportRegistration.getSendCoalescingLimit() != null) {
+			this.subProtocolWebSocketHandler.setSendCoalescingLimit(transportRegistration.getSendCoalescingLimit());
+		}
 
 		this.stompHandler = new StompSubProtocolHandler();
 		if (transportRegistration.getMessageSizeLimit() != null) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.lang.Nullable;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
 
 /**
@@ -40,6 +41,12 @@ public class WebSocketTransportRegistration {
 	@Nullable
 	private Integer sendBufferSizeLimit;
 
+	@Nullable
+	private ConcurrentWebSocketSessionDecorator.OverflowStrategy sendBufferOverflowStrategy;
+
+	@Nullable
+	private Integer sendCoalescingLimit;
+
 	private final List<WebSocketHandlerDecoratorFactory> decoratorFactories = new ArrayList<>(2);
 
 
@@ -151,6 +158,54 @@ public class WebSocketTransportRegistration {
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Configure what to do when the {@link #setSendBufferSizeLimit
+	 * sendBufferSizeLimit} is exceeded: terminate the session, drop the oldest
+	 * buffered messages, or drop buffered messages superseded by a later
+	 * message for the same subscription and destination, e.g. for frequently
+	 * updated values where only the latest one matters.
+	 * <p>By default the session is terminated.
+	 * @param overflowStrategy the strategy to use
+	 * @since 5.0.16
+	 */
+	public WebSocketTransportRegistration setSendBufferOverflowStrategy(
+			ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy) {
+
+		this.sendBufferOverflowStrategy = overflowStrategy;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected ConcurrentWebSocketSessionDecorator.OverflowStrategy getSendBufferOverflowStrategy() {
+		return this.sendBufferOverflowStrategy;
+	}
+
+	/**
+	 * Configure the maximum number of bytes up to which STOMP frames buffered
+	 * while a previous send is in progress are combined into a single WebSocket
+	 * message, or SockJS frame when SockJS fallback options are in use, so that
+	 * a backlog of messages is written with fewer sends.
+	 * <p>By default this is set to 0, meaning each STOMP frame is sent as a
+	 * separate message.
+	 * @param sendCoalescingLimit the maximum number of bytes to combine
+	 * @since 5.0.16
+	 */
+	public WebSocketTransportRegistration setSendCoalescingLimit(int sendCoalescingLimit) {
+		this.sendCoalescingLimit = sendCoalescingLimit;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected Integer getSendCoalescingLimit() {
+		return this.sendCoalescingLimit;
+	}
+
 	/**
 	 * Configure one or more factories to decorate the handler used to process
 	 * WebSocket messages. This may be useful in some advanced use cases, for
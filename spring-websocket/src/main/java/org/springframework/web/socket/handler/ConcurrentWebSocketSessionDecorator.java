@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,16 +17,26 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
@@ -37,7 +47,13 @@ import org.springframework.web.socket.WebSocketSession;
  * <p>If a send is slow, subsequent attempts to send more messages from other threads
  * will not be able to acquire the flush lock and messages will be buffered instead.
  * At that time, the specified buffer-size limit and send-time limit will be checked
- * and the session will be closed if the limits are exceeded.
+ * and the session will be closed if the limits are exceeded, or, as of 5.0.16,
+ * buffered messages dropped instead depending on the {@link OverflowStrategy}.
+ *
+ * <p>As of 5.0.16, buffered text or binary messages may also be coalesced into
+ * a single message up to a {@link #setCoalescingLimit coalescing limit}, so that
+ * a backlog is flushed with fewer sends. This is only suitable for protocols
+ * that delimit their own messages, such as STOMP.
  *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
@@ -52,10 +68,19 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private final int bufferSizeLimit;
 
-	private final Queue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<>();
+	private final OverflowStrategy overflowStrategy;
+
+	@Nullable
+	private Function<WebSocketMessage<?>, Object> conflationKeyResolver;
+
+	private int coalescingLimit;
+
+	private final Queue<BufferedMessage> buffer = new LinkedBlockingQueue<>();
 
 	private final AtomicInteger bufferSize = new AtomicInteger();
 
+	private volatile boolean conflationPending;
+
 	private volatile long sendStartTime;
 
 	private volatile boolean limitExceeded;
@@ -74,9 +99,26 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	 * @param bufferSizeLimit the buffer-size limit (number of bytes)
 	 */
 	public ConcurrentWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit) {
+		this(delegate, sendTimeLimit, bufferSizeLimit, OverflowStrategy.TERMINATE);
+	}
+
+	/**
+	 * Create a new {@code ConcurrentWebSocketSessionDecorator}.
+	 * @param delegate the {@code WebSocketSession} to delegate to
+	 * @param sendTimeLimit the send-time limit (milliseconds)
+	 * @param bufferSizeLimit the buffer-size limit (number of bytes)
+	 * @param overflowStrategy the overflow strategy to use; by default the
+	 * session is terminated.
+	 * @since 5.0.16
+	 */
+	public ConcurrentWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit,
+			int bufferSizeLimit, OverflowStrategy overflowStrategy) {
+
 		super(delegate);
+		Assert.notNull(overflowStrategy, "OverflowStrategy is required");
 		this.sendTimeLimit = sendTimeLimit;
 		this.bufferSizeLimit = bufferSizeLimit;
+		this.overflowStrategy = overflowStrategy;
 	}
 
 
@@ -96,6 +138,55 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return this.bufferSizeLimit;
 	}
 
+	/**
+	 * Return the configured overflow strategy.
+	 * @since 5.0.16
+	 */
+	public OverflowStrategy getOverflowStrategy() {
+		return this.overflowStrategy;
+	}
+
+	/**
+	 * Configure a function to obtain the key by which buffered messages are
+	 * conflated with the {@link OverflowStrategy#CONFLATE CONFLATE} strategy,
+	 * e.g. the destination of a message. Messages without a key are never
+	 * conflated. The key is obtained once for each message when it is sent.
+	 * <p>By default this is not set.
+	 * @since 5.0.16
+	 */
+	public void setConflationKeyResolver(@Nullable Function<WebSocketMessage<?>, Object> conflationKeyResolver) {
+		this.conflationKeyResolver = conflationKeyResolver;
+	}
+
+	/**
+	 * Return the configured function to obtain the conflation key of messages.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public Function<WebSocketMessage<?>, Object> getConflationKeyResolver() {
+		return this.conflationKeyResolver;
+	}
+
+	/**
+	 * Configure the maximum number of bytes up to which consecutive buffered
+	 * text or binary messages are combined into a single message when flushed.
+	 * Messages are concatenated as they are, so this should only be enabled
+	 * for protocols that delimit their own messages, such as STOMP.
+	 * <p>By default this is set to 0, meaning messages are never combined.
+	 * @since 5.0.16
+	 */
+	public void setCoalescingLimit(int coalescingLimit) {
+		this.coalescingLimit = coalescingLimit;
+	}
+
+	/**
+	 * Return the configured coalescing limit (number of bytes).
+	 * @since 5.0.16
+	 */
+	public int getCoalescingLimit() {
+		return this.coalescingLimit;
+	}
+
 	/**
 	 * Return the current buffer size (number of bytes).
 	 */
@@ -119,8 +210,16 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 			return;
 		}
 
-		this.buffer.add(message);
+		Object conflationKey = null;
+		Function<WebSocketMessage<?>, Object> keyResolver = this.conflationKeyResolver;
+		if (keyResolver != null && this.overflowStrategy == OverflowStrategy.CONFLATE) {
+			conflationKey = keyResolver.apply(message);
+		}
+		this.buffer.add(new BufferedMessage(message, conflationKey));
 		this.bufferSize.addAndGet(message.getPayloadLength());
+		if (conflationKey != null) {
+			this.conflationPending = true;
+		}
 
 		do {
 			if (!tryFlushMessageBuffer()) {
@@ -143,15 +242,31 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	private boolean tryFlushMessageBuffer() throws IOException {
 		if (this.flushLock.tryLock()) {
 			try {
-				while (true) {
-					WebSocketMessage<?> message = this.buffer.poll();
-					if (message == null || shouldNotSend()) {
-						break;
-					}
+				WebSocketMessage<?> message = pollMessage();
+				while (message != null && !shouldNotSend()) {
 					this.bufferSize.addAndGet(message.getPayloadLength() * -1);
+					WebSocketMessage<?> next = null;
+					if (this.coalescingLimit > 0 && isCoalescable(message)) {
+						List<WebSocketMessage<?>> messages = null;
+						int size = message.getPayloadLength();
+						while ((next = pollMessage()) != null && next.getClass() == message.getClass() &&
+								isCoalescable(next) && size + next.getPayloadLength() <= this.coalescingLimit) {
+							this.bufferSize.addAndGet(next.getPayloadLength() * -1);
+							if (messages == null) {
+								messages = new ArrayList<>();
+								messages.add(message);
+							}
+							messages.add(next);
+							size += next.getPayloadLength();
+						}
+						if (messages != null) {
+							message = coalesce(messages, size);
+						}
+					}
 					this.sendStartTime = System.currentTimeMillis();
 					getDelegate().sendMessage(message);
 					this.sendStartTime = 0;
+					message = (next != null ? next : pollMessage());
 				}
 			}
 			finally {
@@ -163,6 +278,30 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return false;
 	}
 
+	@Nullable
+	private WebSocketMessage<?> pollMessage() {
+		BufferedMessage bufferedMessage = this.buffer.poll();
+		return (bufferedMessage != null ? bufferedMessage.getMessage() : null);
+	}
+
+	private static boolean isCoalescable(WebSocketMessage<?> message) {
+		return ((message instanceof TextMessage || message instanceof BinaryMessage) && message.isLast());
+	}
+
+	private static WebSocketMessage<?> coalesce(List<WebSocketMessage<?>> messages, int size) {
+		ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+		for (WebSocketMessage<?> message : messages) {
+			if (message instanceof TextMessage) {
+				byteBuffer.put(((TextMessage) message).asBytes());
+			}
+			else {
+				byteBuffer.put(((BinaryMessage) message).getPayload().duplicate());
+			}
+		}
+		return (messages.get(0) instanceof TextMessage ?
+				new TextMessage(byteBuffer.array()) : new BinaryMessage(byteBuffer.array()));
+	}
+
 	private void checkSessionLimits() {
 		if (!shouldNotSend() && this.closeLock.tryLock()) {
 			try {
@@ -172,9 +311,22 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 					limitExceeded(reason);
 				}
 				else if (getBufferSize() > getBufferSizeLimit()) {
-					String format = "The send buffer size %d bytes for session '%s' exceeded the allowed limit %d";
-					String reason = String.format(format, getBufferSize(), getId(), getBufferSizeLimit());
-					limitExceeded(reason);
+					switch (this.overflowStrategy) {
+						case TERMINATE:
+							String format = "The send buffer size %d bytes for session '%s' exceeded the allowed limit %d";
+							String reason = String.format(format, getBufferSize(), getId(), getBufferSizeLimit());
+							limitExceeded(reason);
+							break;
+						case CONFLATE:
+							conflateMessages();
+							dropMessages();
+							break;
+						case DROP:
+							dropMessages();
+							break;
+						default:
+							throw new IllegalStateException("Unexpected OverflowStrategy: " + this.overflowStrategy);
+					}
 				}
 			}
 			finally {
@@ -183,6 +335,63 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		}
 	}
 
+	/**
+	 * Remove buffered messages superseded by a later message with the same
+	 * conflation key. This is a no-op unless messages with a key have been
+	 * buffered since the last time.
+	 */
+	private void conflateMessages() {
+		if (!this.conflationPending) {
+			return;
+		}
+		this.conflationPending = false;
+		Map<Object, BufferedMessage> latestMessages = new HashMap<>();
+		List<BufferedMessage> keyedMessages = new ArrayList<>();
+		for (BufferedMessage bufferedMessage : this.buffer) {
+			Object key = bufferedMessage.getConflationKey();
+			if (key != null) {
+				BufferedMessage previous = latestMessages.put(key, bufferedMessage);
+				if (previous != null) {
+					keyedMessages.add(previous);
+				}
+			}
+		}
+		if (keyedMessages.isEmpty()) {
+			return;
+		}
+		int count = 0;
+		for (BufferedMessage bufferedMessage : keyedMessages) {
+			// The message may have been polled by a concurrent flush in the meantime
+			// (BufferedMessage uses identity equality)
+			if (this.buffer.remove(bufferedMessage)) {
+				this.bufferSize.addAndGet(bufferedMessage.getMessage().getPayloadLength() * -1);
+				count++;
+			}
+		}
+		if (count > 0 && logger.isDebugEnabled()) {
+			logger.debug("Conflated " + count + " messages, buffer size: " + getBufferSize());
+		}
+	}
+
+	/**
+	 * Remove the oldest buffered messages until the buffer size is back within
+	 * the limit.
+	 */
+	private void dropMessages() {
+		int count = 0;
+		while (getBufferSize() > getBufferSizeLimit()) {
+			WebSocketMessage<?> message = pollMessage();
+			if (message == null) {
+				break;
+			}
+			this.bufferSize.addAndGet(message.getPayloadLength() * -1);
+			count++;
+		}
+		if (count > 0 && logger.isDebugEnabled()) {
+			logger.debug("Dropped " + count + " messages, buffer size: " + getBufferSize());
+		}
+	}
+
 	private void limitExceeded(String reason) {
 		this.limitExceeded = true;
 		throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
@@ -223,4 +432,57 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return getDelegate().toString();
 	}
 
+
+	/**
+	 * A buffered message along with its conflation key, if any.
+	 */
+	private static final class BufferedMessage {
+
+		private final WebSocketMessage<?> message;
+
+		@Nullable
+		private final Object conflationKey;
+
+		BufferedMessage(WebSocketMessage<?> message, @Nullable Object conflationKey) {
+			this.message = message;
+			this.conflationKey = conflationKey;
+		}
+
+		public WebSocketMessage<?> getMessage() {
+			return this.message;
+		}
+
+		@Nullable
+		public Object getConflationKey() {
+			return this.conflationKey;
+		}
+	}
+
+
+	/**
+	 * Enum for options of what to do when the buffer fills up.
+	 * @since 5.0.16
+	 */
+	public enum OverflowStrategy {
+
+		/**
+		 * Throw {@link SessionLimitExceededException} that will result
+		 * in the session being terminated.
+		 */
+		TERMINATE,
+
+		/**
+		 * Drop the oldest messages from the buffer.
+		 */
+		DROP,
+
+		/**
+		 * Drop messages superseded by a later message with the same key, as
+		 * obtained from the {@link #setConflationKeyResolver conflation key
+		 * resolver}, e.g. older updates to the same destination, and then the
+		 * oldest messages from the buffer if still necessary.
+		 */
+		CONFLATE
+	}
+
 }
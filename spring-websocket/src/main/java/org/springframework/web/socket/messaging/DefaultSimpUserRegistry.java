@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.socket.messaging;
 
 import java.security.Principal;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -42,6 +43,11 @@ import org.springframework.util.Assert;
  * {@link AbstractSubProtocolEvent} application context events to keep
  * track of connected users and their subscriptions.
  *
+ * <p>Users, sessions and subscriptions are kept in concurrent maps that are
+ * updated per user name, session and destination, without a registry-wide
+ * lock. Sessions are also indexed by id and subscriptions by destination, so
+ * that {@link #findSubscriptions(String)} need not visit every session.
+ *
  * @author Rossen Stoyanchev
  * @since 4.2
  */
@@ -55,7 +61,8 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 	/* Secondary lookup across all sessions by id */
 	private final Map<String, LocalSimpSession> sessions = new ConcurrentHashMap<>();
 
-	private final Object sessionLock = new Object();
+	/* Secondary lookup across all subscriptions by destination */
+	private final Map<String, Set<SimpSubscription>> subscriptionsByDestination = new ConcurrentHashMap<>();
 
 
 	/**
@@ -98,7 +105,7 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 				String id = accessor.getSubscriptionId();
 				String destination = accessor.getDestination();
 				if (id != null && destination != null) {
-					session.addSubscription(id, destination);
+					addSubscription(session, id, destination);
 				}
 			}
 		}
@@ -111,26 +118,25 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 			if (user instanceof DestinationUserNameProvider) {
 				name = ((DestinationUserNameProvider) user).getDestinationUserName();
 			}
-			synchronized (this.sessionLock) {
-				LocalSimpUser simpUser = this.users.get(name);
+			this.users.compute(name, (userName, simpUser) -> {
 				if (simpUser == null) {
-					simpUser = new LocalSimpUser(name);
-					this.users.put(name, simpUser);
+					simpUser = new LocalSimpUser(userName);
 				}
 				LocalSimpSession session = new LocalSimpSession(sessionId, simpUser);
 				simpUser.addSession(session);
 				this.sessions.put(sessionId, session);
-			}
+				return simpUser;
+			});
 		}
 		else if (event instanceof SessionDisconnectEvent) {
-			synchronized (this.sessionLock) {
-				LocalSimpSession session = this.sessions.remove(sessionId);
-				if (session != null) {
-					LocalSimpUser user = session.getUser();
-					user.removeSession(sessionId);
-					if (!user.hasSessions()) {
-						this.users.remove(user.getName());
-					}
+			LocalSimpSession session = this.sessions.remove(sessionId);
+			if (session != null) {
+				this.users.computeIfPresent(session.getUser().getName(), (userName, simpUser) -> {
+					simpUser.removeSession(sessionId);
+					return (simpUser.hasSessions() ? simpUser : null);
+				});
+				for (SimpSubscription subscription : session.subscriptions.values()) {
+					removeFromDestinationIndex(subscription);
 				}
 			}
 		}
@@ -139,12 +145,36 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 			if (session != null) {
 				String subscriptionId = accessor.getSubscriptionId();
 				if (subscriptionId != null) {
-					session.removeSubscription(subscriptionId);
+					SimpSubscription subscription = session.removeSubscription(subscriptionId);
+					if (subscription != null) {
+						removeFromDestinationIndex(subscription);
+					}
 				}
 			}
 		}
 	}
 
+	private void addSubscription(LocalSimpSession session, String id, String destination) {
+		SimpSubscription subscription = new LocalSimpSubscription(id, destination, session);
+		SimpSubscription previous = session.addSubscription(subscription);
+		if (previous != null) {
+			removeFromDestinationIndex(previous);
+		}
+		this.subscriptionsByDestination.computeIfAbsent(destination,
+				key -> ConcurrentHashMap.newKeySet()).add(subscription);
+		if (this.sessions.get(session.getId()) != session) {
+			// Disconnected concurrently, possibly before the subscription was indexed
+			removeFromDestinationIndex(subscription);
+		}
+	}
+
+	private void removeFromDestinationIndex(SimpSubscription subscription) {
+		this.subscriptionsByDestination.computeIfPresent(subscription.getDestination(), (destination, set) -> {
+			set.remove(subscription);
+			return (set.isEmpty() ? null : set);
+		});
+	}
+
 	@Override
 	public boolean supportsSourceType(@Nullable Class<?> sourceType) {
 		return true;
@@ -169,6 +199,7 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 		return this.users.size();
 	}
 
+	@Override
 	public Set<SimpSubscription> findSubscriptions(SimpSubscriptionMatcher matcher) {
 		Set<SimpSubscription> result = new HashSet<>();
 		for (LocalSimpSession session : this.sessions.values()) {
@@ -181,6 +212,12 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 		return result;
 	}
 
+	@Override
+	public Set<SimpSubscription> findSubscriptions(String destination) {
+		Set<SimpSubscription> subscriptions = this.subscriptionsByDestination.get(destination);
+		return (subscriptions != null ? new HashSet<>(subscriptions) : Collections.emptySet());
+	}
+
 
 	@Override
 	public String toString() {
@@ -276,12 +313,14 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 			return new HashSet<>(this.subscriptions.values());
 		}
 
-		void addSubscription(String id, String destination) {
-			this.subscriptions.put(id, new LocalSimpSubscription(id, destination, this));
+		@Nullable
+		SimpSubscription addSubscription(SimpSubscription subscription) {
+			return this.subscriptions.put(subscription.getId(), subscription);
 		}
 
-		void removeSubscription(String id) {
-			this.subscriptions.remove(id);
+		@Nullable
+		SimpSubscription removeSubscription(String id) {
+			return this.subscriptions.remove(id);
 		}
 
 		@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.web.socket.messaging;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.Arrays;
 import java.util.List;
@@ -589,6 +590,84 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 		return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
 	}
 
+	/**
+	 * Return the subscription id and destination of a STOMP MESSAGE frame,
+	 * so that older messages for the same subscription and destination can
+	 * be conflated, or {@code null} for other frames.
+	 */
+	@Override
+	@Nullable
+	public Object getConflationKey(WebSocketMessage<?> message) {
+		String frame;
+		if (message instanceof TextMessage) {
+			frame = ((TextMessage) message).getPayload();
+		}
+		else if (message instanceof BinaryMessage) {
+			frame = readFrameHeaders(((BinaryMessage) message).getPayload().duplicate());
+		}
+		else {
+			return null;
+		}
+		int lineStart = 0;
+		int lineEnd = frame.indexOf('\n');
+		if (lineEnd == -1 || !StompCommand.MESSAGE.name().equals(trimLine(frame, lineStart, lineEnd))) {
+			return null;
+		}
+		String subscription = null;
+		String destination = null;
+		while (subscription == null || destination == null) {
+			lineStart = lineEnd + 1;
+			lineEnd = frame.indexOf('\n', lineStart);
+			if (lineEnd == -1) {
+				break;
+			}
+			String line = trimLine(frame, lineStart, lineEnd);
+			if (line.isEmpty()) {
+				break;
+			}
+			if (subscription == null && line.startsWith(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER + ":")) {
+				subscription = line.substring(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER.length() + 1);
+			}
+			else if (destination == null && line.startsWith(StompHeaderAccessor.STOMP_DESTINATION_HEADER + ":")) {
+				destination = line.substring(StompHeaderAccessor.STOMP_DESTINATION_HEADER.length() + 1);
+			}
+		}
+		return (subscription != null && destination != null ? Arrays.asList(subscription, destination) : null);
+	}
+
+	/**
+	 * Decode the command and header lines of a binary frame, up to and
+	 * including the blank line that ends them, leaving the body as is.
+	 */
+	private static String readFrameHeaders(ByteBuffer buffer) {
+		int start = buffer.position();
+		int end = buffer.limit();
+		boolean lineEmpty = false;
+		for (int i = start; i < buffer.limit(); i++) {
+			byte b = buffer.get(i);
+			if (b == '\n') {
+				if (lineEmpty) {
+					end = i + 1;
+					break;
+				}
+				lineEmpty = true;
+			}
+			else if (b != '\r') {
+				lineEmpty = false;
+			}
+		}
+		byte[] bytes = new byte[end - start];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String trimLine(String frame, int start, int end) {
+		if (end > start && frame.charAt(end - 1) == '\r') {
+			end--;
+		}
+		return frame.substring(start, end);
+	}
+
 	@Override
 	public void afterSessionStarted(WebSocketSession session, MessageChannel outputChannel) {
 		if (session.getTextMessageSizeLimit() < MINIMUM_WEBSOCKET_MESSAGE_SIZE) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -69,6 +69,20 @@ public interface SubProtocolHandler {
 	@Nullable
 	String resolveSessionId(Message<?> message);
 
+	/**
+	 * Return the key by which the given message to a client may be conflated
+	 * with later messages to the same client when messages are buffered, e.g.
+	 * its destination, or {@code null} if the message must not be conflated.
+	 * <p>The default implementation returns {@code null}.
+	 * @param message the WebSocket message to the client
+	 * @since 5.0.16
+	 * @see org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy#CONFLATE
+	 */
+	@Nullable
+	default Object getConflationKey(WebSocketMessage<?> message) {
+		return null;
+	}
+
 	/**
 	 * Invoked after a {@link WebSocketSession} has started.
 	 * @param session the client session
@@ -98,6 +98,11 @@ public class SubProtocolWebSocketHandler
 
 	private int sendBufferSizeLimit = 512 * 1024;
 
+	private ConcurrentWebSocketSessionDecorator.OverflowStrategy sendBufferOverflowStrategy =
+			ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE;
+
+	private int sendCoalescingLimit;
+
 	private volatile long lastSessionCheckTime = System.currentTimeMillis();
 
 	private final ReentrantLock sessionCheckLock = new ReentrantLock();
@@ -224,6 +229,44 @@ public class SubProtocolWebSocketHandler
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Specify what to do when the buffer-size limit is exceeded.
+	 * <p>By default this is set to
+	 * {@link ConcurrentWebSocketSessionDecorator.OverflowStrategy#TERMINATE TERMINATE}.
+	 * @since 5.0.16
+	 * @see ConcurrentWebSocketSessionDecorator
+	 */
+	public void setSendBufferOverflowStrategy(ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy) {
+		Assert.notNull(overflowStrategy, "OverflowStrategy is required");
+		this.sendBufferOverflowStrategy = overflowStrategy;
+	}
+
+	/**
+	 * Return the strategy for when the buffer-size limit is exceeded.
+	 * @since 5.0.16
+	 */
+	public ConcurrentWebSocketSessionDecorator.OverflowStrategy getSendBufferOverflowStrategy() {
+		return this.sendBufferOverflowStrategy;
+	}
+
+	/**
+	 * Specify the limit (number of bytes) up to which buffered messages are
+	 * combined into a single WebSocket message, or 0 to not combine them.
+	 * @since 5.0.16
+	 * @see ConcurrentWebSocketSessionDecorator#setCoalescingLimit
+	 */
+	public void setSendCoalescingLimit(int sendCoalescingLimit) {
+		this.sendCoalescingLimit = sendCoalescingLimit;
+	}
+
+	/**
+	 * Return the limit (number of bytes) up to which buffered messages are combined.
+	 * @since 5.0.16
+	 */
+	public int getSendCoalescingLimit() {
+		return this.sendCoalescingLimit;
+	}
+
 	/**
 	 * Return a String describing internal state and counters.
 	 */
@@ -382,14 +425,24 @@ public class SubProtocolWebSocketHandler
 	/**
 	 * Decorate the given {@link WebSocketSession}, if desired.
 	 * <p>The default implementation builds a {@link ConcurrentWebSocketSessionDecorator}
-	 * with the configured {@link #getSendTimeLimit() send-time limit} and
-	 * {@link #getSendBufferSizeLimit() buffer-size limit}.
+	 * with the configured {@link #getSendTimeLimit() send-time limit},
+	 * {@link #getSendBufferSizeLimit() buffer-size limit},
+	 * {@link #getSendBufferOverflowStrategy() overflow strategy} and
+	 * {@link #getSendCoalescingLimit() coalescing limit}, and with the
+	 * {@link SubProtocolHandler#getConflationKey conflation keys} of the
+	 * sub-protocol handler for the session.
 	 * @param session the original {@code WebSocketSession}
 	 * @return the decorated {@code WebSocketSession}, or potentially the given session as-is
 	 * @since 4.3.13
 	 */
 	protected WebSocketSession decorateSession(WebSocketSession session) {
-		return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(
+				session, getSendTimeLimit(), getSendBufferSizeLimit(), getSendBufferOverflowStrategy());
+		if (getSendBufferOverflowStrategy() == ConcurrentWebSocketSessionDecorator.OverflowStrategy.CONFLATE) {
+			decorator.setConflationKeyResolver(findProtocolHandler(session)::getConflationKey);
+		}
+		decorator.setCoalescingLimit(getSendCoalescingLimit());
+		return decorator;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,10 +20,12 @@ import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
@@ -188,6 +190,143 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		}
 	}
 
+	@Test
+	public void sendBufferSizeExceededWithDropStrategy() throws IOException, InterruptedException {
+
+		BlockingSession blockingSession = new BlockingSession();
+		blockingSession.setId("123");
+		blockingSession.setOpen(true);
+		CountDownLatch sentMessageLatch = blockingSession.getSentMessageLatch();
+
+		final ConcurrentWebSocketSessionDecorator concurrentSession = new ConcurrentWebSocketSessionDecorator(
+				blockingSession, 10 * 1000, 1024, ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+
+		Executors.newSingleThreadExecutor().submit((Runnable) () -> {
+			TextMessage message = new TextMessage("slow message");
+			try {
+				concurrentSession.sendMessage(message);
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0 ; i < 1023; i++) {
+			sb.append("a");
+		}
+
+		for (int i = 0; i < 5; i++) {
+			TextMessage message = new TextMessage(sb.toString() + i);
+			concurrentSession.sendMessage(message);
+		}
+
+		assertEquals(1024, concurrentSession.getBufferSize());
+		assertTrue(blockingSession.isOpen());
+
+		sentMessageLatch = blockingSession.getSentMessageLatch();
+		blockingSession.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertEquals(sb.toString() + 4, blockingSession.getSentMessages().get(1).getPayload());
+	}
+
+	@Test
+	public void sendBufferSizeExceededWithConflateStrategy() throws IOException, InterruptedException {
+
+		BlockingSession blockingSession = new BlockingSession();
+		blockingSession.setId("123");
+		blockingSession.setOpen(true);
+		CountDownLatch sentMessageLatch = blockingSession.getSentMessageLatch();
+
+		final ConcurrentWebSocketSessionDecorator concurrentSession = new ConcurrentWebSocketSessionDecorator(
+				blockingSession, 10 * 1000, 10, ConcurrentWebSocketSessionDecorator.OverflowStrategy.CONFLATE);
+		AtomicInteger resolvedKeys = new AtomicInteger();
+		concurrentSession.setConflationKeyResolver(message -> {
+			resolvedKeys.incrementAndGet();
+			return ((String) message.getPayload()).substring(0, 1);
+		});
+
+		Executors.newSingleThreadExecutor().submit((Runnable) () -> {
+			TextMessage message = new TextMessage("slow message");
+			try {
+				concurrentSession.sendMessage(message);
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+
+		concurrentSession.sendMessage(new TextMessage("a:1"));
+		concurrentSession.sendMessage(new TextMessage("b:1"));
+		concurrentSession.sendMessage(new TextMessage("a:2"));
+		assertEquals(9, concurrentSession.getBufferSize());
+
+		concurrentSession.sendMessage(new TextMessage("b:2"));
+		assertEquals(6, concurrentSession.getBufferSize());
+		assertTrue(blockingSession.isOpen());
+		assertEquals(5, resolvedKeys.get());
+
+		sentMessageLatch = blockingSession.getSentMessageLatch();
+		blockingSession.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertEquals("a:2", blockingSession.getSentMessages().get(1).getPayload());
+
+		sentMessageLatch = blockingSession.getSentMessageLatch();
+		blockingSession.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertEquals("b:2", blockingSession.getSentMessages().get(2).getPayload());
+	}
+
+	@Test
+	public void sendCoalescedAfterBlockedSend() throws IOException, InterruptedException {
+
+		BlockingSession blockingSession = new BlockingSession();
+		blockingSession.setOpen(true);
+		CountDownLatch sentMessageLatch = blockingSession.getSentMessageLatch();
+
+		final ConcurrentWebSocketSessionDecorator concurrentSession =
+				new ConcurrentWebSocketSessionDecorator(blockingSession, 10 * 1000, 1024);
+		concurrentSession.setCoalescingLimit(16);
+
+		Executors.newSingleThreadExecutor().submit((Runnable) () -> {
+			TextMessage message = new TextMessage("slow message");
+			try {
+				concurrentSession.sendMessage(message);
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 4; i++) {
+			concurrentSession.sendMessage(new TextMessage("frame" + i));
+		}
+		concurrentSession.sendMessage(new BinaryMessage(new byte[] {1}));
+		assertEquals(4 * 6 + 1, concurrentSession.getBufferSize());
+
+		sentMessageLatch = blockingSession.getSentMessageLatch();
+		blockingSession.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertEquals("frame0frame1", blockingSession.getSentMessages().get(1).getPayload());
+
+		sentMessageLatch = blockingSession.getSentMessageLatch();
+		blockingSession.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertEquals("frame2frame3", blockingSession.getSentMessages().get(2).getPayload());
+
+		sentMessageLatch = blockingSession.getSentMessageLatch();
+		blockingSession.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertTrue(blockingSession.getSentMessages().get(3) instanceof BinaryMessage);
+		assertEquals(0, concurrentSession.getBufferSize());
+	}
+
 	@Test
 	public void closeStatusNormal() throws Exception {
 
@@ -251,19 +390,24 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 			return this.nextMessageLatch.get();
 		}
 
+		public void release() {
+			this.releaseLatch.get().countDown();
+		}
+
 		@Override
 		public void sendMessage(WebSocketMessage<?> message) throws IOException {
 			super.sendMessage(message);
+			CountDownLatch latch = new CountDownLatch(1);
+			this.releaseLatch.set(latch);
 			if (this.nextMessageLatch != null) {
 				this.nextMessageLatch.get().countDown();
 			}
-			block();
+			block(latch);
 		}
 
-		private void block() {
+		private void block(CountDownLatch latch) {
 			try {
-				this.releaseLatch.set(new CountDownLatch(1));
-				this.releaseLatch.get().await();
+				latch.await();
 			}
 			catch (InterruptedException e) {
 				e.printStackTrace();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -159,6 +159,42 @@ public class DefaultSimpUserRegistryTests {
 		assertEquals(new HashSet<>(Arrays.asList("sub1", "sub2")), sessionIds);
 	}
 
+	@Test
+	public void findSubscriptionsByDestination() throws Exception {
+		DefaultSimpUserRegistry registry = new DefaultSimpUserRegistry();
+
+		TestPrincipal user = new TestPrincipal("joe");
+		Message<byte[]> message = createMessage(SimpMessageType.CONNECT_ACK, "123");
+		registry.onApplicationEvent(new SessionConnectedEvent(this, message, user));
+		message = createMessage(SimpMessageType.CONNECT_ACK, "456");
+		registry.onApplicationEvent(new SessionConnectedEvent(this, message, user));
+
+		message = createMessage(SimpMessageType.SUBSCRIBE, "123", "sub1", "/match");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+		message = createMessage(SimpMessageType.SUBSCRIBE, "123", "sub2", "/not-a-match");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+		message = createMessage(SimpMessageType.SUBSCRIBE, "456", "sub1", "/match");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+
+		Set<SimpSubscription> matches = registry.findSubscriptions("/match");
+		assertEquals(2, matches.size());
+		for (SimpSubscription match : matches) {
+			assertEquals("sub1", match.getId());
+			assertEquals("/match", match.getDestination());
+		}
+
+		message = createMessage(SimpMessageType.UNSUBSCRIBE, "123", "sub1", null);
+		registry.onApplicationEvent(new SessionUnsubscribeEvent(this, message, user));
+		matches = registry.findSubscriptions("/match");
+		assertEquals(1, matches.size());
+		assertEquals("456", matches.iterator().next().getSession().getId());
+
+		message = createMessage(SimpMessageType.DISCONNECT, "456");
+		registry.onApplicationEvent(new SessionDisconnectEvent(this, message, "456", CloseStatus.NORMAL, user));
+		assertEquals(0, registry.findSubscriptions("/match").size());
+		assertEquals(1, registry.findSubscriptions("/not-a-match").size());
+	}
+
 	@Test
 	public void nullSessionId() throws Exception {
 		DefaultSimpUserRegistry registry = new DefaultSimpUserRegistry();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -286,6 +286,39 @@ public class StompSubProtocolHandlerTests {
 		assertTrue(webSocketMessage instanceof TextMessage);
 	}
 
+	@Test
+	public void conflationKey() {
+
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setMessageId("mess0");
+		headers.setSubscriptionId("sub0");
+		headers.setDestination("/topic/price.stock.MMM");
+		Message<byte[]> message = MessageBuilder.createMessage("1.0".getBytes(), headers.getMessageHeaders());
+		this.protocolHandler.handleMessageToClient(this.session, message);
+
+		headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setMessageId("mess1");
+		headers.setSubscriptionId("sub0");
+		headers.setDestination("/topic/price.stock.MMM");
+		headers.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+		message = MessageBuilder.createMessage("2.0".getBytes(), headers.getMessageHeaders());
+		this.protocolHandler.handleMessageToClient(this.session, message);
+
+		headers = StompHeaderAccessor.create(StompCommand.RECEIPT);
+		headers.setReceiptId("receipt0");
+		message = MessageBuilder.createMessage(EMPTY_PAYLOAD, headers.getMessageHeaders());
+		this.protocolHandler.handleMessageToClient(this.session, message);
+
+		List<WebSocketMessage<?>> messages = this.session.getSentMessages();
+		assertEquals(3, messages.size());
+		assertTrue(messages.get(0) instanceof TextMessage);
+		assertTrue(messages.get(1) instanceof BinaryMessage);
+		Object key = this.protocolHandler.getConflationKey(messages.get(0));
+		assertEquals(Arrays.asList("sub0", "/topic/price.stock.MMM"), key);
+		assertEquals(key, this.protocolHandler.getConflationKey(messages.get(1)));
+		assertNull(this.protocolHandler.getConflationKey(messages.get(2)));
+	}
+
 	@Test
 	public void handleMessageFromClient() {
 